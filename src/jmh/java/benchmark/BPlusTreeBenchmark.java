@@ -0,0 +1,150 @@
+package benchmark;
+
+import index.BPlusTree;
+import index.BPlusTreeLeafNodeView;
+import index.RecordId;
+import io.reader.BinaryTupleReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import model.Tuple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.DBConstants;
+
+/**
+ * Time to build a B+ tree over the first column of a 100000 tuple table, and to look up a key in
+ * it. Lookups read the nodes either through the buffer pool or straight from the index file, and
+ * either deserialize the leaf or read it in place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class BPlusTreeBenchmark {
+  private static final int LOOKUP_KEYS = 1024;
+
+  @Param({"10", "50"})
+  public int order;
+
+  private BenchmarkDatabase database;
+  private String indexPath;
+  private List<Integer> keys;
+  private List<RecordId> recordIds;
+
+  /** The index the lookups read from. */
+  @State(Scope.Benchmark)
+  public static class Index {
+
+    /** whether the nodes are read through the buffer pool */
+    @Param({"true", "false"})
+    public boolean pooled;
+
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private BPlusTree tree;
+    private final BPlusTreeLeafNodeView leaf = new BPlusTreeLeafNodeView();
+    private int[] lookupKeys;
+    private int nextLookup;
+
+    @Setup(Level.Trial)
+    public void open(BPlusTreeBenchmark benchmark) throws IOException {
+      String path = benchmark.indexPath;
+      channel = new FileInputStream(path).getChannel();
+      buffer = ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE);
+      tree = BPlusTree.deserialize(pooled ? path : null, channel, buffer);
+
+      Random random = new Random(42);
+      lookupKeys = new int[LOOKUP_KEYS];
+      for (int i = 0; i < LOOKUP_KEYS; i++) {
+        lookupKeys[i] = benchmark.keys.get(random.nextInt(benchmark.keys.size()));
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    database = BenchmarkDatabase.create("Boats 100000 D,0,100000 E,0,100 F,0,100");
+    String tablePath = database.getDirectory().resolve("db/data/Boats").toString();
+    indexPath = database.getDirectory().resolve("Boats.D").toString();
+
+    // collect the keys and record ids the way the index builder does
+    keys = new ArrayList<>();
+    recordIds = new ArrayList<>();
+    try (FileChannel channel = new FileInputStream(tablePath).getChannel()) {
+      BinaryTupleReader reader = new BinaryTupleReader(channel);
+      RecordId recordId = new RecordId(reader.getCurrentPageNumber(), 0);
+      Tuple tuple;
+      while ((tuple = reader.getNextTuple()) != null) {
+        keys.add(tuple.getInt(0));
+        recordIds.add(recordId);
+        recordId = new RecordId(reader.getCurrentPageNumber(), reader.getCurrentTupleNumber());
+      }
+    }
+
+    buildTree(indexPath);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    database.close();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void build() throws IOException {
+    buildTree(indexPath + ".build");
+  }
+
+  @Benchmark
+  public void lookup(Index index, Blackhole blackhole) throws IOException {
+    int key = index.lookupKeys[index.nextLookup];
+    index.nextLookup = (index.nextLookup + 1) % LOOKUP_KEYS;
+    blackhole.consume(index.tree.findLeafNodeByKey(index.channel, index.buffer, key));
+  }
+
+  @Benchmark
+  public void lookupInPlace(Index index, Blackhole blackhole) throws IOException {
+    int key = index.lookupKeys[index.nextLookup];
+    index.nextLookup = (index.nextLookup + 1) % LOOKUP_KEYS;
+    index.tree.findLeafByKey(index.channel, index.buffer, key, index.leaf);
+    blackhole.consume(index.leaf.findEntryIndexByKey(key));
+  }
+
+  private void buildTree(String path) throws IOException {
+    // the build sorts the lists in place
+    try (FileChannel channel = new FileOutputStream(path).getChannel()) {
+      BPlusTree.buildAndSerializeBPlusTree(
+          channel,
+          ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE),
+          new ArrayList<>(keys),
+          new ArrayList<>(recordIds),
+          order);
+    }
+  }
+}
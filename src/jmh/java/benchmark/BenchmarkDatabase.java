@@ -0,0 +1,97 @@
+package benchmark;
+
+import catalog.DBCatalog;
+import catalog.TableStats;
+import io.cache.CacheFileManagerRegistry;
+import io.writer.BinaryTupleWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import testutil.RandomDataGenerator;
+
+/**
+ * A database in a temporary directory whose tables are generated with {@link RandomDataGenerator}
+ * from table stats lines such as "Sailors 10000 A,0,10000 B,0,100". The data is generated with a
+ * fixed seed so every fork benchmarks the same tables.
+ */
+class BenchmarkDatabase implements AutoCloseable {
+  private static final long SEED = 42;
+
+  private final Path directory;
+
+  private BenchmarkDatabase(Path directory) {
+    this.directory = directory;
+  }
+
+  /** Creates the tables and points the catalog and the cache files at the new database. */
+  static BenchmarkDatabase create(String... tableStatsLines) throws IOException {
+    Path directory = Files.createTempDirectory("benchmark");
+    Path dbDirectory = directory.resolve("db");
+    Files.createDirectories(dbDirectory.resolve("data"));
+    Files.createDirectories(directory.resolve("temp"));
+
+    List<TableStats> tables = new ArrayList<>();
+    StringBuilder schema = new StringBuilder();
+    for (String line : tableStatsLines) {
+      TableStats tableStats = TableStats.deserialize(line);
+      tables.add(tableStats);
+
+      schema.append(tableStats.getTableName());
+      for (String column : line.trim().split("\\s+")) {
+        if (column.contains(",")) {
+          schema.append(' ').append(column.split(",")[0]);
+        }
+      }
+      schema.append('\n');
+    }
+    Files.writeString(dbDirectory.resolve("schema.txt"), schema);
+
+    DBCatalog catalog = DBCatalog.getInstance();
+    catalog.setDataDirectory(dbDirectory.toString());
+    CacheFileManagerRegistry.getInstance().setCacheDirectory(directory.resolve("temp").toString());
+
+    for (TableStats tableStats : tables) {
+      writeTable(tableStats, catalog.getTablePath(tableStats.getTableName()));
+    }
+    return new BenchmarkDatabase(directory);
+  }
+
+  private static void writeTable(TableStats tableStats, String path) throws IOException {
+    List<Column> schema = new ArrayList<>();
+    for (Column column : DBCatalog.getInstance().getSchemaForTable(tableStats.getTableName())) {
+      schema.add(new Column(new Table(tableStats.getTableName()), column.getColumnName()));
+    }
+
+    RandomDataGenerator generator = new RandomDataGenerator(tableStats, schema);
+    generator.setSeed(SEED);
+    try (FileChannel channel = new FileOutputStream(path).getChannel()) {
+      BinaryTupleWriter writer = new BinaryTupleWriter(channel, schema.size());
+      for (int i = 0; i < tableStats.getNumTuples(); i++) {
+        writer.writeTuple(generator.generateTuple());
+      }
+      writer.close();
+    }
+  }
+
+  Path getDirectory() {
+    return directory;
+  }
+
+  @Override
+  public void close() throws IOException {
+    CacheFileManagerRegistry.getInstance().cleanupAll();
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+}
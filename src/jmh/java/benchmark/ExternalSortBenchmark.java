@@ -0,0 +1,90 @@
+package benchmark;
+
+import config.PhysicalPlanConfig;
+import io.cache.CacheFileManagerRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.TupleBatch;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import physicaloperator.PhysicalOperator;
+import physicaloperator.scan.ScanOperator;
+import physicaloperator.sort.ExternalSortOperator;
+
+/** Time to sort a 100000 tuple table with the external sort at various buffer sizes. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class ExternalSortBenchmark {
+
+  @Param({"3", "5", "10", "50"})
+  public int bufferPages;
+
+  @Param({"1", "4"})
+  public int sortThreads;
+
+  @Param({"FIXED", "REPLACEMENT_SELECTION"})
+  public PhysicalPlanConfig.RunGenerationMethod runs;
+
+  private BenchmarkDatabase database;
+  private Table table;
+  private List<OrderByElement> orderByElements;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    database = BenchmarkDatabase.create("Sailors 100000 A,0,10000 B,0,10000 C,0,10000");
+
+    PhysicalPlanConfig config = PhysicalPlanConfig.getInstance();
+    config.setSortThreads(sortThreads);
+    config.setRunGenerationMethod(runs);
+
+    table = new Table("Sailors");
+    orderByElements = new ArrayList<>();
+    for (Column column : new ScanOperator(table).getOutputSchema()) {
+      OrderByElement element = new OrderByElement();
+      element.setExpression(column);
+      orderByElements.add(element);
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteCacheFiles() throws IOException {
+    CacheFileManagerRegistry.getInstance().cleanupAll();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    database.close();
+  }
+
+  @Benchmark
+  public void sort(Blackhole blackhole) {
+    PhysicalOperator sort =
+        new ExternalSortOperator(new ScanOperator(table), orderByElements, bufferPages);
+
+    TupleBatch batch;
+    while ((batch = sort.getNextBatch()) != null) {
+      blackhole.consume(batch);
+    }
+  }
+}
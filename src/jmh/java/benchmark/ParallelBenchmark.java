@@ -0,0 +1,88 @@
+package benchmark;
+
+import config.PhysicalPlanConfig;
+import config.PhysicalPlanConfig.JoinMethod;
+import io.buffer.BufferPool;
+import io.cache.CacheFileManagerRegistry;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import jdk.jshell.spi.ExecutionControl;
+import model.TupleBatch;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import physicaloperator.PhysicalOperator;
+import queryplan.QueryPlanBuilder;
+
+/**
+ * Time to plan and run a filtered hash join of two 50000 tuple tables with each parallelism. The
+ * buffer pool is smaller than the tables, so the parallel scans miss in it on most pages. Only a
+ * machine with at least as many cores as the parallelism shows the speedup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class ParallelBenchmark {
+
+  @Param({"1", "2", "4"})
+  public int parallelism;
+
+  private BenchmarkDatabase database;
+  private Statement statement;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, JSQLParserException {
+    database =
+        BenchmarkDatabase.create(
+            "Sailors 50000 A,0,50000 B,0,100 C,0,100", "Reserves 50000 G,0,50000 H,0,100");
+
+    PhysicalPlanConfig config = PhysicalPlanConfig.getInstance();
+    config.setJoinMethod(JoinMethod.HASH, 64);
+    config.setSortMethod(PhysicalPlanConfig.SortMethod.EXTERNAL, 5);
+    config.setScanMethod(PhysicalPlanConfig.ScanMethod.FULL_SCAN);
+    config.setParallelism(parallelism);
+    BufferPool.getInstance().setCapacity(64);
+
+    statement =
+        CCJSqlParserUtil.parse(
+            "SELECT * FROM Sailors, Reserves "
+                + "WHERE Sailors.A = Reserves.G AND Sailors.B < 50 AND Reserves.H < 50");
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteCacheFiles() throws IOException {
+    CacheFileManagerRegistry.getInstance().cleanupAll();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    database.close();
+  }
+
+  @Benchmark
+  public void runJoin(Blackhole blackhole) throws ExecutionControl.NotImplementedException {
+    PhysicalOperator plan = new QueryPlanBuilder().buildPlan(statement);
+
+    TupleBatch batch;
+    while ((batch = plan.getNextBatch()) != null) {
+      blackhole.consume(batch);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package benchmark;
+
+import catalog.DBCatalog;
+import io.reader.BinaryTupleReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.Tuple;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import physicaloperator.CompiledPredicate;
+import physicaloperator.PredicateCompiler;
+import physicaloperator.QueryConditionContext;
+import physicaloperator.QueryConditionEvaluator;
+
+/**
+ * Time to evaluate a selection condition over 100000 tuples with the AST visitor and with the
+ * compiled predicate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class PredicateBenchmark {
+
+  @Param({
+    "Sailors.B >= Sailors.C",
+    "Sailors.A < 5000 AND Sailors.B >= Sailors.C",
+    "Sailors.A <> 10 AND 50 < Sailors.B AND Sailors.C <= 75"
+  })
+  public String condition;
+
+  private BenchmarkDatabase database;
+  private List<Tuple> tuples;
+  private Expression expression;
+  private ArrayList<Column> schema;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, JSQLParserException {
+    database = BenchmarkDatabase.create("Sailors 100000 A,0,10000 B,0,100 C,0,100");
+
+    DBCatalog catalog = DBCatalog.getInstance();
+    try (FileChannel channel = new FileInputStream(catalog.getTablePath("Sailors")).getChannel()) {
+      tuples = new BinaryTupleReader(channel).getAllTuples();
+    }
+    schema = catalog.getSchemaForTable("Sailors");
+    expression = CCJSqlParserUtil.parseCondExpression(condition);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    database.close();
+  }
+
+  @Benchmark
+  public int interpreted() {
+    QueryConditionContext context = new QueryConditionContext(schema);
+    QueryConditionEvaluator evaluator = new QueryConditionEvaluator();
+
+    int matches = 0;
+    for (Tuple tuple : tuples) {
+      context.setContext(tuple);
+      matches += expression.accept(evaluator, context) ? 1 : 0;
+    }
+    return matches;
+  }
+
+  @Benchmark
+  public int compiled() {
+    CompiledPredicate predicate = PredicateCompiler.compile(expression, schema);
+
+    int matches = 0;
+    for (Tuple tuple : tuples) {
+      matches += predicate.test(tuple) ? 1 : 0;
+    }
+    return matches;
+  }
+}
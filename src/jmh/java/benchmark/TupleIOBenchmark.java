@@ -0,0 +1,92 @@
+package benchmark;
+
+import io.reader.BinaryTupleReader;
+import io.reader.MappedBinaryTupleReader;
+import io.writer.BinaryTupleWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.Tuple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Time to read and to write a relation file of 100000 tuples of 3 columns. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class TupleIOBenchmark {
+
+  private BenchmarkDatabase database;
+  private String tablePath;
+  private String outputPath;
+  private List<Tuple> tuples;
+
+  /** The reader to benchmark. */
+  @State(Scope.Benchmark)
+  public static class ReaderChoice {
+
+    /** buffered: private page buffer, pooled: through the buffer pool, mapped: memory-mapped */
+    @Param({"buffered", "pooled", "mapped"})
+    public String reader;
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    database = BenchmarkDatabase.create("Sailors 100000 A,0,10000 B,0,10000 C,0,10000");
+    tablePath = database.getDirectory().resolve("db/data/Sailors").toString();
+    outputPath = database.getDirectory().resolve("output").toString();
+
+    try (FileChannel channel = new FileInputStream(tablePath).getChannel()) {
+      tuples = new BinaryTupleReader(channel).getAllTuples();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    database.close();
+  }
+
+  @Benchmark
+  public void readTable(ReaderChoice choice, Blackhole blackhole) throws IOException {
+    try (FileChannel channel = new FileInputStream(tablePath).getChannel()) {
+      BinaryTupleReader reader =
+          switch (choice.reader) {
+            case "pooled" -> new BinaryTupleReader(channel, tablePath);
+            case "mapped" -> new MappedBinaryTupleReader(channel);
+            default -> new BinaryTupleReader(channel);
+          };
+
+      Tuple tuple;
+      while ((tuple = reader.getNextTuple()) != null) {
+        blackhole.consume(tuple);
+      }
+    }
+  }
+
+  @Benchmark
+  public void writeTable() throws IOException {
+    try (FileChannel channel = new FileOutputStream(outputPath).getChannel()) {
+      BinaryTupleWriter writer = new BinaryTupleWriter(channel, 3);
+      writer.writeTuples(tuples);
+      writer.close();
+    }
+  }
+}
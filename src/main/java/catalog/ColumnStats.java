@@ -1,10 +1,39 @@
 package catalog;
 
-/** Inner class to hold statistics for a single column */
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Statistics of a single column: the min and max values, the estimated number of distinct values
+ * and an equi-depth histogram.
+ *
+ * <p>They are built in one pass over the values. Every value goes into a {@link HyperLogLog} sketch
+ * and into a reservoir sample of {@link #SAMPLE_SIZE} values, from which the histogram is built
+ * when the statistics are first read. Statistics parsed from stats.txt only know the min and max
+ * values and assume the values are uniform in that range.
+ */
 public class ColumnStats {
+
+  /** Number of values kept to build the histogram from. */
+  static final int SAMPLE_SIZE = 4096;
+
+  /** Maximum number of buckets of the histogram. */
+  static final int BUCKET_COUNT = 64;
+
   private int minValue;
   private int maxValue;
-  private int distinctValues; // V-value as described in the project spec
+  private long distinctValues; // V-value, 0 if only the min and max values are known
+  private Histogram histogram;
+
+  // collection state, set by the first updateStats
+  private HyperLogLog sketch;
+  private int[] sample;
+  private long valueCount;
+  private SplittableRandom random;
+  private boolean summarized;
 
   public ColumnStats() {
     this.minValue = Integer.MAX_VALUE;
@@ -12,6 +41,18 @@ public class ColumnStats {
     this.distinctValues = 0;
   }
 
+  /**
+   * Creates statistics that only know the range of the values.
+   *
+   * @param minValue the smallest value of the column
+   * @param maxValue the largest value of the column
+   */
+  public ColumnStats(int minValue, int maxValue) {
+    this.minValue = minValue;
+    this.maxValue = maxValue;
+    this.distinctValues = 0;
+  }
+
   /**
    * Update the column statistics based on a new value
    *
@@ -20,6 +61,25 @@ public class ColumnStats {
   public void updateStats(int value) {
     minValue = Math.min(minValue, value);
     maxValue = Math.max(maxValue, value);
+
+    if (sketch == null) {
+      sketch = new HyperLogLog();
+      sample = new int[SAMPLE_SIZE];
+      random = new SplittableRandom(0);
+    }
+    sketch.add(value);
+
+    // reservoir sampling keeps each value seen so far with the same probability
+    if (valueCount < SAMPLE_SIZE) {
+      sample[(int) valueCount] = value;
+    } else {
+      long slot = random.nextLong(valueCount + 1);
+      if (slot < SAMPLE_SIZE) {
+        sample[(int) slot] = value;
+      }
+    }
+    valueCount++;
+    summarized = false;
   }
 
   public int getMinValue() {
@@ -30,8 +90,123 @@ public class ColumnStats {
     return maxValue;
   }
 
+  /**
+   * @return the estimated number of distinct values, which is max - min + 1 if the values were not
+   *     seen
+   */
   public int getDistinctValues() {
-    // As per spec, V(R,A) for base table is max - min + 1 assuming uniform distribution
-    return maxValue - minValue + 1;
+    summarize();
+    long range = (long) maxValue - minValue + 1;
+    long values = distinctValues > 0 ? Math.min(distinctValues, range) : range;
+    return (int) Math.min(values, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @return the equi-depth histogram of the values, or null if the values were not seen
+   */
+  public Histogram getHistogram() {
+    summarize();
+    return histogram;
+  }
+
+  /**
+   * Estimates the fraction of the values in a range.
+   *
+   * @param lowerBound the lowest value of the range, inclusive, or null for no lower bound
+   * @param upperBound the highest value of the range, inclusive, or null for no upper bound
+   * @return the estimated fraction of the values from lowerBound to upperBound
+   */
+  public double estimateRangeSelectivity(Integer lowerBound, Integer upperBound) {
+    long low = lowerBound == null ? minValue : Math.max(lowerBound, minValue);
+    long high = upperBound == null ? maxValue : Math.min(upperBound, maxValue);
+    if (low > high) {
+      return 0;
+    }
+
+    Histogram histogram = getHistogram();
+    if (histogram != null) {
+      return histogram.estimateRangeFraction(low, high);
+    }
+    return (double) (high - low + 1) / ((long) maxValue - minValue + 1);
+  }
+
+  /**
+   * Estimates the fraction of the values equal to a value. A value frequent enough to fill buckets
+   * of the histogram gets the fraction of those buckets, any other value 1 / V.
+   *
+   * @param value the value
+   * @return the estimated fraction of the values equal to value
+   */
+  public double estimateEqualitySelectivity(int value) {
+    if (value < minValue || value > maxValue) {
+      return 0;
+    }
+
+    Histogram histogram = getHistogram();
+    if (histogram != null) {
+      double fraction = histogram.getFrequentValueFraction(value);
+      if (fraction > 0) {
+        return fraction;
+      }
+    }
+    return 1.0 / Math.max(1, getDistinctValues());
+  }
+
+  /**
+   * Scales the number of distinct values of a sample up to the whole column. If nearly every
+   * sampled value is distinct the column is taken to be mostly distinct too, otherwise the sample
+   * is taken to have seen most of the values.
+   *
+   * @param columnSize the number of values in the whole column
+   */
+  void extrapolateDistinctValues(long columnSize) {
+    summarize();
+    if (valueCount > 0 && distinctValues >= 0.9 * valueCount) {
+      distinctValues = Math.min(columnSize, Math.round(distinctValues * columnSize / valueCount));
+    }
+  }
+
+  /** Summarizes the values seen and drops the sketch and the sample once collection is done. */
+  void finish() {
+    summarize();
+    sketch = null;
+    sample = null;
+    random = null;
+  }
+
+  /** Builds the distinct value estimate and the histogram from the values seen so far. */
+  private synchronized void summarize() {
+    if (sketch == null || summarized) {
+      return;
+    }
+    distinctValues = Math.min(valueCount, Math.max(1, Math.round(sketch.estimate())));
+
+    int sampleCount = (int) Math.min(valueCount, SAMPLE_SIZE);
+    int[] sortedSample = Arrays.copyOf(sample, sampleCount);
+    Arrays.sort(sortedSample);
+    histogram = Histogram.build(sortedSample, sampleCount, BUCKET_COUNT);
+    summarized = true;
+  }
+
+  /** Writes the statistics in the binary stats file format. */
+  void write(DataOutput output) throws IOException {
+    summarize();
+    output.writeInt(minValue);
+    output.writeInt(maxValue);
+    output.writeLong(distinctValues);
+    output.writeBoolean(histogram != null);
+    if (histogram != null) {
+      histogram.write(output);
+    }
+  }
+
+  /** Reads statistics written by {@link #write}. */
+  static ColumnStats read(DataInput input) throws IOException {
+    ColumnStats columnStats = new ColumnStats(input.readInt(), input.readInt());
+    columnStats.distinctValues = input.readLong();
+    if (input.readBoolean()) {
+      columnStats.histogram = Histogram.read(input);
+    }
+    return columnStats;
   }
 }
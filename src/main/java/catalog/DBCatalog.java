@@ -51,6 +51,8 @@ public class DBCatalog {
   public void setDataDirectory(String directory) {
     try {
       dbDirectory = directory;
+      tables.clear();
+      StatsCollector.getInstance().clear();
       BufferedReader br = new BufferedReader(new FileReader(directory + "/schema.txt"));
       String line;
       while ((line = br.readLine()) != null) {
@@ -76,6 +78,17 @@ public class DBCatalog {
     return tables.get(tableName);
   }
 
+  /**
+   * Returns the statistics of a table, which are loaded from the stats file or collected the first
+   * time they are asked for.
+   *
+   * @param tableName the name of the table
+   * @return the statistics of the table
+   */
+  public TableStats getTableStats(String tableName) {
+    return StatsCollector.getInstance().getTableStats(tableName);
+  }
+
   public ArrayList<String> getTables() {
     return new ArrayList<String>(tables.keySet());
   }
@@ -0,0 +1,105 @@
+package catalog;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Equi-depth histogram of the values of a column. Every bucket holds about the same fraction of the
+ * values and covers the closed range from the lowest to the highest value in it, so a frequent
+ * value gets buckets of its own. Values are assumed to be uniform within a bucket.
+ */
+public class Histogram {
+
+  private final int[] lowValues;
+  private final int[] highValues;
+  private final float[] fractions;
+
+  private Histogram(int[] lowValues, int[] highValues, float[] fractions) {
+    this.lowValues = lowValues;
+    this.highValues = highValues;
+    this.fractions = fractions;
+  }
+
+  /**
+   * Builds a histogram from sorted values.
+   *
+   * @param sortedValues the values in ascending order
+   * @param count the number of values to use from the start of the array, at least 1
+   * @param bucketCount the maximum number of buckets
+   */
+  static Histogram build(int[] sortedValues, int count, int bucketCount) {
+    int buckets = Math.min(bucketCount, count);
+    int[] lowValues = new int[buckets];
+    int[] highValues = new int[buckets];
+    float[] fractions = new float[buckets];
+
+    for (int i = 0; i < buckets; i++) {
+      int start = (int) ((long) i * count / buckets);
+      int end = (int) ((long) (i + 1) * count / buckets);
+      lowValues[i] = sortedValues[start];
+      highValues[i] = sortedValues[end - 1];
+      fractions[i] = (float) (end - start) / count;
+    }
+    return new Histogram(lowValues, highValues, fractions);
+  }
+
+  public int getBucketCount() {
+    return fractions.length;
+  }
+
+  /**
+   * Estimates the fraction of the values in a range.
+   *
+   * @param lowerBound the lowest value of the range, inclusive
+   * @param upperBound the highest value of the range, inclusive
+   * @return the estimated fraction of the values from lowerBound to upperBound
+   */
+  public double estimateRangeFraction(long lowerBound, long upperBound) {
+    double fraction = 0;
+    for (int i = 0; i < fractions.length; i++) {
+      long low = Math.max(lowerBound, lowValues[i]);
+      long high = Math.min(upperBound, highValues[i]);
+      if (low <= high) {
+        fraction += fractions[i] * (double) (high - low + 1) / (highValues[i] - lowValues[i] + 1L);
+      }
+    }
+    return Math.min(1, fraction);
+  }
+
+  /**
+   * @return the fraction of the values in the buckets that hold only the given value, 0 if the
+   *     value is not frequent enough to fill a bucket
+   */
+  public double getFrequentValueFraction(int value) {
+    double fraction = 0;
+    for (int i = 0; i < fractions.length; i++) {
+      if (lowValues[i] == value && highValues[i] == value) {
+        fraction += fractions[i];
+      }
+    }
+    return fraction;
+  }
+
+  void write(DataOutput output) throws IOException {
+    output.writeInt(fractions.length);
+    for (int i = 0; i < fractions.length; i++) {
+      output.writeInt(lowValues[i]);
+      output.writeInt(highValues[i]);
+      output.writeFloat(fractions[i]);
+    }
+  }
+
+  static Histogram read(DataInput input) throws IOException {
+    int buckets = input.readInt();
+    int[] lowValues = new int[buckets];
+    int[] highValues = new int[buckets];
+    float[] fractions = new float[buckets];
+    for (int i = 0; i < buckets; i++) {
+      lowValues[i] = input.readInt();
+      highValues[i] = input.readInt();
+      fractions[i] = input.readFloat();
+    }
+    return new Histogram(lowValues, highValues, fractions);
+  }
+}
@@ -0,0 +1,58 @@
+package catalog;
+
+/**
+ * HyperLogLog sketch of the number of distinct values of a column. Each value is hashed to 64 bits,
+ * the first {@link #PRECISION} bits pick a register and the register keeps the largest number of
+ * leading zeros seen in the remaining bits, plus one. The estimate has a standard error of about
+ * 1.04 / sqrt(2^PRECISION), 3% here, in 1 KB whatever the number of values.
+ */
+public class HyperLogLog {
+
+  static final int PRECISION = 10;
+  private static final int REGISTER_COUNT = 1 << PRECISION;
+
+  private final byte[] registers = new byte[REGISTER_COUNT];
+
+  public void add(int value) {
+    long hash = hash(value);
+    int register = (int) (hash >>> (Long.SIZE - PRECISION));
+    int rank = Long.numberOfLeadingZeros(hash << PRECISION) + 1;
+    if (rank > Long.SIZE - PRECISION) {
+      rank = Long.SIZE - PRECISION + 1;
+    }
+    if (rank > registers[register]) {
+      registers[register] = (byte) rank;
+    }
+  }
+
+  /**
+   * @return the estimated number of distinct values added
+   */
+  public double estimate() {
+    double sum = 0;
+    int emptyRegisters = 0;
+    for (byte register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        emptyRegisters++;
+      }
+    }
+
+    double alpha = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+    double estimate = alpha * REGISTER_COUNT * REGISTER_COUNT / sum;
+
+    // small cardinalities are estimated better by counting the empty registers
+    if (estimate <= 2.5 * REGISTER_COUNT && emptyRegisters > 0) {
+      estimate = REGISTER_COUNT * Math.log((double) REGISTER_COUNT / emptyRegisters);
+    }
+    return estimate;
+  }
+
+  /** The SplitMix64 finalizer, which spreads consecutive ints over all 64 bits. */
+  private static long hash(int value) {
+    long z = value;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -1,26 +1,71 @@
 package catalog;
 
+import static utils.DBConstants.INT_SIZE;
+import static utils.DBConstants.TABLE_PAGE_SIZE;
+
 import io.reader.BinaryTupleReader;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import model.Tuple;
 import net.sf.jsqlparser.schema.Column;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Collects and caches the statistics of the tables. Uses singleton pattern.
+ *
+ * <p>The statistics of a table are collected the first time they are asked for. When a stats
+ * directory is set, they are also kept in a binary stats file next to stats.txt, together with the
+ * size and the modification time of the table file they were collected from. The binary file is
+ * loaded on first use, and a table's statistics are collected again only when its file has changed
+ * since, so a large catalog starts up without scanning any table. The file holds all tables, so
+ * statistics collected on demand are only written by {@link #flush()} and {@link #collectStats()},
+ * one rewrite for however many tables were collected since.
+ *
+ * <p>Tables of more than {@link #SAMPLING_THRESHOLD_PAGES} pages are sampled: {@link #SAMPLE_PAGES}
+ * pages spread over the file are read, the column statistics come from those pages, and the tuple
+ * count from the page headers.
+ */
 public class StatsCollector {
   Logger logger = LogManager.getLogger(StatsCollector.class);
   private static StatsCollector instance;
 
   private static final String STATS_FILE = "stats.txt";
-  private static String statsDirectory;
+  private static final String BINARY_STATS_FILE = "stats.bin";
+  private static final int BINARY_STATS_MAGIC = 0x53544154; // "STAT"
+  private static final int BINARY_STATS_VERSION = 2;
+
+  /** Tables with more pages than this are sampled instead of scanned. */
+  static final int SAMPLING_THRESHOLD_PAGES = 1024;
+
+  /** Number of pages read from a sampled table. */
+  static final int SAMPLE_PAGES = 256;
+
+  private String statsDirectory;
 
-  private final HashMap<String, TableStats> tableStats;
+  private final HashMap<String, CachedStats> tableStats;
+  private boolean loaded;
 
-  public static StatsCollector getInstance() {
+  // whether stats were collected since the binary stats file was written
+  private boolean dirty;
+
+  public static synchronized StatsCollector getInstance() {
     if (instance == null) {
       instance = new StatsCollector();
     }
@@ -31,20 +76,105 @@ public class StatsCollector {
     tableStats = new HashMap<>();
   }
 
-  public void setStatsDirectory(String statsDirectory) {
+  public synchronized void setStatsDirectory(String statsDirectory) {
+    clear();
     this.statsDirectory = statsDirectory;
   }
 
-  /** Collects statistics for all tables in the database */
-  public void collectStats() throws IOException {
+  /**
+   * Returns the statistics of a table. They are collected if they are not cached or if the table
+   * file has changed since they were collected.
+   *
+   * @param table the name of the table
+   * @return the statistics of the table
+   */
+  public synchronized TableStats getTableStats(String table) {
+    loadStats();
+
+    try {
+      FileVersion version = FileVersion.of(table);
+      CachedStats cached = tableStats.get(table);
+      if (cached != null && cached.version.equals(version)) {
+        return cached.stats;
+      }
+
+      TableStats stats = collectStatsForTable(table);
+      tableStats.put(table, new CachedStats(stats, version));
+      dirty = true;
+      return stats;
+    } catch (IOException e) {
+      throw new RuntimeException("Error collecting stats for table " + table, e);
+    }
+  }
+
+  /**
+   * Drops all statistics, e.g. when the catalog is pointed at another database, after writing the
+   * ones collected since the binary stats file was last written.
+   */
+  public synchronized void clear() {
+    try {
+      flush();
+    } catch (IOException e) {
+      logger.warn("Error writing stats to {}", statsDirectory, e);
+    }
+    tableStats.clear();
+    loaded = false;
+    dirty = false;
+  }
+
+  /** Writes the binary stats file if stats were collected since it was last written. */
+  public synchronized void flush() throws IOException {
+    if (dirty) {
+      writeBinaryStats();
+    }
+  }
+
+  /**
+   * Collects statistics for all tables in the database whose statistics are missing or out of date.
+   * The tables are collected in parallel.
+   */
+  public synchronized void collectStats() throws IOException {
     logger.info("Collecting stats for all tables");
+    loadStats();
+
+    List<String> staleTables = new ArrayList<>();
+    List<FileVersion> versions = new ArrayList<>();
     for (String table : DBCatalog.getInstance().getTables()) {
-      TableStats tableStats = collectStatsForTable(table);
-      this.tableStats.put(table, tableStats);
+      FileVersion version = FileVersion.of(table);
+      CachedStats cached = tableStats.get(table);
+      if (cached == null || !cached.version.equals(version)) {
+        staleTables.add(table);
+        versions.add(version);
+      }
+    }
+    if (staleTables.isEmpty()) {
+      flush();
+      return;
+    }
+
+    int threads = Math.min(staleTables.size(), Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<TableStats>> futures = new ArrayList<>();
+      for (String table : staleTables) {
+        futures.add(executor.submit(() -> collectStatsForTable(table)));
+      }
+      for (int i = 0; i < staleTables.size(); i++) {
+        tableStats.put(staleTables.get(i), new CachedStats(futures.get(i).get(), versions.get(i)));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while collecting stats", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Error collecting stats", e.getCause());
+    } finally {
+      executor.shutdown();
     }
+
+    writeBinaryStats();
   }
 
-  public void writeStats() {
+  public synchronized void writeStats() {
     logger.info("Writing stats to file");
     if (statsDirectory == null) {
       throw new RuntimeException("Stats directory not set");
@@ -52,8 +182,8 @@ public class StatsCollector {
 
     try (BufferedWriter writer =
         new BufferedWriter(new FileWriter(statsDirectory + "/" + STATS_FILE))) {
-      for (Map.Entry<String, TableStats> entry : tableStats.entrySet()) {
-        TableStats tableStats = entry.getValue();
+      for (Map.Entry<String, CachedStats> entry : tableStats.entrySet()) {
+        TableStats tableStats = entry.getValue().stats;
         tableStats.serialize(writer, DBCatalog.getInstance().getSchemaForTable(entry.getKey()));
       }
     } catch (IOException e) {
@@ -61,15 +191,73 @@ public class StatsCollector {
     }
   }
 
-  /** Load table stats from the stats file */
-  public void loadStats() {
-    // TODO
+  /**
+   * Load table stats from the binary stats file. Only the first call after the stats directory is
+   * set reads the file. A missing, unreadable or outdated file leaves the stats to be collected.
+   */
+  public synchronized void loadStats() {
+    if (loaded) {
+      return;
+    }
+    loaded = true;
+    if (statsDirectory == null) {
+      return;
+    }
+
+    Path path = Paths.get(statsDirectory, BINARY_STATS_FILE);
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (input.readInt() != BINARY_STATS_MAGIC || input.readInt() != BINARY_STATS_VERSION) {
+        logger.warn("Ignoring stats file {} of another format", path);
+        return;
+      }
+
+      int tableCount = input.readInt();
+      for (int i = 0; i < tableCount; i++) {
+        FileVersion version = new FileVersion(input.readLong(), input.readLong());
+        TableStats stats = TableStats.read(input);
+        tableStats.putIfAbsent(stats.getTableName(), new CachedStats(stats, version));
+      }
+      logger.info("Loaded stats of {} tables from {}", tableCount, path);
+    } catch (NoSuchFileException e) {
+      logger.debug("No stats file at {}", path);
+    } catch (IOException e) {
+      logger.warn("Ignoring unreadable stats file {}", path, e);
+    }
+  }
+
+  /** Writes all cached stats to the binary stats file, replacing it atomically. */
+  private void writeBinaryStats() throws IOException {
+    if (statsDirectory == null) {
+      return;
+    }
+
+    Path path = Paths.get(statsDirectory, BINARY_STATS_FILE);
+    Path tempPath = Paths.get(statsDirectory, BINARY_STATS_FILE + ".tmp");
+    try (DataOutputStream output =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+      output.writeInt(BINARY_STATS_MAGIC);
+      output.writeInt(BINARY_STATS_VERSION);
+      output.writeInt(tableStats.size());
+      for (CachedStats cached : tableStats.values()) {
+        output.writeLong(cached.version.size());
+        output.writeLong(cached.version.lastModified());
+        cached.stats.write(output);
+      }
+    }
+    Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+    dirty = false;
   }
 
   private TableStats collectStatsForTable(String table) throws IOException {
-    logger.info("Collecting stats for table " + table);
     String binaryFile = DBCatalog.getInstance().getTablePath(table);
     try (FileChannel fileChannel = new FileInputStream(binaryFile).getChannel(); ) {
+      long pageCount = (fileChannel.size() + TABLE_PAGE_SIZE - 1) / TABLE_PAGE_SIZE;
+      if (pageCount > SAMPLING_THRESHOLD_PAGES) {
+        return sampleStatsForTable(table, fileChannel, pageCount);
+      }
+
+      logger.info("Collecting stats for table " + table);
       BinaryTupleReader binaryTupleReader = new BinaryTupleReader(fileChannel);
 
       TableStats tableStats = new TableStats(table);
@@ -78,14 +266,87 @@ public class StatsCollector {
 
       Tuple tuple;
       while ((tuple = binaryTupleReader.getNextTuple()) != null) {
-
-        System.out.println("Tuple: " + tuple);
-
         tableStats.updateStats(schema, tuple);
         tableStats.incrementTupleCount();
       }
 
+      tableStats.finish();
       return tableStats;
     }
   }
+
+  /**
+   * Collects statistics from the first and the last page, plus one random page out of each of
+   * SAMPLE_PAGES stretches of the pages between them. The stretches differ in length by at most one
+   * page, so every page between the first and the last can be sampled, and none twice. Every page
+   * but the last is full, so the tuple count follows from the headers of the first and the last
+   * page.
+   */
+  private TableStats sampleStatsForTable(String table, FileChannel fileChannel, long pageCount)
+      throws IOException {
+    logger.info("Sampling {} of {} pages of table {}", SAMPLE_PAGES, pageCount, table);
+    TableStats tableStats = new TableStats(table);
+    List<Column> schema = DBCatalog.getInstance().getSchemaForTable(table);
+    ByteBuffer page = ByteBuffer.allocate(TABLE_PAGE_SIZE);
+
+    int tuplesPerFullPage = readPage(fileChannel, 0, page, tableStats, schema);
+    int tuplesInLastPage = readPage(fileChannel, pageCount - 1, page, tableStats, schema);
+    tableStats.setNumTuples(
+        (int) Math.min(Integer.MAX_VALUE, (pageCount - 1) * tuplesPerFullPage + tuplesInLastPage));
+
+    Random random = new Random(table.hashCode());
+    long middlePages = pageCount - 2;
+    for (int i = 0; i < SAMPLE_PAGES; i++) {
+      long start = 1 + middlePages * i / SAMPLE_PAGES;
+      long end = 1 + middlePages * (i + 1) / SAMPLE_PAGES;
+      long pageNumber = start + (long) (random.nextDouble() * (end - start));
+      readPage(fileChannel, pageNumber, page, tableStats, schema);
+    }
+    tableStats.extrapolateDistinctValues();
+    tableStats.finish();
+    return tableStats;
+  }
+
+  /** Adds the tuples of a page to the column statistics and returns the page's tuple count. */
+  private static int readPage(
+      FileChannel fileChannel,
+      long pageNumber,
+      ByteBuffer page,
+      TableStats tableStats,
+      List<Column> schema)
+      throws IOException {
+    long position = pageNumber * TABLE_PAGE_SIZE;
+    page.clear();
+    while (page.hasRemaining()) {
+      if (fileChannel.read(page, position + page.position()) == -1) {
+        break;
+      }
+    }
+
+    int tupleSize = page.getInt(0);
+    int tupleCount = page.getInt(INT_SIZE);
+    int[] values = new int[tupleSize];
+    int index = 2 * INT_SIZE;
+    for (int i = 0; i < tupleCount; i++) {
+      for (int j = 0; j < tupleSize; j++) {
+        values[j] = page.getInt(index);
+        index += INT_SIZE;
+      }
+      for (int j = 0; j < schema.size(); j++) {
+        tableStats.updateColumnStats(schema.get(j).getColumnName(), values[j]);
+      }
+    }
+    return tupleCount;
+  }
+
+  /** The size and the modification time of a table file, which change when it is rewritten. */
+  private record FileVersion(long size, long lastModified) {
+    static FileVersion of(String table) throws IOException {
+      Path path = Paths.get(DBCatalog.getInstance().getTablePath(table));
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      return new FileVersion(attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+  }
+
+  private record CachedStats(TableStats stats, FileVersion version) {}
 }
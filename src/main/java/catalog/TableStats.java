@@ -1,6 +1,8 @@
 package catalog;
 
 import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.*;
 import model.Tuple;
@@ -54,7 +56,7 @@ public class TableStats {
   public void updateStats(List<Column> schema, Tuple tuple) {
     for (int i = 0; i < schema.size(); i++) {
       Column column = schema.get(i);
-      updateColumnStats(column.getColumnName(), tuple.getElementAtIndex(i));
+      updateColumnStats(column.getColumnName(), tuple.getInt(i));
     }
   }
 
@@ -63,6 +65,42 @@ public class TableStats {
     numTuples++;
   }
 
+  /** Sets the tuple count, e.g. when it is extrapolated from a sample of the pages */
+  void setNumTuples(int numTuples) {
+    this.numTuples = numTuples;
+  }
+
+  /** Scales the distinct values of the columns from the sampled tuples up to the tuple count */
+  void extrapolateDistinctValues() {
+    for (ColumnStats stats : columnStats.values()) {
+      stats.extrapolateDistinctValues(numTuples);
+    }
+  }
+
+  /** Releases the state the column statistics only need while values are added */
+  void finish() {
+    for (ColumnStats stats : columnStats.values()) {
+      stats.finish();
+    }
+  }
+
+  /**
+   * Estimates the fraction of the tuples whose value of a column is in a range, e.g. the range an
+   * index scan would read.
+   *
+   * @param columnName the name of the column
+   * @param lowerBound the lowest value of the range, inclusive, or null for no lower bound
+   * @param upperBound the highest value of the range, inclusive, or null for no upper bound
+   * @return the estimated fraction of the tuples, 1 if there are no stats for the column
+   */
+  public double estimateSelectivity(String columnName, Integer lowerBound, Integer upperBound) {
+    ColumnStats stats = columnStats.get(columnName);
+    if (stats == null) {
+      return 1;
+    }
+    return stats.estimateRangeSelectivity(lowerBound, upperBound);
+  }
+
   /** Writes table statistics to a writer in the stats.txt format */
   public void serialize(BufferedWriter writer, List<Column> schema) throws IOException {
     writer.write(getStatsString(schema));
@@ -106,11 +144,8 @@ public class TableStats {
         int minValue = Integer.parseInt(columnParts[1]);
         int maxValue = Integer.parseInt(columnParts[2]);
 
-        // Create and initialize ColumnStats
-        ColumnStats columnStats = new ColumnStats();
-        // We need to update both min and max separately to ensure proper initialization
-        columnStats.updateStats(minValue);
-        columnStats.updateStats(maxValue);
+        // Only the range of the values is known
+        ColumnStats columnStats = new ColumnStats(minValue, maxValue);
 
         // Add to the map
         stats.columnStats.put(columnName, columnStats);
@@ -122,6 +157,32 @@ public class TableStats {
     return stats;
   }
 
+  /**
+   * Writes the statistics in the binary stats file format: the table name, the tuple count and the
+   * number of columns, then the name and the statistics of each column.
+   */
+  void write(DataOutput output) throws IOException {
+    output.writeUTF(tableName);
+    output.writeInt(numTuples);
+    output.writeInt(columnStats.size());
+    for (Map.Entry<String, ColumnStats> entry : columnStats.entrySet()) {
+      output.writeUTF(entry.getKey());
+      entry.getValue().write(output);
+    }
+  }
+
+  /** Reads statistics written by {@link #write}. */
+  static TableStats read(DataInput input) throws IOException {
+    TableStats stats = new TableStats(input.readUTF());
+    stats.numTuples = input.readInt();
+    int columnCount = input.readInt();
+    for (int i = 0; i < columnCount; i++) {
+      String columnName = input.readUTF();
+      stats.columnStats.put(columnName, ColumnStats.read(input));
+    }
+    return stats;
+  }
+
   /**
    * Writes statistics to the stats.txt file in the required format
    *
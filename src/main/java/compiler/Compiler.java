@@ -1,11 +1,13 @@
 package compiler;
 
 import catalog.DBCatalog;
+import catalog.StatsCollector;
 import config.IndexConfigManager;
 import config.InterpreterConfig;
 import config.PhysicalPlanConfig;
 // import index.IndexBuilder;
 import index.IndexBuilder;
+import io.buffer.BufferPool;
 import io.cache.CacheFileManagerRegistry;
 import io.writer.BinaryTupleWriter;
 import java.io.File;
@@ -75,6 +77,9 @@ public class Compiler {
     // Set up the database catalog
     DBCatalog.getInstance().setDataDirectory(interpreterConfig.getInputDir() + "/db");
 
+    // Keep the table stats next to the data, they are loaded on first use
+    StatsCollector.getInstance().setStatsDirectory(interpreterConfig.getInputDir() + "/db");
+
     // Set up the index config
     IndexConfigManager.getInstance()
         .loadConfig(interpreterConfig.getInputDir() + "/db/index_info.txt");
@@ -83,6 +88,7 @@ public class Compiler {
     // Set up the physical plan config
     PhysicalPlanConfig.getInstance()
         .loadConfig(interpreterConfig.getInputDir() + "/plan_builder_config.txt");
+    BufferPool.getInstance().setCapacity(PhysicalPlanConfig.getInstance().getBufferPoolFrames());
 
     // Set up the cache directory
     CacheFileManagerRegistry.getInstance().setCacheDirectory(interpreterConfig.getTempDir());
@@ -103,17 +109,25 @@ public class Compiler {
 
   static void processQueries(Statements statements) {
     int counter = 1; // for numbering output files
+    BufferPool bufferPool = BufferPool.getInstance();
     for (Statement statement : statements.getStatements()) {
 
       logger.info("Processing query: " + statement);
+      bufferPool.resetStatistics();
 
       try {
         processSingleQuery(statement, counter);
         CacheFileManagerRegistry.getInstance().cleanupAll();
+
+        // the stats the query collected on demand, all in one rewrite of the stats file
+        StatsCollector.getInstance().flush();
       } catch (Exception e) {
         logger.error("Error processing query: " + statement, e);
       }
 
+      logger.info(
+          "Buffer pool: {} hits, {} misses", bufferPool.getHitCount(), bufferPool.getMissCount());
+
       ++counter;
     }
   }
@@ -121,7 +135,15 @@ public class Compiler {
   private static void processSingleQuery(Statement statement, int counter)
       throws ExecutionControl.NotImplementedException, IOException {
     PhysicalOperator plan = queryPlanBuilder.buildPlan(statement);
+    try {
+      dumpPlan(plan, counter);
+    } finally {
+      // a parallel plan may still be running after a failure or under a limit
+      plan.close();
+    }
+  }
 
+  private static void dumpPlan(PhysicalOperator plan, int counter) throws IOException {
     if (outputToFiles) {
       Path outfile = Paths.get(interpreterConfig.getOutputDir()).resolve("query" + counter);
       logger.info("Output file: {}", outfile);
@@ -131,6 +153,13 @@ public class Compiler {
         Files.createFile(outfile);
       }
 
+      // the plan goes next to the output, with the estimates the planner chose it by
+      if (PhysicalPlanConfig.getInstance().shouldExplain()) {
+        Path planFile =
+            Paths.get(interpreterConfig.getOutputDir()).resolve("query" + counter + "_plan");
+        Files.writeString(planFile, plan.explain());
+      }
+
       BinaryTupleWriter writer =
           new BinaryTupleWriter(outfile.toString(), plan.getOutputSchema().size());
       plan.dump(writer);
@@ -1,13 +1,19 @@
 package config;
 
+import index.BPlusTreeInnerNodes;
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import utils.DBConstants;
 
 /** Singleton class that holds the configuration for the index. */
 public class IndexConfigManager {
@@ -15,6 +21,7 @@ public class IndexConfigManager {
   private final Logger logger = LogManager.getLogger(IndexConfigManager.class);
 
   private final HashMap<String, IndexDefinition> indexDefinitions;
+  private final HashMap<String, CachedInnerNodes> innerNodeCache;
   private static IndexConfigManager instance;
 
   private String indexDirectory;
@@ -22,6 +29,7 @@ public class IndexConfigManager {
   /** Reads the index configuration file and populates the index entries. */
   private IndexConfigManager() {
     indexDefinitions = new HashMap<>();
+    innerNodeCache = new HashMap<>();
   }
 
   /**
@@ -42,8 +50,9 @@ public class IndexConfigManager {
         this.indexDirectory, indexDefinition.getRelation(), indexDefinition.getAttribute());
   }
 
-  public void setIndexDir(String indexDir) {
+  public synchronized void setIndexDir(String indexDir) {
     indexDirectory = indexDir;
+    innerNodeCache.clear();
   }
 
   public IndexDefinition getIndexForRelation(String relation) {
@@ -54,6 +63,44 @@ public class IndexConfigManager {
     return new ArrayList<IndexDefinition>(indexDefinitions.values());
   }
 
+  /**
+   * Returns the index nodes of an index, read from the index file on first use and shared by every
+   * operator that reads the index afterwards. They are read again if the file changed since.
+   *
+   * @param indexDefinition the index
+   * @return the cached index nodes
+   */
+  public synchronized BPlusTreeInnerNodes getInnerNodes(IndexDefinition indexDefinition) {
+    String indexPath = getIndexFilePath(indexDefinition);
+    File indexFile = new File(indexPath);
+    long lastModified = indexFile.lastModified();
+    long size = indexFile.length();
+
+    CachedInnerNodes cached = innerNodeCache.get(indexPath);
+    if (cached != null && cached.lastModified() == lastModified && cached.size() == size) {
+      return cached.innerNodes();
+    }
+
+    try (FileChannel channel = new FileInputStream(indexPath).getChannel()) {
+      BPlusTreeInnerNodes innerNodes =
+          BPlusTreeInnerNodes.load(channel, ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE));
+      innerNodeCache.put(indexPath, new CachedInnerNodes(innerNodes, lastModified, size));
+      logger.debug("Cached the index nodes of {}", indexPath);
+      return innerNodes;
+    } catch (IOException e) {
+      throw new RuntimeException("Error reading index nodes of " + indexPath, e);
+    }
+  }
+
+  /**
+   * Drops the cached index nodes of an index whose file was rebuilt.
+   *
+   * @param indexDefinition the index
+   */
+  public synchronized void invalidateInnerNodes(IndexDefinition indexDefinition) {
+    innerNodeCache.remove(getIndexFilePath(indexDefinition));
+  }
+
   /**
    * Reads the index configuration file and populates the index entries.
    *
@@ -61,6 +108,7 @@ public class IndexConfigManager {
    * @throws IOException if the file cannot be read
    */
   public void loadConfig(String filePath) throws IOException {
+    indexDefinitions.clear();
     try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
       String line;
       while ((line = reader.readLine()) != null) {
@@ -79,4 +127,7 @@ public class IndexConfigManager {
       }
     }
   }
+
+  /** Index nodes with the version of the index file they were read from. */
+  private record CachedInnerNodes(BPlusTreeInnerNodes innerNodes, long lastModified, long size) {}
 }
@@ -1,5 +1,6 @@
 package config;
 
+import io.buffer.BufferPool;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.util.List;
@@ -15,7 +16,8 @@ public class PhysicalPlanConfig {
   public enum JoinMethod {
     TNLJ,
     BNLJ,
-    SMJ
+    SMJ,
+    HASH
   }
 
   public enum SortMethod {
@@ -28,9 +30,43 @@ public class PhysicalPlanConfig {
     FULL_SCAN
   }
 
+  public enum RunGenerationMethod {
+    FIXED,
+    REPLACEMENT_SELECTION
+  }
+
+  public enum ReaderMethod {
+    BUFFERED,
+    MAPPED
+  }
+
+  public enum JoinOrderMethod {
+    FROM_CLAUSE,
+    COST_BASED
+  }
+
+  public enum DistinctMethod {
+    SORT,
+    HASH
+  }
+
+  public enum AggregateMethod {
+    SORT,
+    HASH
+  }
+
   private JoinMethod joinMethod;
   private SortMethod sortMethod;
   private ScanMethod scanMethod;
+  private ReaderMethod readerMethod = ReaderMethod.BUFFERED;
+  private int bufferPoolFrames = BufferPool.DEFAULT_CAPACITY;
+  private int sortThreads = 1;
+  private RunGenerationMethod runGenerationMethod = RunGenerationMethod.FIXED;
+  private JoinOrderMethod joinOrderMethod = JoinOrderMethod.FROM_CLAUSE;
+  private boolean explain = false;
+  private DistinctMethod distinctMethod = DistinctMethod.HASH;
+  private AggregateMethod aggregateMethod = AggregateMethod.HASH;
+  private int parallelism = 1;
   private int joinBufferPages;
   private int sortBufferPages;
 
@@ -65,10 +101,53 @@ public class PhysicalPlanConfig {
     return scanMethod;
   }
 
+  public ReaderMethod getReaderMethod() {
+    return readerMethod;
+  }
+
+  public int getBufferPoolFrames() {
+    return bufferPoolFrames;
+  }
+
+  public int getSortThreads() {
+    return sortThreads;
+  }
+
+  public RunGenerationMethod getRunGenerationMethod() {
+    return runGenerationMethod;
+  }
+
+  public JoinOrderMethod getJoinOrderMethod() {
+    return joinOrderMethod;
+  }
+
+  public boolean shouldExplain() {
+    return explain;
+  }
+
+  public DistinctMethod getDistinctMethod() {
+    return distinctMethod;
+  }
+
+  public AggregateMethod getAggregateMethod() {
+    return aggregateMethod;
+  }
+
+  /**
+   * @return the number of partitions that scans, hash joins and hash aggregates are split into, 1
+   *     to run plans in a single thread
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
   public void setJoinMethod(JoinMethod method, int bufferPages) {
     if (method == JoinMethod.BNLJ && bufferPages <= 0) {
       throw new IllegalArgumentException("BNLJ requires positive buffer pages");
     }
+    if (method == JoinMethod.HASH && bufferPages < 3) {
+      throw new IllegalArgumentException("Hash join requires at least 3 buffer pages");
+    }
     this.joinMethod = method;
     this.joinBufferPages = bufferPages;
   }
@@ -85,28 +164,95 @@ public class PhysicalPlanConfig {
     this.scanMethod = method;
   }
 
+  public void setReaderMethod(ReaderMethod method) {
+    this.readerMethod = method;
+  }
+
+  public void setBufferPoolFrames(int frames) {
+    if (frames < 0) {
+      throw new IllegalArgumentException("Buffer pool frames must not be negative");
+    }
+    this.bufferPoolFrames = frames;
+  }
+
+  public void setSortThreads(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Sort threads must be positive");
+    }
+    this.sortThreads = threads;
+  }
+
+  public void setRunGenerationMethod(RunGenerationMethod method) {
+    this.runGenerationMethod = method;
+  }
+
+  public void setJoinOrderMethod(JoinOrderMethod method) {
+    this.joinOrderMethod = method;
+  }
+
+  public void setExplain(boolean explain) {
+    this.explain = explain;
+  }
+
+  public void setDistinctMethod(DistinctMethod method) {
+    this.distinctMethod = method;
+  }
+
+  public void setAggregateMethod(AggregateMethod method) {
+    this.aggregateMethod = method;
+  }
+
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    this.parallelism = parallelism;
+  }
+
   // Load config from file
 
   public void loadConfig(String configFile) {
     logger.info("Reading config file: {}", configFile);
     try {
       BufferedReader br = new BufferedReader(new FileReader(configFile));
-      List<String> lines = br.lines().limit(3).collect(Collectors.toList());
+      List<String> lines = br.lines().collect(Collectors.toList());
 
-      if (lines.size() != 3) {
-        throw new IllegalArgumentException("Configuration must contain exactly three lines");
+      if (lines.size() < 3) {
+        throw new IllegalArgumentException("Configuration must contain at least three lines");
       }
 
       parseJoinConfig(lines.get(0));
       parseSortConfig(lines.get(1));
       parseScanConfig(lines.get(2));
 
+      // the lines after the first three are optional "<option> <value>" settings
+      resetOptions();
+      for (String line : lines.subList(3, lines.size())) {
+        if (!line.isBlank()) {
+          parseOption(line);
+        }
+      }
+
       br.close();
     } catch (Exception e) {
       logger.error("Error reading config file: " + e.getMessage());
     }
     logger.info(
-        "Join method: {}, Sort method: {}, Scan method: {}", joinMethod, sortMethod, scanMethod);
+        "Join method: {}, Sort method: {}, Scan method: {}, Reader method: {}, Buffer pool"
+            + " frames: {}, Sort threads: {}, Run generation: {}, Join order: {}, Explain: {},"
+            + " Distinct: {}, Aggregate: {}, Parallelism: {}",
+        joinMethod,
+        sortMethod,
+        scanMethod,
+        readerMethod,
+        bufferPoolFrames,
+        sortThreads,
+        runGenerationMethod,
+        joinOrderMethod,
+        explain,
+        distinctMethod,
+        aggregateMethod,
+        parallelism);
   }
 
   private void parseJoinConfig(String line) {
@@ -126,6 +272,12 @@ public class PhysicalPlanConfig {
       case 2:
         setJoinMethod(JoinMethod.SMJ, 0);
         break;
+      case 3:
+        if (params.length != 2) {
+          throw new IllegalArgumentException("Hash join requires buffer pages parameter");
+        }
+        setJoinMethod(JoinMethod.HASH, Integer.parseInt(params[1]));
+        break;
       default:
         throw new IllegalArgumentException("Invalid join method code: " + methodCode);
     }
@@ -165,4 +317,133 @@ public class PhysicalPlanConfig {
         throw new IllegalArgumentException("Invalid scan method code: " + methodCode);
     }
   }
+
+  private void resetOptions() {
+    this.readerMethod = ReaderMethod.BUFFERED;
+    this.bufferPoolFrames = BufferPool.DEFAULT_CAPACITY;
+    this.sortThreads = 1;
+    this.runGenerationMethod = RunGenerationMethod.FIXED;
+    this.joinOrderMethod = JoinOrderMethod.FROM_CLAUSE;
+    this.explain = false;
+    this.distinctMethod = DistinctMethod.HASH;
+    this.aggregateMethod = AggregateMethod.HASH;
+    this.parallelism = 1;
+  }
+
+  private void parseOption(String line) {
+    String[] params = line.trim().split("\\s+");
+    if (params.length != 2) {
+      throw new IllegalArgumentException("Option must be of the form <option> <value>: " + line);
+    }
+
+    switch (params[0]) {
+      case "reader":
+        parseReaderOption(params[1]);
+        break;
+      case "bufferpool":
+        setBufferPoolFrames(Integer.parseInt(params[1]));
+        break;
+      case "sortthreads":
+        setSortThreads(Integer.parseInt(params[1]));
+        break;
+      case "runs":
+        parseRunsOption(params[1]);
+        break;
+      case "joinorder":
+        parseJoinOrderOption(params[1]);
+        break;
+      case "explain":
+        parseExplainOption(params[1]);
+        break;
+      case "distinct":
+        parseDistinctOption(params[1]);
+        break;
+      case "aggregate":
+        parseAggregateOption(params[1]);
+        break;
+      case "parallelism":
+        setParallelism(Integer.parseInt(params[1]));
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown option: " + params[0]);
+    }
+  }
+
+  private void parseReaderOption(String value) {
+    switch (value) {
+      case "buffered":
+        setReaderMethod(ReaderMethod.BUFFERED);
+        break;
+      case "mapped":
+        setReaderMethod(ReaderMethod.MAPPED);
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid reader method: " + value);
+    }
+  }
+
+  private void parseRunsOption(String value) {
+    switch (value) {
+      case "fixed":
+        setRunGenerationMethod(RunGenerationMethod.FIXED);
+        break;
+      case "replacement":
+        setRunGenerationMethod(RunGenerationMethod.REPLACEMENT_SELECTION);
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid run generation method: " + value);
+    }
+  }
+
+  private void parseJoinOrderOption(String value) {
+    switch (value) {
+      case "from":
+        setJoinOrderMethod(JoinOrderMethod.FROM_CLAUSE);
+        break;
+      case "cost":
+        setJoinOrderMethod(JoinOrderMethod.COST_BASED);
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid join order method: " + value);
+    }
+  }
+
+  private void parseExplainOption(String value) {
+    switch (value) {
+      case "on":
+        setExplain(true);
+        break;
+      case "off":
+        setExplain(false);
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid explain setting: " + value);
+    }
+  }
+
+  private void parseDistinctOption(String value) {
+    switch (value) {
+      case "sort":
+        setDistinctMethod(DistinctMethod.SORT);
+        break;
+      case "hash":
+        setDistinctMethod(DistinctMethod.HASH);
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid distinct method: " + value);
+    }
+  }
+
+  private void parseAggregateOption(String value) {
+    switch (value) {
+      case "sort":
+        setAggregateMethod(AggregateMethod.SORT);
+        break;
+      case "hash":
+        setAggregateMethod(AggregateMethod.HASH);
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid aggregate method: " + value);
+    }
+  }
 }
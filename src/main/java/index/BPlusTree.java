@@ -2,14 +2,14 @@ package index;
 
 import static utils.DBConstants.INDEX_PAGE_SIZE;
 
+import io.buffer.BufferPool;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import utils.ParallelListSorter;
 
 public class BPlusTree {
 
@@ -18,6 +18,9 @@ public class BPlusTree {
   private int rootAddress;
   private int numLeafNodes;
   private int order;
+  private String indexPath; // set if nodes are read through the buffer pool
+  private final BPlusTreeIndexNodeView indexNodeView = new BPlusTreeIndexNodeView();
+  private BPlusTreeInnerNodes innerNodes; // set if the index nodes are cached in memory
 
   public int getRootAddress() {
     return rootAddress;
@@ -31,6 +34,20 @@ public class BPlusTree {
     return order;
   }
 
+  /**
+   * @return the number of levels of the tree from the root down to the leaves, both included, as
+   *     the bulk loader builds them from the leaf count and the order
+   */
+  public int getHeight() {
+    int height = 1;
+    int nodes = numLeafNodes;
+    do {
+      nodes = (nodes + 2 * order) / (2 * order + 1);
+      height++;
+    } while (nodes > 1);
+    return height;
+  }
+
   public BPlusTreeLeafNode getFirstLeafNode(FileChannel indexChannel, ByteBuffer buffer)
       throws IOException {
     return loadLeafNode(indexChannel, buffer, 1);
@@ -38,24 +55,8 @@ public class BPlusTree {
 
   public BPlusTreeLeafNode findLeafNodeByKey(
       FileChannel indexChannel, ByteBuffer buffer, int targetKey) throws IOException {
-
-    logger.debug("Finding leaf node for key: {}", targetKey);
-
-    // load the root node
-    BPlusTreeIndexNode node = loadIndexNode(indexChannel, buffer, rootAddress);
-
-    while (true) {
-
-      // find next child
-      int childAddress = node.findChildByKey(targetKey);
-
-      // if the child is a leaf node, return the leaf node
-      if (isLeafNode(childAddress)) {
-        return loadLeafNode(indexChannel, buffer, childAddress);
-      }
-
-      node = loadIndexNode(indexChannel, buffer, childAddress);
-    }
+    return loadLeafNode(
+        indexChannel, buffer, findLeafAddressByKey(indexChannel, buffer, targetKey));
   }
 
   public BPlusTreeLeafNode getNextLeafNode(
@@ -71,250 +72,150 @@ public class BPlusTree {
     return loadLeafNode(indexChannel, buffer, nextAddress);
   }
 
-  /** Serialize a B+ tree to disk */
-  public static void buildAndSerializeBPlusTree(
-      FileChannel channel,
-      ByteBuffer buffer,
-      List<Integer> keys,
-      List<RecordId> recordIds,
-      int order)
+  /** Points the view at the first leaf, reading it into the buffer. */
+  public void getFirstLeaf(FileChannel indexChannel, ByteBuffer buffer, BPlusTreeLeafNodeView leaf)
       throws IOException {
-    if (keys.isEmpty()) {
-      return;
-    }
-
-    // sort the key and recordId lists and build RecordEntries
-    ParallelListSorter.sortParallelLists(keys, recordIds);
-    List<RecordEntry> entries = buildRecordEntries(keys, recordIds);
-
-    List<BPlusTreeNode> treeNodes = new ArrayList<>();
-    treeNodes.add(new BPlusTreeLeafNode());
-
-    // build leaf nodes level
-    int currentLevelStart = 1;
-    int leafNodeCreated = buildLeafNodeLevel(treeNodes, currentLevelStart, entries, order);
-
-    // build index nodes levels
-    int nodeCreated = leafNodeCreated;
-    do {
-      int prevLevelStart = currentLevelStart;
-      currentLevelStart = prevLevelStart + nodeCreated;
-      nodeCreated = buildIndexNodeLevel(treeNodes, prevLevelStart, currentLevelStart, order);
-    } while (nodeCreated != 1);
-
-    // Write Tree to File
-    writeBPlusTree(channel, order, treeNodes, buffer, leafNodeCreated);
+    loadLeaf(indexChannel, buffer, 1, leaf);
   }
 
   /**
-   * Deserialize a B+ tree index node from a
+   * Finds the leaf that holds the first key greater than or equal to the target key, reading the
+   * nodes on the way down in place.
    *
-   * @return the root node of the B+ tree index
+   * @param leaf the view pointed at the leaf, reading from the buffer
    */
-  public static BPlusTree deserialize(FileChannel indexFilechannel, ByteBuffer buffer)
+  public void findLeafByKey(
+      FileChannel indexChannel, ByteBuffer buffer, int targetKey, BPlusTreeLeafNodeView leaf)
       throws IOException {
-
-    BPlusTree tree = new BPlusTree();
-
-    // read the first page of the index file
-    loadPage(indexFilechannel, buffer, 0);
-    tree.rootAddress = buffer.getInt(0);
-    tree.numLeafNodes = buffer.getInt(4);
-    tree.order = buffer.getInt(8);
-
-    return tree;
+    loadLeaf(indexChannel, buffer, findLeafAddressByKey(indexChannel, buffer, targetKey), leaf);
   }
 
-  /** Helper methods for traversing a B+ tree */
-  private boolean isLeafNode(int nodeAddress) {
-    return nodeAddress <= numLeafNodes;
-  }
-
-  /** Helper method for building and serializing a B+ tree */
-  private static void writeBPlusTree(
-      FileChannel channel,
-      int order,
-      List<BPlusTreeNode> treeNodes,
-      ByteBuffer buffer,
-      int leafNodeCreated)
+  /**
+   * Points the view at the leaf after the one it is on.
+   *
+   * @return false, leaving the view as it is, if the view is on the last leaf
+   */
+  public boolean nextLeaf(FileChannel indexChannel, ByteBuffer buffer, BPlusTreeLeafNodeView leaf)
       throws IOException {
-    // write the header
-    int rootAddress = treeNodes.size() - 1;
-    writeBPlusTreeHeader(channel, buffer, rootAddress, leafNodeCreated, order);
-
-    // write the nodes
-    for (int nodeAddress = 1; nodeAddress < treeNodes.size(); nodeAddress++) {
-      writeBPlusTreeNode(channel, buffer, treeNodes.get(nodeAddress), nodeAddress);
+    int nextAddress = leaf.getAddress() + 1;
+    if (!isLeafNode(nextAddress)) {
+      return false;
     }
+    loadLeaf(indexChannel, buffer, nextAddress, leaf);
+    return true;
   }
 
-  private static void writeBPlusTreeHeader(
-      FileChannel channel, ByteBuffer buffer, int rootAddress, int numLeafNodes, int order)
+  /** Points the view at the leaf at an address, reading it into the buffer. */
+  public void loadLeaf(
+      FileChannel indexChannel, ByteBuffer buffer, int nodeAddress, BPlusTreeLeafNodeView leaf)
       throws IOException {
-    channel.position(0);
-    buffer.clear();
-    buffer.putInt(rootAddress);
-    buffer.putInt(numLeafNodes);
-    buffer.putInt(order);
-    buffer.flip();
-
-    int bytesWritten = channel.write(buffer);
+    loadPage(indexChannel, buffer, nodeAddress);
+    leaf.wrap(buffer, nodeAddress);
   }
 
-  private static void writeBPlusTreeNode(
-      FileChannel channel, ByteBuffer buffer, BPlusTreeNode node, int curNodeAddress)
+  /** Walks down from the root to the leaf that a key belongs in, without deserializing nodes. */
+  private int findLeafAddressByKey(FileChannel indexChannel, ByteBuffer buffer, int targetKey)
       throws IOException {
 
-    channel.position((long) curNodeAddress * INDEX_PAGE_SIZE);
-
-    buffer.clear();
-    node.serialize(buffer);
-    buffer.flip();
-
-    int bytesWritten = channel.write(buffer);
-  }
-
-  private static List<RecordEntry> buildRecordEntries(
-      List<Integer> keys, List<RecordId> recordIds) {
-    // change the keys and recordIds into DataEntries
-    List<RecordEntry> entries = new ArrayList<>();
-
-    // create the first entry
-    RecordEntry entry = new RecordEntry(keys.getFirst());
-
-    // loop through the keys and recordIds
-    for (int i = 0; i < keys.size(); i++) {
-      int currentKey = keys.get(i);
-      RecordId currentRecordId = recordIds.get(i);
-
-      // if there is a new key
-      if (currentKey != entry.getKey()) {
-        // add the entry to the list & create a new entry
-        entries.add(entry);
-        entry = new RecordEntry(currentKey);
-      }
+    logger.debug("Finding leaf node for key: {}", targetKey);
 
-      // add the recordId to the entry
-      entry.addRecordId(currentRecordId);
+    if (innerNodes != null) {
+      return innerNodes.findLeafAddressByKey(targetKey);
     }
-    entries.add(entry);
-    return entries;
-  }
-
-  private static void buildLeafNode(
-      List<BPlusTreeNode> treeNodes,
-      List<RecordEntry> entries,
-      int startIndex,
-      int endIndex,
-      int currentNodeAddress) {
-    BPlusTreeLeafNode leafNode = new BPlusTreeLeafNode();
 
-    leafNode.setAddress(currentNodeAddress);
-
-    for (int i = startIndex; i < endIndex; i++) {
-      leafNode.addEntry(entries.get(i));
+    int address = rootAddress;
+    while (!isLeafNode(address)) {
+      loadPage(indexChannel, buffer, address);
+      indexNodeView.wrap(buffer);
+      address = indexNodeView.findChildByKey(targetKey);
     }
-
-    // add the leaf node to the list of tree nodes
-    treeNodes.add(leafNode);
+    return address;
   }
 
-  private static int buildLeafNodeLevel(
-      List<BPlusTreeNode> treeNodes, int nextNodeAddress, List<RecordEntry> entries, int d) {
-
-    int currentEntryIndex = 0;
-    int nodesCreated = 0;
-    while (currentEntryIndex < entries.size()) {
-
-      int k = entries.size() - currentEntryIndex;
-
-      // if there are less than 2d entries
-      if (k > 2 * d && k < 3 * d) {
-        int midPoint = currentEntryIndex + k / 2;
-        buildLeafNode(treeNodes, entries, currentEntryIndex, midPoint, nextNodeAddress++);
-        nodesCreated++;
-        currentEntryIndex = midPoint;
-      }
-
-      // calculate the end index
-      int endIndex = Math.min(currentEntryIndex + 2 * d, entries.size());
-      buildLeafNode(treeNodes, entries, currentEntryIndex, endIndex, nextNodeAddress++);
-      nodesCreated++;
-      currentEntryIndex = endIndex;
+  /**
+   * Bulk loads a B+ tree over the keys and their record ids into an empty index file. The record
+   * ids of a key are stored in the order of the lists.
+   */
+  public static void buildAndSerializeBPlusTree(
+      FileChannel channel,
+      ByteBuffer buffer,
+      List<Integer> keys,
+      List<RecordId> recordIds,
+      int order)
+      throws IOException {
+    // sort positions by key, the position below the key keeps equal keys in list order
+    long[] sorted = new long[keys.size()];
+    for (int i = 0; i < sorted.length; i++) {
+      sorted[i] = ((long) keys.get(i) << 32) | i;
     }
+    Arrays.sort(sorted);
 
-    return nodesCreated;
+    BPlusTreeBulkLoader loader = new BPlusTreeBulkLoader(channel, buffer, order);
+    for (long keyAndPosition : sorted) {
+      RecordId recordId = recordIds.get((int) keyAndPosition);
+      loader.add((int) (keyAndPosition >> 32), recordId.pageNumber(), recordId.byteOffset());
+    }
+    loader.finish();
   }
 
   /**
-   * Helper method to find the left most key of a node
+   * Deserialize a B+ tree index node from a
    *
-   * @param node the node to find the left most key
-   * @return the left most key
+   * @return the root node of the B+ tree index
    */
-  private static int findLeftMostKey(List<BPlusTreeNode> treeNodes, BPlusTreeNode node) {
-    if (node.isLeaf()) {
-      return node.getKeyAtIndex(0);
-    }
-
-    // if the node is an index node
-    BPlusTreeIndexNode indexNode = (BPlusTreeIndexNode) node;
-
-    // get the left most child
-    int leftMostChildAddress = indexNode.getChildAtIndex(0);
-    BPlusTreeNode childNode = treeNodes.get(leftMostChildAddress);
-
-    // recursively find the left most leaf node
-    return findLeftMostKey(treeNodes, childNode);
+  public static BPlusTree deserialize(FileChannel indexFilechannel, ByteBuffer buffer)
+      throws IOException {
+    return deserialize(null, indexFilechannel, buffer);
   }
 
-  private static void buildIndexNode(
-      List<BPlusTreeNode> treeNodes, int startIndex, int endIndex, int nextNodeAddress) {
-    BPlusTreeIndexNode indexNode = new BPlusTreeIndexNode();
-    indexNode.setAddress(nextNodeAddress);
-    int readIndex = startIndex;
-
-    BPlusTreeNode childNode = treeNodes.get(readIndex++);
-    indexNode.addChild(childNode.getAddress());
-
-    while (readIndex < endIndex) {
-      childNode = treeNodes.get(readIndex++);
+  /**
+   * Deserialize a B+ tree whose nodes are read through the {@link BufferPool}
+   *
+   * @param indexPath path of the index file, the key of its pages in the buffer pool
+   * @return the B+ tree index
+   */
+  public static BPlusTree deserialize(
+      String indexPath, FileChannel indexFilechannel, ByteBuffer buffer) throws IOException {
 
-      int key = findLeftMostKey(treeNodes, childNode);
-      indexNode.addKey(key);
-      indexNode.addChild(childNode.getAddress());
+    BPlusTree tree = new BPlusTree();
+    tree.indexPath = indexPath;
+    if (indexPath != null) {
+      BufferPool.getInstance().validate(indexPath);
     }
 
-    treeNodes.add(indexNode);
-  }
-
-  private static int buildIndexNodeLevel(
-      List<BPlusTreeNode> treeNodes, int lastLevelStartIndex, int lastLevelEndIndex, int d) {
-
-    int readIndex = lastLevelStartIndex;
-    int nextNodeAddress = lastLevelEndIndex;
-    int nodesCreated = 0;
-    while (readIndex < lastLevelEndIndex) {
-
-      int m = lastLevelEndIndex - readIndex;
+    // read the first page of the index file
+    tree.loadPage(indexFilechannel, buffer, 0);
+    tree.rootAddress = buffer.getInt(0);
+    tree.numLeafNodes = buffer.getInt(4);
+    tree.order = buffer.getInt(8);
 
-      // if there are less than 2d entries
-      if (m > 2 * d + 1 && m < 3 * d + 2) {
+    return tree;
+  }
 
-        int midPoint = readIndex + m / 2;
-        buildIndexNode(treeNodes, readIndex, midPoint, nextNodeAddress++);
-        nodesCreated++;
-        readIndex = midPoint;
-      }
+  /**
+   * Opens a B+ tree whose index nodes are cached in memory. Lookups only read the leaf, through the
+   * {@link BufferPool}.
+   *
+   * @param indexPath path of the index file, the key of its pages in the buffer pool
+   * @param innerNodes the index nodes of the file
+   * @return the B+ tree index
+   */
+  public static BPlusTree open(String indexPath, BPlusTreeInnerNodes innerNodes)
+      throws IOException {
+    BPlusTree tree = new BPlusTree();
+    tree.indexPath = indexPath;
+    BufferPool.getInstance().validate(indexPath);
 
-      // calculate the end index
-      int endIndex = Math.min(readIndex + 2 * d + 1, lastLevelEndIndex);
-      buildIndexNode(treeNodes, readIndex, endIndex, nextNodeAddress++);
-      nodesCreated++;
-      readIndex = endIndex;
-    }
+    tree.innerNodes = innerNodes;
+    tree.rootAddress = innerNodes.getRootAddress();
+    tree.numLeafNodes = innerNodes.getNumLeafNodes();
+    tree.order = innerNodes.getOrder();
+    return tree;
+  }
 
-    return nodesCreated;
+  /** Helper methods for traversing a B+ tree */
+  private boolean isLeafNode(int nodeAddress) {
+    return nodeAddress <= numLeafNodes;
   }
 
   /** Helper methods for deserializing a B+ tree */
@@ -337,12 +238,18 @@ public class BPlusTree {
     }
   }
 
-  private static void loadPage(FileChannel indexChannel, ByteBuffer buffer, int nodeAddress)
+  private void loadPage(FileChannel indexChannel, ByteBuffer buffer, int nodeAddress)
       throws IOException {
     if (nodeAddress < 0) {
       throw new IllegalArgumentException("Invalid negative node address: " + nodeAddress);
     }
 
+    // a page past the end of the file falls through to the size check below
+    if (indexPath != null
+        && BufferPool.getInstance().readPage(indexPath, indexChannel, nodeAddress, buffer)) {
+      return;
+    }
+
     long fileSize = indexChannel.size();
     long pageOffset = (long) nodeAddress * INDEX_PAGE_SIZE;
     if (pageOffset >= fileSize) {
@@ -0,0 +1,200 @@
+package index;
+
+import static utils.DBConstants.INDEX_PAGE_SIZE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Bulk loads a B+ tree file from record ids added in key order, writing each node as soon as it is
+ * complete.
+ *
+ * <p>Leaves take 2d entries each, except that when between 2d and 3d entries are left they are
+ * split evenly over the last two leaves. A leaf is therefore only written once at least 3d entries
+ * are waiting, so at most 3d entries and their record ids are held in memory. The index levels are
+ * built after the leaves from the smallest key of every node of the level below, one int per node,
+ * with the same rule at 2d + 1 children per node. The root is the last node written, and the header
+ * on page 0 is written last.
+ */
+public class BPlusTreeBulkLoader {
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final int order;
+
+  // entries waiting for a leaf; the record ids of entry i end at recordIdEnds[i] in recordIds
+  private int[] entryKeys;
+  private int[] recordIdEnds;
+  private int entryCount;
+  private int[] recordIds = new int[64]; // page and tuple number pairs, including the open entry
+  private int recordIdInts;
+  private boolean hasOpenEntry;
+  private int openKey;
+
+  private int[] leafKeys = new int[64]; // smallest key of every leaf written
+  private int leafCount;
+
+  /**
+   * @param channel the channel of the empty index file
+   * @param buffer a buffer of at least one index page
+   * @param order the order d of the tree
+   */
+  public BPlusTreeBulkLoader(FileChannel channel, ByteBuffer buffer, int order) {
+    this.channel = channel;
+    this.buffer = buffer;
+    this.order = order;
+    this.entryKeys = new int[3 * order + 1];
+    this.recordIdEnds = new int[3 * order + 1];
+  }
+
+  /**
+   * Adds a record id. Record ids must be added in ascending key order, and those of a key in the
+   * order they are to be stored.
+   */
+  public void add(int key, int pageNumber, int tupleNumber) throws IOException {
+    if (hasOpenEntry && key != openKey) {
+      if (key < openKey) {
+        throw new IllegalArgumentException("Key " + key + " added after key " + openKey);
+      }
+      closeEntry();
+    }
+    if (!hasOpenEntry) {
+      openKey = key;
+      hasOpenEntry = true;
+    }
+
+    if (recordIdInts + 2 > recordIds.length) {
+      recordIds = Arrays.copyOf(recordIds, 2 * recordIds.length);
+    }
+    recordIds[recordIdInts++] = pageNumber;
+    recordIds[recordIdInts++] = tupleNumber;
+  }
+
+  /**
+   * Writes the remaining leaves, the index nodes and the header. Nothing is written if no record id
+   * was added.
+   */
+  public void finish() throws IOException {
+    if (hasOpenEntry) {
+      closeEntry();
+    }
+    if (leafCount == 0 && entryCount == 0) {
+      return;
+    }
+
+    while (entryCount > 0) {
+      if (entryCount > 2 * order && entryCount < 3 * order) {
+        writeLeaf(entryCount / 2);
+      }
+      writeLeaf(Math.min(2 * order, entryCount));
+    }
+
+    // build the index levels bottom up until one node is left
+    int[] childKeys = leafKeys;
+    int firstChild = 1;
+    int childCount = leafCount;
+    int nextAddress = 1 + leafCount;
+    do {
+      int levelStart = nextAddress;
+      int[] nodeKeys = new int[childCount];
+      int nodeCount = 0;
+      int readIndex = 0;
+      while (readIndex < childCount) {
+        int m = childCount - readIndex;
+        if (m > 2 * order + 1 && m < 3 * order + 2) {
+          nodeKeys[nodeCount++] = childKeys[readIndex];
+          writeIndexNode(childKeys, firstChild, readIndex, readIndex + m / 2, nextAddress++);
+          readIndex += m / 2;
+        }
+
+        int endIndex = Math.min(readIndex + 2 * order + 1, childCount);
+        nodeKeys[nodeCount++] = childKeys[readIndex];
+        writeIndexNode(childKeys, firstChild, readIndex, endIndex, nextAddress++);
+        readIndex = endIndex;
+      }
+
+      childKeys = nodeKeys;
+      firstChild = levelStart;
+      childCount = nodeCount;
+    } while (childCount != 1);
+
+    writeHeader(nextAddress - 1);
+  }
+
+  private void closeEntry() throws IOException {
+    entryKeys[entryCount] = openKey;
+    recordIdEnds[entryCount] = recordIdInts;
+    entryCount++;
+    hasOpenEntry = false;
+
+    // with 3d entries waiting, the next leaf is a full one whatever follows
+    if (entryCount >= 3 * order) {
+      writeLeaf(2 * order);
+    }
+  }
+
+  /** Writes the first count waiting entries to the next leaf and drops them. */
+  private void writeLeaf(int count) throws IOException {
+    buffer.clear();
+    buffer.putInt(0); // leaf node flag
+    buffer.putInt(count);
+    int start = 0;
+    for (int i = 0; i < count; i++) {
+      buffer.putInt(entryKeys[i]);
+      buffer.putInt((recordIdEnds[i] - start) / 2);
+      for (int j = start; j < recordIdEnds[i]; j++) {
+        buffer.putInt(recordIds[j]);
+      }
+      start = recordIdEnds[i];
+    }
+
+    if (leafCount == leafKeys.length) {
+      leafKeys = Arrays.copyOf(leafKeys, 2 * leafKeys.length);
+    }
+    leafKeys[leafCount++] = entryKeys[0];
+    writeNode(leafCount);
+
+    // move the remaining entries and the open entry to the front
+    entryCount -= count;
+    System.arraycopy(entryKeys, count, entryKeys, 0, entryCount);
+    for (int i = 0; i < entryCount; i++) {
+      recordIdEnds[i] = recordIdEnds[i + count] - start;
+    }
+    recordIdInts -= start;
+    System.arraycopy(recordIds, start, recordIds, 0, recordIdInts);
+  }
+
+  /** Writes an index node over the children from startIndex to endIndex of the level below. */
+  private void writeIndexNode(
+      int[] childKeys, int firstChild, int startIndex, int endIndex, int nodeAddress)
+      throws IOException {
+    buffer.clear();
+    buffer.putInt(1); // index node flag
+    buffer.putInt(endIndex - startIndex - 1);
+    for (int i = startIndex + 1; i < endIndex; i++) {
+      buffer.putInt(childKeys[i]);
+    }
+    for (int i = startIndex; i < endIndex; i++) {
+      buffer.putInt(firstChild + i);
+    }
+    writeNode(nodeAddress);
+  }
+
+  private void writeHeader(int rootAddress) throws IOException {
+    buffer.clear();
+    buffer.putInt(rootAddress);
+    buffer.putInt(leafCount);
+    buffer.putInt(order);
+    writeNode(0);
+  }
+
+  private void writeNode(int nodeAddress) throws IOException {
+    buffer.flip();
+    long position = (long) nodeAddress * INDEX_PAGE_SIZE;
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+}
@@ -46,11 +46,17 @@ public class BPlusTreeIndexNode extends BPlusTreeNode {
    * @return the address of the child node
    */
   public int findChildByKey(int targetKey) {
-    int i = 0;
-    while (i < keys.size() && targetKey >= keys.get(i)) {
-      i++;
+    int low = 0;
+    int high = keys.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (keys.get(mid) <= targetKey) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
     }
-    return children.get(i);
+    return children.get(low);
   }
 
   @Override
@@ -0,0 +1,67 @@
+package index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An index node read in place from its page, without building a {@link BPlusTreeIndexNode}. The
+ * keys and the child addresses are fixed-size arrays on the page, so both are read by position.
+ *
+ * <p>The view reads from the buffer it wraps, so it is only valid until the buffer is loaded with
+ * another page.
+ */
+public class BPlusTreeIndexNodeView {
+
+  // flag, number of keys, the keys, then one more child address than keys
+  private static final int HEADER_SIZE = 8;
+
+  private ByteBuffer page;
+  private int numKeys;
+
+  /**
+   * Points the view at an index page.
+   *
+   * @param page the buffer holding the page
+   * @throws IOException if the page is not an index node
+   */
+  public void wrap(ByteBuffer page) throws IOException {
+    if (page.getInt(0) != 1) {
+      throw new IOException("Not an index node");
+    }
+    this.page = page;
+    this.numKeys = page.getInt(4);
+  }
+
+  public int getNumOfKeys() {
+    return numKeys;
+  }
+
+  public int getKeyAtIndex(int index) {
+    return page.getInt(HEADER_SIZE + index * 4);
+  }
+
+  public int getChildAtIndex(int index) {
+    return page.getInt(HEADER_SIZE + (numKeys + index) * 4);
+  }
+
+  /**
+   * Given the key, return the child node to go to: the child after the last key that is less than
+   * or equal to the target key.
+   *
+   * @param targetKey the key to search for
+   * @return the address of the child node
+   */
+  public int findChildByKey(int targetKey) {
+    int low = 0;
+    int high = numKeys;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (getKeyAtIndex(mid) <= targetKey) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return getChildAtIndex(low);
+  }
+}
@@ -0,0 +1,122 @@
+package index;
+
+import static utils.DBConstants.INDEX_PAGE_SIZE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The header and the index nodes of a B+ tree, read once and kept in memory. The index nodes are a
+ * small fraction of the tree, about one in 2d + 1 of the nodes above each level, so with them in
+ * memory a lookup walks down to its leaf without any I/O and reads only the leaf.
+ *
+ * <p>The nodes are never modified after loading, so one instance is shared by every reader of the
+ * index. {@link config.IndexConfigManager} holds one per index file.
+ */
+public class BPlusTreeInnerNodes {
+
+  private final int rootAddress;
+  private final int numLeafNodes;
+  private final int order;
+
+  // keys and child addresses of the index node at address numLeafNodes + 1 + i
+  private final int[][] keys;
+  private final int[][] children;
+
+  private BPlusTreeInnerNodes(
+      int rootAddress, int numLeafNodes, int order, int[][] keys, int[][] children) {
+    this.rootAddress = rootAddress;
+    this.numLeafNodes = numLeafNodes;
+    this.order = order;
+    this.keys = keys;
+    this.children = children;
+  }
+
+  /**
+   * Reads the header and every index node of an index file. The bulk loader writes the index nodes
+   * after the leaves, from the first index node to the root.
+   *
+   * @param channel the index file
+   * @param buffer a buffer of one index page
+   */
+  public static BPlusTreeInnerNodes load(FileChannel channel, ByteBuffer buffer)
+      throws IOException {
+    readPage(channel, buffer, 0);
+    int rootAddress = buffer.getInt(0);
+    int numLeafNodes = buffer.getInt(4);
+    int order = buffer.getInt(8);
+
+    int numIndexNodes = rootAddress - numLeafNodes;
+    int[][] keys = new int[numIndexNodes][];
+    int[][] children = new int[numIndexNodes][];
+    BPlusTreeIndexNodeView view = new BPlusTreeIndexNodeView();
+    for (int i = 0; i < numIndexNodes; i++) {
+      readPage(channel, buffer, numLeafNodes + 1 + i);
+      view.wrap(buffer);
+
+      int numKeys = view.getNumOfKeys();
+      keys[i] = new int[numKeys];
+      children[i] = new int[numKeys + 1];
+      for (int j = 0; j < numKeys; j++) {
+        keys[i][j] = view.getKeyAtIndex(j);
+      }
+      for (int j = 0; j <= numKeys; j++) {
+        children[i][j] = view.getChildAtIndex(j);
+      }
+    }
+    return new BPlusTreeInnerNodes(rootAddress, numLeafNodes, order, keys, children);
+  }
+
+  public int getRootAddress() {
+    return rootAddress;
+  }
+
+  public int getNumLeafNodes() {
+    return numLeafNodes;
+  }
+
+  public int getOrder() {
+    return order;
+  }
+
+  /**
+   * Walks down from the root to the leaf that a key belongs in.
+   *
+   * @param targetKey the key to search for
+   * @return the address of the leaf
+   */
+  public int findLeafAddressByKey(int targetKey) {
+    int address = rootAddress;
+    while (address > numLeafNodes) {
+      int node = address - numLeafNodes - 1;
+      int[] nodeKeys = keys[node];
+
+      // the child after the last key that is less than or equal to the target key
+      int low = 0;
+      int high = nodeKeys.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (nodeKeys[mid] <= targetKey) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      address = children[node][low];
+    }
+    return address;
+  }
+
+  private static void readPage(FileChannel channel, ByteBuffer buffer, int nodeAddress)
+      throws IOException {
+    buffer.clear();
+    long offset = (long) nodeAddress * INDEX_PAGE_SIZE;
+    // the last node of the file is only as long as its contents
+    while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {}
+    if (buffer.position() == 0) {
+      throw new IOException("Index node " + nodeAddress + " is past the end of the index file");
+    }
+    buffer.flip();
+  }
+}
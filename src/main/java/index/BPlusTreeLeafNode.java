@@ -18,17 +18,19 @@ public class BPlusTreeLeafNode extends BPlusTreeNode {
     entries.add(entry);
   }
 
-  /**
-   * This find the first key that is greater than or equal to the target key TODO: upgrade to binary
-   * search
-   */
+  /** This find the first key that is greater than or equal to the target key */
   public int findEntryIndexByKey(int targetKey) {
-    int i = 0;
-    while (i < entries.size() && targetKey > entries.get(i).getKey()) {
-      i++;
+    int low = 0;
+    int high = entries.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (entries.get(mid).getKey() < targetKey) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
     }
-
-    return i;
+    return low;
   }
 
   @Override
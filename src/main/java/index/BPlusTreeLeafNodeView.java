@@ -0,0 +1,100 @@
+package index;
+
+import static utils.DBConstants.INDEX_PAGE_SIZE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A leaf node read in place from its page, without building a {@link BPlusTreeLeafNode}. Wrapping a
+ * page records where each entry starts, as entries vary in length with their number of record ids.
+ * Keys are then found by binary search and record ids are read straight from the page.
+ *
+ * <p>The view reads from the buffer it wraps, so it is only valid until the buffer is loaded with
+ * another page. One view can be reused for any number of pages.
+ */
+public class BPlusTreeLeafNodeView {
+
+  // flag, number of keys, then for each entry: key, number of record ids, record ids
+  private static final int HEADER_SIZE = 8;
+  private static final int RECORD_ID_SIZE = 8;
+
+  // the smallest entry is a key and a count of record ids
+  private final int[] entryOffsets = new int[(INDEX_PAGE_SIZE - HEADER_SIZE) / 8];
+
+  private ByteBuffer page;
+  private int address;
+  private int numKeys;
+
+  /**
+   * Points the view at a leaf page.
+   *
+   * @param page the buffer holding the page
+   * @param address the address of the page in the index file
+   * @throws IOException if the page is not a leaf node
+   */
+  public void wrap(ByteBuffer page, int address) throws IOException {
+    if (page.getInt(0) != 0) {
+      throw new IOException("Not a leaf node");
+    }
+    this.page = page;
+    this.address = address;
+    this.numKeys = page.getInt(4);
+
+    int offset = HEADER_SIZE;
+    for (int i = 0; i < numKeys; i++) {
+      entryOffsets[i] = offset;
+      offset += 8 + page.getInt(offset + 4) * RECORD_ID_SIZE;
+    }
+  }
+
+  public int getAddress() {
+    return address;
+  }
+
+  public int getNumOfKeys() {
+    return numKeys;
+  }
+
+  public int getKeyAtIndex(int index) {
+    return page.getInt(entryOffsets[index]);
+  }
+
+  public int getNumOfRecordIds(int index) {
+    return page.getInt(entryOffsets[index] + 4);
+  }
+
+  /**
+   * @return the page number of the recordIndex-th record id of the index-th entry
+   */
+  public int getPageNumber(int index, int recordIndex) {
+    return page.getInt(entryOffsets[index] + 8 + recordIndex * RECORD_ID_SIZE);
+  }
+
+  /**
+   * @return the tuple number within its page of the recordIndex-th record id of the index-th entry
+   */
+  public int getTupleNumber(int index, int recordIndex) {
+    return page.getInt(entryOffsets[index] + 12 + recordIndex * RECORD_ID_SIZE);
+  }
+
+  /**
+   * Finds the first entry with a key greater than or equal to the target key.
+   *
+   * @param targetKey the key to search for
+   * @return the index of the entry, or the number of keys if every key is smaller
+   */
+  public int findEntryIndexByKey(int targetKey) {
+    int low = 0;
+    int high = numKeys;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (getKeyAtIndex(mid) < targetKey) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
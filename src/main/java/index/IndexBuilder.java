@@ -3,116 +3,300 @@ package index;
 import catalog.DBCatalog;
 import config.IndexConfigManager;
 import config.IndexDefinition;
+import io.buffer.BufferPool;
 import io.reader.BinaryTupleReader;
 import io.reader.TupleReader;
+import io.reader.TupleReaderFactory;
 import io.writer.BinaryTupleWriter;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import model.Tuple;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import utils.DBConstants;
-import utils.TupleComparator;
+import utils.ExternalRowSorter;
+import utils.LoserTreeMerger;
 
+/**
+ * Builds the indexes of the index configuration. The record ids of a relation are streamed into an
+ * {@link ExternalRowSorter} as (key, page, tuple) rows, which sorts them within a memory budget and
+ * spills to cache files beyond it, and are then bulk loaded into the index file leaf by leaf. The
+ * relation of a clustered index is first sorted the same way, after which its record ids are
+ * already in key order and need no sort.
+ *
+ * <p>The indexes of different relations are built concurrently on a bounded pool of threads, which
+ * share the sort budget. The indexes of one relation are built by one task, after the clustered
+ * rewrite of the relation if it has a clustered index, from a single scan of the relation.
+ */
 public class IndexBuilder {
   private static final Logger logger = LogManager.getLogger(IndexBuilder.class);
+
+  /** Pages of memory for sorting when none is given, 4 MB. */
+  public static final int DEFAULT_SORT_BUFFER_PAGES = 1024;
+
   private final IndexConfigManager indexConfigManager;
   private final DBCatalog dbCatalog;
+  private final int sortBufferPages;
+  private final int threads;
 
   public IndexBuilder() {
+    this(DEFAULT_SORT_BUFFER_PAGES, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param sortBufferPages pages of memory for sorting the record ids and clustered relations, over
+   *     all threads
+   * @param threads the maximum number of relations whose indexes are built at once
+   */
+  public IndexBuilder(int sortBufferPages, int threads) {
     this.indexConfigManager = IndexConfigManager.getInstance();
     this.dbCatalog = DBCatalog.getInstance();
+    this.sortBufferPages = sortBufferPages;
+    this.threads = threads;
   }
 
   public void buildIndexes() {
+    Map<String, List<IndexDefinition>> indexesByRelation = new LinkedHashMap<>();
     for (IndexDefinition indexDefinition : indexConfigManager.getIndexConfigs()) {
-      try {
-        buildIndex(indexDefinition);
-      } catch (Exception e) {
-        logger.error(
-            "Failed to build index for relation {} attribute {}: {}",
-            indexDefinition.getRelation(),
-            indexDefinition.getAttribute(),
-            e.getMessage());
-        throw new RuntimeException(e);
+      indexesByRelation
+          .computeIfAbsent(indexDefinition.getRelation(), relation -> new ArrayList<>())
+          .add(indexDefinition);
+    }
+    if (indexesByRelation.isEmpty()) {
+      return;
+    }
+
+    int threadCount = Math.max(1, Math.min(threads, indexesByRelation.size()));
+    int bufferPagesPerTask = Math.max(1, sortBufferPages / threadCount);
+    if (threadCount == 1) {
+      for (List<IndexDefinition> indexDefinitions : indexesByRelation.values()) {
+        buildRelationIndexes(indexDefinitions, bufferPagesPerTask);
       }
+      return;
     }
-  }
 
-  void buildIndex(IndexDefinition indexDefinition) throws IOException {
-    String relation = indexDefinition.getRelation();
-    String attribute = indexDefinition.getAttribute();
-    int attributeIndex = indexDefinition.getAttributeIndex();
-    int order = indexDefinition.getOrder();
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<?>> builds = new ArrayList<>();
+      for (List<IndexDefinition> indexDefinitions : indexesByRelation.values()) {
+        builds.add(
+            executor.submit(() -> buildRelationIndexes(indexDefinitions, bufferPagesPerTask)));
+      }
+      for (Future<?> build : builds) {
+        build.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException runtimeException
+          ? runtimeException
+          : new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
-    logger.info("Building index on relation {} attribute {} order {}", relation, attribute, order);
+  /**
+   * Builds the indexes of one relation.
+   *
+   * @param indexDefinitions the indexes, all on the same relation
+   * @param bufferPages pages of memory for the sorts of this relation
+   */
+  private void buildRelationIndexes(List<IndexDefinition> indexDefinitions, int bufferPages) {
+    String relation = indexDefinitions.getFirst().getRelation();
+    try {
+      buildIndexesOnRelation(indexDefinitions, bufferPages);
+    } catch (Exception e) {
+      logger.error("Failed to build the indexes of relation {}: {}", relation, e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
 
+  private void buildIndexesOnRelation(List<IndexDefinition> indexDefinitions, int bufferPages)
+      throws IOException {
+    String relation = indexDefinitions.getFirst().getRelation();
     String relationPath = dbCatalog.getTablePath(relation);
 
     // Handle clustered index - sort the relation file
-    if (indexDefinition.isClustered()) {
-      sortAndReplaceTable(relationPath, attributeIndex);
+    IndexDefinition clusteredIndex = null;
+    for (IndexDefinition indexDefinition : indexDefinitions) {
+      if (indexDefinition.isClustered()) {
+        if (clusteredIndex == null) {
+          clusteredIndex = indexDefinition;
+        } else {
+          logger.warn(
+              "Relation {} has several clustered indexes, sorting it on {}",
+              relation,
+              clusteredIndex.getAttribute());
+        }
+      }
     }
+    if (clusteredIndex != null) {
+      sortAndReplaceTable(
+          relationPath,
+          clusteredIndex.getAttributeIndex(),
+          dbCatalog.getSchemaForTable(relation).size(),
+          bufferPages);
+    }
+
+    // indexes on the attribute the relation is sorted on need no sort
+    int sortedAttributeIndex = clusteredIndex == null ? -1 : clusteredIndex.getAttributeIndex();
+    long sortCount =
+        indexDefinitions.stream()
+            .filter(index -> index.getAttributeIndex() != sortedAttributeIndex)
+            .count();
+    int sorterPages = (int) Math.max(1, bufferPages / Math.max(1, sortCount));
 
-    List<Integer> keys = new ArrayList<>();
-    List<RecordId> recordIds = new ArrayList<>();
+    List<IndexLoad> loads = new ArrayList<>();
+    try {
+      for (IndexDefinition indexDefinition : indexDefinitions) {
+        logger.info(
+            "Building index on relation {} attribute {} order {}",
+            relation,
+            indexDefinition.getAttribute(),
+            indexDefinition.getOrder());
+        boolean sorted = indexDefinition.getAttributeIndex() == sortedAttributeIndex;
+        loads.add(new IndexLoad(indexDefinition, sorted ? null : sorterPages));
+      }
 
-    // loop through the relation file and populate keys and recordIds
-    readKeyAndRecordIds(relationPath, keys, attributeIndex, recordIds);
+      scanRecordIds(relationPath, loads);
+      for (IndexLoad load : loads) {
+        load.finish();
+        logger.debug(
+            "Built index {} with {} sort runs",
+            load.indexPath,
+            load.sorter == null ? 0 : load.sorter.getRunCount());
+      }
+    } finally {
+      for (IndexLoad load : loads) {
+        load.close();
+      }
+    }
 
-    // create the index file for the relation
-    try (FileChannel fileChannel =
-        new FileOutputStream(indexConfigManager.getIndexFilePath(indexDefinition)).getChannel()) {
-      ByteBuffer buffer = ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE);
-      BPlusTree.buildAndSerializeBPlusTree(fileChannel, buffer, keys, recordIds, order);
+    for (IndexLoad load : loads) {
+      BufferPool.getInstance().invalidate(load.indexPath);
+      indexConfigManager.invalidateInnerNodes(load.indexDefinition);
     }
   }
 
-  private static void readKeyAndRecordIds(
-      String relationPath, List<Integer> keys, int attributeIndex, List<RecordId> recordIds)
-      throws IOException {
+  /** Reads the relation once, adding the record id of every tuple to every index. */
+  private static void scanRecordIds(String relationPath, List<IndexLoad> loads) throws IOException {
     try (FileChannel fileChannel = new FileInputStream(relationPath).getChannel()) {
+      BinaryTupleReader tupleReader =
+          TupleReaderFactory.createTableReader(relationPath, fileChannel);
 
-      BinaryTupleReader tupleReader = new BinaryTupleReader(fileChannel);
+      while (true) {
+        int pageNumber = tupleReader.getCurrentPageNumber();
+        int tupleNumber = tupleReader.getCurrentTupleNumber();
+        Tuple tuple = tupleReader.getNextTuple();
+        if (tuple == null) {
+          break;
+        }
+        for (IndexLoad load : loads) {
+          load.add(tuple, pageNumber, tupleNumber);
+        }
+      }
+    }
+  }
 
-      RecordId recordId =
-          new RecordId(tupleReader.getCurrentPageNumber(), tupleReader.getCurrentTupleNumber());
-      Tuple tuple = tupleReader.getNextTuple();
+  /**
+   * The index file being written for one index. Record ids go straight to the bulk loader if the
+   * relation is sorted on the attribute, and through a sorter otherwise.
+   */
+  private class IndexLoad implements Closeable {
+    private final IndexDefinition indexDefinition;
+    private final String indexPath;
+    private final int attributeIndex;
+    private final FileChannel channel;
+    private final BPlusTreeBulkLoader loader;
+    private final ExternalRowSorter sorter; // null if the record ids arrive in key order
+    private final int[] row = new int[3];
 
-      while (tuple != null) {
-        keys.add(tuple.getElementAtIndex(attributeIndex));
-        recordIds.add(recordId);
+    /**
+     * @param sorterPages pages of memory for sorting the record ids, or null if they arrive in key
+     *     order
+     */
+    IndexLoad(IndexDefinition indexDefinition, Integer sorterPages) throws IOException {
+      this.indexDefinition = indexDefinition;
+      this.indexPath = indexConfigManager.getIndexFilePath(indexDefinition);
+      this.attributeIndex = indexDefinition.getAttributeIndex();
+      this.channel = new FileOutputStream(indexPath).getChannel();
+      this.loader =
+          new BPlusTreeBulkLoader(
+              channel,
+              ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE),
+              indexDefinition.getOrder());
+      this.sorter = sorterPages == null ? null : new ExternalRowSorter(3, 0, sorterPages);
+    }
 
-        // get the next tuple
-        recordId =
-            new RecordId(tupleReader.getCurrentPageNumber(), tupleReader.getCurrentTupleNumber());
-        tuple = tupleReader.getNextTuple();
+    void add(Tuple tuple, int pageNumber, int tupleNumber) throws IOException {
+      if (sorter == null) {
+        loader.add(tuple.getInt(attributeIndex), pageNumber, tupleNumber);
+      } else {
+        row[0] = tuple.getInt(attributeIndex);
+        row[1] = pageNumber;
+        row[2] = tupleNumber;
+        sorter.add(row);
       }
     }
-  }
 
-  private static void sortAndReplaceTable(String relationPath, int attributeIndex)
-      throws IOException {
-    List<Tuple> tuples;
+    /** Loads the sorted record ids, if any, and writes the rest of the index. */
+    void finish() throws IOException {
+      if (sorter != null) {
+        LoserTreeMerger.Source sortedRows = sorter.sort();
+        for (Tuple entry = sortedRows.getNextTuple();
+            entry != null;
+            entry = sortedRows.getNextTuple()) {
+          loader.add(entry.getInt(0), entry.getInt(1), entry.getInt(2));
+        }
+      }
+      loader.finish();
+    }
 
-    // read all tuples from the relation file
-    try (FileChannel fileChannel = new FileInputStream(relationPath).getChannel()) {
-      TupleReader tupleReader = new BinaryTupleReader(fileChannel);
-      tuples = tupleReader.getAllTuples();
+    @Override
+    public void close() throws IOException {
+      if (sorter != null) {
+        sorter.close();
+      }
+      channel.close();
     }
+  }
 
-    // sort the tuples based on the attribute
-    tuples.sort(new TupleComparator(List.of(attributeIndex)));
+  /** Sorts the relation file on the attribute, keeping the order of tuples with equal values. */
+  private static void sortAndReplaceTable(
+      String relationPath, int attributeIndex, int width, int bufferPages) throws IOException {
+    try (ExternalRowSorter sorter = new ExternalRowSorter(width, attributeIndex, bufferPages)) {
+      // not memory-mapped, the file is truncated and rewritten below
+      try (FileChannel fileChannel = new FileInputStream(relationPath).getChannel()) {
+        TupleReader tupleReader = new BinaryTupleReader(fileChannel);
+        for (Tuple tuple = tupleReader.getNextTuple();
+            tuple != null;
+            tuple = tupleReader.getNextTuple()) {
+          sorter.add(tuple);
+        }
+      }
 
-    // write the sorted tuples back to the relation file
-    try (BinaryTupleWriter tupleWriter =
-        new BinaryTupleWriter(
-            new FileOutputStream(relationPath).getChannel(),
-            tuples.getFirst().getAllElements().size())) {
-      tupleWriter.writeTuples(tuples);
+      LoserTreeMerger.Source sortedTuples = sorter.sort();
+      try (FileChannel fileChannel = new FileOutputStream(relationPath).getChannel();
+          BinaryTupleWriter tupleWriter = new BinaryTupleWriter(fileChannel, width)) {
+        for (Tuple tuple = sortedTuples.getNextTuple();
+            tuple != null;
+            tuple = sortedTuples.getNextTuple()) {
+          tupleWriter.writeTuple(tuple);
+        }
+      }
+      logger.debug("Sorted {} in {} runs", relationPath, sorter.getRunCount());
     }
+    BufferPool.getInstance().invalidate(relationPath);
   }
 }
@@ -0,0 +1,380 @@
+package io.buffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import utils.DBConstants;
+
+/**
+ * Process-wide cache of table and index pages, keyed by file and page number. A self join, or the
+ * inner relation of a block nested loop join that is reset once per outer block, reads its pages
+ * from the pool instead of from disk.
+ *
+ * <p>A page is pinned while it is in use and cannot be evicted until it is unpinned. Unpinned pages
+ * are evicted with the CLOCK algorithm: every frame has a reference bit that is set on each access
+ * and cleared by the clock hand, and the hand evicts the first unpinned frame whose bit is already
+ * clear.
+ *
+ * <p>The page table and the frames are guarded by the lock of the pool, but a miss reads its page
+ * outside of it: the frame is picked and pinned under the lock and marked as loading, and other
+ * pins of the same page wait for that frame alone. Readers of different pages thus read from disk
+ * concurrently. With a capacity of zero the pool is disabled and every request is a plain read from
+ * the channel.
+ */
+public class BufferPool {
+  private static final Logger logger = LogManager.getLogger(BufferPool.class);
+
+  /** Size of a frame, table and index pages have the same size. */
+  public static final int PAGE_SIZE = DBConstants.TABLE_PAGE_SIZE;
+
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private static BufferPool instance;
+
+  private final Map<PageKey, Frame> pageTable = new HashMap<>();
+  private final Map<String, FileVersion> fileVersions = new HashMap<>();
+  private final Map<String, String> normalizedPaths = new HashMap<>();
+  private Frame[] frames;
+  private int allocatedFrames;
+  private int clockHand;
+
+  private long hitCount;
+  private long missCount;
+
+  private BufferPool(int capacity) {
+    this.frames = new Frame[capacity];
+  }
+
+  public static synchronized BufferPool getInstance() {
+    if (instance == null) {
+      instance = new BufferPool(DEFAULT_CAPACITY);
+    }
+    return instance;
+  }
+
+  /**
+   * Changes the number of frames, dropping all cached pages if the number changes.
+   *
+   * @param capacity the number of frames, zero disables the pool
+   */
+  public synchronized void setCapacity(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Buffer pool capacity must not be negative");
+    }
+    for (int i = 0; i < allocatedFrames; i++) {
+      if (frames[i].pinCount > 0) {
+        throw new IllegalStateException("Cannot resize the buffer pool while pages are pinned");
+      }
+    }
+    if (capacity == frames.length) {
+      return;
+    }
+
+    logger.info("Resizing buffer pool to {} frames", capacity);
+    pageTable.clear();
+    fileVersions.clear();
+    frames = new Frame[capacity];
+    allocatedFrames = 0;
+    clockHand = 0;
+  }
+
+  public synchronized int getCapacity() {
+    return frames.length;
+  }
+
+  /**
+   * Pins a page of a file, reading it from the channel if it is not cached. The caller must {@link
+   * #unpin} the page once it no longer reads it.
+   *
+   * @param path path of the file, used as the cache key
+   * @param channel channel of the file, only read on a miss
+   * @param pageNumber the page to pin
+   * @return the pinned page, or null if the page is past the end of the file
+   */
+  public Page pin(String path, FileChannel channel, int pageNumber) throws IOException {
+    while (true) {
+      Frame frame;
+      boolean loader;
+      synchronized (this) {
+        if (frames.length == 0) {
+          // the pool is disabled, the page is read into a frame of its own
+          frame = new Frame();
+          loader = true;
+        } else {
+          PageKey key = new PageKey(normalize(path), pageNumber);
+          frame = pageTable.get(key);
+          loader = frame == null;
+          if (loader) {
+            missCount++;
+            frame = findVictim();
+            if (frame.key != null) {
+              pageTable.remove(frame.key);
+            }
+            frame.key = key;
+            frame.state = LoadState.LOADING;
+            pageTable.put(key, frame);
+          } else {
+            hitCount++;
+          }
+        }
+        frame.pinCount++;
+        frame.referenced = true;
+      }
+
+      if (loader) {
+        return load(frame, channel, pageNumber);
+      }
+      LoadState state = frame.awaitLoad();
+      if (state == LoadState.LOADED) {
+        return frame;
+      }
+      unpin(frame);
+      if (state == LoadState.PAST_END) {
+        return null;
+      }
+      // the read failed in the thread that loaded the page, try it again in this one
+    }
+  }
+
+  /** Reads a page into a frame that was pinned for it, outside of the lock of the pool. */
+  private Page load(Frame frame, FileChannel channel, int pageNumber) throws IOException {
+    LoadState state = LoadState.FAILED;
+    try {
+      state = frame.load(channel, pageNumber) ? LoadState.LOADED : LoadState.PAST_END;
+    } finally {
+      if (state == LoadState.LOADED) {
+        frame.finishLoad(state);
+      } else {
+        discard(frame, state);
+      }
+    }
+    return state == LoadState.LOADED ? frame : null;
+  }
+
+  /**
+   * Drops a frame whose page could not be loaded and releases the pin of its loader. The frame is
+   * unmapped before its waiters wake up, so none of them finds it again.
+   */
+  private synchronized void discard(Frame frame, LoadState state) {
+    if (frame.key != null && pageTable.get(frame.key) == frame) {
+      pageTable.remove(frame.key);
+    }
+    frame.key = null;
+    frame.referenced = false;
+    frame.finishLoad(state);
+    frame.pinCount--;
+  }
+
+  /** Releases a page returned by {@link #pin}. */
+  public synchronized void unpin(Page page) {
+    Frame frame = (Frame) page;
+    if (frame.pinCount <= 0) {
+      throw new IllegalStateException("Page is not pinned");
+    }
+    frame.pinCount--;
+  }
+
+  /**
+   * Copies a page into a buffer, pinning it only for the duration of the copy.
+   *
+   * @return false if the page is past the end of the file
+   */
+  public boolean readPage(String path, FileChannel channel, int pageNumber, ByteBuffer destination)
+      throws IOException {
+    Page page = pin(path, channel, pageNumber);
+    if (page == null) {
+      return false;
+    }
+    try {
+      destination.clear();
+      destination.put(page.getData());
+      destination.flip();
+    } finally {
+      unpin(page);
+    }
+    return true;
+  }
+
+  /**
+   * Drops the cached pages of a file whose contents have changed. Pages that are still pinned stay
+   * valid for their current users but are no longer found by {@link #pin}.
+   */
+  public synchronized void invalidate(String path) {
+    String normalizedPath = normalize(path);
+    pageTable.values().removeIf(frame -> frame.key.path().equals(normalizedPath));
+    for (int i = 0; i < allocatedFrames; i++) {
+      Frame frame = frames[i];
+      if (frame.key != null && frame.key.path().equals(normalizedPath)) {
+        frame.key = null;
+        frame.referenced = false;
+      }
+    }
+    fileVersions.remove(normalizedPath);
+  }
+
+  /**
+   * Drops the cached pages of a file if it was modified since its pages were cached, e.g. by
+   * regenerating the data outside of the database. Readers call this once when they open a file.
+   */
+  public synchronized void validate(String path) throws IOException {
+    if (frames.length == 0) {
+      return;
+    }
+
+    String normalizedPath = normalize(path);
+    BasicFileAttributes attributes =
+        Files.readAttributes(Path.of(normalizedPath), BasicFileAttributes.class);
+    FileVersion version =
+        new FileVersion(attributes.size(), attributes.lastModifiedTime().toMillis());
+
+    FileVersion cachedVersion = fileVersions.get(normalizedPath);
+    if (cachedVersion != null && !cachedVersion.equals(version)) {
+      logger.debug("File {} changed on disk, dropping its cached pages", normalizedPath);
+      invalidate(normalizedPath);
+    }
+    fileVersions.put(normalizedPath, version);
+  }
+
+  /** Drops every cached page. */
+  public synchronized void clear() {
+    for (int i = 0; i < allocatedFrames; i++) {
+      frames[i].key = null;
+      frames[i].referenced = false;
+    }
+    pageTable.clear();
+    fileVersions.clear();
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  public synchronized void resetStatistics() {
+    hitCount = 0;
+    missCount = 0;
+  }
+
+  private Frame findVictim() {
+    if (allocatedFrames < frames.length) {
+      Frame frame = new Frame();
+      frames[allocatedFrames++] = frame;
+      return frame;
+    }
+
+    // two sweeps clear every reference bit, so an unpinned frame is found if one exists
+    for (int i = 0; i < 2 * frames.length; i++) {
+      Frame frame = frames[clockHand];
+      clockHand = (clockHand + 1) % frames.length;
+
+      if (frame.pinCount > 0) {
+        continue;
+      }
+      if (frame.referenced) {
+        frame.referenced = false;
+        continue;
+      }
+      return frame;
+    }
+    throw new IllegalStateException("All " + frames.length + " buffer pool frames are pinned");
+  }
+
+  /** Resolves a path to its cache key, remembering the result as pins resolve it for every page. */
+  private String normalize(String path) {
+    return normalizedPaths.computeIfAbsent(
+        path, p -> Path.of(p).toAbsolutePath().normalize().toString());
+  }
+
+  /** A page pinned in the pool. */
+  public interface Page {
+
+    /**
+     * Returns a read-only view of the page bytes, positioned at 0 with the limit at the number of
+     * bytes in the page. Only valid while the page is pinned.
+     */
+    ByteBuffer getData();
+  }
+
+  private record PageKey(String path, int pageNumber) {}
+
+  private record FileVersion(long size, long lastModified) {}
+
+  private enum LoadState {
+    LOADING,
+    LOADED,
+    PAST_END,
+    FAILED
+  }
+
+  private static class Frame implements Page {
+    private final ByteBuffer data = ByteBuffer.allocate(PAGE_SIZE);
+
+    // guarded by the lock of the pool
+    private PageKey key;
+    private int pinCount;
+    private boolean referenced;
+
+    // set under the lock of the pool when the frame is picked, and by its loader when done
+    private volatile LoadState state = LoadState.LOADED;
+
+    /**
+     * Waits until the loader of the page is done with it.
+     *
+     * @return the state the loader left the frame in, anything but {@link LoadState#LOADING}
+     */
+    private LoadState awaitLoad() {
+      LoadState current = state;
+      if (current != LoadState.LOADING) {
+        return current;
+      }
+      synchronized (this) {
+        boolean interrupted = false;
+        while (state == LoadState.LOADING) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+        return state;
+      }
+    }
+
+    private synchronized void finishLoad(LoadState loadState) {
+      state = loadState;
+      notifyAll();
+    }
+
+    /** Reads a page into the frame, returns false if the page is past the end of the file. */
+    private boolean load(FileChannel channel, int pageNumber) throws IOException {
+      long position = (long) pageNumber * PAGE_SIZE;
+      data.clear();
+      while (data.hasRemaining()) {
+        int bytesRead = channel.read(data, position + data.position());
+        if (bytesRead == -1) {
+          break;
+        }
+      }
+      data.flip();
+      return data.hasRemaining();
+    }
+
+    @Override
+    public ByteBuffer getData() {
+      return data.asReadOnlyBuffer();
+    }
+  }
+}
@@ -5,13 +5,17 @@ import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-/** Manages cache files in an automatically created subdirectory. */
+/**
+ * Manages cache files in an automatically created subdirectory. Files can be created and deleted
+ * from several threads at once.
+ */
 public class CacheFileManager implements FileManager {
   private static final Logger logger = LogManager.getLogger(CacheFileManager.class);
 
@@ -21,7 +25,7 @@ public class CacheFileManager implements FileManager {
   public CacheFileManager(String baseDir) throws IOException {
     String uniqueDir = UUID.randomUUID().toString();
     this.directory = Path.of(baseDir, uniqueDir);
-    this.activeFiles = new HashSet<>();
+    this.activeFiles = ConcurrentHashMap.newKeySet();
 
     Files.createDirectories(directory);
     logger.debug("Created cache directory: {}", directory);
@@ -53,8 +57,8 @@ public class CacheFileManager implements FileManager {
 
   @Override
   public void cleanup() throws IOException {
-    // Delete all active files
-    for (String fileName : activeFiles) {
+    // Delete all active files, iterating over a copy as deleteFile removes from the set
+    for (String fileName : new ArrayList<>(activeFiles)) {
       deleteFile(fileName);
     }
 
@@ -18,7 +18,7 @@ public class CacheFileManagerRegistry {
     instances = new ArrayList<>();
   }
 
-  public static CacheFileManagerRegistry getInstance() {
+  public static synchronized CacheFileManagerRegistry getInstance() {
     if (registry == null) {
       registry = new CacheFileManagerRegistry();
     }
@@ -29,13 +29,13 @@ public class CacheFileManagerRegistry {
     this.cacheDirectory = cacheDirectory;
   }
 
-  public CacheFileManager createManager() throws IOException {
+  public synchronized CacheFileManager createManager() throws IOException {
     CacheFileManager manager = new CacheFileManager(cacheDirectory);
     instances.add(manager);
     return manager;
   }
 
-  public void cleanupAll() throws IOException {
+  public synchronized void cleanupAll() throws IOException {
     for (CacheFileManager manager : instances) {
       manager.cleanup();
     }
@@ -3,10 +3,10 @@ package io.reader;
 import static utils.DBConstants.INT_SIZE;
 import static utils.DBConstants.TABLE_PAGE_SIZE;
 
+import io.buffer.BufferPool;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
-import java.util.ArrayList;
 import model.Tuple;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -26,37 +26,54 @@ public class BinaryTupleReader extends TupleReader {
   private boolean isLastPage;
 
   private FileChannel fileChannel = null;
-  private final ByteBuffer buffer;
+  private String filePath; // set if pages are read through the buffer pool
+  private ByteBuffer buffer;
+  private ByteBuffer page; // the loaded page, null past the end of the file
+  private int loadedPageNumber = -1;
   private int currentPageNumber;
   private int currentTupleNumber;
 
   private Tuple nextTuple;
 
   public BinaryTupleReader(FileChannel fileChannel) throws IOException {
+    this(fileChannel, null);
+  }
+
+  /**
+   * Creates a reader that reads its pages through the {@link BufferPool}.
+   *
+   * @param fileChannel channel of the file
+   * @param filePath path of the file, the key of its pages in the buffer pool
+   */
+  public BinaryTupleReader(FileChannel fileChannel, String filePath) throws IOException {
     logger.info("Creating BinaryTupleReader");
 
     this.fileChannel = fileChannel;
-    this.buffer = ByteBuffer.allocate(TABLE_PAGE_SIZE);
+    this.filePath = filePath;
+    if (filePath != null) {
+      BufferPool.getInstance().validate(filePath);
+    }
     seek(0, 0);
   }
 
   private void loadPage(int pageNumber) throws IOException {
-    this.fileChannel.position((long) pageNumber * TABLE_PAGE_SIZE);
+    // a seek within the page that is already loaded does not touch the file
+    if (pageNumber == this.loadedPageNumber) {
+      return;
+    }
 
-    buffer.clear();
-    int bytesRead = this.fileChannel.read(this.buffer);
+    this.page = readPage(pageNumber);
+    this.loadedPageNumber = pageNumber;
 
-    // if the buffer is empty, then we have reached the end of the file
+    // if there is no page, then we have reached the end of the file
     this.isEmptyPage = false;
-    if (bytesRead == -1) {
+    if (this.page == null) {
       this.isEmptyPage = true;
       return;
     }
 
-    buffer.flip();
-
-    this.tupleSize = this.buffer.getInt(0);
-    this.tuplesInCurrentPage = this.buffer.getInt(INT_SIZE);
+    this.tupleSize = this.page.getInt(0);
+    this.tuplesInCurrentPage = this.page.getInt(INT_SIZE);
     this.tuplesPerPage = (TABLE_PAGE_SIZE - 2 * INT_SIZE) / (INT_SIZE * this.tupleSize);
 
     this.isLastPage = false;
@@ -65,24 +82,50 @@ public class BinaryTupleReader extends TupleReader {
     }
   }
 
-  private Tuple readTuple(int tupleNumber) {
+  /**
+   * Returns the bytes of a page, with the page header at index 0. Subclasses can override this to
+   * serve pages from somewhere other than a read into a private buffer.
+   *
+   * @param pageNumber the page to read
+   * @return the page, or null if the page is past the end of the file
+   */
+  protected ByteBuffer readPage(int pageNumber) throws IOException {
+    if (this.buffer == null) {
+      this.buffer = ByteBuffer.allocate(TABLE_PAGE_SIZE);
+    }
 
-    // read the tuple data
-    ArrayList<Integer> integers = new ArrayList<>();
+    if (this.filePath != null) {
+      return BufferPool.getInstance().readPage(filePath, fileChannel, pageNumber, buffer)
+          ? buffer
+          : null;
+    }
+
+    this.fileChannel.position((long) pageNumber * TABLE_PAGE_SIZE);
+    buffer.clear();
+    if (this.fileChannel.read(this.buffer) == -1) {
+      return null;
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private Tuple readTuple(int tupleNumber) {
 
     int headerSize = 2 * INT_SIZE;
     int bufferIndex = headerSize + tupleNumber * this.tupleSize * INT_SIZE;
 
     // Add bounds checking
-    if (bufferIndex + (this.tupleSize * INT_SIZE) > buffer.capacity()) {
+    if (bufferIndex + (this.tupleSize * INT_SIZE) > page.capacity()) {
       throw new IllegalStateException("Attempting to read beyond buffer capacity");
     }
 
+    // read the tuple data
+    int[] values = new int[this.tupleSize];
     for (int i = 0; i < this.tupleSize; i++) {
-      integers.add(buffer.getInt(bufferIndex));
+      values[i] = page.getInt(bufferIndex);
       bufferIndex += INT_SIZE;
     }
-    return new Tuple(integers);
+    return new Tuple(values);
   }
 
   @Override
@@ -105,8 +148,9 @@ public class BinaryTupleReader extends TupleReader {
 
       loadPage(++this.currentPageNumber);
 
+      // a full last page is only detected when the next page is past the end of the file
       this.currentTupleNumber = 0;
-      this.nextTuple = readTuple(this.currentTupleNumber);
+      this.nextTuple = isEmptyPage ? null : readTuple(this.currentTupleNumber);
     } else {
 
       this.nextTuple = readTuple(++currentTupleNumber);
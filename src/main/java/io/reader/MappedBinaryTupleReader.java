@@ -0,0 +1,63 @@
+package io.reader;
+
+import static utils.DBConstants.TABLE_PAGE_SIZE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Binary tuple reader that maps the file into memory once with {@link FileChannel#map} and reads
+ * tuples straight out of the mapping. Moving to another page is a slice of the mapping instead of a
+ * positioned read into a heap buffer, which makes the random seeks of unclustered index scans
+ * cheap.
+ *
+ * <p>The file is mapped in regions of {@link #REGION_SIZE} bytes so files larger than 2 GB can be
+ * read as well. The file must not be modified while the reader is open.
+ */
+public class MappedBinaryTupleReader extends BinaryTupleReader {
+
+  /** Size of a single mapping, a multiple of the page size. */
+  static final int REGION_SIZE = (1 << 30);
+
+  private static final int PAGES_PER_REGION = REGION_SIZE / TABLE_PAGE_SIZE;
+
+  // mapped lazily since the super constructor already reads the first page
+  private MappedByteBuffer[] regions;
+  private long fileSize;
+
+  public MappedBinaryTupleReader(FileChannel fileChannel) throws IOException {
+    super(fileChannel);
+  }
+
+  @Override
+  protected ByteBuffer readPage(int pageNumber) throws IOException {
+    if (regions == null) {
+      map();
+    }
+
+    long offset = (long) pageNumber * TABLE_PAGE_SIZE;
+    if (offset >= fileSize) {
+      return null;
+    }
+
+    MappedByteBuffer region = regions[pageNumber / PAGES_PER_REGION];
+    int regionOffset = (pageNumber % PAGES_PER_REGION) * TABLE_PAGE_SIZE;
+    int length = (int) Math.min(TABLE_PAGE_SIZE, fileSize - offset);
+    return region.slice(regionOffset, length);
+  }
+
+  private void map() throws IOException {
+    FileChannel channel = getFileChannel();
+    fileSize = channel.size();
+
+    int regionCount = (int) ((fileSize + REGION_SIZE - 1) / REGION_SIZE);
+    regions = new MappedByteBuffer[regionCount];
+    for (int i = 0; i < regionCount; i++) {
+      long position = (long) i * REGION_SIZE;
+      long size = Math.min(REGION_SIZE, fileSize - position);
+      regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+  }
+}
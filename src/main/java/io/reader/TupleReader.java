@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import model.Tuple;
+import model.TupleBatch;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -19,6 +20,20 @@ public abstract class TupleReader {
     logger.error("Not implemented");
   }
 
+  /**
+   * Reads tuples into the batch until it is full or the reader runs out of tuples.
+   *
+   * @param batch the batch to fill, expected to be empty
+   * @return the number of tuples read
+   */
+  public int readBatch(TupleBatch batch) throws IOException {
+    Tuple t;
+    while (!batch.isFull() && (t = getNextTuple()) != null) {
+      batch.add(t);
+    }
+    return batch.size();
+  }
+
   public List<Tuple> getAllTuples() throws IOException {
     Tuple t;
     List<Tuple> tuples = new ArrayList<>();
@@ -0,0 +1,28 @@
+package io.reader;
+
+import config.PhysicalPlanConfig;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/** Creates the readers for relation files, using the reader method chosen in the plan config. */
+public class TupleReaderFactory {
+
+  private TupleReaderFactory() {}
+
+  /**
+   * Creates a binary reader over a relation file.
+   *
+   * @param path path of the relation file
+   * @param channel channel of the relation file
+   * @return a memory-mapped reader if the config asks for one, otherwise a reader that reads its
+   *     pages through the buffer pool
+   */
+  public static BinaryTupleReader createTableReader(String path, FileChannel channel)
+      throws IOException {
+    if (PhysicalPlanConfig.getInstance().getReaderMethod()
+        == PhysicalPlanConfig.ReaderMethod.MAPPED) {
+      return new MappedBinaryTupleReader(channel);
+    }
+    return new BinaryTupleReader(channel, path);
+  }
+}
@@ -10,7 +10,6 @@ import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import model.Tuple;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -66,14 +65,13 @@ public class BinaryTupleWriter extends TupleWriter {
     }
 
     // Write the tuple to buffer
-    ArrayList<Integer> numbers = tuple.getAllElements();
-    if (numbers.size() != TUPLE_SIZE) {
+    if (tuple.width() != TUPLE_SIZE) {
       throw new IllegalArgumentException(
-          "Tuple size mismatch. Expected: " + TUPLE_SIZE + ", Got: " + numbers.size());
+          "Tuple size mismatch. Expected: " + TUPLE_SIZE + ", Got: " + tuple.width());
     }
 
-    for (Integer num : numbers) {
-      buffer.putInt(bufferIndex, num);
+    for (int i = 0; i < TUPLE_SIZE; i++) {
+      buffer.putInt(bufferIndex, tuple.getInt(i));
       bufferIndex += INT_SIZE;
     }
 
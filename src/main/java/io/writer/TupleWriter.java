@@ -2,6 +2,7 @@ package io.writer;
 
 import java.util.List;
 import model.Tuple;
+import model.TupleBatch;
 
 public abstract class TupleWriter implements AutoCloseable {
   public abstract void writeTuple(Tuple tuple);
@@ -13,4 +14,10 @@ public abstract class TupleWriter implements AutoCloseable {
       writeTuple(t);
     }
   }
+
+  public void writeBatch(TupleBatch batch) {
+    for (int i = 0; i < batch.size(); i++) {
+      writeTuple(batch.get(i));
+    }
+  }
 }
@@ -0,0 +1,74 @@
+package logicaloperator;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * Groups the tuples of its child on the group by columns and computes the aggregate functions over
+ * each group. The output has the group by columns followed by one column per aggregate function.
+ */
+public class LogicalAggregate extends LogicalOperator {
+
+  private final LogicalOperator childOperator;
+  private final List<Column> groupByColumns;
+  private final List<Function> aggregateFunctions;
+  private final List<Column> aggregateColumns;
+
+  /**
+   * @param child the child operator
+   * @param groupByColumns the group by columns, empty to aggregate the whole input
+   * @param aggregateFunctions the aggregate functions
+   * @param aggregateColumns the output column of each aggregate function
+   */
+  public LogicalAggregate(
+      LogicalOperator child,
+      List<Column> groupByColumns,
+      List<Function> aggregateFunctions,
+      List<Column> aggregateColumns) {
+    this.childOperator = child;
+    this.groupByColumns = groupByColumns;
+    this.aggregateFunctions = aggregateFunctions;
+    this.aggregateColumns = aggregateColumns;
+  }
+
+  public LogicalOperator getChildOperator() {
+    return childOperator;
+  }
+
+  public List<Column> getGroupByColumns() {
+    return groupByColumns;
+  }
+
+  public List<Function> getAggregateFunctions() {
+    return aggregateFunctions;
+  }
+
+  public List<Column> getAggregateColumns() {
+    return aggregateColumns;
+  }
+
+  /** Returns the group by columns followed by the aggregate columns. */
+  public ArrayList<Column> getOutputSchema() {
+    ArrayList<Column> outputSchema = new ArrayList<>(groupByColumns);
+    outputSchema.addAll(aggregateColumns);
+    return outputSchema;
+  }
+
+  @Override
+  public String toString() {
+    return "Aggregate["
+        + childOperator.toString()
+        + " by "
+        + groupByColumns
+        + " computing "
+        + aggregateFunctions
+        + "]";
+  }
+
+  @Override
+  public void accept(LogicalOperatorVisitor visitor) {
+    visitor.visit(this);
+  }
+}
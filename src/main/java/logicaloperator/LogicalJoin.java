@@ -1,5 +1,6 @@
 package logicaloperator;
 
+import config.PhysicalPlanConfig;
 import net.sf.jsqlparser.expression.Expression;
 
 public class LogicalJoin extends LogicalOperator {
@@ -7,11 +8,28 @@ public class LogicalJoin extends LogicalOperator {
   private final LogicalOperator leftChild;
   private final LogicalOperator rightChild;
   private final Expression condition;
+  private final PhysicalPlanConfig.JoinMethod joinMethod;
+  private final CostEstimate costEstimate;
 
   public LogicalJoin(LogicalOperator leftChild, LogicalOperator rightChild, Expression condition) {
+    this(leftChild, rightChild, condition, null, null);
+  }
+
+  /**
+   * @param joinMethod the join method chosen by the optimizer, or null to use the configured one
+   * @param costEstimate the optimizer's estimate of the chosen method, or null without one
+   */
+  public LogicalJoin(
+      LogicalOperator leftChild,
+      LogicalOperator rightChild,
+      Expression condition,
+      PhysicalPlanConfig.JoinMethod joinMethod,
+      CostEstimate costEstimate) {
     this.leftChild = leftChild;
     this.rightChild = rightChild;
     this.condition = condition;
+    this.joinMethod = joinMethod;
+    this.costEstimate = costEstimate;
   }
 
   public LogicalOperator getLeftChild() {
@@ -26,6 +44,14 @@ public class LogicalJoin extends LogicalOperator {
     return condition;
   }
 
+  public PhysicalPlanConfig.JoinMethod getJoinMethod() {
+    return joinMethod;
+  }
+
+  public CostEstimate getCostEstimate() {
+    return costEstimate;
+  }
+
   @Override
   public void accept(LogicalOperatorVisitor visitor) {
     visitor.visit(this);
@@ -41,4 +67,12 @@ public class LogicalJoin extends LogicalOperator {
         + condition
         + "]";
   }
+
+  /**
+   * The optimizer's estimate of a join.
+   *
+   * @param outerTuples the estimated number of tuples of the outer (left) input
+   * @param cost the estimated page I/Os of the chosen join method, beyond producing the outer input
+   */
+  public record CostEstimate(double outerTuples, double cost) {}
 }
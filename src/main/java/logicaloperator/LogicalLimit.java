@@ -0,0 +1,42 @@
+package logicaloperator;
+
+/** Skips the first offset tuples of its child and passes on at most limit of the rest. */
+public class LogicalLimit extends LogicalOperator {
+
+  private final LogicalOperator childOperator;
+  private final Long limit;
+  private final long offset;
+
+  /**
+   * @param child the child operator
+   * @param limit the number of tuples to pass on, or null for all of them
+   * @param offset the number of tuples to skip first
+   */
+  public LogicalLimit(LogicalOperator child, Long limit, long offset) {
+    this.childOperator = child;
+    this.limit = limit;
+    this.offset = offset;
+  }
+
+  public LogicalOperator getChildOperator() {
+    return childOperator;
+  }
+
+  public Long getLimit() {
+    return limit;
+  }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  @Override
+  public String toString() {
+    return "Limit[" + childOperator.toString() + " limit " + limit + " offset " + offset + "]";
+  }
+
+  @Override
+  public void accept(LogicalOperatorVisitor visitor) {
+    visitor.visit(this);
+  }
+}
@@ -12,4 +12,8 @@ public interface LogicalOperatorVisitor {
   void visit(LogicalDistinct logicalDistinct);
 
   void visit(LogicalProject logicalProject);
+
+  void visit(LogicalAggregate logicalAggregate);
+
+  void visit(LogicalLimit logicalLimit);
 }
@@ -1,14 +1,25 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Class to encapsulate functionality about a database tuple. A tuple is an ArrayList of integers.
+ * Class to encapsulate functionality about a database tuple. A tuple is backed by primitive int
+ * arrays so that reading, comparing and joining tuples never boxes its attributes.
+ *
+ * <p>A tuple produced by {@link #append(Tuple)} is a view over the two arrays it was built from:
+ * the attributes of both sides are not copied. The view is flattened into a single array only when
+ * it is itself appended to another tuple, so a left-deep chain of joins copies each attribute at
+ * most once per join level.
  */
 public class Tuple {
 
-  private final ArrayList<Integer> tupleArray;
+  private static final int[] EMPTY = new int[0];
+
+  private final int[] head;
+  private final int[] tail;
+  private final int width;
 
   /**
    * Creates a tuple using string representation of the tuple. Delimiter between the columns is a
@@ -17,51 +28,128 @@ public class Tuple {
    * @param s String representation of the tuple.
    */
   public Tuple(String s) {
-    tupleArray = new ArrayList<>();
-    for (String attribute : s.split(",")) {
-      tupleArray.add(Integer.parseInt(attribute));
+    String[] attributes = s.split(",");
+    this.head = new int[attributes.length];
+    for (int i = 0; i < attributes.length; i++) {
+      head[i] = Integer.parseInt(attributes[i]);
     }
+    this.tail = EMPTY;
+    this.width = head.length;
   }
 
   /**
-   * Creates a tuple using an ArrayList of integers.
+   * Creates a tuple using a list of integers.
    *
-   * @param elements ArrayList with elements of the tuple, in order
+   * @param elements List with elements of the tuple, in order
    */
   public Tuple(List<Integer> elements) {
-    tupleArray = new ArrayList<>();
-    tupleArray.addAll(elements);
+    this.head = new int[elements.size()];
+    for (int i = 0; i < head.length; i++) {
+      head[i] = elements.get(i);
+    }
+    this.tail = EMPTY;
+    this.width = head.length;
+  }
+
+  /**
+   * Creates a tuple that takes ownership of the given array. The caller must not modify the array
+   * afterwards.
+   *
+   * @param elements elements of the tuple, in order
+   */
+  public Tuple(int[] elements) {
+    this.head = elements;
+    this.tail = EMPTY;
+    this.width = elements.length;
+  }
+
+  private Tuple(int[] head, int[] tail) {
+    this.head = head;
+    this.tail = tail;
+    this.width = head.length + tail.length;
   }
 
   /**
-   * Returns element at index i in the tuple.
+   * Returns the attribute at a position without boxing it. In a view built by {@link
+   * #append(Tuple)} the position is read from the left side's array, or past its end from the right
+   * side's.
+   *
+   * @param i position of the attribute, from 0 to {@link #width()} - 1
+   * @return the attribute at that position
+   */
+  public int getInt(int i) {
+    return i < head.length ? head[i] : tail[i - head.length];
+  }
+
+  /**
+   * Returns element at index i in the tuple. Same as {@link #getInt(int)}.
    *
    * @param i The index of the element you need.
    * @return Element at index i in the tuple.
    */
   public int getElementAtIndex(int i) {
-    return tupleArray.get(i);
+    return getInt(i);
+  }
+
+  /**
+   * Returns the number of attributes in the tuple.
+   *
+   * @return width of the tuple
+   */
+  public int width() {
+    return width;
   }
 
   /**
-   * Returns a new ArrayList containing all the elements in the tuple.
+   * Copies the attributes of this tuple into the destination array.
+   *
+   * @param destination array to copy into
+   * @param offset position in the destination of the first attribute
+   */
+  public void copyInto(int[] destination, int offset) {
+    System.arraycopy(head, 0, destination, offset, head.length);
+    System.arraycopy(tail, 0, destination, offset + head.length, tail.length);
+  }
+
+  /**
+   * Returns a new array containing all the elements in the tuple.
+   *
+   * @return array containing the elements in the tuple
+   */
+  public int[] toArray() {
+    int[] elements = new int[width];
+    copyInto(elements, 0);
+    return elements;
+  }
+
+  /**
+   * Returns a new ArrayList containing all the elements in the tuple. This boxes every element and
+   * should stay off the per-tuple paths of the operators.
    *
    * @return ArrayList containing the elements in the tuple.
    */
   public ArrayList<Integer> getAllElements() {
-    return new ArrayList<>(tupleArray);
+    ArrayList<Integer> elements = new ArrayList<>(width);
+    for (int i = 0; i < width; i++) {
+      elements.add(getInt(i));
+    }
+    return elements;
   }
 
   /**
-   * Appends another tuple's elements to this tuple and returns a new tuple
+   * Appends another tuple's elements to this tuple and returns a new tuple. The returned tuple is a
+   * view over both sides; only a side that is itself a view gets flattened.
    *
    * @param other the tuple to append
    * @return a new Tuple containing elements from both tuples
    */
   public Tuple append(Tuple other) {
-    ArrayList<Integer> combinedElements = new ArrayList<>(this.tupleArray);
-    combinedElements.addAll(other.getAllElements());
-    return new Tuple(combinedElements);
+    return new Tuple(this.flat(), other.flat());
+  }
+
+  /** Returns the attributes as a single array, copying only if this tuple is a view. */
+  private int[] flat() {
+    return tail.length == 0 ? head : toArray();
   }
 
   /**
@@ -71,14 +159,14 @@ public class Tuple {
    */
   @Override
   public String toString() {
-    if (tupleArray.isEmpty()) {
+    if (width == 0) {
       return "";
     }
     StringBuilder stringRepresentation = new StringBuilder();
-    for (int i = 0; i < tupleArray.size() - 1; i++) {
-      stringRepresentation.append(tupleArray.get(i)).append(",");
+    for (int i = 0; i < width - 1; i++) {
+      stringRepresentation.append(getInt(i)).append(",");
     }
-    stringRepresentation.append(tupleArray.get(tupleArray.size() - 1));
+    stringRepresentation.append(getInt(width - 1));
     return stringRepresentation.toString();
   }
 
@@ -97,7 +185,18 @@ public class Tuple {
       return false;
     }
     Tuple other = (Tuple) obj;
-    return tupleArray.equals(other.tupleArray);
+    if (tail.length == 0 && other.tail.length == 0) {
+      return Arrays.equals(head, other.head);
+    }
+    if (width != other.width) {
+      return false;
+    }
+    for (int i = 0; i < width; i++) {
+      if (getInt(i) != other.getInt(i)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
@@ -107,6 +206,10 @@ public class Tuple {
    */
   @Override
   public int hashCode() {
-    return tupleArray.hashCode();
+    int hash = 1;
+    for (int i = 0; i < width; i++) {
+      hash = 31 * hash + getInt(i);
+    }
+    return hash;
   }
 }
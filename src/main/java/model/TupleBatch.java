@@ -0,0 +1,64 @@
+package model;
+
+/**
+ * A row-major block of tuples handed between operators by {@code getNextBatch()}. A batch is owned
+ * by the operator that returned it and is reused on its next call, so a consumer must finish with
+ * the tuples (or keep references to them) before pulling again.
+ */
+public class TupleBatch {
+
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private final Tuple[] tuples;
+  private int size;
+
+  public TupleBatch() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public TupleBatch(int capacity) {
+    this.tuples = new Tuple[capacity];
+    this.size = 0;
+  }
+
+  /**
+   * Adds a tuple to the end of the batch.
+   *
+   * @param tuple the tuple to add
+   * @throws IllegalStateException if the batch is already full
+   */
+  public void add(Tuple tuple) {
+    if (size == tuples.length) {
+      throw new IllegalStateException("Batch is full");
+    }
+    tuples[size++] = tuple;
+  }
+
+  public Tuple get(int index) {
+    return tuples[index];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return tuples.length;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean isFull() {
+    return size == tuples.length;
+  }
+
+  /** Empties the batch, dropping the references to the tuples it held. */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      tuples[i] = null;
+    }
+    size = 0;
+  }
+}
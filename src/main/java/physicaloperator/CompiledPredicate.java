@@ -0,0 +1,31 @@
+package physicaloperator;
+
+import model.Tuple;
+
+/**
+ * A boolean condition that has been resolved against an input schema by {@link PredicateCompiler}.
+ *
+ * <p>A predicate compiled for a join reads its columns directly from the outer and inner tuples, so
+ * the combined tuple only has to be built for the pairs that pass.
+ */
+public interface CompiledPredicate {
+
+  /**
+   * Evaluates the predicate on a pair of tuples.
+   *
+   * @param left the tuple of the left (outer) input
+   * @param right the tuple of the right (inner) input, or null for a single-input predicate
+   * @return true if the pair satisfies the condition
+   */
+  boolean test(Tuple left, Tuple right);
+
+  /**
+   * Evaluates a predicate compiled against a single input schema.
+   *
+   * @param tuple the tuple to test
+   * @return true if the tuple satisfies the condition
+   */
+  default boolean test(Tuple tuple) {
+    return test(tuple, null);
+  }
+}
@@ -1,5 +1,6 @@
 package physicaloperator;
 
+import java.util.List;
 import model.Tuple;
 
 public class DuplicateEliminationOperator extends PhysicalOperator {
@@ -32,4 +33,9 @@ public class DuplicateEliminationOperator extends PhysicalOperator {
 
     return toReturn;
   }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(childOperator);
+  }
 }
@@ -0,0 +1,88 @@
+package physicaloperator;
+
+import java.util.List;
+import model.Tuple;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import utils.PartitionedInput;
+import utils.TupleHashTable;
+
+/**
+ * Removes duplicate tuples with a hash set, so the input needs no sort. Tuples are returned in the
+ * order they are first seen.
+ *
+ * <p>The set is a {@link TupleHashTable} keyed on all columns. While the set has room every new
+ * tuple is added and returned at once. Once it is full, tuples already in the set are still
+ * dropped, but new ones are hash partitioned to cache files. The partitions are then deduplicated
+ * one by one with an empty set, the same way, by a {@link PartitionedInput}.
+ */
+public class HashDuplicateEliminationOperator extends PhysicalOperator {
+  private static final Logger logger = LogManager.getLogger(HashDuplicateEliminationOperator.class);
+
+  private final PhysicalOperator childOperator;
+  private final TupleHashTable set;
+  private final int setCapacity;
+
+  // the child, then the partitions of the tuples that did not fit in the set
+  private final PartitionedInput input;
+
+  /**
+   * @param operator the child operator
+   * @param bufferPages pages of memory for the set, one of which reads the input while spilling
+   */
+  public HashDuplicateEliminationOperator(PhysicalOperator operator, int bufferPages) {
+    super(operator.getOutputSchema());
+    this.childOperator = operator;
+
+    int width = outputSchema.size();
+    int[] columnIndices = new int[width];
+    for (int i = 0; i < width; i++) {
+      columnIndices[i] = i;
+    }
+    this.set = new TupleHashTable(columnIndices, 0);
+    this.setCapacity = set.capacityFor(bufferPages - 1L);
+
+    int partitionCount = (int) Math.max(2, Math.min(bufferPages - 1L, 1024));
+    this.input = new PartitionedInput(operator::getNextTuple, width, "distinct", partitionCount);
+  }
+
+  @Override
+  public void reset() {
+    input.reset();
+    childOperator.reset();
+    set.clear();
+  }
+
+  @Override
+  public Tuple getNextTuple() {
+    while (true) {
+      Tuple tuple = input.next();
+      if (tuple == null) {
+        if (!input.nextPartition()) {
+          return null;
+        }
+        set.clear();
+        continue;
+      }
+
+      int hash = set.hash(tuple);
+      if (set.find(tuple, hash) >= 0) {
+        continue;
+      }
+      if (set.size() >= setCapacity && input.canSpill()) {
+        input.spill(tuple, hash);
+        continue;
+      }
+      if (set.size() == setCapacity) {
+        logger.warn("Partition still exceeds the buffer after {} levels", input.getLevel());
+      }
+      set.add(tuple, hash);
+      return tuple;
+    }
+  }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(childOperator);
+  }
+}
@@ -0,0 +1,76 @@
+package physicaloperator;
+
+import java.util.List;
+import model.Tuple;
+
+/**
+ * Skips the first offset tuples of its child and returns at most limit of the rest. Once the limit
+ * is reached the child is not asked for more tuples and is closed, so the operators below stop
+ * early, including those that run in other threads.
+ */
+public class LimitOperator extends PhysicalOperator {
+
+  private final PhysicalOperator childOperator;
+  private final long limit;
+  private final long offset;
+  private long skipped;
+  private long returned;
+  private boolean childClosed;
+
+  /**
+   * @param operator the child operator
+   * @param limit the number of tuples to return, Long.MAX_VALUE for all of them
+   * @param offset the number of tuples to skip first
+   */
+  public LimitOperator(PhysicalOperator operator, long limit, long offset) {
+    super(operator.getOutputSchema());
+    this.childOperator = operator;
+    this.limit = limit;
+    this.offset = offset;
+  }
+
+  @Override
+  public void reset() {
+    childOperator.reset();
+    skipped = 0;
+    returned = 0;
+    childClosed = false;
+  }
+
+  @Override
+  public Tuple getNextTuple() {
+    if (returned >= limit) {
+      closeChild();
+      return null;
+    }
+    while (skipped < offset) {
+      if (childOperator.getNextTuple() == null) {
+        return null;
+      }
+      skipped++;
+    }
+
+    Tuple tuple = childOperator.getNextTuple();
+    if (tuple != null && ++returned >= limit) {
+      closeChild();
+    }
+    return tuple;
+  }
+
+  private void closeChild() {
+    if (!childClosed) {
+      childOperator.close();
+      childClosed = true;
+    }
+  }
+
+  @Override
+  protected String describe() {
+    return "Limit[" + (limit == Long.MAX_VALUE ? "all" : limit) + " offset " + offset + "]";
+  }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(childOperator);
+  }
+}
@@ -3,7 +3,9 @@ package physicaloperator;
 import io.writer.TupleWriter;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.List;
 import model.Tuple;
+import model.TupleBatch;
 import net.sf.jsqlparser.schema.Column;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -20,6 +22,10 @@ public abstract class PhysicalOperator {
 
   protected ArrayList<Column> outputSchema;
 
+  private TupleBatch outputBatch;
+
+  private String explainNote;
+
   public PhysicalOperator(ArrayList<Column> outputSchema) {
     this.outputSchema = outputSchema;
   }
@@ -49,15 +55,47 @@ public abstract class PhysicalOperator {
    */
   public abstract Tuple getNextTuple();
 
+  /**
+   * Get the next block of tuples from the operator. The default implementation adapts {@link
+   * #getNextTuple()}; operators on the hot path override it with a tight loop. Both methods advance
+   * the same cursor, so a consumer may mix them.
+   *
+   * <p>The returned batch is reused by the next call, and is never empty.
+   *
+   * @return next batch of tuples, or null if we are at the end
+   */
+  public TupleBatch getNextBatch() {
+    TupleBatch batch = getBatchBuffer();
+    Tuple t;
+    while (!batch.isFull() && (t = this.getNextTuple()) != null) {
+      batch.add(t);
+    }
+    return batch.isEmpty() ? null : batch;
+  }
+
+  /**
+   * Returns the batch this operator hands out from {@link #getNextBatch()}, emptied and ready to be
+   * filled.
+   */
+  protected TupleBatch getBatchBuffer() {
+    if (outputBatch == null) {
+      outputBatch = new TupleBatch();
+    }
+    outputBatch.clear();
+    return outputBatch;
+  }
+
   /**
    * Iterate through output of operator and send it all to the specified printStream)
    *
    * @param printStream stream to receive output, one tuple per line.
    */
   public void dump(PrintStream printStream) {
-    Tuple t;
-    while ((t = this.getNextTuple()) != null) {
-      printStream.println(t);
+    TupleBatch batch;
+    while ((batch = this.getNextBatch()) != null) {
+      for (int i = 0; i < batch.size(); i++) {
+        printStream.println(batch.get(i));
+      }
     }
   }
 
@@ -67,10 +105,65 @@ public abstract class PhysicalOperator {
    * @param writer TupleWriter to receive output
    */
   public void dump(TupleWriter writer) {
-    Tuple t;
-    while ((t = this.getNextTuple()) != null) {
-      writer.writeTuple(t);
+    TupleBatch batch;
+    while ((batch = this.getNextBatch()) != null) {
+      writer.writeBatch(batch);
     }
     writer.close();
   }
+
+  /**
+   * Stops the work that the plan rooted at this operator does in other threads, for a consumer that
+   * reads no more of its output. The default closes the children.
+   */
+  public void close() {
+    for (PhysicalOperator child : getChildren()) {
+      child.close();
+    }
+  }
+
+  /**
+   * Describes the plan rooted at this operator, one operator per line with its children below it,
+   * indented by one "-" per level.
+   *
+   * @return the plan text
+   */
+  public String explain() {
+    StringBuilder builder = new StringBuilder();
+    explain(builder, 0);
+    return builder.toString();
+  }
+
+  private void explain(StringBuilder builder, int depth) {
+    builder.append("-".repeat(depth)).append(describe());
+    if (explainNote != null) {
+      builder.append(" (").append(explainNote).append(")");
+    }
+    builder.append(System.lineSeparator());
+    for (PhysicalOperator child : getChildren()) {
+      child.explain(builder, depth + 1);
+    }
+  }
+
+  /**
+   * Attaches a note from the planner, such as the estimated costs behind the choice of this
+   * operator, to the line of this operator in {@link #explain()}.
+   */
+  public void setExplainNote(String explainNote) {
+    this.explainNote = explainNote;
+  }
+
+  /**
+   * @return the line of this operator in {@link #explain()}
+   */
+  protected String describe() {
+    return getClass().getSimpleName().replace("Operator", "");
+  }
+
+  /**
+   * @return the operators this operator reads from, in plan order
+   */
+  protected List<PhysicalOperator> getChildren() {
+    return List.of();
+  }
 }
@@ -0,0 +1,261 @@
+package physicaloperator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import model.Tuple;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.schema.Column;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Compiles a boolean expression into a tree of {@link CompiledPredicate} nodes.
+ *
+ * <p>Column references are resolved to tuple positions once, at compile time, so evaluating the
+ * predicate is a handful of primitive int comparisons with no AST walk, no boxing and no column
+ * name lookups. Comparisons between two constants are folded away.
+ *
+ * <p>Supports the same expressions as {@link QueryConditionEvaluator}. Anything else falls back to
+ * that evaluator, so the compiled form can be used wherever the evaluator was.
+ */
+public class PredicateCompiler extends ExpressionVisitorAdapter<CompiledPredicate> {
+  private static final Logger logger = LogManager.getLogger(PredicateCompiler.class);
+
+  private final Map<String, Operand> columnOperands = new HashMap<>();
+
+  private PredicateCompiler(List<Column> leftSchema, List<Column> rightSchema) {
+    for (int i = 0; i < leftSchema.size(); i++) {
+      columnOperands.put(
+          QueryConditionContext.getColumnKey(leftSchema.get(i)), new Operand(Kind.LEFT, i));
+    }
+    for (int i = 0; i < rightSchema.size(); i++) {
+      columnOperands.put(
+          QueryConditionContext.getColumnKey(rightSchema.get(i)), new Operand(Kind.RIGHT, i));
+    }
+  }
+
+  /**
+   * Compiles a condition over a single input.
+   *
+   * @param expression the condition
+   * @param schema schema of the tuples the predicate will be tested on
+   * @return the compiled predicate, to be evaluated with {@link CompiledPredicate#test(Tuple)}
+   */
+  public static CompiledPredicate compile(Expression expression, List<Column> schema) {
+    return compile(expression, schema, new ArrayList<>());
+  }
+
+  /**
+   * Compiles a join condition. Columns of the left schema are read from the left tuple and columns
+   * of the right schema from the right tuple.
+   *
+   * @param expression the condition
+   * @param leftSchema schema of the left (outer) input
+   * @param rightSchema schema of the right (inner) input
+   * @return the compiled predicate, to be evaluated with {@link CompiledPredicate#test(Tuple,
+   *     Tuple)}
+   */
+  public static CompiledPredicate compile(
+      Expression expression, List<Column> leftSchema, List<Column> rightSchema) {
+    CompiledPredicate compiled =
+        expression.accept(new PredicateCompiler(leftSchema, rightSchema), null);
+    if (compiled != null) {
+      return compiled;
+    }
+
+    logger.debug("Could not compile {}, falling back to the evaluator", expression);
+    return new InterpretedPredicate(expression, leftSchema, rightSchema);
+  }
+
+  @Override
+  public <S> CompiledPredicate visit(AndExpression andExpression, S context) {
+    CompiledPredicate left = andExpression.getLeftExpression().accept(this, context);
+    CompiledPredicate right = andExpression.getRightExpression().accept(this, context);
+    if (left == null || right == null) {
+      return null;
+    }
+
+    if (left == Constant.FALSE || right == Constant.FALSE) {
+      return Constant.FALSE;
+    }
+    if (left == Constant.TRUE) {
+      return right;
+    }
+    if (right == Constant.TRUE) {
+      return left;
+    }
+    return new And(left, right);
+  }
+
+  @Override
+  public <S> CompiledPredicate visit(EqualsTo equalsTo, S context) {
+    return compileComparison(equalsTo, Comparison.EQ);
+  }
+
+  @Override
+  public <S> CompiledPredicate visit(NotEqualsTo notEqualsTo, S context) {
+    return compileComparison(notEqualsTo, Comparison.NE);
+  }
+
+  @Override
+  public <S> CompiledPredicate visit(GreaterThan greaterThan, S context) {
+    return compileComparison(greaterThan, Comparison.GT);
+  }
+
+  @Override
+  public <S> CompiledPredicate visit(GreaterThanEquals greaterThanEquals, S context) {
+    return compileComparison(greaterThanEquals, Comparison.GE);
+  }
+
+  @Override
+  public <S> CompiledPredicate visit(MinorThan minorThan, S context) {
+    return compileComparison(minorThan, Comparison.LT);
+  }
+
+  @Override
+  public <S> CompiledPredicate visit(MinorThanEquals minorThanEquals, S context) {
+    return compileComparison(minorThanEquals, Comparison.LE);
+  }
+
+  private CompiledPredicate compileComparison(BinaryExpression expression, Comparison comparison) {
+    Operand left = resolveOperand(expression.getLeftExpression());
+    Operand right = resolveOperand(expression.getRightExpression());
+    if (left == null || right == null) {
+      return null;
+    }
+
+    if (left.kind == Kind.CONSTANT && right.kind == Kind.CONSTANT) {
+      return comparison.apply(left.value, right.value) ? Constant.TRUE : Constant.FALSE;
+    }
+    if (right.kind == Kind.CONSTANT) {
+      return new ColumnConstantComparison(comparison, left, right.value);
+    }
+    if (left.kind == Kind.CONSTANT) {
+      return new ColumnConstantComparison(comparison.flip(), right, left.value);
+    }
+    return new ColumnColumnComparison(comparison, left, right);
+  }
+
+  private Operand resolveOperand(Expression expression) {
+    if (expression instanceof LongValue longValue) {
+      return new Operand(Kind.CONSTANT, (int) longValue.getValue());
+    }
+    if (expression instanceof Column column) {
+      return columnOperands.get(QueryConditionContext.getColumnKey(column));
+    }
+    return null;
+  }
+
+  private enum Kind {
+    CONSTANT,
+    LEFT,
+    RIGHT
+  }
+
+  /** A comparison operand: a constant, or a column position in the left or right tuple. */
+  private record Operand(Kind kind, int value) {
+
+    int read(Tuple left, Tuple right) {
+      return kind == Kind.LEFT ? left.getInt(value) : right.getInt(value);
+    }
+  }
+
+  private enum Comparison {
+    EQ,
+    NE,
+    LT,
+    LE,
+    GT,
+    GE;
+
+    boolean apply(int left, int right) {
+      return switch (this) {
+        case EQ -> left == right;
+        case NE -> left != right;
+        case LT -> left < right;
+        case LE -> left <= right;
+        case GT -> left > right;
+        case GE -> left >= right;
+      };
+    }
+
+    /** Returns the comparison with its operands swapped, so that a < b becomes b > a. */
+    Comparison flip() {
+      return switch (this) {
+        case EQ, NE -> this;
+        case LT -> GT;
+        case LE -> GE;
+        case GT -> LT;
+        case GE -> LE;
+      };
+    }
+  }
+
+  private enum Constant implements CompiledPredicate {
+    TRUE,
+    FALSE;
+
+    @Override
+    public boolean test(Tuple left, Tuple right) {
+      return this == TRUE;
+    }
+  }
+
+  private record And(CompiledPredicate left, CompiledPredicate right) implements CompiledPredicate {
+
+    @Override
+    public boolean test(Tuple leftTuple, Tuple rightTuple) {
+      return left.test(leftTuple, rightTuple) && right.test(leftTuple, rightTuple);
+    }
+  }
+
+  private record ColumnConstantComparison(Comparison comparison, Operand column, int constant)
+      implements CompiledPredicate {
+
+    @Override
+    public boolean test(Tuple left, Tuple right) {
+      return comparison.apply(column.read(left, right), constant);
+    }
+  }
+
+  private record ColumnColumnComparison(
+      Comparison comparison, Operand leftColumn, Operand rightColumn) implements CompiledPredicate {
+
+    @Override
+    public boolean test(Tuple left, Tuple right) {
+      return comparison.apply(leftColumn.read(left, right), rightColumn.read(left, right));
+    }
+  }
+
+  /** Evaluates an expression the compiler does not support through the AST visitor. */
+  private static final class InterpretedPredicate implements CompiledPredicate {
+    private final Expression expression;
+    private final QueryConditionContext context;
+    private final QueryConditionEvaluator evaluator = new QueryConditionEvaluator();
+
+    InterpretedPredicate(Expression expression, List<Column> leftSchema, List<Column> rightSchema) {
+      ArrayList<Column> schema = new ArrayList<>(leftSchema);
+      schema.addAll(rightSchema);
+      this.expression = expression;
+      this.context = new QueryConditionContext(schema);
+    }
+
+    @Override
+    public boolean test(Tuple left, Tuple right) {
+      context.setContext(right == null ? left : left.append(right));
+      return expression.accept(evaluator, context);
+    }
+  }
+}
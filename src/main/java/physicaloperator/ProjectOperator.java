@@ -2,13 +2,15 @@ package physicaloperator;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import model.Tuple;
+import model.TupleBatch;
 import net.sf.jsqlparser.schema.Column;
 
 public class ProjectOperator extends PhysicalOperator {
 
   private final PhysicalOperator childOperator;
-  private final ArrayList<Integer> outputIndexToInputIndexMap = new ArrayList<>();
+  private final int[] outputIndexToInputIndexMap;
 
   public ProjectOperator(PhysicalOperator operator, ArrayList<Column> outputSchema) {
     super(null);
@@ -27,10 +29,10 @@ public class ProjectOperator extends PhysicalOperator {
     }
 
     // create the mapping
-    for (Column column : this.outputSchema) {
-      String key = column.getFullyQualifiedName(true);
-      int index = columnNameToInputIndexMap.get(key);
-      this.outputIndexToInputIndexMap.add(index);
+    this.outputIndexToInputIndexMap = new int[this.outputSchema.size()];
+    for (int i = 0; i < this.outputSchema.size(); i++) {
+      String key = this.outputSchema.get(i).getFullyQualifiedName(true);
+      this.outputIndexToInputIndexMap[i] = columnNameToInputIndexMap.get(key);
     }
   }
 
@@ -49,13 +51,41 @@ public class ProjectOperator extends PhysicalOperator {
       return null;
     }
 
+    return project(inputTuple);
+  }
+
+  @Override
+  public TupleBatch getNextBatch() {
+    TupleBatch input = childOperator.getNextBatch();
+    if (input == null) {
+      return null;
+    }
+
+    TupleBatch output = getBatchBuffer();
+    for (int i = 0; i < input.size(); i++) {
+      output.add(project(input.get(i)));
+    }
+    return output;
+  }
+
+  private Tuple project(Tuple inputTuple) {
     // create ouput with mapping
-    ArrayList<Integer> outputList = new ArrayList<>();
-    for (Integer index : this.outputIndexToInputIndexMap) {
-      outputList.add(inputTuple.getElementAtIndex(index));
+    int[] output = new int[this.outputIndexToInputIndexMap.length];
+    for (int i = 0; i < output.length; i++) {
+      output[i] = inputTuple.getInt(this.outputIndexToInputIndexMap[i]);
     }
 
     // return as tuple
-    return new Tuple(outputList);
+    return new Tuple(output);
+  }
+
+  @Override
+  protected String describe() {
+    return "Project" + outputSchema;
+  }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(childOperator);
   }
 }
@@ -2,12 +2,14 @@ package physicaloperator;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import model.Tuple;
 import net.sf.jsqlparser.schema.Column;
 
 public class QueryConditionContext {
 
   private final HashMap<String, Integer> columnNameToIndexMap;
-  private ArrayList<Integer> context;
+  private Tuple context;
 
   public QueryConditionContext(ArrayList<Column> contextSchema) {
 
@@ -22,10 +24,14 @@ public class QueryConditionContext {
 
   // we don't want to do deep copy and also have much going for the context
   // as it will be called for each tuple (many times)
-  public void setContext(ArrayList<Integer> context) {
+  public void setContext(Tuple context) {
     this.context = context;
   }
 
+  public void setContext(List<Integer> context) {
+    this.context = new Tuple(context);
+  }
+
   public Integer getColumnValue(Column column) {
     // If context is not set return null
     if (this.context == null) {
@@ -35,7 +41,7 @@ public class QueryConditionContext {
     String key = getColumnKey(column);
     Integer index = columnNameToIndexMap.get(key);
     if (index != null) {
-      return this.context.get(index);
+      return this.context.getInt(index);
     }
     return null;
   }
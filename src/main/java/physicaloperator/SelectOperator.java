@@ -1,7 +1,9 @@
 package physicaloperator;
 
 import java.util.ArrayList;
+import java.util.List;
 import model.Tuple;
+import model.TupleBatch;
 import net.sf.jsqlparser.expression.Expression;
 
 /** able to perform SELECT * FROM Boats WHERE Boats.id = 4 */
@@ -9,8 +11,7 @@ public class SelectOperator extends PhysicalOperator {
 
   private final PhysicalOperator childOperator;
   private final Expression expression;
-  private final QueryConditionContext queryConditionContext;
-  private final QueryConditionEvaluator evaluator = new QueryConditionEvaluator();
+  private final CompiledPredicate predicate;
 
   public SelectOperator(PhysicalOperator operator, Expression expression) {
     super(null);
@@ -24,8 +25,8 @@ public class SelectOperator extends PhysicalOperator {
     // Set output schema same as input schema
     this.outputSchema = new ArrayList<>(operator.getOutputSchema());
 
-    // Initialize the ColumnTupleMapper with the schema
-    this.queryConditionContext = new QueryConditionContext(this.outputSchema);
+    // Resolve the expression against the schema once, up front
+    this.predicate = PredicateCompiler.compile(expression, this.outputSchema);
   }
 
   @Override
@@ -36,24 +37,45 @@ public class SelectOperator extends PhysicalOperator {
   @Override
   public Tuple getNextTuple() {
 
-    Boolean isValid;
     Tuple tuple;
 
     // Loop until we find a valid tuple or run out of tuples
     while ((tuple = childOperator.getNextTuple()) != null) {
 
-      // Update context
-      queryConditionContext.setContext(tuple.getAllElements());
-
-      // Evaluation the expression
-      isValid = expression.accept(this.evaluator, this.queryConditionContext);
-
       // Return if found
-      if (isValid) {
+      if (predicate.test(tuple)) {
         return tuple;
       }
     }
 
     return null;
   }
+
+  @Override
+  public TupleBatch getNextBatch() {
+    TupleBatch output = getBatchBuffer();
+    TupleBatch input;
+
+    // Keep pulling until at least one tuple passes or the child runs out
+    while (output.isEmpty() && (input = childOperator.getNextBatch()) != null) {
+      for (int i = 0; i < input.size(); i++) {
+        Tuple tuple = input.get(i);
+        if (predicate.test(tuple)) {
+          output.add(tuple);
+        }
+      }
+    }
+
+    return output.isEmpty() ? null : output;
+  }
+
+  @Override
+  protected String describe() {
+    return "Select[" + expression + "]";
+  }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(childOperator);
+  }
 }
@@ -0,0 +1,169 @@
+package physicaloperator.aggregate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import model.Tuple;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.select.AllColumns;
+
+/**
+ * The aggregate functions of a query, compiled against the schema of their input. COUNT, SUM, MIN,
+ * MAX and AVG over a column are supported, and COUNT(*).
+ *
+ * <p>The running state of a group is a slice of a long array, one long per function and two for
+ * AVG, so accumulating a tuple allocates nothing and the aggregate operators can keep the states of
+ * all their groups in one array. Results are ints like every other value: SUM fails if it does not
+ * fit, AVG is truncated towards zero, and MIN, MAX and AVG of no tuples are 0 as there is no NULL.
+ */
+public class Aggregator {
+
+  private enum Kind {
+    COUNT,
+    SUM,
+    MIN,
+    MAX,
+    AVG
+  }
+
+  private final Kind[] kinds;
+  private final int[] argumentIndices; // -1 for COUNT(*)
+  private final int[] stateOffsets;
+  private final int stateWidth;
+
+  /**
+   * @param inputSchema the schema of the tuples to aggregate
+   * @param functions the aggregate functions
+   * @throws IllegalArgumentException if a function is not a supported aggregate over a column of
+   *     the input
+   */
+  public Aggregator(List<Column> inputSchema, List<Function> functions) {
+    int size = functions.size();
+    this.kinds = new Kind[size];
+    this.argumentIndices = new int[size];
+    this.stateOffsets = new int[size];
+
+    int offset = 0;
+    for (int i = 0; i < size; i++) {
+      Function function = functions.get(i);
+      kinds[i] = kindOf(function);
+      argumentIndices[i] = argumentIndexOf(function, kinds[i], inputSchema);
+      stateOffsets[i] = offset;
+      offset += kinds[i] == Kind.AVG ? 2 : 1;
+    }
+    this.stateWidth = offset;
+  }
+
+  /** Returns the number of longs of the state of a group. */
+  public int getStateWidth() {
+    return stateWidth;
+  }
+
+  /** Returns the number of functions, which is the number of values a group outputs. */
+  public int size() {
+    return kinds.length;
+  }
+
+  /** Sets the state of a group at offset to that of a group with no tuples. */
+  public void initialize(long[] states, int offset) {
+    for (int i = 0; i < kinds.length; i++) {
+      int state = offset + stateOffsets[i];
+      switch (kinds[i]) {
+        case MIN -> states[state] = Long.MAX_VALUE;
+        case MAX -> states[state] = Long.MIN_VALUE;
+        case AVG -> {
+          states[state] = 0;
+          states[state + 1] = 0;
+        }
+        default -> states[state] = 0;
+      }
+    }
+  }
+
+  /** Adds a tuple to the state of a group at offset. */
+  public void accumulate(long[] states, int offset, Tuple tuple) {
+    for (int i = 0; i < kinds.length; i++) {
+      int state = offset + stateOffsets[i];
+      switch (kinds[i]) {
+        case COUNT -> states[state]++;
+        case SUM -> states[state] += tuple.getInt(argumentIndices[i]);
+        case MIN -> states[state] = Math.min(states[state], tuple.getInt(argumentIndices[i]));
+        case MAX -> states[state] = Math.max(states[state], tuple.getInt(argumentIndices[i]));
+        case AVG -> {
+          states[state] += tuple.getInt(argumentIndices[i]);
+          states[state + 1]++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the results of the functions for the state of a group at offset.
+   *
+   * @param output the array to write to, from outputOffset on
+   */
+  public void finish(long[] states, int offset, int[] output, int outputOffset) {
+    for (int i = 0; i < kinds.length; i++) {
+      int state = offset + stateOffsets[i];
+      output[outputOffset + i] =
+          switch (kinds[i]) {
+            case COUNT, SUM -> Math.toIntExact(states[state]);
+            case MIN -> states[state] == Long.MAX_VALUE ? 0 : (int) states[state];
+            case MAX -> states[state] == Long.MIN_VALUE ? 0 : (int) states[state];
+            case AVG -> states[state + 1] == 0 ? 0 : (int) (states[state] / states[state + 1]);
+          };
+    }
+  }
+
+  /**
+   * Finds the position of each column in a schema.
+   *
+   * @throws IllegalArgumentException if a column is not in the schema
+   */
+  public static int[] indicesOf(List<Column> schema, List<Column> columns) {
+    Map<String, Integer> indexByName = new HashMap<>();
+    for (int i = 0; i < schema.size(); i++) {
+      indexByName.put(schema.get(i).getFullyQualifiedName(true), i);
+    }
+
+    int[] indices = new int[columns.size()];
+    for (int i = 0; i < columns.size(); i++) {
+      Integer index = indexByName.get(columns.get(i).getFullyQualifiedName(true));
+      if (index == null) {
+        throw new IllegalArgumentException("Column not found in schema: " + columns.get(i));
+      }
+      indices[i] = index;
+    }
+    return indices;
+  }
+
+  private static Kind kindOf(Function function) {
+    if (function.isDistinct() || function.isUnique()) {
+      throw new IllegalArgumentException("DISTINCT aggregates are not supported: " + function);
+    }
+    try {
+      return Kind.valueOf(function.getName().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported aggregate function: " + function);
+    }
+  }
+
+  private static int argumentIndexOf(Function function, Kind kind, List<Column> inputSchema) {
+    ExpressionList<?> parameters = function.getParameters();
+    boolean allColumns =
+        function.isAllColumns()
+            || (parameters != null
+                && parameters.size() == 1
+                && parameters.get(0) instanceof AllColumns);
+    if (allColumns && kind == Kind.COUNT) {
+      return -1;
+    }
+    if (parameters == null || parameters.size() != 1 || !(parameters.get(0) instanceof Column)) {
+      throw new IllegalArgumentException("Aggregates take a single column: " + function);
+    }
+    return indicesOf(inputSchema, List.of((Column) parameters.get(0)))[0];
+  }
+}
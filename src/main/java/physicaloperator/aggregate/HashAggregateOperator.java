@@ -0,0 +1,149 @@
+package physicaloperator.aggregate;
+
+import java.util.ArrayList;
+import java.util.List;
+import model.Tuple;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import physicaloperator.PhysicalOperator;
+import utils.PartitionedInput;
+import utils.TupleHashTable;
+
+/**
+ * Computes aggregate functions with a hash table of groups, so the input needs no sort. Groups are
+ * returned once their input has been read, in the order they were first seen.
+ *
+ * <p>The table is a {@link TupleHashTable} keyed on the group by columns, with the aggregate state
+ * of every group. Once the table is full, tuples of groups already in it are still aggregated, but
+ * tuples of new groups are hash partitioned to cache files. The partitions are then aggregated one
+ * by one with an empty table, the same way, by a {@link PartitionedInput}. A group never spans two
+ * partitions, so its result is complete when its table is.
+ */
+public class HashAggregateOperator extends PhysicalOperator {
+  private static final Logger logger = LogManager.getLogger(HashAggregateOperator.class);
+
+  private final PhysicalOperator childOperator;
+  private final List<Function> aggregateFunctions;
+  private final int keyWidth;
+  private final Aggregator aggregator;
+  private final TupleHashTable table;
+  private final int tableCapacity;
+
+  // whether the table holds all groups of the current input, which are then returned in turn
+  private boolean built;
+  private int outputIndex;
+
+  // the child, then the partitions of the tuples whose groups did not fit in the table
+  private final PartitionedInput input;
+
+  /**
+   * @param operator the child operator
+   * @param groupByColumns the group by columns, empty to aggregate the whole input
+   * @param aggregateFunctions the aggregate functions
+   * @param aggregateColumns the output column of each aggregate function
+   * @param bufferPages pages of memory for the table, one of which reads the input while spilling
+   */
+  public HashAggregateOperator(
+      PhysicalOperator operator,
+      List<Column> groupByColumns,
+      List<Function> aggregateFunctions,
+      List<Column> aggregateColumns,
+      int bufferPages) {
+    super(new ArrayList<>(groupByColumns));
+    this.outputSchema.addAll(aggregateColumns);
+
+    this.childOperator = operator;
+    this.aggregateFunctions = aggregateFunctions;
+    int[] groupByIndices = Aggregator.indicesOf(operator.getOutputSchema(), groupByColumns);
+    this.keyWidth = groupByIndices.length;
+    this.aggregator = new Aggregator(operator.getOutputSchema(), aggregateFunctions);
+    this.table = new TupleHashTable(groupByIndices, aggregator.getStateWidth());
+    this.tableCapacity = table.capacityFor(bufferPages - 1L);
+
+    int inputWidth = operator.getOutputSchema().size();
+    int partitionCount = (int) Math.max(2, Math.min(bufferPages - 1L, 1024));
+    this.input =
+        new PartitionedInput(operator::getNextTuple, inputWidth, "aggregate", partitionCount);
+  }
+
+  @Override
+  public void reset() {
+    input.reset();
+    childOperator.reset();
+    clearTable();
+  }
+
+  @Override
+  public Tuple getNextTuple() {
+    while (true) {
+      if (!built) {
+        buildTable();
+      }
+      if (outputIndex < table.size()) {
+        return buildOutput(outputIndex++);
+      }
+      if (!input.nextPartition()) {
+        return null;
+      }
+      clearTable();
+    }
+  }
+
+  /** Aggregates the current input into the table, spilling the groups that do not fit. */
+  private void buildTable() {
+    Tuple tuple;
+    while ((tuple = input.next()) != null) {
+      int hash = table.hash(tuple);
+      int index = table.find(tuple, hash);
+      if (index < 0) {
+        if (table.size() >= tableCapacity && input.canSpill()) {
+          input.spill(tuple, hash);
+          continue;
+        }
+        if (table.size() == tableCapacity) {
+          logger.warn("Partition still exceeds the buffer after {} levels", input.getLevel());
+        }
+        index = addGroup(tuple, hash);
+      }
+      aggregator.accumulate(table.getStates(), table.stateOffset(index), tuple);
+    }
+
+    // without group by columns an empty input still has its one group
+    if (keyWidth == 0 && input.getLevel() == 0 && table.size() == 0) {
+      addGroup(null, table.hash(null));
+    }
+
+    built = true;
+    outputIndex = 0;
+  }
+
+  private int addGroup(Tuple tuple, int hash) {
+    int index = table.add(tuple, hash);
+    aggregator.initialize(table.getStates(), table.stateOffset(index));
+    return index;
+  }
+
+  private Tuple buildOutput(int index) {
+    int[] output = new int[keyWidth + aggregator.size()];
+    table.copyKey(index, output, 0);
+    aggregator.finish(table.getStates(), table.stateOffset(index), output, keyWidth);
+    return new Tuple(output);
+  }
+
+  private void clearTable() {
+    table.clear();
+    built = false;
+  }
+
+  @Override
+  protected String describe() {
+    return "HashAggregate" + outputSchema.subList(0, keyWidth) + " " + aggregateFunctions;
+  }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(childOperator);
+  }
+}
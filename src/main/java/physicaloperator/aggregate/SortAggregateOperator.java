@@ -0,0 +1,116 @@
+package physicaloperator.aggregate;
+
+import java.util.ArrayList;
+import java.util.List;
+import model.Tuple;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+import physicaloperator.PhysicalOperator;
+
+/**
+ * Computes aggregate functions over input sorted on the group by columns, so that every group is a
+ * run of adjacent tuples and only the state of the current group is kept. Groups are returned in
+ * the order of the input.
+ *
+ * <p>Without group by columns the whole input is one group, and one tuple is returned even if the
+ * input is empty.
+ */
+public class SortAggregateOperator extends PhysicalOperator {
+
+  private final PhysicalOperator childOperator;
+  private final List<Function> aggregateFunctions;
+  private final int[] groupByIndices;
+  private final Aggregator aggregator;
+  private final long[] state;
+
+  private Tuple nextTuple;
+  private boolean started;
+  private boolean returnedGroup;
+
+  /**
+   * @param operator the child operator, sorted on the group by columns
+   * @param groupByColumns the group by columns, empty to aggregate the whole input
+   * @param aggregateFunctions the aggregate functions
+   * @param aggregateColumns the output column of each aggregate function
+   */
+  public SortAggregateOperator(
+      PhysicalOperator operator,
+      List<Column> groupByColumns,
+      List<Function> aggregateFunctions,
+      List<Column> aggregateColumns) {
+    super(new ArrayList<>(groupByColumns));
+    this.outputSchema.addAll(aggregateColumns);
+
+    this.childOperator = operator;
+    this.aggregateFunctions = aggregateFunctions;
+    this.groupByIndices = Aggregator.indicesOf(operator.getOutputSchema(), groupByColumns);
+    this.aggregator = new Aggregator(operator.getOutputSchema(), aggregateFunctions);
+    this.state = new long[aggregator.getStateWidth()];
+  }
+
+  @Override
+  public void reset() {
+    childOperator.reset();
+    nextTuple = null;
+    started = false;
+    returnedGroup = false;
+  }
+
+  @Override
+  public Tuple getNextTuple() {
+    if (!started) {
+      nextTuple = childOperator.getNextTuple();
+      started = true;
+    }
+
+    aggregator.initialize(state, 0);
+    if (nextTuple == null) {
+      if (groupByIndices.length > 0 || returnedGroup) {
+        return null;
+      }
+      returnedGroup = true;
+      return buildOutput(null);
+    }
+
+    Tuple first = nextTuple;
+    do {
+      aggregator.accumulate(state, 0, nextTuple);
+      nextTuple = childOperator.getNextTuple();
+    } while (nextTuple != null && sameGroup(first, nextTuple));
+
+    returnedGroup = true;
+    return buildOutput(first);
+  }
+
+  private boolean sameGroup(Tuple first, Tuple tuple) {
+    for (int index : groupByIndices) {
+      if (first.getInt(index) != tuple.getInt(index)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Builds the output of the current group, whose group by values are those of the given tuple. */
+  private Tuple buildOutput(Tuple groupTuple) {
+    int[] output = new int[groupByIndices.length + aggregator.size()];
+    for (int i = 0; i < groupByIndices.length; i++) {
+      output[i] = groupTuple.getInt(groupByIndices[i]);
+    }
+    aggregator.finish(state, 0, output, groupByIndices.length);
+    return new Tuple(output);
+  }
+
+  @Override
+  protected String describe() {
+    return "SortAggregate"
+        + outputSchema.subList(0, groupByIndices.length)
+        + " "
+        + aggregateFunctions;
+  }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(childOperator);
+  }
+}
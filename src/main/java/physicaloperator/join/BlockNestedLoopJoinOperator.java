@@ -4,20 +4,21 @@ import static utils.DBConstants.INT_SIZE;
 import static utils.DBConstants.TABLE_PAGE_SIZE;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
 import model.Tuple;
+import model.TupleBatch;
 import net.sf.jsqlparser.expression.Expression;
+import physicaloperator.CompiledPredicate;
 import physicaloperator.PhysicalOperator;
-import physicaloperator.QueryConditionContext;
-import physicaloperator.QueryConditionEvaluator;
+import physicaloperator.PredicateCompiler;
 
 public class BlockNestedLoopJoinOperator extends PhysicalOperator {
   private final PhysicalOperator outerOperator;
   private final PhysicalOperator innerOperator;
   private final Expression condition;
   private final Supplier<Tuple> selectedGetNextTuple;
-  private final QueryConditionContext queryConditionContext;
-  private final QueryConditionEvaluator evaluator;
+  private final CompiledPredicate predicate;
 
   private Tuple[] outerBlockBuffer;
   private int tuplesPerBlock;
@@ -25,6 +26,12 @@ public class BlockNestedLoopJoinOperator extends PhysicalOperator {
   private int currentBufferSize;
   private Tuple currentInnerTuple;
 
+  // the children are read a batch at a time, these are the cursors into the current batches
+  private TupleBatch outerBatch;
+  private int outerBatchIndex;
+  private TupleBatch innerBatch;
+  private int innerBatchIndex;
+
   public BlockNestedLoopJoinOperator(
       PhysicalOperator outerOperator,
       PhysicalOperator innerOperator,
@@ -44,16 +51,21 @@ public class BlockNestedLoopJoinOperator extends PhysicalOperator {
     // Check if the condition is null and select the correct behavior
     if (condition == null) {
       this.selectedGetNextTuple = this::getNextTupleWithoutCondition;
-      this.queryConditionContext = null;
-      this.evaluator = null;
+      this.predicate = null;
     } else {
       this.selectedGetNextTuple = this::getNextTupleWithCondition;
-      this.queryConditionContext = new QueryConditionContext(this.outputSchema);
-      this.evaluator = new QueryConditionEvaluator();
+      this.predicate =
+          PredicateCompiler.compile(
+              condition, outerOperator.getOutputSchema(), innerOperator.getOutputSchema());
     }
 
-    // Initialize buffer
-    tuplesPerBlock = JoinBufferPages * TABLE_PAGE_SIZE / (this.outputSchema.size() * INT_SIZE);
+    // Initialize buffer, the block only holds outer tuples
+    tuplesPerBlock =
+        Math.max(
+            1,
+            JoinBufferPages
+                * TABLE_PAGE_SIZE
+                / (outerOperator.getOutputSchema().size() * INT_SIZE));
     outerBlockBuffer = new Tuple[tuplesPerBlock];
 
     loadNextBlock();
@@ -64,21 +76,44 @@ public class BlockNestedLoopJoinOperator extends PhysicalOperator {
     currentBufferIndex = 0;
 
     Tuple tuple;
-    while (currentBufferSize < outerBlockBuffer.length
-        && (tuple = outerOperator.getNextTuple()) != null) {
+    while (currentBufferSize < outerBlockBuffer.length && (tuple = nextOuterTuple()) != null) {
       outerBlockBuffer[currentBufferSize++] = tuple;
     }
 
     innerOperator.reset();
-    currentInnerTuple = innerOperator.getNextTuple();
+    innerBatch = null;
+    currentInnerTuple = nextInnerTuple();
 
     return currentBufferSize > 0;
   }
 
+  private Tuple nextOuterTuple() {
+    if (outerBatch == null || outerBatchIndex >= outerBatch.size()) {
+      outerBatch = outerOperator.getNextBatch();
+      outerBatchIndex = 0;
+      if (outerBatch == null) {
+        return null;
+      }
+    }
+    return outerBatch.get(outerBatchIndex++);
+  }
+
+  private Tuple nextInnerTuple() {
+    if (innerBatch == null || innerBatchIndex >= innerBatch.size()) {
+      innerBatch = innerOperator.getNextBatch();
+      innerBatchIndex = 0;
+      if (innerBatch == null) {
+        return null;
+      }
+    }
+    return innerBatch.get(innerBatchIndex++);
+  }
+
   @Override
   public void reset() {
     outerOperator.reset();
     innerOperator.reset();
+    outerBatch = null;
 
     // Clear the buffer
     for (int i = 0; i < currentBufferSize; i++) {
@@ -94,6 +129,22 @@ public class BlockNestedLoopJoinOperator extends PhysicalOperator {
     return selectedGetNextTuple.get();
   }
 
+  @Override
+  public TupleBatch getNextBatch() {
+    TupleBatch batch = getBatchBuffer();
+    Tuple tuple;
+    if (condition == null) {
+      while (!batch.isFull() && (tuple = getNextTupleWithoutCondition()) != null) {
+        batch.add(tuple);
+      }
+    } else {
+      while (!batch.isFull() && (tuple = getNextTupleWithCondition()) != null) {
+        batch.add(tuple);
+      }
+    }
+    return batch.isEmpty() ? null : batch;
+  }
+
   private Tuple getNextTupleWithCondition() {
     // loop through each block
     while (currentBufferSize > 0) {
@@ -102,15 +153,12 @@ public class BlockNestedLoopJoinOperator extends PhysicalOperator {
         // loop through the block
         while (currentBufferIndex < currentBufferSize) {
           Tuple outerTuple = outerBlockBuffer[currentBufferIndex++];
-          Tuple combinedTuple = outerTuple.append(currentInnerTuple);
-
-          this.queryConditionContext.setContext(combinedTuple.getAllElements());
-          if (condition.accept(this.evaluator, this.queryConditionContext)) {
-            return combinedTuple;
+          if (predicate.test(outerTuple, currentInnerTuple)) {
+            return outerTuple.append(currentInnerTuple);
           }
         }
         currentBufferIndex = 0;
-        currentInnerTuple = innerOperator.getNextTuple();
+        currentInnerTuple = nextInnerTuple();
       }
       if (!loadNextBlock()) {
         return null;
@@ -130,7 +178,7 @@ public class BlockNestedLoopJoinOperator extends PhysicalOperator {
           return outerTuple.append(currentInnerTuple);
         }
         currentBufferIndex = 0;
-        currentInnerTuple = innerOperator.getNextTuple();
+        currentInnerTuple = nextInnerTuple();
       }
       if (!loadNextBlock()) {
         return null;
@@ -138,4 +186,14 @@ public class BlockNestedLoopJoinOperator extends PhysicalOperator {
     }
     return null;
   }
+
+  @Override
+  protected String describe() {
+    return "BlockNestedLoopJoin[" + condition + ", " + tuplesPerBlock + " tuples per block]";
+  }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(outerOperator, innerOperator);
+  }
 }
@@ -0,0 +1,345 @@
+package physicaloperator.join;
+
+import static utils.DBConstants.INT_SIZE;
+import static utils.DBConstants.TABLE_PAGE_SIZE;
+
+import io.reader.BinaryTupleReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+import model.Tuple;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import physicaloperator.PhysicalOperator;
+import utils.HashPartitioner;
+import utils.HashUtil;
+
+/**
+ * Equi-join that builds a hash table on the right (inner) input and probes it with the left (outer)
+ * input.
+ *
+ * <p>If the right input fits in the buffer pages the join runs entirely in memory and the left
+ * input is streamed once. Otherwise both inputs are hash partitioned to cache files (Grace hash
+ * join) and the partitions are joined pair by pair. A right partition that still does not fit is
+ * partitioned again with a different hash function, up to {@link
+ * HashPartitioner#MAX_PARTITION_LEVEL} times.
+ *
+ * <p>The right input is read when the first tuple is asked for, so building a plan reads nothing.
+ */
+public class HashJoinOperator extends PhysicalOperator {
+  private static final Logger logger = LogManager.getLogger(HashJoinOperator.class);
+
+  private final PhysicalOperator leftOperator;
+  private final PhysicalOperator rightOperator;
+  private final JoinTupleComparator keyComparator;
+  private final int[] leftKeyIndices;
+  private final int[] rightKeyIndices;
+  private final HashPartitioner partitioner;
+  private final int buildCapacity;
+  private boolean built;
+
+  // hash table over the current build tuples; chains are linked through chainNext
+  private Tuple[] buildTuples = new Tuple[0];
+  private int[] buildHashes = new int[0];
+  private int[] chainNext = new int[0];
+  private int[] bucketHeads = new int[0];
+  private int bucketMask;
+
+  // probe state
+  private Tuple probeTuple;
+  private int probeHash;
+  private int chainIndex = -1;
+  private BinaryTupleReader probeReader;
+
+  // partitions still to be joined, null while the join runs in memory
+  private List<PartitionPair> spilledPartitions;
+  private final Deque<PartitionPair> pendingPartitions = new ArrayDeque<>();
+
+  public HashJoinOperator(
+      PhysicalOperator leftOperator,
+      PhysicalOperator rightOperator,
+      JoinTupleComparator keyComparator,
+      int joinBufferPages) {
+    super(null);
+
+    this.leftOperator = leftOperator;
+    this.rightOperator = rightOperator;
+    this.keyComparator = keyComparator;
+    this.leftKeyIndices = keyComparator.getLeftKeyIndices();
+    this.rightKeyIndices = keyComparator.getRightKeyIndices();
+
+    // Set output schema as the combine of left and right operators' schema
+    this.outputSchema = new ArrayList<>(leftOperator.getOutputSchema());
+    this.outputSchema.addAll(rightOperator.getOutputSchema());
+
+    // one page reads the input, the rest hold the build side or the partition output buffers
+    this.partitioner = new HashPartitioner("hash", Math.max(2, joinBufferPages - 1));
+    this.buildCapacity =
+        Math.max(
+            1,
+            (joinBufferPages - 1)
+                * TABLE_PAGE_SIZE
+                / (rightOperator.getOutputSchema().size() * INT_SIZE));
+  }
+
+  /** Loads the right input into the hash table, or partitions both inputs if it does not fit. */
+  private void build() {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = rightOperator.getNextTuple()) != null) {
+      if (tuples.size() == buildCapacity) {
+        spill(tuples, tuple);
+        return;
+      }
+      tuples.add(tuple);
+    }
+    buildHashTable(tuples);
+  }
+
+  private void spill(List<Tuple> bufferedTuples, Tuple overflowTuple) {
+    logger.debug("Build side exceeds {} tuples, partitioning to disk", buildCapacity);
+
+    // the tuples already read go first, then the rest of the right input
+    List<Tuple> head = new ArrayList<>(bufferedTuples);
+    head.add(overflowTuple);
+    Supplier<Tuple> rightSource = concat(head, rightOperator::getNextTuple);
+
+    String[] rightFiles;
+    String[] leftFiles;
+    try {
+      rightFiles = partitioner.partition(rightSource, rightKeyIndices, rightWidth(), 0);
+      leftFiles =
+          partitioner.partition(leftOperator::getNextTuple, leftKeyIndices, leftWidth(), 0);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    this.spilledPartitions = new ArrayList<>();
+    for (int i = 0; i < rightFiles.length; i++) {
+      spilledPartitions.add(new PartitionPair(leftFiles[i], rightFiles[i], 0));
+    }
+    pendingPartitions.addAll(spilledPartitions);
+    loadNextPartition();
+  }
+
+  @Override
+  public void reset() {
+    // nothing has been read before the first tuple is asked for
+    if (!built) {
+      return;
+    }
+    chainIndex = -1;
+    probeTuple = null;
+    if (spilledPartitions == null) {
+      leftOperator.reset();
+      return;
+    }
+
+    closeProbeReader();
+    pendingPartitions.clear();
+    pendingPartitions.addAll(spilledPartitions);
+    loadNextPartition();
+  }
+
+  @Override
+  public Tuple getNextTuple() {
+    if (!built) {
+      build();
+      built = true;
+    }
+    while (true) {
+      // walk the chain of the current probe tuple
+      while (chainIndex >= 0) {
+        int index = chainIndex;
+        chainIndex = chainNext[index];
+        if (buildHashes[index] == probeHash
+            && keyComparator.compare(probeTuple, buildTuples[index]) == 0) {
+          return probeTuple.append(buildTuples[index]);
+        }
+      }
+
+      probeTuple = nextProbeTuple();
+      if (probeTuple == null) {
+        if (!loadNextPartition()) {
+          return null;
+        }
+        continue;
+      }
+      probeHash = HashUtil.hash(probeTuple, leftKeyIndices);
+      chainIndex = bucketHeads[probeHash & bucketMask];
+    }
+  }
+
+  private Tuple nextProbeTuple() {
+    if (spilledPartitions == null) {
+      // nothing can match an empty build side, so skip reading the left input
+      return buildTuples.length == 0 ? null : leftOperator.getNextTuple();
+    }
+    if (probeReader == null) {
+      return null;
+    }
+    try {
+      return probeReader.getNextTuple();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Builds the hash table for the next pair of partitions and starts probing it.
+   *
+   * @return false if there are no partitions left
+   */
+  private boolean loadNextPartition() {
+    closeProbeReader();
+
+    while (!pendingPartitions.isEmpty()) {
+      PartitionPair pair = pendingPartitions.poll();
+      try {
+        List<Tuple> tuples = new ArrayList<>();
+        boolean fits = readPartition(pair.rightFile(), tuples);
+
+        // an empty build partition cannot produce any output
+        if (tuples.isEmpty()) {
+          continue;
+        }
+
+        if (!fits && pair.level() < HashPartitioner.MAX_PARTITION_LEVEL) {
+          repartition(pair);
+          continue;
+        }
+        if (!fits) {
+          logger.warn("Partition still exceeds the buffer after {} levels", pair.level());
+          tuples.clear();
+          readPartition(pair.rightFile(), tuples, Integer.MAX_VALUE);
+        }
+
+        buildHashTable(tuples);
+        probeReader = new BinaryTupleReader(partitioner.openPartition(pair.leftFile()));
+        return true;
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return false;
+  }
+
+  private void repartition(PartitionPair pair) throws IOException {
+    int level = pair.level() + 1;
+    String[] rightFiles;
+    String[] leftFiles;
+    try (FileChannel rightChannel = partitioner.openPartition(pair.rightFile());
+        FileChannel leftChannel = partitioner.openPartition(pair.leftFile())) {
+      rightFiles =
+          partitioner.partition(readerSource(rightChannel), rightKeyIndices, rightWidth(), level);
+      leftFiles =
+          partitioner.partition(readerSource(leftChannel), leftKeyIndices, leftWidth(), level);
+    }
+
+    // join the sub-partitions before anything else that is pending
+    for (int i = rightFiles.length - 1; i >= 0; i--) {
+      pendingPartitions.addFirst(new PartitionPair(leftFiles[i], rightFiles[i], level));
+    }
+  }
+
+  private boolean readPartition(String fileName, List<Tuple> tuples) throws IOException {
+    return readPartition(fileName, tuples, buildCapacity);
+  }
+
+  /**
+   * Reads up to capacity tuples of a partition file.
+   *
+   * @return true if the whole file fit
+   */
+  private boolean readPartition(String fileName, List<Tuple> tuples, int capacity)
+      throws IOException {
+    try (FileChannel channel = partitioner.openPartition(fileName)) {
+      BinaryTupleReader reader = new BinaryTupleReader(channel);
+      Tuple tuple;
+      while ((tuple = reader.getNextTuple()) != null) {
+        if (tuples.size() == capacity) {
+          return false;
+        }
+        tuples.add(tuple);
+      }
+      return true;
+    }
+  }
+
+  private void buildHashTable(List<Tuple> tuples) {
+    int size = tuples.size();
+    int bucketCount = Integer.highestOneBit(Math.max(1, size * 2 - 1)) << 1;
+
+    if (bucketHeads.length != bucketCount) {
+      bucketHeads = new int[bucketCount];
+    }
+    Arrays.fill(bucketHeads, -1);
+    bucketMask = bucketCount - 1;
+
+    buildTuples = tuples.toArray(new Tuple[0]);
+    buildHashes = new int[size];
+    chainNext = new int[size];
+
+    // insert back to front so that every chain lists its tuples in input order
+    for (int i = size - 1; i >= 0; i--) {
+      int hash = HashUtil.hash(buildTuples[i], rightKeyIndices);
+      int bucket = hash & bucketMask;
+      buildHashes[i] = hash;
+      chainNext[i] = bucketHeads[bucket];
+      bucketHeads[bucket] = i;
+    }
+  }
+
+  private Supplier<Tuple> readerSource(FileChannel channel) throws IOException {
+    BinaryTupleReader reader = new BinaryTupleReader(channel);
+    return () -> {
+      try {
+        return reader.getNextTuple();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    };
+  }
+
+  private static Supplier<Tuple> concat(List<Tuple> head, Supplier<Tuple> tail) {
+    int[] position = {0};
+    return () -> position[0] < head.size() ? head.get(position[0]++) : tail.get();
+  }
+
+  private void closeProbeReader() {
+    if (probeReader == null) {
+      return;
+    }
+    try {
+      probeReader.getFileChannel().close();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    probeReader = null;
+  }
+
+  private int leftWidth() {
+    return leftOperator.getOutputSchema().size();
+  }
+
+  private int rightWidth() {
+    return rightOperator.getOutputSchema().size();
+  }
+
+  private record PartitionPair(String leftFile, String rightFile, int level) {}
+
+  @Override
+  protected String describe() {
+    return "HashJoin[" + partitioner.getPartitionCount() + " partitions]";
+  }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(leftOperator, rightOperator);
+  }
+}
@@ -0,0 +1,241 @@
+package physicaloperator.join;
+
+import catalog.DBCatalog;
+import config.IndexConfigManager;
+import config.IndexDefinition;
+import index.BPlusTree;
+import index.BPlusTreeLeafNodeView;
+import io.reader.BinaryTupleReader;
+import io.reader.TupleReaderFactory;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import model.Tuple;
+import model.TupleBatch;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import physicaloperator.CompiledPredicate;
+import physicaloperator.PhysicalOperator;
+import physicaloperator.PredicateCompiler;
+import utils.DBConstants;
+
+/**
+ * Joins the outer input with a base relation through a B+ tree on the inner join column. Instead of
+ * rescanning the inner relation for every outer tuple, each outer key is looked up in the index and
+ * only the inner tuples with that key are read.
+ *
+ * <p>The outer input is read a batch at a time and the inner tuples of each distinct key of the
+ * batch are kept while they fit in the join buffer, so repeated keys cost one probe per batch. The
+ * matches of the keys that no longer fit are read from the leaf one at a time, on every probe. The
+ * whole condition, including any selection on the inner relation, is tested on each pair the index
+ * returns.
+ */
+public class IndexNestedLoopJoinOperator extends PhysicalOperator {
+
+  private final PhysicalOperator outerOperator;
+  private final Table innerTable;
+  private final IndexDefinition indexDefinition;
+  private final int outerKeyIndex;
+  private final Expression condition;
+  private final CompiledPredicate predicate;
+
+  private final FileChannel indexChannel;
+  private final ByteBuffer indexPageBuffer;
+  private final BPlusTree bPlusTree;
+  private final BPlusTreeLeafNodeView leaf = new BPlusTreeLeafNodeView();
+  private final FileChannel tableChannel;
+  private final BinaryTupleReader tupleReader;
+
+  // the inner tuples of the keys of the current outer batch, up to cacheCapacity tuples
+  private final Map<Integer, List<Tuple>> matchesByKey = new HashMap<>();
+  private final int cacheCapacity;
+  private int cachedTuples;
+
+  private TupleBatch outerBatch;
+  private int outerBatchIndex;
+  private Tuple outerTuple;
+
+  // the matches of the outer tuple, from the cache, or else from the entry the leaf was probed at
+  private List<Tuple> matches;
+  private int matchEntryIndex;
+  private int matchCount;
+  private int matchIndex;
+
+  /**
+   * @param outerOperator the outer input
+   * @param innerTable the inner relation, with its alias if any
+   * @param indexDefinition the index on the inner relation
+   * @param outerKeyIndex position in the outer tuples of the column equal to the index key
+   * @param condition the join condition and the selection on the inner relation, tested on every
+   *     pair of an outer tuple and an inner tuple with a matching key
+   * @param joinBufferPages pages of memory for the inner tuples of the keys of an outer batch
+   */
+  public IndexNestedLoopJoinOperator(
+      PhysicalOperator outerOperator,
+      Table innerTable,
+      IndexDefinition indexDefinition,
+      int outerKeyIndex,
+      Expression condition,
+      int joinBufferPages) {
+    super(null);
+
+    this.outerOperator = outerOperator;
+    this.innerTable = innerTable;
+    this.indexDefinition = indexDefinition;
+    this.outerKeyIndex = outerKeyIndex;
+    this.condition = condition;
+
+    // Set output schema as the combine of the outer schema and the inner relation's schema
+    ArrayList<Column> innerSchema = new ArrayList<>();
+    for (Column column : DBCatalog.getInstance().getSchemaForTable(innerTable.getName())) {
+      innerSchema.add(new Column(innerTable, column.getColumnName()));
+    }
+    this.outputSchema = new ArrayList<>(outerOperator.getOutputSchema());
+    this.outputSchema.addAll(innerSchema);
+
+    this.predicate =
+        PredicateCompiler.compile(condition, outerOperator.getOutputSchema(), innerSchema);
+    this.cacheCapacity =
+        joinBufferPages * DBConstants.TABLE_PAGE_SIZE / (innerSchema.size() * DBConstants.INT_SIZE);
+
+    try {
+      IndexConfigManager indexConfigManager = IndexConfigManager.getInstance();
+      String indexPath = indexConfigManager.getIndexFilePath(indexDefinition);
+      indexChannel = new FileInputStream(indexPath).getChannel();
+      indexPageBuffer = ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE);
+      bPlusTree = BPlusTree.open(indexPath, indexConfigManager.getInnerNodes(indexDefinition));
+
+      String tablePath = DBCatalog.getInstance().getTablePath(innerTable.getName());
+      tableChannel = new FileInputStream(tablePath).getChannel();
+      tupleReader = TupleReaderFactory.createTableReader(tablePath, tableChannel);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void reset() {
+    outerOperator.reset();
+    outerBatch = null;
+    outerTuple = null;
+    matches = null;
+    matchCount = 0;
+    clearCache();
+  }
+
+  @Override
+  public Tuple getNextTuple() {
+    while (true) {
+      Tuple innerTuple;
+      while ((innerTuple = nextMatch()) != null) {
+        // Only build the combined tuple when the condition is true
+        if (predicate.test(outerTuple, innerTuple)) {
+          return outerTuple.append(innerTuple);
+        }
+      }
+
+      if (!advanceToNextOuterTuple()) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * @return the next inner tuple with the key of the outer tuple, or null if there are no more
+   */
+  private Tuple nextMatch() {
+    if (matches != null) {
+      return matchIndex < matches.size() ? matches.get(matchIndex++) : null;
+    }
+    return matchIndex < matchCount ? readMatch(matchIndex++) : null;
+  }
+
+  private boolean advanceToNextOuterTuple() {
+    if (outerBatch == null || outerBatchIndex >= outerBatch.size()) {
+      outerBatch = outerOperator.getNextBatch();
+      outerBatchIndex = 0;
+      clearCache();
+
+      if (outerBatch == null) {
+        outerTuple = null;
+        matches = null;
+        matchCount = 0;
+        return false;
+      }
+    }
+
+    outerTuple = outerBatch.get(outerBatchIndex++);
+    int key = outerTuple.getInt(outerKeyIndex);
+    matches = matchesByKey.get(key);
+    matchIndex = 0;
+    if (matches == null) {
+      probe(key);
+      if (cachedTuples + matchCount <= cacheCapacity) {
+        matches = new ArrayList<>(matchCount);
+        for (int i = 0; i < matchCount; i++) {
+          matches.add(readMatch(i));
+        }
+        matchesByKey.put(key, matches);
+        cachedTuples += matchCount;
+      }
+    }
+    return true;
+  }
+
+  /** Looks a key up in the index, leaving the leaf at its entry and the number of its matches. */
+  private void probe(int key) {
+    try {
+      bPlusTree.findLeafByKey(indexChannel, indexPageBuffer, key, leaf);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    // every key has a single entry, which is in the leaf the lookup ends at
+    matchEntryIndex = leaf.findEntryIndexByKey(key);
+    if (matchEntryIndex >= leaf.getNumOfKeys() || leaf.getKeyAtIndex(matchEntryIndex) != key) {
+      matchCount = 0;
+    } else {
+      matchCount = leaf.getNumOfRecordIds(matchEntryIndex);
+    }
+  }
+
+  /** Reads the inner tuple of a record id of the entry of the last probe. */
+  private Tuple readMatch(int recordIdIndex) {
+    try {
+      tupleReader.seek(
+          leaf.getPageNumber(matchEntryIndex, recordIdIndex),
+          leaf.getTupleNumber(matchEntryIndex, recordIdIndex));
+      return tupleReader.getNextTuple();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void clearCache() {
+    matchesByKey.clear();
+    cachedTuples = 0;
+  }
+
+  @Override
+  protected String describe() {
+    return "IndexNestedLoopJoin["
+        + innerTable
+        + " on "
+        + indexDefinition.getAttribute()
+        + (indexDefinition.isClustered() ? " clustered" : " unclustered")
+        + ", "
+        + condition
+        + "]";
+  }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(outerOperator);
+  }
+}
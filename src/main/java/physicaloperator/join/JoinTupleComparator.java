@@ -7,7 +7,7 @@ import net.sf.jsqlparser.statement.select.OrderByElement;
 import utils.TupleComparator;
 
 public class JoinTupleComparator extends TupleComparator {
-  private final List<Integer> rightOrderByIndices;
+  private final int[] rightOrderByIndices;
 
   public JoinTupleComparator(
       List<Column> leftSchema,
@@ -17,17 +17,25 @@ public class JoinTupleComparator extends TupleComparator {
     super(leftSchema, leftOrderByElements);
     this.rightOrderByIndices = buildOrderedIndices(rightSchema, rightOrderByElements);
 
-    if (orderByIndices.size() != rightOrderByIndices.size()) {
+    if (orderByIndices.length != rightOrderByIndices.length) {
       throw new IllegalArgumentException(
           "Left and right schema order by elements must be the same size");
     }
   }
 
+  public int[] getLeftKeyIndices() {
+    return orderByIndices;
+  }
+
+  public int[] getRightKeyIndices() {
+    return rightOrderByIndices;
+  }
+
   @Override
   public int compare(Tuple leftTuple, Tuple rightTuple) {
-    for (int i = 0; i < orderByIndices.size(); i++) {
-      int leftValue = leftTuple.getElementAtIndex(orderByIndices.get(i));
-      int rightValue = rightTuple.getElementAtIndex(rightOrderByIndices.get(i));
+    for (int i = 0; i < orderByIndices.length; i++) {
+      int leftValue = leftTuple.getInt(orderByIndices[i]);
+      int rightValue = rightTuple.getInt(rightOrderByIndices[i]);
       if (leftValue != rightValue) {
         return Integer.compare(leftValue, rightValue);
       }
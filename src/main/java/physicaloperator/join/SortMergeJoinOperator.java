@@ -1,6 +1,7 @@
 package physicaloperator.join;
 
 import java.util.ArrayList;
+import java.util.List;
 import model.Tuple;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -141,4 +142,9 @@ public class SortMergeJoinOperator extends PhysicalOperator {
       }
     }
   }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(leftOperator, rightOperator);
+  }
 }
@@ -1,12 +1,14 @@
 package physicaloperator.join;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
 import model.Tuple;
+import model.TupleBatch;
 import net.sf.jsqlparser.expression.Expression;
+import physicaloperator.CompiledPredicate;
 import physicaloperator.PhysicalOperator;
-import physicaloperator.QueryConditionContext;
-import physicaloperator.QueryConditionEvaluator;
+import physicaloperator.PredicateCompiler;
 
 public class TupleNestedLoopJoinOperator extends PhysicalOperator {
 
@@ -14,8 +16,7 @@ public class TupleNestedLoopJoinOperator extends PhysicalOperator {
   private final PhysicalOperator rightOperator;
   private final Expression expression;
   private final Supplier<Tuple> selectedGetNextTuple;
-  private final QueryConditionContext queryConditionContext;
-  private final QueryConditionEvaluator evaluator;
+  private final CompiledPredicate predicate;
   private Tuple leftTuple;
 
   public TupleNestedLoopJoinOperator(
@@ -33,12 +34,12 @@ public class TupleNestedLoopJoinOperator extends PhysicalOperator {
     // Check if the expression is null and select the correct behavior
     if (expression == null) {
       this.selectedGetNextTuple = this::getNextTupleWithoutExpression;
-      this.queryConditionContext = null;
-      this.evaluator = null;
+      this.predicate = null;
     } else {
       this.selectedGetNextTuple = this::getNextTupleWithExpression;
-      this.queryConditionContext = new QueryConditionContext(this.outputSchema);
-      this.evaluator = new QueryConditionEvaluator();
+      this.predicate =
+          PredicateCompiler.compile(
+              expression, leftOperator.getOutputSchema(), rightOperator.getOutputSchema());
     }
 
     // Set first left tuple
@@ -58,6 +59,22 @@ public class TupleNestedLoopJoinOperator extends PhysicalOperator {
     return selectedGetNextTuple.get();
   }
 
+  @Override
+  public TupleBatch getNextBatch() {
+    TupleBatch batch = getBatchBuffer();
+    Tuple tuple;
+    if (expression == null) {
+      while (!batch.isFull() && (tuple = getNextTupleWithoutExpression()) != null) {
+        batch.add(tuple);
+      }
+    } else {
+      while (!batch.isFull() && (tuple = getNextTupleWithExpression()) != null) {
+        batch.add(tuple);
+      }
+    }
+    return batch.isEmpty() ? null : batch;
+  }
+
   public Tuple getNextTupleWithExpression() {
     Tuple rightTuple;
 
@@ -66,13 +83,9 @@ public class TupleNestedLoopJoinOperator extends PhysicalOperator {
       // Loop through until we find a valid combine tuple
       while ((rightTuple = rightOperator.getNextTuple()) != null) {
 
-        Tuple combinedTuple = leftTuple.append(rightTuple);
-
-        // Set context for expression evaluation
-        this.queryConditionContext.setContext(combinedTuple.getAllElements());
-        if (expression.accept(this.evaluator, this.queryConditionContext)) {
-          // return when the expression is ture
-          return combinedTuple;
+        // Only build the combined tuple when the expression is true
+        if (predicate.test(leftTuple, rightTuple)) {
+          return leftTuple.append(rightTuple);
         }
       }
 
@@ -103,4 +116,14 @@ public class TupleNestedLoopJoinOperator extends PhysicalOperator {
     leftTuple = leftOperator.getNextTuple();
     rightOperator.reset();
   }
+
+  @Override
+  protected String describe() {
+    return "TupleNestedLoopJoin[" + expression + "]";
+  }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(leftOperator, rightOperator);
+  }
 }
@@ -0,0 +1,286 @@
+package physicaloperator.parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.Tuple;
+import model.TupleBatch;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import physicaloperator.PhysicalOperator;
+import utils.HashUtil;
+
+/**
+ * Runs each producer of an exchange in its own thread and routes the tuples they return to the
+ * queues of the partitions, from which the {@link ExchangeOperator} of each partition reads them.
+ *
+ * <p>Tuples are handed over in chunks, and each queue holds a few chunks, so a producer that gets
+ * ahead of a consumer waits for it. Every producer ends its output to a partition with an empty
+ * chunk. A producer that fails ends its output the same way, and the consumers then rethrow its
+ * failure.
+ *
+ * <p>A consumer that closes its partition no longer gets tuples, and once all partitions are closed
+ * the producers are stopped. Consumers are reset together: the producers are reset and started
+ * again once every consumer has been reset.
+ */
+class Exchange {
+  private static final Logger logger = LogManager.getLogger(Exchange.class);
+
+  /** Marks the end of the output of one producer to a partition. */
+  static final Tuple[] END = new Tuple[0];
+
+  /** How long a blocked producer or consumer waits before it checks whether it should stop. */
+  private static final long WAIT_MILLIS = 10;
+
+  private static final int CHUNK_SIZE = TupleBatch.DEFAULT_CAPACITY;
+  private static final int QUEUE_CHUNKS = 4;
+
+  private static final AtomicInteger exchangeCount = new AtomicInteger();
+
+  private final List<PhysicalOperator> producers;
+  private final int[] keyIndices;
+  private final int partitionCount;
+  private final List<BlockingQueue<Tuple[]>> queues = new ArrayList<>();
+  private final String name;
+
+  private ExecutorService executor; // null until the first consumer reads
+  private final boolean[] closedPartitions;
+  private volatile boolean stopped;
+  private volatile Throwable failure;
+  private int resetConsumers;
+
+  /**
+   * @param producers the operators whose output is exchanged
+   * @param keyIndices positions in the producer tuples of the values that pick the partition, null
+   *     if there is one partition
+   * @param partitionCount the number of partitions
+   */
+  Exchange(List<PhysicalOperator> producers, int[] keyIndices, int partitionCount) {
+    this.producers = producers;
+    this.keyIndices = keyIndices;
+    this.partitionCount = partitionCount;
+    this.closedPartitions = new boolean[partitionCount];
+    for (int i = 0; i < partitionCount; i++) {
+      queues.add(new ArrayBlockingQueue<>(QUEUE_CHUNKS));
+    }
+    this.name = "exchange-" + exchangeCount.incrementAndGet();
+  }
+
+  List<PhysicalOperator> getProducers() {
+    return producers;
+  }
+
+  int[] getKeyIndices() {
+    return keyIndices;
+  }
+
+  int getPartitionCount() {
+    return partitionCount;
+  }
+
+  /**
+   * Takes the next chunk of a partition, starting the producers if they are not running yet.
+   *
+   * @return the chunk, {@link #END} once for each producer that has finished
+   * @throws RuntimeException if a producer failed
+   * @throws CancellationException if the partition was closed meanwhile
+   */
+  Tuple[] take(int partition) {
+    start();
+    BlockingQueue<Tuple[]> queue = queues.get(partition);
+    try {
+      while (true) {
+        Tuple[] chunk = queue.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        if (failure != null) {
+          throw new RuntimeException("Producer of " + name + " failed", failure);
+        }
+        if (chunk != null) {
+          return chunk;
+        }
+        if (isClosed(partition)) {
+          throw new CancellationException(name + " was closed");
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  private synchronized void start() {
+    if (executor != null) {
+      return;
+    }
+    if (resetConsumers > 0) {
+      throw new IllegalStateException("Not all consumers of " + name + " have been reset");
+    }
+
+    logger.debug("Starting {} producers of {}", producers.size(), name);
+    AtomicInteger threadCount = new AtomicInteger();
+    executor =
+        Executors.newFixedThreadPool(
+            producers.size(),
+            runnable -> {
+              Thread thread = new Thread(runnable, name + "-" + threadCount.getAndIncrement());
+              // a plan that is abandoned must not keep the JVM running
+              thread.setDaemon(true);
+              return thread;
+            });
+    for (PhysicalOperator producer : producers) {
+      executor.execute(() -> produce(producer));
+    }
+    executor.shutdown();
+  }
+
+  /** Runs one producer to its end, routing its tuples to the partitions. */
+  private void produce(PhysicalOperator producer) {
+    Tuple[][] chunks = new Tuple[partitionCount][];
+    int[] sizes = new int[partitionCount];
+    try {
+      TupleBatch batch;
+      while (!stopped && (batch = producer.getNextBatch()) != null) {
+        for (int i = 0; i < batch.size(); i++) {
+          Tuple tuple = batch.get(i);
+          int partition = partitionOf(tuple);
+          if (chunks[partition] == null) {
+            chunks[partition] = new Tuple[CHUNK_SIZE];
+          }
+          chunks[partition][sizes[partition]++] = tuple;
+          if (sizes[partition] == CHUNK_SIZE) {
+            put(partition, chunks[partition]);
+            chunks[partition] = null;
+            sizes[partition] = 0;
+          }
+        }
+      }
+      for (int partition = 0; partition < partitionCount; partition++) {
+        if (sizes[partition] > 0) {
+          put(partition, Arrays.copyOf(chunks[partition], sizes[partition]));
+        }
+      }
+    } catch (RuntimeException | Error e) {
+      // failures of a plan that is being stopped are expected
+      if (!stopped) {
+        logger.error("Producer of {} failed", name, e);
+        failure = e;
+      }
+    } finally {
+      // the inputs of the producer are no longer read
+      producer.close();
+    }
+    for (int partition = 0; partition < partitionCount; partition++) {
+      put(partition, END);
+    }
+  }
+
+  /** Waits for room in the queue of a partition, unless the partition is closed. */
+  private void put(int partition, Tuple[] chunk) {
+    BlockingQueue<Tuple[]> queue = queues.get(partition);
+    try {
+      while (!stopped && !isClosed(partition)) {
+        if (queue.offer(chunk, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  private int partitionOf(Tuple tuple) {
+    if (partitionCount == 1) {
+      return 0;
+    }
+    int hash = HashUtil.hash(tuple, keyIndices);
+    // the operators of a partition hash the same keys again, so use other bits than they do
+    return Math.floorMod(HashUtil.mix(hash + 0x7F4A7C15), partitionCount);
+  }
+
+  private synchronized boolean isClosed(int partition) {
+    return closedPartitions[partition];
+  }
+
+  /** Drops the rest of the output of a partition, stopping the producers once all are closed. */
+  void close(int partition) {
+    synchronized (this) {
+      if (closedPartitions[partition]) {
+        return;
+      }
+      closedPartitions[partition] = true;
+      for (boolean closed : closedPartitions) {
+        if (!closed) {
+          queues.get(partition).clear();
+          return;
+        }
+      }
+    }
+
+    logger.debug("All partitions of {} are closed, stopping its producers", name);
+    stopped = true;
+    for (PhysicalOperator producer : producers) {
+      producer.close();
+    }
+    awaitProducers();
+  }
+
+  /**
+   * Resets the exchange once all partitions have been reset, so that the producers start again from
+   * the beginning when a consumer next reads.
+   */
+  void reset() {
+    synchronized (this) {
+      if (executor == null) {
+        return;
+      }
+      if (++resetConsumers < partitionCount) {
+        return;
+      }
+    }
+
+    // the producers run to their end if a consumer stopped reading early
+    awaitProducers();
+    for (PhysicalOperator producer : producers) {
+      producer.reset();
+    }
+    synchronized (this) {
+      Arrays.fill(closedPartitions, false);
+      stopped = false;
+      failure = null;
+      resetConsumers = 0;
+      executor = null;
+    }
+  }
+
+  /** Waits for the producer threads to finish, emptying the queues so that none stays blocked. */
+  private void awaitProducers() {
+    if (executor == null) {
+      return;
+    }
+    try {
+      while (!executor.awaitTermination(WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+        for (BlockingQueue<Tuple[]> queue : queues) {
+          queue.clear();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    for (BlockingQueue<Tuple[]> queue : queues) {
+      queue.clear();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,118 @@
+package physicaloperator.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import model.Tuple;
+import net.sf.jsqlparser.schema.Column;
+import physicaloperator.PhysicalOperator;
+
+/**
+ * Reads one partition of the output of operators that run in parallel, each in its own thread.
+ *
+ * <p>A repartition splits the output of its producers by a hash of key columns, so that the
+ * operators over the partitions see all tuples with the same key, as a hash join or aggregate over
+ * one partition needs. A gather has a single partition with the output of all producers, in the
+ * order it arrives, and is where a parallel plan continues in one thread.
+ *
+ * <p>The producers start when a partition is first read. The partitions of a repartition must all
+ * be read at the same time, in different threads, as a producer waits once its output to one of
+ * them is full.
+ */
+public class ExchangeOperator extends PhysicalOperator {
+
+  private final Exchange exchange;
+  private final int partition;
+
+  private Tuple[] chunk = Exchange.END;
+  private int chunkIndex;
+  private int finishedProducers;
+
+  private ExchangeOperator(Exchange exchange, int partition) {
+    super(new ArrayList<>(exchange.getProducers().get(0).getOutputSchema()));
+    this.exchange = exchange;
+    this.partition = partition;
+  }
+
+  /**
+   * Splits the output of producers into partitions by the values of key columns.
+   *
+   * @param producers the producers, all with the same output schema
+   * @param keyIndices positions of the key columns in the tuples of the producers
+   * @param partitionCount the number of partitions
+   * @return the operator that reads each partition
+   */
+  public static List<ExchangeOperator> repartition(
+      List<PhysicalOperator> producers, int[] keyIndices, int partitionCount) {
+    Exchange exchange = new Exchange(producers, keyIndices, partitionCount);
+    List<ExchangeOperator> partitions = new ArrayList<>();
+    for (int i = 0; i < partitionCount; i++) {
+      partitions.add(new ExchangeOperator(exchange, i));
+    }
+    return partitions;
+  }
+
+  /**
+   * Merges the output of producers into one stream.
+   *
+   * @param producers the producers, all with the same output schema
+   * @return the operator that reads the output of all producers
+   */
+  public static ExchangeOperator gather(List<PhysicalOperator> producers) {
+    return new ExchangeOperator(new Exchange(producers, null, 1), 0);
+  }
+
+  @Override
+  public void reset() {
+    chunk = Exchange.END;
+    chunkIndex = 0;
+    finishedProducers = 0;
+    exchange.reset();
+  }
+
+  @Override
+  public Tuple getNextTuple() {
+    while (chunkIndex == chunk.length) {
+      if (finishedProducers == exchange.getProducers().size()) {
+        return null;
+      }
+      chunk = exchange.take(partition);
+      chunkIndex = 0;
+      if (chunk == Exchange.END) {
+        finishedProducers++;
+      }
+    }
+    return chunk[chunkIndex++];
+  }
+
+  @Override
+  public void close() {
+    exchange.close(partition);
+  }
+
+  @Override
+  protected String describe() {
+    int producerCount = exchange.getProducers().size();
+    if (exchange.getKeyIndices() == null) {
+      return "Gather[" + producerCount + " producers]";
+    }
+    List<Column> keyColumns = new ArrayList<>();
+    for (int index : exchange.getKeyIndices()) {
+      keyColumns.add(outputSchema.get(index));
+    }
+    return "Exchange"
+        + keyColumns
+        + " partition "
+        + (partition + 1)
+        + " of "
+        + exchange.getPartitionCount()
+        + " from "
+        + producerCount
+        + " producers";
+  }
+
+  /** The producers do the same work on different parts of the input, so the first one shows it. */
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(exchange.getProducers().get(0));
+  }
+}
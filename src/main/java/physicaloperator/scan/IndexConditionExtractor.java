@@ -1,5 +1,6 @@
 package physicaloperator.scan;
 
+import catalog.TableStats;
 import config.IndexDefinition;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
@@ -36,6 +37,17 @@ public class IndexConditionExtractor extends ExpressionVisitorAdapter<Void> {
     return remainderConditions;
   }
 
+  /**
+   * Estimates the fraction of the tuples of the relation that an index scan over the extracted
+   * bounds would return.
+   *
+   * @param tableStats the statistics of the indexed relation
+   * @return the estimated fraction of the tuples between the lower and the upper bound
+   */
+  public double estimateSelectivity(TableStats tableStats) {
+    return tableStats.estimateSelectivity(indexDefinition.getAttribute(), lowerBound, upperBound);
+  }
+
   @Override
   public <S> Void visit(AndExpression op, S context) {
     op.getLeftExpression().accept(this);
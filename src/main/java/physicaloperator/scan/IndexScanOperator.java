@@ -4,10 +4,9 @@ import catalog.DBCatalog;
 import config.IndexConfigManager;
 import config.IndexDefinition;
 import index.BPlusTree;
-import index.BPlusTreeLeafNode;
-import index.RecordEntry;
-import index.RecordId;
+import index.BPlusTreeLeafNodeView;
 import io.reader.BinaryTupleReader;
+import io.reader.TupleReaderFactory;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -15,6 +14,7 @@ import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.function.Supplier;
 import model.Tuple;
+import model.TupleBatch;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
 import org.apache.logging.log4j.LogManager;
@@ -26,7 +26,10 @@ public class IndexScanOperator extends PhysicalOperator {
 
   private static final Logger logger = LogManager.getLogger(IndexScanOperator.class);
 
+  private final IndexDefinition indexDefinition;
+  private final Integer lowKey;
   private Integer highKey;
+  private final boolean isClustered;
   private final Supplier<Tuple> selectedGetNextTuple;
   private final Supplier<Void> selectedReset;
 
@@ -39,7 +42,7 @@ public class IndexScanOperator extends PhysicalOperator {
   private int startEntryIndex;
 
   // for index traversal
-  private BPlusTreeLeafNode currentleafNode;
+  private final BPlusTreeLeafNodeView currentLeaf = new BPlusTreeLeafNodeView();
   private int currentEntryIndex;
   private int currentRecorIndex;
 
@@ -64,7 +67,10 @@ public class IndexScanOperator extends PhysicalOperator {
     // create output schema with table reference
     initializeSchema(table);
 
+    this.indexDefinition = indexDefinition;
+    this.lowKey = lowKey;
     this.highKey = highKey;
+    this.isClustered = indexDefinition.isClustered();
     this.attributeIndex = indexDefinition.getAttributeIndex();
 
     // create tuple reader for table
@@ -110,27 +116,25 @@ public class IndexScanOperator extends PhysicalOperator {
 
       // init index traversal
       if (lowKey == null) {
-        currentleafNode = bPlusTree.getFirstLeafNode(indexChannel, indexPageBuffer);
+        bPlusTree.getFirstLeaf(indexChannel, indexPageBuffer, currentLeaf);
         startEntryIndex = 0;
       } else {
-        currentleafNode = bPlusTree.findLeafNodeByKey(indexChannel, indexPageBuffer, lowKey);
-        startEntryIndex = currentleafNode.findEntryIndexByKey(lowKey);
+        bPlusTree.findLeafByKey(indexChannel, indexPageBuffer, lowKey, currentLeaf);
+        startEntryIndex = currentLeaf.findEntryIndexByKey(lowKey);
 
         // if we run out of entries in the current leaf node, move to the next leaf node & reset
         // entry
-        if (startEntryIndex >= currentleafNode.getNumOfKeys()) {
-          currentleafNode =
-              bPlusTree.getNextLeafNode(indexChannel, indexPageBuffer, currentleafNode);
+        if (startEntryIndex >= currentLeaf.getNumOfKeys()) {
 
           // if we run out of leaf nodes, we have no valid start index
-          if (currentleafNode == null) {
+          if (!bPlusTree.nextLeaf(indexChannel, indexPageBuffer, currentLeaf)) {
             startLeafAddress = -1;
             return false;
           }
           startEntryIndex = 0;
         }
       }
-      startLeafAddress = currentleafNode.getAddress();
+      startLeafAddress = currentLeaf.getAddress();
       return true;
 
     } catch (IOException e) {
@@ -146,8 +150,9 @@ public class IndexScanOperator extends PhysicalOperator {
       String indexPath = IndexConfigManager.getInstance().getIndexFilePath(indexDefinition);
       indexChannel = new FileInputStream(indexPath).getChannel();
 
-      // deserialize the tree
-      bPlusTree = BPlusTree.deserialize(indexChannel, indexPageBuffer);
+      // the index nodes are shared by every scan of the index, only leaves are read here
+      IndexConfigManager indexConfigManager = IndexConfigManager.getInstance();
+      bPlusTree = BPlusTree.open(indexPath, indexConfigManager.getInnerNodes(indexDefinition));
     } catch (IOException e) {
       logger.error("Error creating Index file reader: ", e);
       throw new RuntimeException(e);
@@ -158,7 +163,7 @@ public class IndexScanOperator extends PhysicalOperator {
     try {
       String tablePath = DBCatalog.getInstance().getTablePath(table.getName());
       tableChannel = new FileInputStream(tablePath).getChannel();
-      tupleReader = new BinaryTupleReader(tableChannel);
+      tupleReader = TupleReaderFactory.createTableReader(tablePath, tableChannel);
     } catch (IOException e) {
       logger.error("Error creating BinaryTupleReader: ", e);
       throw new RuntimeException(e);
@@ -166,15 +171,13 @@ public class IndexScanOperator extends PhysicalOperator {
   }
 
   private void positionReaderAtRecord() {
-    // get the page id and byte offset of the current record
-    RecordId recordId =
-        currentleafNode.getEntryAtIndex(currentEntryIndex).getRecordIdAtIndex(currentRecorIndex);
-    int pageNumber = recordId.pageNumber();
-    int byteOffset = recordId.byteOffset();
+    // get the page id and tuple number of the current record
+    int pageNumber = currentLeaf.getPageNumber(currentEntryIndex, currentRecorIndex);
+    int tupleNumber = currentLeaf.getTupleNumber(currentEntryIndex, currentRecorIndex);
 
     // read the tuple from the table
     try {
-      tupleReader.seek(pageNumber, byteOffset);
+      tupleReader.seek(pageNumber, tupleNumber);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
@@ -182,9 +185,26 @@ public class IndexScanOperator extends PhysicalOperator {
 
   @Override
   public void reset() {
+    // a scan that was closed when its consumer stopped early opens its files again
+    if (!tableChannel.isOpen()) {
+      reopen();
+    }
     selectedReset.get();
   }
 
+  private void reopen() {
+    initializeTupleReader(outputSchema.get(0).getTable());
+    initializeIndexReader(indexDefinition);
+    if (startLeafAddress == -1) {
+      return;
+    }
+    try {
+      bPlusTree.loadLeaf(indexChannel, indexPageBuffer, startLeafAddress, currentLeaf);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   private Void resetWithClusteredIndex() {
     if (startLeafAddress == -1) {
       return null;
@@ -205,7 +225,7 @@ public class IndexScanOperator extends PhysicalOperator {
       return null;
     }
     try {
-      currentleafNode = bPlusTree.loadLeafNode(indexChannel, indexPageBuffer, startLeafAddress);
+      bPlusTree.loadLeaf(indexChannel, indexPageBuffer, startLeafAddress, currentLeaf);
       currentEntryIndex = startEntryIndex;
       currentRecorIndex = 0;
       positionReaderAtRecord();
@@ -222,6 +242,22 @@ public class IndexScanOperator extends PhysicalOperator {
     return selectedGetNextTuple.get();
   }
 
+  @Override
+  public TupleBatch getNextBatch() {
+    TupleBatch batch = getBatchBuffer();
+    Tuple tuple;
+    if (isClustered) {
+      while (!batch.isFull() && (tuple = getNextTupleWithClusteredIndex()) != null) {
+        batch.add(tuple);
+      }
+    } else {
+      while (!batch.isFull() && (tuple = getNextTupleWithNonClusteredIndex()) != null) {
+        batch.add(tuple);
+      }
+    }
+    return batch.isEmpty() ? null : batch;
+  }
+
   private Tuple getNextTupleWithClusteredIndex() {
 
     if (nextTuple == null) {
@@ -276,21 +312,22 @@ public class IndexScanOperator extends PhysicalOperator {
     currentRecorIndex++;
 
     // if we run out of records in the current entry, move to the next entry & reset record index
-    RecordEntry currentEntry = currentleafNode.getEntryAtIndex(currentEntryIndex);
-    if (currentRecorIndex >= currentEntry.getNumOfRecordIds()) {
+    if (currentRecorIndex >= currentLeaf.getNumOfRecordIds(currentEntryIndex)) {
       currentEntryIndex++;
       currentRecorIndex = 0;
     }
 
     // if we run out of entries in the current leaf node, move to the next leaf node & reset entry
     // index
-    if (currentEntryIndex >= currentleafNode.getNumOfKeys()) {
-      currentleafNode = bPlusTree.getNextLeafNode(indexChannel, indexPageBuffer, currentleafNode);
+    if (currentEntryIndex >= currentLeaf.getNumOfKeys()) {
+      if (!bPlusTree.nextLeaf(indexChannel, indexPageBuffer, currentLeaf)) {
+        return false;
+      }
       currentEntryIndex = 0;
       currentRecorIndex = 0;
     }
 
-    return currentleafNode != null;
+    return true;
   }
 
   private Tuple getNextValidTuple() throws IOException {
@@ -303,10 +340,11 @@ public class IndexScanOperator extends PhysicalOperator {
       return true;
     }
 
-    int value = tuple.getElementAtIndex(attributeIndex);
+    int value = tuple.getInt(attributeIndex);
     return value <= highKey;
   }
 
+  @Override
   public void close() {
     try {
       tableChannel.close();
@@ -315,4 +353,18 @@ public class IndexScanOperator extends PhysicalOperator {
       logger.error("Error closing table channel: ", e);
     }
   }
+
+  @Override
+  protected String describe() {
+    return "IndexScan["
+        + outputSchema.get(0).getTable()
+        + " on "
+        + indexDefinition.getAttribute()
+        + (isClustered ? " clustered" : " unclustered")
+        + " from "
+        + (lowKey == null ? "start" : lowKey)
+        + " to "
+        + (highKey == null ? "end" : highKey)
+        + "]";
+  }
 }
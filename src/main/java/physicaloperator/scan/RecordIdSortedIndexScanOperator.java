@@ -0,0 +1,257 @@
+package physicaloperator.scan;
+
+import static utils.DBConstants.TABLE_PAGE_SIZE;
+
+import catalog.DBCatalog;
+import config.IndexConfigManager;
+import config.IndexDefinition;
+import index.BPlusTree;
+import index.BPlusTreeLeafNodeView;
+import io.cache.CacheFileManager;
+import io.cache.CacheFileManagerRegistry;
+import io.reader.BinaryTupleReader;
+import io.reader.TupleReaderFactory;
+import io.writer.BinaryTupleWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.Tuple;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import physicaloperator.PhysicalOperator;
+import utils.DBConstants;
+import utils.LoserTreeMerger;
+
+/**
+ * Scans the tuples of a key range through an unclustered index in the order they are stored in the
+ * relation, not in key order. The record ids of the range are collected from the leaves first and
+ * sorted by page and tuple number, so every data page with a matching tuple is read once and the
+ * pages are read in file order.
+ *
+ * <p>Record ids beyond the memory limit are sorted in runs that are spilled to cache files and
+ * merged while the tuples are read.
+ */
+public class RecordIdSortedIndexScanOperator extends PhysicalOperator {
+
+  private static final Logger logger = LogManager.getLogger(RecordIdSortedIndexScanOperator.class);
+
+  /** Number of record ids that fit in a page of memory, packed into a long each. */
+  static final int RECORD_IDS_PER_PAGE = TABLE_PAGE_SIZE / Long.BYTES;
+
+  private static final int[] RUN_KEY_INDICES = {0, 1};
+
+  private final IndexDefinition indexDefinition;
+  private final Integer lowKey;
+  private final Integer highKey;
+  private final int maxRecordIdsInMemory;
+
+  private final FileChannel tableChannel;
+  private final BinaryTupleReader tupleReader;
+
+  // the record ids in the range, sorted; the last run stays in memory if nothing was spilled
+  private boolean collected;
+  private long[] recordIds = new long[0];
+  private int recordIdCount;
+  private int recordIdIndex;
+  private CacheFileManager cacheFileManager;
+  private final List<String> runFiles = new ArrayList<>();
+  private final List<FileChannel> runChannels = new ArrayList<>();
+  private LoserTreeMerger runMerger;
+
+  /**
+   * The scan operator will return only the tuple with attribute values that are within the range of
+   * lowKey and highKey (lowKey <= value <= highKey)
+   *
+   * @param recordIdBufferPages pages of memory for the record ids before they are spilled, at least
+   *     one
+   */
+  public RecordIdSortedIndexScanOperator(
+      Table table,
+      IndexDefinition indexDefinition,
+      Integer lowKey,
+      Integer highKey,
+      int recordIdBufferPages) {
+    super(null);
+
+    this.indexDefinition = indexDefinition;
+    this.lowKey = lowKey;
+    this.highKey = highKey;
+    this.maxRecordIdsInMemory =
+        (int) Math.min((long) recordIdBufferPages * RECORD_IDS_PER_PAGE, Integer.MAX_VALUE - 8);
+
+    this.outputSchema = new ArrayList<>();
+    for (Column dbSchemaColumn : DBCatalog.getInstance().getSchemaForTable(table.getName())) {
+      this.outputSchema.add(new Column(table, dbSchemaColumn.getColumnName()));
+    }
+
+    try {
+      String tablePath = DBCatalog.getInstance().getTablePath(table.getName());
+      tableChannel = new FileInputStream(tablePath).getChannel();
+      tupleReader = TupleReaderFactory.createTableReader(tablePath, tableChannel);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void reset() {
+    if (!collected) {
+      return;
+    }
+    recordIdIndex = 0;
+    if (!runFiles.isEmpty()) {
+      openRunMerger();
+    }
+  }
+
+  @Override
+  public Tuple getNextTuple() {
+    try {
+      if (!collected) {
+        collectRecordIds();
+        collected = true;
+      }
+
+      long recordId = nextRecordId();
+      if (recordId < 0) {
+        return null;
+      }
+
+      // consecutive record ids on the same page do not reload it
+      tupleReader.seek((int) (recordId >>> 32), (int) recordId);
+      return tupleReader.getNextTuple();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * @return the next record id, page number in the high half, or -1 at the end
+   */
+  private long nextRecordId() throws IOException {
+    if (runMerger == null) {
+      return recordIdIndex < recordIdCount ? recordIds[recordIdIndex++] : -1;
+    }
+    Tuple recordId = runMerger.getNextTuple();
+    return recordId == null ? -1 : pack(recordId.getInt(0), recordId.getInt(1));
+  }
+
+  /** Walks the leaves of the range and sorts their record ids, spilling runs as needed. */
+  private void collectRecordIds() throws IOException {
+    IndexConfigManager indexConfigManager = IndexConfigManager.getInstance();
+    String indexPath = indexConfigManager.getIndexFilePath(indexDefinition);
+    try (FileChannel indexChannel = new FileInputStream(indexPath).getChannel()) {
+      ByteBuffer indexPageBuffer = ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE);
+      BPlusTree bPlusTree =
+          BPlusTree.open(indexPath, indexConfigManager.getInnerNodes(indexDefinition));
+      BPlusTreeLeafNodeView leaf = new BPlusTreeLeafNodeView();
+
+      int entryIndex;
+      if (lowKey == null) {
+        bPlusTree.getFirstLeaf(indexChannel, indexPageBuffer, leaf);
+        entryIndex = 0;
+      } else {
+        bPlusTree.findLeafByKey(indexChannel, indexPageBuffer, lowKey, leaf);
+        entryIndex = leaf.findEntryIndexByKey(lowKey);
+      }
+
+      while (true) {
+        if (entryIndex >= leaf.getNumOfKeys()) {
+          if (!bPlusTree.nextLeaf(indexChannel, indexPageBuffer, leaf)) {
+            break;
+          }
+          entryIndex = 0;
+          continue;
+        }
+        if (highKey != null && leaf.getKeyAtIndex(entryIndex) > highKey) {
+          break;
+        }
+
+        for (int i = 0; i < leaf.getNumOfRecordIds(entryIndex); i++) {
+          addRecordId(pack(leaf.getPageNumber(entryIndex, i), leaf.getTupleNumber(entryIndex, i)));
+        }
+        entryIndex++;
+      }
+    }
+
+    Arrays.sort(recordIds, 0, recordIdCount);
+    if (!runFiles.isEmpty()) {
+      spillRun();
+      recordIds = null;
+      openRunMerger();
+    }
+    logger.debug("Collected the record ids of {} in {} runs", indexPath, runFiles.size());
+  }
+
+  private void addRecordId(long recordId) throws IOException {
+    if (recordIdCount == recordIds.length) {
+      if (recordIdCount >= maxRecordIdsInMemory) {
+        Arrays.sort(recordIds, 0, recordIdCount);
+        spillRun();
+      } else {
+        long capacity = Math.max(RECORD_IDS_PER_PAGE, 2L * recordIds.length);
+        recordIds = Arrays.copyOf(recordIds, (int) Math.min(capacity, maxRecordIdsInMemory));
+      }
+    }
+    recordIds[recordIdCount++] = recordId;
+  }
+
+  /** Writes the sorted record ids in memory to a new run file and empties the memory. */
+  private void spillRun() throws IOException {
+    if (cacheFileManager == null) {
+      cacheFileManager = CacheFileManagerRegistry.getInstance().createManager();
+    }
+    String runFile = "recordIds_" + runFiles.size();
+    try (FileChannel channel = cacheFileManager.getWriteChannel(runFile);
+        BinaryTupleWriter writer = new BinaryTupleWriter(channel, 2)) {
+      for (int i = 0; i < recordIdCount; i++) {
+        writer.writeTuple(new Tuple(new int[] {(int) (recordIds[i] >>> 32), (int) recordIds[i]}));
+      }
+    }
+    runFiles.add(runFile);
+    recordIdCount = 0;
+  }
+
+  /** Opens every run from its start and merges them in one pass. */
+  private void openRunMerger() {
+    try {
+      for (FileChannel channel : runChannels) {
+        channel.close();
+      }
+      runChannels.clear();
+
+      List<LoserTreeMerger.Source> sources = new ArrayList<>();
+      for (String runFile : runFiles) {
+        FileChannel channel = cacheFileManager.getReadChannel(runFile);
+        runChannels.add(channel);
+        sources.add(new BinaryTupleReader(channel)::getNextTuple);
+      }
+      runMerger = new LoserTreeMerger(sources, RUN_KEY_INDICES);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static long pack(int pageNumber, int tupleNumber) {
+    return ((long) pageNumber << 32) | (tupleNumber & 0xFFFFFFFFL);
+  }
+
+  @Override
+  protected String describe() {
+    return "RecordIdSortedIndexScan["
+        + outputSchema.get(0).getTable()
+        + " on "
+        + indexDefinition.getAttribute()
+        + " from "
+        + (lowKey == null ? "start" : lowKey)
+        + " to "
+        + (highKey == null ? "end" : highKey)
+        + "]";
+  }
+}
@@ -2,14 +2,20 @@ package physicaloperator.scan;
 
 import catalog.DBCatalog;
 import io.reader.BinaryTupleReader;
+import io.reader.TupleReaderFactory;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.List;
 import model.Tuple;
+import model.TupleBatch;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
 import physicaloperator.PhysicalOperator;
+import utils.DBConstants;
 
 /** able to perform SELECT * FROM MyTable */
 public class ScanOperator extends PhysicalOperator {
@@ -18,8 +24,26 @@ public class ScanOperator extends PhysicalOperator {
 
   private final BinaryTupleReader tupleReader;
 
+  // the pages of the relation file this scan reads, [firstPage, endPage)
+  private final int firstPage;
+  private final int endPage;
+
   public ScanOperator(Table table) {
+    this(table, 0, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a scan over a range of the pages of a relation, so that several scans can read one
+   * relation in parallel.
+   *
+   * @param table the relation, with its alias if any
+   * @param firstPage the first page to read
+   * @param endPage the page after the last page to read
+   */
+  public ScanOperator(Table table, int firstPage, int endPage) {
     super(null);
+    this.firstPage = firstPage;
+    this.endPage = endPage;
 
     this.outputSchema = new ArrayList<>();
 
@@ -31,18 +55,47 @@ public class ScanOperator extends PhysicalOperator {
 
     // init tuple reader
     try {
-      FileChannel channel =
-          new FileInputStream(dbCatalog.getTablePath(table.getName())).getChannel();
-      tupleReader = new BinaryTupleReader(channel);
+      String tablePath = dbCatalog.getTablePath(table.getName());
+      FileChannel channel = new FileInputStream(tablePath).getChannel();
+      tupleReader = TupleReaderFactory.createTableReader(tablePath, channel);
+      if (firstPage > 0) {
+        tupleReader.seek(firstPage, 0);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Splits a relation into scans over about equal ranges of its pages.
+   *
+   * @param table the relation, with its alias if any
+   * @param maxCount the number of scans to split it into at most
+   * @return one scan per range, fewer than maxCount if the relation has fewer pages
+   */
+  public static List<ScanOperator> splitByPages(Table table, int maxCount) {
+    long pageCount;
+    try {
+      long size = Files.size(Path.of(dbCatalog.getTablePath(table.getName())));
+      pageCount = (size + DBConstants.TABLE_PAGE_SIZE - 1) / DBConstants.TABLE_PAGE_SIZE;
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
+
+    int count = (int) Math.max(1, Math.min(maxCount, pageCount));
+    List<ScanOperator> scans = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      scans.add(
+          new ScanOperator(
+              table, (int) (pageCount * i / count), (int) (pageCount * (i + 1) / count)));
+    }
+    return scans;
   }
 
   @Override
   public void reset() {
     try {
-      tupleReader.reset();
+      tupleReader.seek(firstPage, 0);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
@@ -51,9 +104,34 @@ public class ScanOperator extends PhysicalOperator {
   @Override
   public Tuple getNextTuple() {
     try {
+      // the reader is positioned on the page of the tuple it returns next
+      if (tupleReader.getCurrentPageNumber() >= endPage) {
+        return null;
+      }
       return tupleReader.getNextTuple();
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
+
+  @Override
+  public TupleBatch getNextBatch() {
+    if (endPage != Integer.MAX_VALUE) {
+      return super.getNextBatch();
+    }
+    try {
+      TupleBatch batch = getBatchBuffer();
+      return tupleReader.readBatch(batch) == 0 ? null : batch;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  protected String describe() {
+    if (endPage != Integer.MAX_VALUE) {
+      return "Scan[" + outputSchema.get(0).getTable() + " pages " + firstPage + "-" + endPage + "]";
+    }
+    return "Scan[" + outputSchema.get(0).getTable() + "]";
+  }
 }
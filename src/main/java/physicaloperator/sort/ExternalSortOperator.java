@@ -13,12 +13,18 @@ import java.io.IOException;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import model.Tuple;
+import model.TupleBatch;
 import net.sf.jsqlparser.statement.select.OrderByElement;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import physicaloperator.PhysicalOperator;
+import utils.LoserTreeMerger;
 import utils.SortTupleComparator;
 
 public class ExternalSortOperator extends PhysicalOperator {
@@ -28,6 +34,10 @@ public class ExternalSortOperator extends PhysicalOperator {
   private final int bufferPages;
   private final int initPassBufferSize;
   private final SortTupleComparator tupleComparator;
+  private final int sortThreads;
+  private final PhysicalPlanConfig.RunGenerationMethod runGenerationMethod;
+
+  private int initialRunCount;
 
   private CacheFileManager cacheFileManager;
   private BinaryTupleReader resultReader = null;
@@ -46,6 +56,8 @@ public class ExternalSortOperator extends PhysicalOperator {
         (this.bufferPages - 1) * TABLE_PAGE_SIZE / (this.outputSchema.size() * INT_SIZE);
 
     this.tupleComparator = new SortTupleComparator(this.outputSchema, orderByElements);
+    this.sortThreads = config.getSortThreads();
+    this.runGenerationMethod = config.getRunGenerationMethod();
 
     try {
       this.cacheFileManager = CacheFileManagerRegistry.getInstance().createManager();
@@ -64,16 +76,54 @@ public class ExternalSortOperator extends PhysicalOperator {
   }
 
   public String sort() {
-    List<String> runFiles = createInitialRuns();
+    if (sortThreads > 1) {
+      return parallelSort();
+    }
+
+    List<String> runFiles =
+        useReplacementSelection() ? createInitialRunsReplacementSelection() : createInitialRuns();
+    initialRunCount = runFiles.size();
 
     int passCount = 1;
     while (runFiles.size() > 1) {
-      runFiles = createMergeRuns(passCount++, runFiles);
+      runFiles = createMergeRuns(passCount++, runFiles, bufferPages - 1);
     }
 
     return runFiles.getFirst();
   }
 
+  /**
+   * Sorts with up to sortThreads threads. The child is still read on the calling thread, but runs
+   * are sorted and written by the executor while the next run is read, and the merge groups of a
+   * pass are merged concurrently.
+   */
+  private String parallelSort() {
+    ExecutorService executor = Executors.newFixedThreadPool(sortThreads);
+    try {
+      // replacement selection reads and writes on the calling thread, only the merges run in
+      // parallel
+      List<String> runFiles =
+          useReplacementSelection()
+              ? createInitialRunsReplacementSelection()
+              : createInitialRunsParallel(executor);
+      initialRunCount = runFiles.size();
+
+      int passCount = 1;
+      while (runFiles.size() > 1) {
+        runFiles = createMergeRunsParallel(passCount++, runFiles, executor);
+      }
+
+      return runFiles.getFirst();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Returns the number of runs created by the first pass. */
+  int getInitialRunCount() {
+    return initialRunCount;
+  }
+
   @Override
   public void reset() {
     try {
@@ -101,6 +151,16 @@ public class ExternalSortOperator extends PhysicalOperator {
     }
   }
 
+  @Override
+  public TupleBatch getNextBatch() {
+    try {
+      TupleBatch batch = getBatchBuffer();
+      return resultReader.readBatch(batch) == 0 ? null : batch;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   /**
    * Read from child operator and store all tuples to cache files
    *
@@ -128,100 +188,322 @@ public class ExternalSortOperator extends PhysicalOperator {
 
       // store the buffer
       String runFileName = String.format("run_0_%d.tmp", runCount);
-      try (FileChannel channel = cacheFileManager.getWriteChannel(runFileName);
-          TupleWriter writer = new BinaryTupleWriter(channel, this.outputSchema.size())) {
-        writer.writeTuples(buffer);
-      } catch (IOException e) {
-        logger.error("Error creating initial runs: ", e);
+      writeRun(runFileName, buffer);
+      runFiles.add(runFileName);
+      runCount++;
+    }
+    return runFiles;
+  }
+
+  private boolean useReplacementSelection() {
+    return runGenerationMethod == PhysicalPlanConfig.RunGenerationMethod.REPLACEMENT_SELECTION;
+  }
+
+  /**
+   * Creates the initial runs with replacement selection. The buffer is kept as a min-heap ordered
+   * by (run number, tuple). The smallest tuple is written to the current run and replaced by the
+   * next tuple of the child, which joins the current run if it is not smaller than the tuple just
+   * written and the next run otherwise. A run ends when the smallest tuple in the heap belongs to
+   * the next run.
+   *
+   * <p>Runs on random input average twice the buffer size, and sorted input yields a single run.
+   *
+   * @return tempFiles A list of created file
+   */
+  private List<String> createInitialRunsReplacementSelection() {
+    List<String> runFiles = new ArrayList<>();
+
+    // fill the heap
+    Tuple[] heapTuples = new Tuple[initPassBufferSize];
+    int[] heapRuns = new int[initPassBufferSize];
+    int heapSize = 0;
+    Tuple tuple = this.childOperator.getNextTuple();
+    while (heapSize < initPassBufferSize && tuple != null) {
+      heapTuples[heapSize++] = tuple;
+      tuple = this.childOperator.getNextTuple();
+    }
+    for (int i = heapSize / 2 - 1; i >= 0; i--) {
+      siftDown(heapTuples, heapRuns, heapSize, i);
+    }
+
+    int currentRun = -1;
+    FileChannel channel = null;
+    TupleWriter writer = null;
+    try {
+      while (heapSize > 0) {
+        Tuple smallest = heapTuples[0];
+
+        // the smallest tuple starts the next run
+        if (heapRuns[0] != currentRun) {
+          if (writer != null) {
+            writer.close();
+            channel.close();
+          }
+          currentRun = heapRuns[0];
+          String runFileName = String.format("run_0_%d.tmp", currentRun);
+          channel = cacheFileManager.getWriteChannel(runFileName);
+          writer = new BinaryTupleWriter(channel, this.outputSchema.size());
+          runFiles.add(runFileName);
+        }
+        writer.writeTuple(smallest);
+
+        // replace the smallest tuple with the next tuple of the child, or shrink the heap
+        if (tuple != null) {
+          heapTuples[0] = tuple;
+          heapRuns[0] =
+              this.tupleComparator.compare(tuple, smallest) >= 0 ? currentRun : currentRun + 1;
+          tuple = this.childOperator.getNextTuple();
+        } else {
+          heapSize--;
+          heapTuples[0] = heapTuples[heapSize];
+          heapRuns[0] = heapRuns[heapSize];
+          heapTuples[heapSize] = null;
+        }
+        siftDown(heapTuples, heapRuns, heapSize, 0);
+      }
+
+      if (writer != null) {
+        writer.close();
+        channel.close();
+      }
+    } catch (IOException e) {
+      logger.error("Error creating initial runs: ", e);
+    }
+    return runFiles;
+  }
+
+  private void siftDown(Tuple[] heapTuples, int[] heapRuns, int heapSize, int index) {
+    while (true) {
+      int smallest = index;
+      int left = 2 * index + 1;
+      int right = left + 1;
+      if (left < heapSize && heapLess(heapTuples, heapRuns, left, smallest)) {
+        smallest = left;
       }
+      if (right < heapSize && heapLess(heapTuples, heapRuns, right, smallest)) {
+        smallest = right;
+      }
+      if (smallest == index) {
+        return;
+      }
+
+      Tuple tuple = heapTuples[index];
+      heapTuples[index] = heapTuples[smallest];
+      heapTuples[smallest] = tuple;
+      int run = heapRuns[index];
+      heapRuns[index] = heapRuns[smallest];
+      heapRuns[smallest] = run;
+      index = smallest;
+    }
+  }
+
+  private boolean heapLess(Tuple[] heapTuples, int[] heapRuns, int i, int j) {
+    if (heapRuns[i] != heapRuns[j]) {
+      return heapRuns[i] < heapRuns[j];
+    }
+    return this.tupleComparator.compare(heapTuples[i], heapTuples[j]) < 0;
+  }
+
+  /**
+   * Same as createInitialRuns, but sorts and writes each run on the executor while the next run is
+   * read from the child. The B-1 pages of the first pass are split between the runs in flight.
+   */
+  private List<String> createInitialRunsParallel(ExecutorService executor) {
+    int runsInFlight = Math.min(sortThreads + 1, bufferPages - 1);
+    int runCapacity = Math.max(1, initPassBufferSize / runsInFlight);
+    Semaphore freeBuffers = new Semaphore(runsInFlight);
+
+    List<String> runFiles = new ArrayList<>();
+    List<Future<?>> pendingRuns = new ArrayList<>();
+
+    int runCount = 0;
+    Tuple tuple = this.childOperator.getNextTuple();
+    while (tuple != null) {
+      acquire(freeBuffers);
+
+      ArrayList<Tuple> buffer = new ArrayList<>(runCapacity);
+      while (buffer.size() < runCapacity && tuple != null) {
+        buffer.add(tuple);
+        tuple = this.childOperator.getNextTuple();
+      }
+
+      String runFileName = String.format("run_0_%d.tmp", runCount);
+      pendingRuns.add(
+          executor.submit(
+              () -> {
+                try {
+                  buffer.sort(this.tupleComparator);
+                  writeRun(runFileName, buffer);
+                } finally {
+                  freeBuffers.release();
+                }
+              }));
       runFiles.add(runFileName);
       runCount++;
     }
+
+    awaitAll(pendingRuns);
     return runFiles;
   }
 
-  private List<String> createMergeRuns(int passCount, List<String> runFiles) {
+  private void writeRun(String runFileName, List<Tuple> tuples) {
+    try (FileChannel channel = cacheFileManager.getWriteChannel(runFileName);
+        TupleWriter writer = new BinaryTupleWriter(channel, this.outputSchema.size())) {
+      writer.writeTuples(tuples);
+    } catch (IOException e) {
+      logger.error("Error creating initial runs: ", e);
+    }
+  }
+
+  private List<String> createMergeRuns(int passCount, List<String> runFiles, int fanIn) {
 
     List<String> newRunFiles = new ArrayList<>();
     // we have B page, B-1 pages are for the readers
     // leaving one page for the buffer
 
     int runCount = 0;
-    int nextFileIndex = 0;
-    while (nextFileIndex < runFiles.size()) {
+    for (List<String> filesToProcess : groupRuns(runFiles, fanIn)) {
+      String runFileName = String.format("run_%d_%d.tmp", passCount, runCount);
+      mergeRuns(runFileName, filesToProcess);
 
-      // determine the files to process
-      List<String> filesToProcess = new ArrayList<>();
-      for (int i = 0; i < bufferPages - 1 && nextFileIndex < runFiles.size(); i++) {
-        filesToProcess.add(runFiles.get(nextFileIndex++));
-      }
+      newRunFiles.add(runFileName);
+      runCount++;
+    }
 
-      // create the heap
-      PriorityQueue<HeapNode> minHeap = initialMergeHeap(filesToProcess);
+    return newRunFiles;
+  }
 
-      // create the new run file
-      String runFileName = String.format("run_%d_%d.tmp", passCount, runCount);
-      writeMergeRun(runFileName, minHeap);
+  /**
+   * Same as createMergeRuns, but merges several groups at a time on the executor. Each concurrent
+   * merge holds fanIn reader pages and one output page, so the fan-in shrinks with the number of
+   * concurrent merges to stay within the B pages. The final pass is a single merge with the full
+   * fan-in.
+   */
+  private List<String> createMergeRunsParallel(
+      int passCount, List<String> runFiles, ExecutorService executor) {
+    if (runFiles.size() <= bufferPages - 1) {
+      return createMergeRuns(passCount, runFiles, bufferPages - 1);
+    }
 
-      // delete the old run file
-      try {
-        for (String file : filesToProcess) {
-          cacheFileManager.deleteFile(file);
-        }
-      } catch (IOException e) {
-        throw new RuntimeException(e);
-      }
+    int concurrentMerges = Math.max(1, Math.min(sortThreads, bufferPages / 3));
+    int fanIn = bufferPages / concurrentMerges - 1;
+    Semaphore freeMerges = new Semaphore(concurrentMerges);
 
+    List<String> newRunFiles = new ArrayList<>();
+    List<Future<?>> pendingMerges = new ArrayList<>();
+
+    int runCount = 0;
+    for (List<String> filesToProcess : groupRuns(runFiles, fanIn)) {
+      acquire(freeMerges);
+
+      String runFileName = String.format("run_%d_%d.tmp", passCount, runCount);
+      pendingMerges.add(
+          executor.submit(
+              () -> {
+                try {
+                  mergeRuns(runFileName, filesToProcess);
+                } finally {
+                  freeMerges.release();
+                }
+              }));
       newRunFiles.add(runFileName);
       runCount++;
     }
 
+    awaitAll(pendingMerges);
     return newRunFiles;
   }
 
-  private void writeMergeRun(String runFileName, PriorityQueue<HeapNode> minHeap) {
+  private static List<List<String>> groupRuns(List<String> runFiles, int fanIn) {
+    List<List<String>> groups = new ArrayList<>();
+    for (int i = 0; i < runFiles.size(); i += fanIn) {
+      groups.add(runFiles.subList(i, Math.min(i + fanIn, runFiles.size())));
+    }
+    return groups;
+  }
+
+  private void mergeRuns(String runFileName, List<String> filesToProcess) {
+    // open the runs
+    List<BinaryTupleReader> readers = openRuns(filesToProcess);
+
+    // create the new run file
+    writeMergeRun(runFileName, readers);
+
+    // close and delete the old run files
+    try {
+      for (BinaryTupleReader reader : readers) {
+        reader.getFileChannel().close();
+      }
+      for (String file : filesToProcess) {
+        cacheFileManager.deleteFile(file);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void acquire(Semaphore semaphore) {
+    try {
+      semaphore.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void awaitAll(List<Future<?>> futures) {
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  private void writeMergeRun(String runFileName, List<BinaryTupleReader> readers) {
     try (FileChannel channel = cacheFileManager.getWriteChannel(runFileName);
         TupleWriter writer = new BinaryTupleWriter(channel, this.outputSchema.size())) {
 
       // writing all tuple from readers to the file
-      while (!minHeap.isEmpty()) {
-        HeapNode node = minHeap.poll();
-        writer.writeTuple(node.tuple());
-
-        // if the reader is not empty, add the reader back to the heap
-        Tuple tuple = node.reader().getNextTuple();
-        if (tuple != null) {
-          minHeap.add(new HeapNode(tuple, node.reader()));
-        } else {
-          node.reader().getFileChannel().close();
-        }
+      List<LoserTreeMerger.Source> sources = new ArrayList<>();
+      for (BinaryTupleReader reader : readers) {
+        sources.add(reader::getNextTuple);
+      }
+      LoserTreeMerger merger =
+          new LoserTreeMerger(sources, this.tupleComparator.getOrderByIndices());
+      Tuple tuple;
+      while ((tuple = merger.getNextTuple()) != null) {
+        writer.writeTuple(tuple);
       }
     } catch (IOException e) {
       logger.error("Fail creating cache file", e);
     }
   }
 
-  private PriorityQueue<HeapNode> initialMergeHeap(List<String> filesToProcess) {
-    PriorityQueue<HeapNode> minHeap =
-        new PriorityQueue<>(
-            (node1, node2) -> this.tupleComparator.compare(node1.tuple(), node2.tuple()));
+  private List<BinaryTupleReader> openRuns(List<String> filesToProcess) {
+    List<BinaryTupleReader> readers = new ArrayList<>();
     try {
       for (String file : filesToProcess) {
         FileChannel channel = cacheFileManager.getReadChannel(file);
-        BinaryTupleReader reader = new BinaryTupleReader(channel);
-        Tuple firstTuple = reader.getNextTuple();
-        if (firstTuple != null) {
-          minHeap.offer(new HeapNode(firstTuple, reader));
-        }
+        readers.add(new BinaryTupleReader(channel));
       }
     } catch (IOException e) {
       logger.error("Error creating cache file reader: ", e);
     }
-    return minHeap;
+    return readers;
+  }
+
+  @Override
+  protected String describe() {
+    return "ExternalSort[" + bufferPages + " buffer pages]";
   }
-}
 
-/**
- * @param reader Your object that contains the list of values
- */
-record HeapNode(Tuple tuple, BinaryTupleReader reader) {}
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(childOperator);
+  }
+}
@@ -3,6 +3,7 @@ package physicaloperator.sort;
 import java.util.ArrayList;
 import java.util.List;
 import model.Tuple;
+import model.TupleBatch;
 import net.sf.jsqlparser.statement.select.OrderByElement;
 import physicaloperator.PhysicalOperator;
 import utils.SortTupleComparator;
@@ -42,6 +43,15 @@ public class InMemorySortOperator extends PhysicalOperator {
     return null;
   }
 
+  @Override
+  public TupleBatch getNextBatch() {
+    TupleBatch batch = getBatchBuffer();
+    while (!batch.isFull() && this.curIndex < this.internalBuffer.size()) {
+      batch.add(this.internalBuffer.get(curIndex++));
+    }
+    return batch.isEmpty() ? null : batch;
+  }
+
   private void loadAndSortBuffer() {
     Tuple tuple;
     while ((tuple = this.childOperator.getNextTuple()) != null) {
@@ -53,4 +63,14 @@ public class InMemorySortOperator extends PhysicalOperator {
         new SortTupleComparator(this.childOperator.getOutputSchema(), this.orderByElements));
     this.curIndex = 0;
   }
+
+  @Override
+  protected String describe() {
+    return "InMemorySort" + orderByElements;
+  }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(childOperator);
+  }
 }
@@ -0,0 +1,94 @@
+package physicaloperator.sort;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import model.Tuple;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import physicaloperator.PhysicalOperator;
+import utils.SortTupleComparator;
+
+/**
+ * Returns the first n tuples of its child in sorted order, the same as a sort followed by a limit,
+ * but in one pass over the input and with only n tuples in memory.
+ *
+ * <p>The n smallest tuples seen so far are kept in a heap with the largest on top, which a new
+ * tuple replaces if it is smaller. Ties go to the tuple seen first, so the result is that of the
+ * stable {@link InMemorySortOperator}.
+ */
+public class TopNOperator extends PhysicalOperator {
+
+  private final PhysicalOperator childOperator;
+  private final List<OrderByElement> orderByElements;
+  private final int count;
+  private final Comparator<Tuple> comparator;
+
+  private Tuple[] topTuples;
+  private int curIndex;
+
+  /**
+   * @param operator the child operator
+   * @param orderByElements the sort order
+   * @param count the number of tuples to return
+   */
+  public TopNOperator(PhysicalOperator operator, List<OrderByElement> orderByElements, int count) {
+    super(operator.getOutputSchema());
+    this.childOperator = operator;
+    this.orderByElements = orderByElements;
+    this.count = count;
+    this.comparator = new SortTupleComparator(operator.getOutputSchema(), orderByElements);
+  }
+
+  @Override
+  public void reset() {
+    childOperator.reset();
+    topTuples = null;
+  }
+
+  @Override
+  public Tuple getNextTuple() {
+    if (topTuples == null) {
+      loadTopTuples();
+    }
+    return curIndex < topTuples.length ? topTuples[curIndex++] : null;
+  }
+
+  private void loadTopTuples() {
+    Comparator<Ranked> order =
+        Comparator.comparing(Ranked::tuple, comparator).thenComparingLong(Ranked::sequence);
+    PriorityQueue<Ranked> heap = new PriorityQueue<>(Math.min(count, 1024) + 1, order.reversed());
+
+    if (count > 0) {
+      long sequence = 0;
+      Tuple tuple;
+      while ((tuple = childOperator.getNextTuple()) != null) {
+        if (heap.size() < count) {
+          heap.add(new Ranked(tuple, sequence));
+        } else if (comparator.compare(tuple, heap.peek().tuple()) < 0) {
+          heap.poll();
+          heap.add(new Ranked(tuple, sequence));
+        }
+        sequence++;
+      }
+    }
+
+    topTuples = new Tuple[heap.size()];
+    for (int i = topTuples.length - 1; i >= 0; i--) {
+      topTuples[i] = heap.poll().tuple();
+    }
+    curIndex = 0;
+  }
+
+  /** A tuple with its position in the input. */
+  private record Ranked(Tuple tuple, long sequence) {}
+
+  @Override
+  protected String describe() {
+    return "TopN[" + count + "]" + orderByElements;
+  }
+
+  @Override
+  protected List<PhysicalOperator> getChildren() {
+    return List.of(childOperator);
+  }
+}
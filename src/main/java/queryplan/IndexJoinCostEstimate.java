@@ -0,0 +1,102 @@
+package queryplan;
+
+import static utils.DBConstants.TABLE_PAGE_SIZE;
+
+import catalog.ColumnStats;
+import catalog.DBCatalog;
+import catalog.TableStats;
+import config.IndexConfigManager;
+import config.IndexDefinition;
+import index.BPlusTree;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Estimated page I/Os of an index nested loop join beyond producing its outer input, ignoring the
+ * buffer pool, in the same units as the join costs of the {@link JoinOrderOptimizer}.
+ *
+ * <p>Every outer tuple looks its key up in the index, reading one node per level down to a leaf,
+ * and then reads the inner tuples with that key, tuples / V(key) of them. With a clustered index
+ * they are on consecutive pages, that fraction of the pages and at least one. With an unclustered
+ * index every match is read from its own page.
+ */
+public class IndexJoinCostEstimate {
+
+  private final double matchesPerKey;
+  private final double cost;
+
+  private IndexJoinCostEstimate(double matchesPerKey, double cost) {
+    this.matchesPerKey = matchesPerKey;
+    this.cost = cost;
+  }
+
+  /**
+   * Estimates the cost of joining an outer input with a relation through its index.
+   *
+   * @param index the index on the join column of the inner relation
+   * @param outerTuples the estimated number of tuples of the outer input
+   */
+  public static IndexJoinCostEstimate estimate(IndexDefinition index, double outerTuples) {
+    String relation = index.getRelation();
+    TableStats tableStats = DBCatalog.getInstance().getTableStats(relation);
+    ColumnStats keyStats = tableStats.getColumnStats(index.getAttribute());
+    int distinctKeys = keyStats == null ? 1 : keyStats.getDistinctValues();
+
+    String indexPath = IndexConfigManager.getInstance().getIndexFilePath(index);
+    try (FileChannel tableChannel =
+        new FileInputStream(DBCatalog.getInstance().getTablePath(relation)).getChannel()) {
+      double tablePages = Math.ceil((double) tableChannel.size() / TABLE_PAGE_SIZE);
+      BPlusTree tree =
+          BPlusTree.open(indexPath, IndexConfigManager.getInstance().getInnerNodes(index));
+
+      return estimate(
+          outerTuples,
+          tablePages,
+          tableStats.getNumTuples(),
+          distinctKeys,
+          tree.getHeight(),
+          index.isClustered());
+    } catch (IOException e) {
+      throw new RuntimeException("Error estimating index join costs of " + relation, e);
+    }
+  }
+
+  /**
+   * Estimates the cost of an index nested loop join from the sizes of the relation and the index.
+   *
+   * @param outerTuples the estimated number of tuples of the outer input
+   * @param tablePages the number of pages of the inner relation
+   * @param numTuples the number of tuples of the inner relation
+   * @param distinctKeys the number of distinct values of the join column of the inner relation
+   * @param height the number of levels of the index, counting the leaves
+   * @param clustered whether the inner relation is sorted on the key of the index
+   */
+  static IndexJoinCostEstimate estimate(
+      double outerTuples,
+      double tablePages,
+      int numTuples,
+      int distinctKeys,
+      int height,
+      boolean clustered) {
+    double matchesPerKey = (double) numTuples / Math.max(1, distinctKeys);
+    double fetchCost = matchesPerKey;
+    if (clustered && numTuples > 0) {
+      fetchCost = Math.max(1, Math.ceil(matchesPerKey / numTuples * tablePages));
+    }
+    return new IndexJoinCostEstimate(matchesPerKey, outerTuples * (height + fetchCost));
+  }
+
+  public double getMatchesPerKey() {
+    return matchesPerKey;
+  }
+
+  public double getCost() {
+    return cost;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%.1f matches per key, index join %.0f pages", matchesPerKey, cost);
+  }
+}
@@ -1,5 +1,6 @@
 package queryplan;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,7 +12,7 @@ import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.select.FromItem;
 import net.sf.jsqlparser.statement.select.Join;
-import physicaloperator.QueryConditionEvaluator;
+import physicaloperator.PredicateCompiler;
 
 /**
  * Class to process the WHERE clause of the SQL statement and separate join conditions from filter
@@ -39,6 +40,18 @@ public class JoinConditionExtractor extends ExpressionVisitorAdapter<Void> {
     }
   }
 
+  /**
+   * Constructor for tables joined in an order other than the FROM clause. Each join condition goes
+   * to the table that comes last in this order.
+   *
+   * @param tables the tables in the order they are joined
+   */
+  public JoinConditionExtractor(List<Table> tables) {
+    for (int i = 0; i < tables.size(); i++) {
+      initializeTable(tables.get(i), i);
+    }
+  }
+
   /**
    * Initializes the table's join and filter conditions.
    *
@@ -140,9 +153,8 @@ public class JoinConditionExtractor extends ExpressionVisitorAdapter<Void> {
 
       // if both are not Columns
     } else {
-      // if non is a Column, we can evaulate it now
-      QueryConditionEvaluator queryConditionEvaluator = new QueryConditionEvaluator();
-      Boolean isTrue = comparison.accept(queryConditionEvaluator, null);
+      // if non is a Column, we can evaulate it now; the compiler folds it to a constant
+      boolean isTrue = PredicateCompiler.compile(comparison, new ArrayList<>()).test(null);
       if (!isTrue) {
         this.alwaysFalseCondition = true;
       }
@@ -0,0 +1,536 @@
+package queryplan;
+
+import static utils.DBConstants.INT_SIZE;
+import static utils.DBConstants.TABLE_PAGE_SIZE;
+
+import catalog.ColumnStats;
+import catalog.TableStats;
+import config.PhysicalPlanConfig;
+import config.PhysicalPlanConfig.JoinMethod;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import logicaloperator.LogicalJoin;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.*;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Chooses the join order of a query and the method of each join with a Selinger style dynamic
+ * program over left-deep plans.
+ *
+ * <p>The number of tuples of every subset of the tables is estimated from the table statistics. The
+ * filters on a table narrow the [min, max] range of its columns, and the fraction of the tuples
+ * left in the range comes from the column's histogram, or assumes uniform values without one. An
+ * equality join of R.a and S.b divides |R| * |S| by max(V(R, a), V(S, b)), where V is the number of
+ * distinct values of a column after the filters. Other join conditions are not counted. The cost of
+ * a left-deep plan is the sum of the sizes of its intermediate results, so the base tables and the
+ * final result are not counted. Equal costs go to the plan with the smaller outer input, and then
+ * to the order of the FROM clause.
+ *
+ * <p>Once the order is fixed, each join gets the method with the fewest estimated page I/Os among
+ * the methods the configured join buffer allows. {@link #estimateFromOrder} instead keeps the FROM
+ * order and the configured method and only estimates their costs.
+ */
+public class JoinOrderOptimizer {
+  private static final Logger logger = LogManager.getLogger(JoinOrderOptimizer.class);
+
+  /** Above this number of tables the 2^n subsets are too many and the FROM order is kept. */
+  static final int MAX_TABLES = 16;
+
+  private final PhysicalPlanConfig config;
+  private final List<Table> tables;
+  private final TableEstimate[] estimates;
+  private final List<JoinPredicate> joinPredicates = new ArrayList<>();
+
+  // estimated number of tuples of the join of each subset of the tables, indexed by bitmask
+  private double[] cardinalities;
+
+  private final List<Table> joinOrder = new ArrayList<>();
+  private final List<JoinMethod> joinMethods = new ArrayList<>();
+  private final List<LogicalJoin.CostEstimate> costEstimates = new ArrayList<>();
+
+  /**
+   * @param tables the tables of the query in FROM order
+   * @param where the WHERE clause of the query, may be null
+   * @param statsLookup gives the statistics of a table by table name
+   * @param config the configuration that gives the join buffer and the sort method
+   */
+  public JoinOrderOptimizer(
+      List<Table> tables,
+      Expression where,
+      Function<String, TableStats> statsLookup,
+      PhysicalPlanConfig config) {
+    this(tables, where, statsLookup, config, true);
+  }
+
+  /**
+   * Keeps the FROM order and the configured join method, and only estimates the cost of each join,
+   * so that the planner can compare it with an index nested loop join.
+   *
+   * @param tables the tables of the query in FROM order
+   * @param where the WHERE clause of the query, may be null
+   * @param statsLookup gives the statistics of a table by table name
+   * @param config the configuration that gives the join method, the join buffer and the sort method
+   */
+  public static JoinOrderOptimizer estimateFromOrder(
+      List<Table> tables,
+      Expression where,
+      Function<String, TableStats> statsLookup,
+      PhysicalPlanConfig config) {
+    return new JoinOrderOptimizer(tables, where, statsLookup, config, false);
+  }
+
+  private JoinOrderOptimizer(
+      List<Table> tables,
+      Expression where,
+      Function<String, TableStats> statsLookup,
+      PhysicalPlanConfig config,
+      boolean optimize) {
+    this.config = config;
+    this.tables = tables;
+    this.estimates = new TableEstimate[tables.size()];
+    for (int i = 0; i < tables.size(); i++) {
+      estimates[i] = new TableEstimate(tables.get(i), statsLookup.apply(tables.get(i).getName()));
+    }
+
+    if (where != null) {
+      classifyConditions(where);
+    }
+    for (TableEstimate estimate : estimates) {
+      estimate.applyFilters();
+    }
+
+    if (tables.size() > MAX_TABLES) {
+      // the configured join method is used for every join
+      logger.info("{} tables, keeping the FROM order", tables.size());
+      joinOrder.addAll(tables);
+      for (int i = 1; i < tables.size(); i++) {
+        joinMethods.add(null);
+        costEstimates.add(null);
+      }
+      return;
+    }
+
+    estimateCardinalities();
+    if (!optimize) {
+      estimateJoinsInFromOrder();
+      return;
+    }
+    chooseJoinOrder();
+
+    logger.info("Join order: {}, join methods: {}", joinOrder, joinMethods);
+  }
+
+  /**
+   * @return the tables in the order they should be joined
+   */
+  public List<Table> getJoinOrder() {
+    return joinOrder;
+  }
+
+  /**
+   * @param position the position of the inner table in the join order, at least 1
+   * @return the method of the join of the tables before that position with the table at it, or null
+   *     if the optimizer did not choose one
+   */
+  public JoinMethod getJoinMethod(int position) {
+    return joinMethods.get(position - 1);
+  }
+
+  /**
+   * @param position the position of the inner table in the join order, at least 1
+   * @return the estimated size of the outer input and cost of the method of the join at that
+   *     position, or null above {@link #MAX_TABLES} tables
+   */
+  public LogicalJoin.CostEstimate getCostEstimate(int position) {
+    return costEstimates.get(position - 1);
+  }
+
+  /**
+   * @return the estimated number of tuples of the join of all tables, or NaN above {@link
+   *     #MAX_TABLES} tables
+   */
+  public double getEstimatedCardinality() {
+    return cardinalities == null ? Double.NaN : cardinalities[cardinalities.length - 1];
+  }
+
+  // Statistics
+
+  private void classifyConditions(Expression expression) {
+    if (expression instanceof AndExpression andExpression) {
+      classifyConditions(andExpression.getLeftExpression());
+      classifyConditions(andExpression.getRightExpression());
+      return;
+    }
+    if (!(expression instanceof ComparisonOperator comparison)) {
+      return;
+    }
+
+    Expression left = comparison.getLeftExpression();
+    Expression right = comparison.getRightExpression();
+    if (left instanceof Column leftColumn && right instanceof Column rightColumn) {
+      int leftTable = indexOf(leftColumn);
+      int rightTable = indexOf(rightColumn);
+      if (leftTable < 0 || rightTable < 0) {
+        return;
+      }
+
+      if (leftTable == rightTable) {
+        if (comparison instanceof EqualsTo) {
+          estimates[leftTable].equalColumns(leftColumn, rightColumn);
+        }
+      } else {
+        joinPredicates.add(
+            new JoinPredicate(
+                leftTable,
+                leftColumn.getColumnName(),
+                rightTable,
+                rightColumn.getColumnName(),
+                comparison instanceof EqualsTo));
+      }
+    } else if (left instanceof Column column && right instanceof LongValue value) {
+      int table = indexOf(column);
+      if (table >= 0) {
+        estimates[table].filter(column.getColumnName(), comparison, value.getValue(), false);
+      }
+    } else if (right instanceof Column column && left instanceof LongValue value) {
+      int table = indexOf(column);
+      if (table >= 0) {
+        estimates[table].filter(column.getColumnName(), comparison, value.getValue(), true);
+      }
+    }
+  }
+
+  private int indexOf(Column column) {
+    String tableKey = column.getTable().getName();
+    for (int i = 0; i < tables.size(); i++) {
+      if (estimates[i].key.equals(tableKey)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void estimateCardinalities() {
+    int subsetCount = 1 << tables.size();
+    cardinalities = new double[subsetCount];
+    for (int subset = 1; subset < subsetCount; subset++) {
+      double cardinality = 1;
+      for (int i = 0; i < tables.size(); i++) {
+        if ((subset & (1 << i)) != 0) {
+          cardinality *= estimates[i].cardinality;
+        }
+      }
+      for (JoinPredicate predicate : joinPredicates) {
+        if (predicate.equality && (subset & predicate.mask()) == predicate.mask()) {
+          cardinality /=
+              Math.max(
+                  estimates[predicate.leftTable].distinctValues(predicate.leftColumn),
+                  estimates[predicate.rightTable].distinctValues(predicate.rightColumn));
+        }
+      }
+      cardinalities[subset] = Math.max(1, cardinality);
+    }
+  }
+
+  // Join order
+
+  private void chooseJoinOrder() {
+    int tableCount = tables.size();
+    int subsetCount = 1 << tableCount;
+    double[] costs = new double[subsetCount];
+    int[] lastTables = new int[subsetCount];
+
+    for (int subset = 1; subset < subsetCount; subset++) {
+      if (Integer.bitCount(subset) == 1) {
+        lastTables[subset] = Integer.numberOfTrailingZeros(subset);
+        continue;
+      }
+
+      // the highest table goes last first, so that equal plans keep the FROM order
+      costs[subset] = Double.POSITIVE_INFINITY;
+      for (int last = tableCount - 1; last >= 0; last--) {
+        if ((subset & (1 << last)) == 0) {
+          continue;
+        }
+
+        int outer = subset & ~(1 << last);
+        double cost = costs[outer] + (Integer.bitCount(outer) > 1 ? cardinalities[outer] : 0);
+        int bestOuter = subset & ~(1 << lastTables[subset]);
+        if (cost < costs[subset]
+            || (cost == costs[subset] && cardinalities[outer] < cardinalities[bestOuter])) {
+          costs[subset] = cost;
+          lastTables[subset] = last;
+        }
+      }
+    }
+
+    int[] order = new int[tableCount];
+    int subset = subsetCount - 1;
+    for (int position = tableCount - 1; position >= 0; position--) {
+      order[position] = lastTables[subset];
+      subset &= ~(1 << order[position]);
+    }
+    for (int table : order) {
+      joinOrder.add(tables.get(table));
+    }
+    chooseJoinMethods(order);
+  }
+
+  // Join methods
+
+  private void chooseJoinMethods(int[] order) {
+    int outer = 1 << order[0];
+    for (int position = 1; position < order.length; position++) {
+      chooseJoinMethod(outer, order[position]);
+      outer |= 1 << order[position];
+    }
+  }
+
+  /**
+   * Estimates the page I/Os of each join method beyond producing the outer input, which is the same
+   * for all of them, and keeps the cheapest.
+   */
+  private void chooseJoinMethod(int outer, int inner) {
+    JoinMethod bestMethod = null;
+    double bestCost = Double.POSITIVE_INFINITY;
+    for (JoinMethod method :
+        new JoinMethod[] {JoinMethod.TNLJ, JoinMethod.BNLJ, JoinMethod.HASH, JoinMethod.SMJ}) {
+      double cost = joinCost(method, outer, inner);
+      if (cost < bestCost) {
+        bestMethod = method;
+        bestCost = cost;
+      }
+    }
+    joinMethods.add(bestMethod);
+    costEstimates.add(new LogicalJoin.CostEstimate(cardinalities[outer], bestCost));
+  }
+
+  /** Estimates the joins of the FROM order with the configured method, which stays unchosen. */
+  private void estimateJoinsInFromOrder() {
+    joinOrder.addAll(tables);
+    int outer = 1;
+    for (int inner = 1; inner < tables.size(); inner++) {
+      // where the configured method does not apply, the planner builds a block nested loop join
+      // instead of a hash join and a tuple nested loop join instead of the others
+      JoinMethod method = config.getJoinMethod();
+      double cost = joinCost(method, outer, inner);
+      if (Double.isInfinite(cost) && method == JoinMethod.HASH) {
+        cost = joinCost(JoinMethod.BNLJ, outer, inner);
+      }
+      if (Double.isInfinite(cost)) {
+        cost = joinCost(JoinMethod.TNLJ, outer, inner);
+      }
+      joinMethods.add(null);
+      costEstimates.add(new LogicalJoin.CostEstimate(cardinalities[outer], cost));
+      outer |= 1 << inner;
+    }
+  }
+
+  /**
+   * Estimates the page I/Os of a join method beyond producing the outer input. The inner input is a
+   * base table that is read again on every pass.
+   *
+   * @return the cost, or infinity if the method does not apply to the join or the join buffer
+   */
+  private double joinCost(JoinMethod method, int outer, int inner) {
+    int bufferPages = config.getJoinBufferPages();
+    TableEstimate innerEstimate = estimates[inner];
+
+    double outerTuples = cardinalities[outer];
+    int outerWidth = width(outer);
+    double outerPages = pages(outerTuples, outerWidth);
+    double innerScanPages = pages(innerEstimate.baseCardinality, innerEstimate.width);
+    double innerPages = pages(innerEstimate.cardinality, innerEstimate.width);
+
+    if (method == JoinMethod.TNLJ) {
+      return outerTuples * innerScanPages;
+    }
+    if (method == JoinMethod.BNLJ) {
+      if (bufferPages < 1) {
+        return Double.POSITIVE_INFINITY;
+      }
+      int tuplesPerBlock = Math.max(1, bufferPages * TABLE_PAGE_SIZE / (outerWidth * INT_SIZE));
+      return Math.ceil(outerTuples / tuplesPerBlock) * innerScanPages;
+    }
+    if (!isEquiJoin(outer, inner)) {
+      return Double.POSITIVE_INFINITY;
+    }
+    if (method == JoinMethod.HASH) {
+      if (bufferPages < 3) {
+        return Double.POSITIVE_INFINITY;
+      }
+      // the inner side is the build side, Grace partitioning writes and reads both inputs once
+      double cost = innerScanPages;
+      if (innerPages > bufferPages - 2) {
+        cost += 2 * (outerPages + innerPages);
+      }
+      return cost;
+    }
+    return innerScanPages + sortCost(outerPages) + sortCost(innerPages);
+  }
+
+  /** Returns whether the inner table is joined to the outer tables by equalities only. */
+  private boolean isEquiJoin(int outer, int inner) {
+    boolean joined = false;
+    for (JoinPredicate predicate : joinPredicates) {
+      int mask = predicate.mask();
+      if ((mask & (1 << inner)) != 0 && (mask & outer) != 0) {
+        if (!predicate.equality) {
+          return false;
+        }
+        joined = true;
+      }
+    }
+    return joined;
+  }
+
+  /** Page I/Os of sorting the given pages, which are written and read once per pass. */
+  private double sortCost(double pages) {
+    if (config.getSortMethod() != PhysicalPlanConfig.SortMethod.EXTERNAL) {
+      return 0;
+    }
+    int bufferPages = config.getSortBufferPages();
+    double initialRuns = Math.ceil(pages / bufferPages);
+    double mergePasses =
+        initialRuns > 1 ? Math.ceil(Math.log(initialRuns) / Math.log(bufferPages - 1)) : 0;
+    return 2 * pages * (1 + mergePasses);
+  }
+
+  private int width(int subset) {
+    int width = 0;
+    for (int i = 0; i < tables.size(); i++) {
+      if ((subset & (1 << i)) != 0) {
+        width += estimates[i].width;
+      }
+    }
+    return width;
+  }
+
+  private static double pages(double tuples, int width) {
+    return Math.ceil(tuples * width * INT_SIZE / TABLE_PAGE_SIZE);
+  }
+
+  /** A join condition between columns of two different tables. */
+  private record JoinPredicate(
+      int leftTable, String leftColumn, int rightTable, String rightColumn, boolean equality) {
+    int mask() {
+      return (1 << leftTable) | (1 << rightTable);
+    }
+  }
+
+  /** The statistics of one table of the query narrowed down by the filters on it. */
+  private static class TableEstimate {
+    private final String key;
+    private final TableStats stats;
+    private final int width;
+    private final double baseCardinality;
+
+    // the [min, max] range of each filtered column
+    private final Map<String, long[]> ranges = new HashMap<>();
+    private double selectivity = 1;
+    private double cardinality;
+
+    TableEstimate(Table table, TableStats stats) {
+      this.key = table.getAlias() != null ? table.getAlias().getName() : table.getName();
+      this.stats = stats;
+      this.width = Math.max(1, stats.getNumColumns());
+      this.baseCardinality = stats.getNumTuples();
+      this.cardinality = baseCardinality;
+    }
+
+    /**
+     * Narrows the range of a column by a comparison with a constant.
+     *
+     * @param constantFirst whether the constant is the left side of the comparison
+     */
+    void filter(String column, ComparisonOperator comparison, long value, boolean constantFirst) {
+      ColumnStats columnStats = stats.getColumnStats(column);
+      if (columnStats == null) {
+        return;
+      }
+      long[] range =
+          ranges.computeIfAbsent(
+              column, c -> new long[] {columnStats.getMinValue(), columnStats.getMaxValue()});
+
+      if (comparison instanceof EqualsTo) {
+        range[0] = Math.max(range[0], value);
+        range[1] = Math.min(range[1], value);
+      } else if (comparison instanceof NotEqualsTo) {
+        if (value >= columnStats.getMinValue() && value <= columnStats.getMaxValue()) {
+          selectivity *= 1 - columnStats.estimateEqualitySelectivity((int) value);
+        }
+      } else if (comparison instanceof MinorThan) {
+        narrow(range, value, constantFirst, 1);
+      } else if (comparison instanceof MinorThanEquals) {
+        narrow(range, value, constantFirst, 0);
+      } else if (comparison instanceof GreaterThan) {
+        narrow(range, value, !constantFirst, 1);
+      } else if (comparison instanceof GreaterThanEquals) {
+        narrow(range, value, !constantFirst, 0);
+      }
+    }
+
+    /** Bounds the column from above (column < value) or from below (column > value). */
+    private static void narrow(long[] range, long value, boolean lowerBound, int strict) {
+      if (lowerBound) {
+        range[0] = Math.max(range[0], value + strict);
+      } else {
+        range[1] = Math.min(range[1], value - strict);
+      }
+    }
+
+    /** Accounts for an equality between two columns of this table. */
+    void equalColumns(Column left, Column right) {
+      selectivity /= Math.max(baseDistinctValues(left), baseDistinctValues(right));
+    }
+
+    private double baseDistinctValues(Column column) {
+      ColumnStats columnStats = stats.getColumnStats(column.getColumnName());
+      return columnStats == null ? 1 : Math.max(1, columnStats.getDistinctValues());
+    }
+
+    void applyFilters() {
+      for (Map.Entry<String, long[]> entry : ranges.entrySet()) {
+        ColumnStats columnStats = stats.getColumnStats(entry.getKey());
+        long[] range = entry.getValue();
+
+        // the range only ever narrows from [min, max], so its ends are ints
+        if (range[0] > range[1]) {
+          selectivity = 0;
+        } else if (range[0] == range[1]) {
+          selectivity *= columnStats.estimateEqualitySelectivity((int) range[0]);
+        } else {
+          selectivity *= columnStats.estimateRangeSelectivity((int) range[0], (int) range[1]);
+        }
+      }
+      cardinality = Math.max(1, baseCardinality * selectivity);
+    }
+
+    /** The number of distinct values of a column that pass the filters on this table. */
+    double distinctValues(String column) {
+      ColumnStats columnStats = stats.getColumnStats(column);
+      if (columnStats == null) {
+        return cardinality;
+      }
+
+      double values = columnStats.getDistinctValues();
+      long[] range = ranges.get(column);
+      if (range != null) {
+        // the values that are left are spread over the remaining part of [min, max]
+        values *=
+            (double) Math.max(0, range[1] - range[0] + 1)
+                / ((long) columnStats.getMaxValue() - columnStats.getMinValue() + 1);
+      }
+      return Math.max(1, Math.min(values, cardinality));
+    }
+  }
+}
@@ -1,12 +1,18 @@
 package queryplan;
 
 import catalog.DBCatalog;
+import config.PhysicalPlanConfig;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import logicaloperator.*;
 import logicaloperator.LogicalOperator;
 import logicaloperator.LogicalScan;
+import net.sf.jsqlparser.expression.AllValue;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.NullValue;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.Statement;
@@ -24,6 +30,9 @@ public class LogicalPlanBuilder {
   private Expression where;
   private List<OrderByElement> orderByElements;
   private Distinct distinct;
+  private List<Column> groupByColumns;
+  private Long limit;
+  private long offset;
 
   public LogicalPlanBuilder() {}
 
@@ -47,15 +56,22 @@ public class LogicalPlanBuilder {
 
     } else if (joins != null) {
       // If both joins and WHERE clause exist, process joins and apply selection filtering
-      operator = applyJoins(mainTable, operator);
+      operator = applyJoins();
     }
 
+    if (useAggregation()) operator = applyAggregation(operator);
+
     if (useProjection()) operator = applyProjection(operator);
 
     if (useOrdering()) operator = applyOrdering(operator);
 
     if (useDistinct()) operator = applyDistinct(operator);
 
+    if (useLimit()) operator = new LogicalLimit(operator, limit, offset);
+
+    // only carry the columns that are used through the joins and aggregates
+    if (joins != null || useAggregation()) operator = new ProjectionPushdown().rewrite(operator);
+
     return operator;
   }
 
@@ -66,6 +82,51 @@ public class LogicalPlanBuilder {
     where = plainSelect.getWhere(); // filter conditions
     orderByElements = plainSelect.getOrderByElements(); // sort order
     distinct = plainSelect.getDistinct();
+
+    if (plainSelect.getHaving() != null) {
+      throw new IllegalArgumentException("HAVING is not supported");
+    }
+    groupByColumns = new ArrayList<>();
+    if (plainSelect.getGroupBy() != null) {
+      for (Object expression : plainSelect.getGroupBy().getGroupByExpressionList()) {
+        if (!(expression instanceof Column)) {
+          throw new IllegalArgumentException("Only columns can be grouped by: " + expression);
+        }
+        groupByColumns.add((Column) expression);
+      }
+    }
+
+    limit = null;
+    offset = 0;
+    if (plainSelect.getLimit() != null) {
+      limit = parseLimitValue(plainSelect.getLimit().getRowCount());
+      if (plainSelect.getLimit().getOffset() != null) {
+        offset =
+            Objects.requireNonNullElse(parseLimitValue(plainSelect.getLimit().getOffset()), 0L);
+      }
+    }
+    if (plainSelect.getOffset() != null) {
+      offset = Objects.requireNonNullElse(parseLimitValue(plainSelect.getOffset().getOffset()), 0L);
+    }
+  }
+
+  /**
+   * Reads the row count of a LIMIT or OFFSET clause.
+   *
+   * @return the count, or null for LIMIT ALL and LIMIT NULL
+   */
+  private static Long parseLimitValue(Expression expression) {
+    if (!(expression instanceof LongValue)) {
+      if (expression == null || expression instanceof AllValue || expression instanceof NullValue) {
+        return null;
+      }
+      throw new IllegalArgumentException("LIMIT and OFFSET take a number: " + expression);
+    }
+    long value = ((LongValue) expression).getValue();
+    if (value < 0) {
+      throw new IllegalArgumentException("LIMIT and OFFSET cannot be negative: " + value);
+    }
+    return value;
   }
 
   private boolean useProjection() {
@@ -80,6 +141,22 @@ public class LogicalPlanBuilder {
     return distinct != null;
   }
 
+  private boolean useLimit() {
+    return limit != null || offset > 0;
+  }
+
+  private boolean useAggregation() {
+    if (!groupByColumns.isEmpty()) {
+      return true;
+    }
+    for (SelectItem<?> selectItem : selectItems) {
+      if (selectItem.getExpression() instanceof Function) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private LogicalOperator applyOrdering(LogicalOperator operator) {
     // If Order by exists
     boolean useSort = useOrdering();
@@ -91,12 +168,82 @@ public class LogicalPlanBuilder {
 
   private LogicalOperator applyProjection(LogicalOperator operator) {
     // Create a project operator if not selecting all columns
-    ArrayList<Column> outputSchema = new ArrayList<>();
+    operator = new LogicalProject(operator, selectSchema());
+    return operator;
+  }
+
+  /**
+   * Apply an aggregate operator to the logical plan, computing the aggregate functions of the
+   * select items for each group. Every plain column selected has to be grouped by, and aggregates
+   * in the ORDER BY are replaced by the output columns of the same select items, so that the
+   * projection and sort above only see columns.
+   */
+  private LogicalOperator applyAggregation(LogicalOperator operator) {
+    if (!useProjection()) {
+      throw new IllegalArgumentException("SELECT * cannot be used with aggregation");
+    }
+
+    List<Function> aggregateFunctions = new ArrayList<>();
+    List<Column> aggregateColumns = new ArrayList<>();
     for (SelectItem<?> selectItem : selectItems) {
-      outputSchema.add((Column) selectItem.getExpression());
+      Expression expression = selectItem.getExpression();
+      if (expression instanceof Function) {
+        aggregateFunctions.add((Function) expression);
+        aggregateColumns.add(aggregateColumnOf(selectItem));
+      } else if (groupByColumns.stream()
+          .noneMatch(column -> ColumnUtil.compareColumns(column, (Column) expression) == 0)) {
+        throw new IllegalArgumentException(
+            "Column " + expression + " must appear in the GROUP BY clause");
+      }
     }
-    operator = new LogicalProject(operator, outputSchema);
-    return operator;
+
+    if (useOrdering()) {
+      List<OrderByElement> newOrderByElements = new ArrayList<>();
+      for (OrderByElement orderByElement : orderByElements) {
+        if (orderByElement.getExpression() instanceof Function) {
+          orderByElement = orderByElement.withExpression(findAggregateColumn(orderByElement));
+        }
+        newOrderByElements.add(orderByElement);
+      }
+      orderByElements = newOrderByElements;
+    }
+
+    return new LogicalAggregate(operator, groupByColumns, aggregateFunctions, aggregateColumns);
+  }
+
+  /** Finds the output column of the select item with the aggregate of an ORDER BY element. */
+  private Column findAggregateColumn(OrderByElement orderByElement) {
+    String function = orderByElement.getExpression().toString();
+    for (SelectItem<?> selectItem : selectItems) {
+      if (selectItem.getExpression() instanceof Function
+          && selectItem.getExpression().toString().equalsIgnoreCase(function)) {
+        return aggregateColumnOf(selectItem);
+      }
+    }
+    throw new IllegalArgumentException("ORDER BY aggregate is not selected: " + function);
+  }
+
+  /**
+   * Returns the columns of the select items, where an aggregate is the column named after its
+   * alias, or after itself if it has none.
+   */
+  private ArrayList<Column> selectSchema() {
+    ArrayList<Column> schema = new ArrayList<>();
+    for (SelectItem<?> selectItem : selectItems) {
+      if (selectItem.getExpression() instanceof Function) {
+        schema.add(aggregateColumnOf(selectItem));
+      } else {
+        schema.add((Column) selectItem.getExpression());
+      }
+    }
+    return schema;
+  }
+
+  private static Column aggregateColumnOf(SelectItem<?> selectItem) {
+    if (selectItem.getAlias() != null) {
+      return new Column(selectItem.getAlias().getName());
+    }
+    return new Column(selectItem.getExpression().toString());
   }
 
   private LogicalOperator applySimpleJoins(LogicalOperator operator) {
@@ -110,45 +257,79 @@ public class LogicalPlanBuilder {
     return operator;
   }
 
-  private LogicalOperator applyJoins(Table mainTable, LogicalOperator operator) {
-    // Process where clause
-    JoinConditionExtractor queryConditionExtractor = new JoinConditionExtractor(fromItem, joins);
-    where.accept(queryConditionExtractor, null);
-
-    // Apply filter conditions for the main table
-    Expression filterCondition = queryConditionExtractor.getFilterConditionsByTable(mainTable);
-    if (filterCondition != null) {
-      operator = new LogicalSelect(operator, filterCondition);
+  private LogicalOperator applyJoins() {
+    // Choose the join order, the FROM order unless the cost-based optimizer is enabled
+    List<Table> tables = getTables();
+    JoinOrderOptimizer optimizer = null;
+    PhysicalPlanConfig config = PhysicalPlanConfig.getInstance();
+    if (config.getJoinOrderMethod() == PhysicalPlanConfig.JoinOrderMethod.COST_BASED) {
+      optimizer =
+          new JoinOrderOptimizer(tables, where, DBCatalog.getInstance()::getTableStats, config);
+      tables = optimizer.getJoinOrder();
+    } else if (config.getScanMethod() == PhysicalPlanConfig.ScanMethod.INDEX_SCAN
+        && tables.size() > 1) {
+      // the estimated costs of the configured join method tell whether an index join is cheaper
+      optimizer =
+          JoinOrderOptimizer.estimateFromOrder(
+              tables, where, DBCatalog.getInstance()::getTableStats, config);
     }
 
+    // Comparisons implied through equalities filter more relations before the joins. The optimizer
+    // only estimates with the stated conditions, as a derived one repeats the selectivity of the
+    // comparison and the equality it comes from.
+    Expression conditions = TransitiveConditionDeriver.expand(where);
+
+    // Process where clause
+    JoinConditionExtractor queryConditionExtractor = new JoinConditionExtractor(tables);
+    conditions.accept(queryConditionExtractor, null);
+
     // Process joins and apply join conditions where appropriate
-    LogicalOperator leftOperator = operator;
-    for (Join join : joins) {
-      Table joinTable = (Table) join.getRightItem();
+    LogicalOperator operator = null;
+    for (int i = 0; i < tables.size(); i++) {
+      Table table = tables.get(i);
 
       // Create a scan operator for each table
-      operator = new LogicalScan(joinTable);
+      LogicalOperator tableOperator = new LogicalScan(table);
 
-      // Apply filter conditions for each join table
-      filterCondition = queryConditionExtractor.getFilterConditionsByTable(joinTable);
+      // Apply filter conditions for each table
+      Expression filterCondition = queryConditionExtractor.getFilterConditionsByTable(table);
       if (filterCondition != null) {
-        operator = new LogicalSelect(operator, filterCondition);
+        tableOperator = new LogicalSelect(tableOperator, filterCondition);
+      }
+
+      if (operator == null) {
+        operator = tableOperator;
+        continue;
       }
 
       // Add join conditions to the join operator
-      Expression joinCondition = queryConditionExtractor.getJoinConditionsByTable(joinTable);
-      operator = new LogicalJoin(leftOperator, operator, joinCondition);
+      Expression joinCondition = queryConditionExtractor.getJoinConditionsByTable(table);
+      operator =
+          new LogicalJoin(
+              operator,
+              tableOperator,
+              joinCondition,
+              optimizer == null ? null : optimizer.getJoinMethod(i),
+              optimizer == null ? null : optimizer.getCostEstimate(i));
+    }
 
-      leftOperator = operator;
+    // A reordered join has its columns in join order, put them back in FROM order
+    if (optimizer != null && !useProjection() && !tables.equals(getTables())) {
+      operator = new LogicalProject(operator, buildFullSchema());
     }
     return operator;
   }
 
   /**
-   * Apply distinct operator to the logical plan, which consists of a sort operator followed by a
-   * distinct operator.
+   * Apply distinct operator to the logical plan. With an ORDER BY it consists of a sort operator
+   * over the order by columns and then every other output column, followed by a distinct operator
+   * that relies on duplicates being adjacent. Without one the distinct operator is applied to the
+   * unsorted input and the physical plan chooses how to find the duplicates.
    */
   private LogicalOperator applyDistinct(LogicalOperator operator) {
+    if (!useOrdering()) {
+      return new LogicalDistinct(operator);
+    }
 
     List<OrderByElement> newOrderByElements = new ArrayList<>();
     if (useOrdering()) {
@@ -160,10 +341,7 @@ public class LogicalPlanBuilder {
     ArrayList<Column> outputSchema;
     if (useProjection()) {
       // if we are using projection, we would like to add all the columns in the select items
-      outputSchema = new ArrayList<>();
-      for (SelectItem<?> selectItem : selectItems) {
-        outputSchema.add((Column) selectItem.getExpression());
-      }
+      outputSchema = selectSchema();
     } else {
       // if we are not using projection, we would like to add all the columns in all tables
       outputSchema = buildFullSchema();
@@ -202,10 +380,8 @@ public class LogicalPlanBuilder {
     return operator;
   }
 
-  private ArrayList<Column> buildFullSchema() {
-    ArrayList<Column> projectSchema = new ArrayList<>();
-
-    // get all the tables
+  /** Returns the tables in the FROM clause, in order. */
+  private List<Table> getTables() {
     List<Table> tables = new ArrayList<>();
     tables.add((Table) fromItem);
     if (joins != null) {
@@ -213,10 +389,15 @@ public class LogicalPlanBuilder {
         tables.add((Table) join.getRightItem());
       }
     }
+    return tables;
+  }
+
+  private ArrayList<Column> buildFullSchema() {
+    ArrayList<Column> projectSchema = new ArrayList<>();
 
     // get all the columns in all tables
     DBCatalog dbCatalog = DBCatalog.getInstance();
-    for (Table table : tables) {
+    for (Table table : getTables()) {
       String tableName = table.getName();
 
       for (Column column : dbCatalog.getSchemaForTable(tableName)) {
@@ -3,43 +3,93 @@ package queryplan;
 import config.IndexConfigManager;
 import config.IndexDefinition;
 import config.PhysicalPlanConfig;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.UnaryOperator;
 import logicaloperator.*;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.select.OrderByElement;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import physicaloperator.DuplicateEliminationOperator;
+import physicaloperator.HashDuplicateEliminationOperator;
+import physicaloperator.LimitOperator;
 import physicaloperator.PhysicalOperator;
 import physicaloperator.ProjectOperator;
 import physicaloperator.SelectOperator;
+import physicaloperator.aggregate.Aggregator;
+import physicaloperator.aggregate.HashAggregateOperator;
+import physicaloperator.aggregate.SortAggregateOperator;
 import physicaloperator.join.BlockNestedLoopJoinOperator;
+import physicaloperator.join.HashJoinOperator;
+import physicaloperator.join.IndexNestedLoopJoinOperator;
 import physicaloperator.join.JoinTupleComparator;
 import physicaloperator.join.SortMergeJoinOperator;
 import physicaloperator.join.TupleNestedLoopJoinOperator;
+import physicaloperator.parallel.ExchangeOperator;
 import physicaloperator.scan.IndexConditionExtractor;
 import physicaloperator.scan.IndexScanOperator;
+import physicaloperator.scan.RecordIdSortedIndexScanOperator;
 import physicaloperator.scan.ScanOperator;
 import physicaloperator.sort.ExternalSortOperator;
 import physicaloperator.sort.InMemorySortOperator;
+import physicaloperator.sort.TopNOperator;
+import utils.ColumnUtil;
+import utils.DBConstants;
 
+/**
+ * Translates a logical plan into a physical plan, choosing the operators by the plan config.
+ *
+ * <p>With a parallelism above 1, base relations are scanned in ranges of pages and the plan above
+ * them is built as fragments, one per range, that run in their own threads. Selections and
+ * projections are applied in each fragment. Hash joins, hash aggregates and hash duplicate
+ * elimination repartition their inputs by key, so that each fragment gets all tuples of its keys.
+ * Index nested loop joins run in the fragments of their outer input. All other operators gather the
+ * fragments below them and run in one thread, as does the root of the plan. The fragments of an
+ * operator split its buffer pages between them. The inner input of a tuple or block nested loop
+ * join is rescanned for every outer tuple or block, so it is built without fragments: a gather
+ * would start the threads of its fragments again on every rescan.
+ */
 public class PhysicalPlanBuilder implements LogicalOperatorVisitor {
 
+  private static final Logger logger = LogManager.getLogger(PhysicalPlanBuilder.class);
+
+  /** Pages a hash operator needs at least, one to read its input and two to partition it. */
+  private static final int MIN_PARTITION_BUFFER_PAGES = 3;
+
   private PhysicalOperator physicalPlan;
   private final PhysicalPlanConfig config;
 
+  // the fragments of the plan visited last if it runs in parallel, physicalPlan is unused then
+  private List<PhysicalOperator> fragments;
+
+  // whether the subtree being visited is built to run in one thread, without fragments
+  private boolean serial;
+
   public PhysicalPlanBuilder() {
     this.config = PhysicalPlanConfig.getInstance();
   }
 
   // Getter for physical plan
   public PhysicalOperator getPhysicalPlan() {
+    gatherFragments();
     return physicalPlan;
   }
 
   // Visitor methods
   @Override
   public void visit(LogicalScan logicalScan) {
-    this.physicalPlan = new ScanOperator(logicalScan.getTable());
+    if (parallelism() > 1) {
+      setFragments(
+          new ArrayList<>(
+              ScanOperator.splitByPages(logicalScan.getTable(), parallelism())));
+      return;
+    }
+    setFragments(List.of(new ScanOperator(logicalScan.getTable())));
   }
 
   @Override
@@ -63,20 +113,41 @@ public class PhysicalPlanBuilder implements LogicalOperatorVisitor {
         IndexConditionExtractor conditionExtractor = new IndexConditionExtractor(index);
         condition.accept(conditionExtractor);
 
-        PhysicalOperator plan;
-
-        // if we have a valid index condition, use it
+        // if we have a valid index condition, use it when it is estimated to read fewer pages
         Integer lowerBound = conditionExtractor.getLowerBound();
         Integer upperBound = conditionExtractor.getUpperBound();
         if (lowerBound != null || upperBound != null) {
+          ScanCostEstimate costEstimate = ScanCostEstimate.estimate(index, conditionExtractor);
+          logger.debug("Scan costs of {}: {}", tableName, costEstimate);
 
-          this.physicalPlan = new IndexScanOperator(table, index, lowerBound, upperBound);
+          if (costEstimate.isIndexScanCheaper()) {
+            PhysicalOperator indexScan;
+            if (index.isClustered()) {
+              indexScan = new IndexScanOperator(table, index, lowerBound, upperBound);
+            } else {
+              // no operator depends on the order of a scan, so read the pages in file order
+              indexScan =
+                  new RecordIdSortedIndexScanOperator(
+                      table, index, lowerBound, upperBound, memoryBufferPages());
+            }
+            indexScan.setExplainNote(costEstimate.toString());
+            setFragments(List.of(indexScan));
 
-          // if we have remainder conditions, wrap the index scan in a select operator
-          Expression remainderConditions = conditionExtractor.getRemainderConditions();
-          if (remainderConditions != null) {
-            this.physicalPlan = new SelectOperator(this.physicalPlan, remainderConditions);
+            // if we have remainder conditions, wrap the index scan in a select operator
+            Expression remainderConditions = conditionExtractor.getRemainderConditions();
+            if (remainderConditions != null) {
+              this.physicalPlan = new SelectOperator(this.physicalPlan, remainderConditions);
+            }
+            return;
           }
+
+          // the range is too wide for the index to pay off, fall back to a regular scan
+          logicalScan.accept(this);
+          applyToPlan(
+              scan -> {
+                scan.setExplainNote(costEstimate.toString());
+                return new SelectOperator(scan, condition);
+              });
           return;
         }
         // if we have no valid index condition, fall back to a regular scan
@@ -86,22 +157,69 @@ public class PhysicalPlanBuilder implements LogicalOperatorVisitor {
     // if we are not using index scan, fall back to a regular scan
 
     logicalSelect.getChildOperator().accept(this);
-    this.physicalPlan = new SelectOperator(this.physicalPlan, condition);
+    applyToPlan(child -> new SelectOperator(child, condition));
   }
 
   @Override
   public void visit(LogicalJoin logicalJoin) {
-    logicalJoin.getLeftChild().accept(this);
-    PhysicalOperator leftChild = this.physicalPlan;
-    logicalJoin.getRightChild().accept(this);
-    PhysicalOperator rightChild = this.physicalPlan;
+    List<PhysicalOperator> leftFragments = buildFragments(logicalJoin.getLeftChild());
 
-    if (config.getJoinMethod() == PhysicalPlanConfig.JoinMethod.BNLJ) {
+    // an index on the inner join column saves rescanning the inner relation if probing it is
+    // estimated to be cheaper than the other join method, each fragment of the outer relation
+    // probes the index on its own
+    if (config.getScanMethod() == PhysicalPlanConfig.ScanMethod.INDEX_SCAN
+        && isIndexJoinCheaper(logicalJoin)) {
+      int joinBufferPages = Math.max(1, config.getJoinBufferPages() / leftFragments.size());
+      List<PhysicalOperator> indexJoins = new ArrayList<>();
+      for (PhysicalOperator outer : leftFragments) {
+        PhysicalOperator indexJoin =
+            buildIndexNestedLoopJoin(
+                outer, logicalJoin.getRightChild(), logicalJoin.getCondition(), joinBufferPages);
+        if (indexJoin == null) {
+          break;
+        }
+        indexJoins.add(indexJoin);
+      }
+      if (indexJoins.size() == leftFragments.size()) {
+        setFragments(indexJoins);
+        return;
+      }
+    }
+
+    // the optimizer may have chosen the method of this join
+    PhysicalPlanConfig.JoinMethod joinMethod = logicalJoin.getJoinMethod();
+    if (joinMethod == null) {
+      joinMethod = config.getJoinMethod();
+    }
+
+    PhysicalOperator leftChild;
+    PhysicalOperator rightChild;
+    if (isNestedLoopJoin(joinMethod, logicalJoin.getCondition())) {
+      leftChild = gather(leftFragments);
+      rightChild = buildWithoutFragments(logicalJoin.getRightChild());
+    } else if (joinMethod == PhysicalPlanConfig.JoinMethod.HASH && parallelism() > 1) {
+      List<PhysicalOperator> rightFragments = buildFragments(logicalJoin.getRightChild());
+      List<PhysicalOperator> hashJoins =
+          buildParallelHashJoin(leftFragments, rightFragments, logicalJoin.getCondition());
+      if (hashJoins != null) {
+        setFragments(hashJoins);
+        return;
+      }
+      leftChild = gather(leftFragments);
+      rightChild = gather(rightFragments);
+    } else {
+      leftChild = gather(leftFragments);
+      rightChild = buildSerial(logicalJoin.getRightChild());
+    }
+
+    if (joinMethod == PhysicalPlanConfig.JoinMethod.BNLJ) {
       this.physicalPlan =
           new BlockNestedLoopJoinOperator(
               leftChild, rightChild, logicalJoin.getCondition(), config.getJoinBufferPages());
-    } else if (config.getJoinMethod() == PhysicalPlanConfig.JoinMethod.SMJ) {
+    } else if (joinMethod == PhysicalPlanConfig.JoinMethod.SMJ) {
       this.physicalPlan = buildSMJ(leftChild, rightChild, logicalJoin.getCondition());
+    } else if (joinMethod == PhysicalPlanConfig.JoinMethod.HASH) {
+      this.physicalPlan = buildHashJoin(leftChild, rightChild, logicalJoin.getCondition());
     } else {
       this.physicalPlan =
           new TupleNestedLoopJoinOperator(leftChild, rightChild, logicalJoin.getCondition());
@@ -110,28 +228,262 @@ public class PhysicalPlanBuilder implements LogicalOperatorVisitor {
 
   @Override
   public void visit(LogicalSort logicalSort) {
-    logicalSort.getChildOperator().accept(this);
-    PhysicalOperator child = this.physicalPlan;
+    PhysicalOperator child = buildSerial(logicalSort.getChildOperator());
+    this.physicalPlan = buildSort(child, logicalSort.getOrderByElements());
+  }
 
-    if (config.getSortMethod() == PhysicalPlanConfig.SortMethod.EXTERNAL) {
-      this.physicalPlan =
-          new ExternalSortOperator(
-              child, logicalSort.getOrderByElements(), config.getSortBufferPages());
+  @Override
+  public void visit(LogicalDistinct logicalDistinct) {
+    LogicalOperator logicalChild = logicalDistinct.getChildOperator();
+
+    // duplicates are equal in all columns, so partitioning by all of them keeps them together
+    if (!(logicalChild instanceof LogicalSort)
+        && config.getDistinctMethod() == PhysicalPlanConfig.DistinctMethod.HASH
+        && parallelism() > 1) {
+      List<PhysicalOperator> inputs = buildFragments(logicalChild);
+      int[] allIndices = new int[inputs.get(0).getOutputSchema().size()];
+      for (int i = 0; i < allIndices.length; i++) {
+        allIndices[i] = i;
+      }
+      List<PhysicalOperator> distincts = new ArrayList<>();
+      for (PhysicalOperator partition :
+          ExchangeOperator.repartition(inputs, allIndices, parallelism())) {
+        distincts.add(
+            new HashDuplicateEliminationOperator(
+                partition, pagesPerPartition(memoryBufferPages())));
+      }
+      setFragments(distincts);
+      return;
+    }
+
+    PhysicalOperator child = buildSerial(logicalChild);
+
+    // a sort below the distinct comes from an ORDER BY, which also puts duplicates next to each
+    // other
+    if (logicalChild instanceof LogicalSort) {
+      this.physicalPlan = new DuplicateEliminationOperator(child);
+    } else if (config.getDistinctMethod() == PhysicalPlanConfig.DistinctMethod.HASH) {
+      this.physicalPlan = new HashDuplicateEliminationOperator(child, memoryBufferPages());
     } else {
-      this.physicalPlan = new InMemorySortOperator(child, logicalSort.getOrderByElements());
+      List<OrderByElement> orderByElements = new ArrayList<>();
+      for (Column column : child.getOutputSchema()) {
+        OrderByElement orderByElement = new OrderByElement();
+        orderByElement.setExpression(column);
+        orderByElements.add(orderByElement);
+      }
+      this.physicalPlan = new DuplicateEliminationOperator(buildSort(child, orderByElements));
     }
   }
 
-  @Override
-  public void visit(LogicalDistinct logicalDistinct) {
-    logicalDistinct.getChildOperator().accept(this);
-    this.physicalPlan = new DuplicateEliminationOperator(this.physicalPlan);
+  private PhysicalOperator buildSort(PhysicalOperator child, List<OrderByElement> orderByElements) {
+    if (config.getSortMethod() == PhysicalPlanConfig.SortMethod.EXTERNAL) {
+      return new ExternalSortOperator(child, orderByElements, config.getSortBufferPages());
+    }
+    return new InMemorySortOperator(child, orderByElements);
   }
 
   @Override
   public void visit(LogicalProject logicalProject) {
     logicalProject.getChildOperator().accept(this);
-    this.physicalPlan = new ProjectOperator(this.physicalPlan, logicalProject.getOutputSchema());
+    applyToPlan(child -> new ProjectOperator(child, logicalProject.getOutputSchema()));
+  }
+
+  @Override
+  public void visit(LogicalAggregate logicalAggregate) {
+    List<Column> groupByColumns = logicalAggregate.getGroupByColumns();
+
+    // each group is aggregated in the fragment that its group by values are partitioned to
+    if (!groupByColumns.isEmpty()
+        && config.getAggregateMethod() == PhysicalPlanConfig.AggregateMethod.HASH
+        && parallelism() > 1) {
+      List<PhysicalOperator> inputs = buildFragments(logicalAggregate.getChildOperator());
+      int[] groupByIndices = Aggregator.indicesOf(inputs.get(0).getOutputSchema(), groupByColumns);
+      List<PhysicalOperator> aggregates = new ArrayList<>();
+      for (PhysicalOperator partition :
+          ExchangeOperator.repartition(inputs, groupByIndices, parallelism())) {
+        aggregates.add(
+            new HashAggregateOperator(
+                partition,
+                groupByColumns,
+                logicalAggregate.getAggregateFunctions(),
+                logicalAggregate.getAggregateColumns(),
+                pagesPerPartition(memoryBufferPages())));
+      }
+      setFragments(aggregates);
+      return;
+    }
+
+    PhysicalOperator child = buildSerial(logicalAggregate.getChildOperator());
+
+    // without group by columns there is one group, which needs neither a table nor a sort
+    if (groupByColumns.isEmpty()) {
+      this.physicalPlan =
+          new SortAggregateOperator(
+              child,
+              groupByColumns,
+              logicalAggregate.getAggregateFunctions(),
+              logicalAggregate.getAggregateColumns());
+    } else if (config.getAggregateMethod() == PhysicalPlanConfig.AggregateMethod.HASH) {
+      this.physicalPlan =
+          new HashAggregateOperator(
+              child,
+              groupByColumns,
+              logicalAggregate.getAggregateFunctions(),
+              logicalAggregate.getAggregateColumns(),
+              memoryBufferPages());
+    } else {
+      List<OrderByElement> orderByElements = new ArrayList<>();
+      for (Column column : groupByColumns) {
+        OrderByElement orderByElement = new OrderByElement();
+        orderByElement.setExpression(column);
+        orderByElements.add(orderByElement);
+      }
+      this.physicalPlan =
+          new SortAggregateOperator(
+              buildSort(child, orderByElements),
+              groupByColumns,
+              logicalAggregate.getAggregateFunctions(),
+              logicalAggregate.getAggregateColumns());
+    }
+  }
+
+  @Override
+  public void visit(LogicalLimit logicalLimit) {
+    LogicalOperator logicalChild = logicalLimit.getChildOperator();
+    long limit = logicalLimit.getLimit() == null ? Long.MAX_VALUE : logicalLimit.getLimit();
+    long offset = logicalLimit.getOffset();
+
+    if (logicalChild instanceof LogicalSort && logicalLimit.getLimit() != null) {
+      LogicalSort logicalSort = (LogicalSort) logicalChild;
+      PhysicalOperator child = buildSerial(logicalSort.getChildOperator());
+
+      // only the first offset + limit tuples of the sort are needed, if they fit in memory they
+      // are picked in one pass without sorting the rest
+      long count = limit > Long.MAX_VALUE - offset ? Long.MAX_VALUE : offset + limit;
+      long bytes = count * child.getOutputSchema().size() * DBConstants.INT_SIZE;
+      if (count <= Integer.MAX_VALUE - 8
+          && bytes <= (long) memoryBufferPages() * DBConstants.TABLE_PAGE_SIZE) {
+        this.physicalPlan = new TopNOperator(child, logicalSort.getOrderByElements(), (int) count);
+        if (offset > 0) {
+          this.physicalPlan = new LimitOperator(this.physicalPlan, limit, offset);
+        }
+        return;
+      }
+      this.physicalPlan = buildSort(child, logicalSort.getOrderByElements());
+    } else {
+      buildSerial(logicalChild);
+    }
+    this.physicalPlan = new LimitOperator(this.physicalPlan, limit, offset);
+  }
+
+  /**
+   * Builds the plan of a subtree to run in one thread, gathering its fragments if it runs in
+   * parallel.
+   */
+  private PhysicalOperator buildSerial(LogicalOperator operator) {
+    operator.accept(this);
+    gatherFragments();
+    return physicalPlan;
+  }
+
+  /** Builds the plan of a subtree to run in one thread, with all of its operators in it. */
+  private PhysicalOperator buildWithoutFragments(LogicalOperator operator) {
+    boolean wasSerial = serial;
+    serial = true;
+    try {
+      return buildSerial(operator);
+    } finally {
+      serial = wasSerial;
+    }
+  }
+
+  /** The number of fragments to build the subtree being visited as. */
+  private int parallelism() {
+    return serial ? 1 : config.getParallelism();
+  }
+
+  /**
+   * Returns whether a join of the method is built as a tuple or block nested loop join, which the
+   * hash and sort merge joins fall back to unless the condition only equates columns.
+   */
+  private static boolean isNestedLoopJoin(
+      PhysicalPlanConfig.JoinMethod joinMethod, Expression joinCondition) {
+    if (joinMethod == PhysicalPlanConfig.JoinMethod.TNLJ
+        || joinMethod == PhysicalPlanConfig.JoinMethod.BNLJ) {
+      return true;
+    }
+    return joinCondition == null || !isEquiJoinCondition(joinCondition);
+  }
+
+  private static boolean isEquiJoinCondition(Expression condition) {
+    if (condition instanceof AndExpression) {
+      AndExpression and = (AndExpression) condition;
+      return isEquiJoinCondition(and.getLeftExpression())
+          && isEquiJoinCondition(and.getRightExpression());
+    }
+    return condition instanceof EqualsTo;
+  }
+
+  /**
+   * Builds the plan of a subtree as fragments that run in parallel.
+   *
+   * @return the fragments, a single one if the subtree runs in one thread
+   */
+  private List<PhysicalOperator> buildFragments(LogicalOperator operator) {
+    operator.accept(this);
+    List<PhysicalOperator> built = fragments == null ? List.of(physicalPlan) : fragments;
+    fragments = null;
+    return built;
+  }
+
+  /** Makes fragments the plan visited last, or the one fragment itself the physical plan. */
+  private void setFragments(List<PhysicalOperator> fragments) {
+    if (fragments.size() == 1) {
+      this.physicalPlan = fragments.get(0);
+      this.fragments = null;
+    } else {
+      this.physicalPlan = null;
+      this.fragments = fragments;
+    }
+  }
+
+  private void gatherFragments() {
+    if (fragments != null) {
+      physicalPlan = gather(fragments);
+      fragments = null;
+    }
+  }
+
+  private static PhysicalOperator gather(List<PhysicalOperator> fragments) {
+    return fragments.size() == 1 ? fragments.get(0) : ExchangeOperator.gather(fragments);
+  }
+
+  /** Puts an operator over the plan visited last, or over each of its fragments. */
+  private void applyToPlan(UnaryOperator<PhysicalOperator> operator) {
+    if (fragments == null) {
+      physicalPlan = operator.apply(physicalPlan);
+    } else {
+      fragments.replaceAll(operator);
+    }
+  }
+
+  /**
+   * Pages of memory for operators that sort or hash their input internally, as much as a sort of
+   * the configured method gets
+   */
+  private int memoryBufferPages() {
+    if (config.getSortMethod() == PhysicalPlanConfig.SortMethod.EXTERNAL) {
+      return config.getSortBufferPages();
+    }
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * Splits pages of memory between the partitions of an operator that runs in parallel, so that the
+   * partitions together stay within the configured pages.
+   */
+  private int pagesPerPartition(int bufferPages) {
+    return Math.max(MIN_PARTITION_BUFFER_PAGES, bufferPages / parallelism());
   }
 
   /** Helper method to build a SortMergeJoin operator */
@@ -179,4 +531,217 @@ public class PhysicalPlanBuilder implements LogicalOperatorVisitor {
 
     return new SortMergeJoinOperator(leftSort, rightSort, joinTupleComparator);
   }
+
+  /** Helper method to build a HashJoin operator */
+  private PhysicalOperator buildHashJoin(
+      PhysicalOperator leftChild, PhysicalOperator rightChild, Expression joinCondition) {
+
+    // If join condition is null, fall back to BNLJ
+    if (joinCondition == null) {
+      return new BlockNestedLoopJoinOperator(
+          leftChild, rightChild, null, config.getJoinBufferPages());
+    }
+
+    // The equality conditions give the hash keys of both children
+    SMJConditionExtractor conditionExtractor = new SMJConditionExtractor(leftChild, rightChild);
+    joinCondition.accept(conditionExtractor);
+
+    // If the join condition is not an equi-join, fall back to BNLJ
+    if (!conditionExtractor.isValidSortMergeJoin()) {
+      return new BlockNestedLoopJoinOperator(
+          leftChild, rightChild, joinCondition, config.getJoinBufferPages());
+    }
+
+    JoinTupleComparator keyComparator =
+        new JoinTupleComparator(
+            leftChild.getOutputSchema(),
+            conditionExtractor.getLeftChildSortOrder(),
+            rightChild.getOutputSchema(),
+            conditionExtractor.getRightChildSortOrder());
+
+    return new HashJoinOperator(leftChild, rightChild, keyComparator, config.getJoinBufferPages());
+  }
+
+  /**
+   * Helper method to build a HashJoin operator for each partition of the join keys, over the
+   * repartitioned fragments of both inputs.
+   *
+   * @return the joins, or null if the condition is not an equi-join
+   */
+  private List<PhysicalOperator> buildParallelHashJoin(
+      List<PhysicalOperator> leftFragments,
+      List<PhysicalOperator> rightFragments,
+      Expression joinCondition) {
+    if (joinCondition == null) {
+      return null;
+    }
+
+    SMJConditionExtractor conditionExtractor =
+        new SMJConditionExtractor(leftFragments.get(0), rightFragments.get(0));
+    joinCondition.accept(conditionExtractor);
+    if (!conditionExtractor.isValidSortMergeJoin()) {
+      return null;
+    }
+
+    JoinTupleComparator keyComparator =
+        new JoinTupleComparator(
+            leftFragments.get(0).getOutputSchema(),
+            conditionExtractor.getLeftChildSortOrder(),
+            rightFragments.get(0).getOutputSchema(),
+            conditionExtractor.getRightChildSortOrder());
+
+    int partitionCount = parallelism();
+    int joinBufferPages = pagesPerPartition(config.getJoinBufferPages());
+    List<ExchangeOperator> leftPartitions =
+        ExchangeOperator.repartition(
+            leftFragments, keyComparator.getLeftKeyIndices(), partitionCount);
+    List<ExchangeOperator> rightPartitions =
+        ExchangeOperator.repartition(
+            rightFragments, keyComparator.getRightKeyIndices(), partitionCount);
+    List<PhysicalOperator> joins = new ArrayList<>();
+    for (int i = 0; i < partitionCount; i++) {
+      joins.add(
+          new HashJoinOperator(
+              leftPartitions.get(i), rightPartitions.get(i), keyComparator, joinBufferPages));
+    }
+    return joins;
+  }
+
+  /**
+   * Returns whether an index nested loop join is estimated to read fewer pages than the join method
+   * the optimizer chose or the configured one, false if the inner relation has no index. A join
+   * that was not estimated, as in a query of too many tables, uses the index whenever it can.
+   */
+  private boolean isIndexJoinCheaper(LogicalJoin logicalJoin) {
+    LogicalJoin.CostEstimate costEstimate = logicalJoin.getCostEstimate();
+    if (costEstimate == null) {
+      return true;
+    }
+
+    LogicalOperator inner = logicalJoin.getRightChild();
+    if (inner instanceof LogicalProject) {
+      inner = ((LogicalProject) inner).getChildOperator();
+    }
+    if (inner instanceof LogicalSelect) {
+      inner = ((LogicalSelect) inner).getChildOperator();
+    }
+    if (!(inner instanceof LogicalScan)) {
+      return false;
+    }
+    Table innerTable = ((LogicalScan) inner).getTable();
+    IndexDefinition index =
+        IndexConfigManager.getInstance().getIndexForRelation(innerTable.getName());
+    if (index == null) {
+      return false;
+    }
+
+    IndexJoinCostEstimate indexJoinEstimate =
+        IndexJoinCostEstimate.estimate(index, costEstimate.outerTuples());
+    logger.debug(
+        "Join with {}: {}, {} {} pages",
+        innerTable,
+        indexJoinEstimate,
+        logicalJoin.getJoinMethod() == null ? config.getJoinMethod() : logicalJoin.getJoinMethod(),
+        Math.round(costEstimate.cost()));
+    return indexJoinEstimate.getCost() < costEstimate.cost();
+  }
+
+  /**
+   * Helper method to build an IndexNestedLoopJoin operator, if the inner child is a base relation,
+   * maybe under a selection and a projection, with an index on a column that the join condition
+   * equates with a column of the outer child.
+   *
+   * @param joinBufferPages pages of memory for the inner tuples of the keys of an outer batch
+   * @return the join, or null if the index cannot be used
+   */
+  private PhysicalOperator buildIndexNestedLoopJoin(
+      PhysicalOperator leftChild,
+      LogicalOperator rightChild,
+      Expression joinCondition,
+      int joinBufferPages) {
+    if (joinCondition == null) {
+      return null;
+    }
+
+    // the projection of the inner relation is applied to the joined tuples instead
+    ArrayList<Column> innerProjection = null;
+    if (rightChild instanceof LogicalProject) {
+      innerProjection = ((LogicalProject) rightChild).getOutputSchema();
+      rightChild = ((LogicalProject) rightChild).getChildOperator();
+    }
+
+    // the selection on the inner relation is tested along with the join condition
+    Expression innerCondition = null;
+    if (rightChild instanceof LogicalSelect) {
+      innerCondition = ((LogicalSelect) rightChild).getCondition();
+      rightChild = ((LogicalSelect) rightChild).getChildOperator();
+    }
+    if (!(rightChild instanceof LogicalScan)) {
+      return null;
+    }
+
+    Table innerTable = ((LogicalScan) rightChild).getTable();
+    IndexDefinition index =
+        IndexConfigManager.getInstance().getIndexForRelation(innerTable.getName());
+    if (index == null) {
+      return null;
+    }
+
+    Column innerKey = new Column(innerTable, index.getAttribute());
+    int outerKeyIndex = findEquatedColumn(joinCondition, innerKey, leftChild.getOutputSchema());
+    if (outerKeyIndex < 0) {
+      return null;
+    }
+
+    Expression condition =
+        innerCondition == null ? joinCondition : new AndExpression(joinCondition, innerCondition);
+    PhysicalOperator indexJoin =
+        new IndexNestedLoopJoinOperator(
+            leftChild, innerTable, index, outerKeyIndex, condition, joinBufferPages);
+    if (innerProjection != null) {
+      ArrayList<Column> outputSchema = new ArrayList<>(leftChild.getOutputSchema());
+      outputSchema.addAll(innerProjection);
+      indexJoin = new ProjectOperator(indexJoin, outputSchema);
+    }
+    return indexJoin;
+  }
+
+  /**
+   * Finds a conjunct of the condition that equates a column with one of the schema.
+   *
+   * @return the position in the schema of the column equated with the given column, or -1
+   */
+  private static int findEquatedColumn(Expression condition, Column column, List<Column> schema) {
+    if (condition instanceof AndExpression) {
+      AndExpression and = (AndExpression) condition;
+      int index = findEquatedColumn(and.getLeftExpression(), column, schema);
+      return index >= 0 ? index : findEquatedColumn(and.getRightExpression(), column, schema);
+    }
+    if (!(condition instanceof EqualsTo)) {
+      return -1;
+    }
+
+    EqualsTo equalsTo = (EqualsTo) condition;
+    if (!(equalsTo.getLeftExpression() instanceof Column)
+        || !(equalsTo.getRightExpression() instanceof Column)) {
+      return -1;
+    }
+    Column left = (Column) equalsTo.getLeftExpression();
+    Column right = (Column) equalsTo.getRightExpression();
+    Column other;
+    if (ColumnUtil.compareColumns(left, column) == 0) {
+      other = right;
+    } else if (ColumnUtil.compareColumns(right, column) == 0) {
+      other = left;
+    } else {
+      return -1;
+    }
+
+    for (int i = 0; i < schema.size(); i++) {
+      if (ColumnUtil.compareColumns(schema.get(i), other) == 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
 }
@@ -0,0 +1,195 @@
+package queryplan;
+
+import catalog.DBCatalog;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import logicaloperator.*;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+
+/**
+ * Rewrites a logical plan so that the inputs of joins and aggregates only carry the columns used
+ * above them. Without it the projection of the query is applied last, and every intermediate join
+ * tuple, sort run, join block and hash partition holds all columns of every table.
+ *
+ * <p>The columns needed above each operator are passed down the plan. A projection needs its own
+ * columns, a selection or join adds the columns of its condition, a sort its order by columns and
+ * an aggregate its group by and argument columns. A duplicate elimination needs all columns of its
+ * input, as dropping one would change which tuples are equal. Each input of a join or aggregate
+ * that has columns nothing needs gets a projection over it.
+ */
+public class ProjectionPushdown implements LogicalOperatorVisitor {
+
+  // the columns needed above the operator being visited, by fully qualified name, null for all
+  private Set<String> requiredColumns;
+
+  // the rewritten operator and its output schema
+  private LogicalOperator rewritten;
+  private ArrayList<Column> schema;
+
+  /**
+   * Rewrites a plan, keeping all of its output columns.
+   *
+   * @param plan the logical plan
+   * @return the plan with projections pushed down
+   */
+  public LogicalOperator rewrite(LogicalOperator plan) {
+    rewrite(plan, null);
+    return rewritten;
+  }
+
+  private void rewrite(LogicalOperator operator, Set<String> required) {
+    this.requiredColumns = required;
+    operator.accept(this);
+  }
+
+  /** Rewrites the input of a join or aggregate, dropping the columns that are not required. */
+  private void rewriteInput(LogicalOperator operator, Set<String> required) {
+    rewrite(operator, required);
+
+    ArrayList<Column> kept = new ArrayList<>();
+    for (Column column : schema) {
+      if (required.contains(column.getFullyQualifiedName(true))) {
+        kept.add(column);
+      }
+    }
+    // an input whose columns are all unused still has to count its tuples
+    if (kept.isEmpty()) {
+      kept.add(schema.getFirst());
+    }
+    if (kept.size() < schema.size()) {
+      rewritten = new LogicalProject(rewritten, kept);
+      schema = kept;
+    }
+  }
+
+  @Override
+  public void visit(LogicalScan logicalScan) {
+    schema = new ArrayList<>();
+    for (Column column :
+        DBCatalog.getInstance().getSchemaForTable(logicalScan.getTable().getName())) {
+      schema.add(new Column(logicalScan.getTable(), column.getColumnName()));
+    }
+    rewritten = logicalScan;
+  }
+
+  @Override
+  public void visit(LogicalSelect logicalSelect) {
+    rewrite(
+        logicalSelect.getChildOperator(),
+        withColumnsOf(requiredColumns, logicalSelect.getCondition()));
+    rewritten = new LogicalSelect(rewritten, logicalSelect.getCondition());
+  }
+
+  @Override
+  public void visit(LogicalJoin logicalJoin) {
+    Set<String> required = withColumnsOf(requiredColumns, logicalJoin.getCondition());
+    if (required == null) {
+      // every column is needed, so the inputs are left as they are
+      rewrite(logicalJoin.getLeftChild(), null);
+    } else {
+      rewriteInput(logicalJoin.getLeftChild(), required);
+    }
+    LogicalOperator left = rewritten;
+    ArrayList<Column> leftSchema = schema;
+
+    if (required == null) {
+      rewrite(logicalJoin.getRightChild(), null);
+    } else {
+      rewriteInput(logicalJoin.getRightChild(), required);
+    }
+    rewritten =
+        new LogicalJoin(
+            left,
+            rewritten,
+            logicalJoin.getCondition(),
+            logicalJoin.getJoinMethod(),
+            logicalJoin.getCostEstimate());
+    ArrayList<Column> joinSchema = new ArrayList<>(leftSchema);
+    joinSchema.addAll(schema);
+    schema = joinSchema;
+  }
+
+  @Override
+  public void visit(LogicalSort logicalSort) {
+    Set<String> required = requiredColumns;
+    if (required != null) {
+      required = new HashSet<>(required);
+      for (OrderByElement orderByElement : logicalSort.getOrderByElements()) {
+        required.add(((Column) orderByElement.getExpression()).getFullyQualifiedName(true));
+      }
+    }
+    rewrite(logicalSort.getChildOperator(), required);
+    rewritten = new LogicalSort(rewritten, logicalSort.getOrderByElements());
+  }
+
+  @Override
+  public void visit(LogicalDistinct logicalDistinct) {
+    rewrite(logicalDistinct.getChildOperator(), null);
+    rewritten = new LogicalDistinct(rewritten);
+  }
+
+  @Override
+  public void visit(LogicalProject logicalProject) {
+    Set<String> required = new HashSet<>();
+    for (Column column : logicalProject.getOutputSchema()) {
+      required.add(column.getFullyQualifiedName(true));
+    }
+    rewrite(logicalProject.getChildOperator(), required);
+    rewritten = new LogicalProject(rewritten, logicalProject.getOutputSchema());
+    schema = new ArrayList<>(logicalProject.getOutputSchema());
+  }
+
+  @Override
+  public void visit(LogicalAggregate logicalAggregate) {
+    Set<String> required = new HashSet<>();
+    for (Column column : logicalAggregate.getGroupByColumns()) {
+      required.add(column.getFullyQualifiedName(true));
+    }
+    for (Function function : logicalAggregate.getAggregateFunctions()) {
+      required = withColumnsOf(required, function);
+    }
+    rewriteInput(logicalAggregate.getChildOperator(), required);
+    rewritten =
+        new LogicalAggregate(
+            rewritten,
+            logicalAggregate.getGroupByColumns(),
+            logicalAggregate.getAggregateFunctions(),
+            logicalAggregate.getAggregateColumns());
+    schema = logicalAggregate.getOutputSchema();
+  }
+
+  @Override
+  public void visit(LogicalLimit logicalLimit) {
+    rewrite(logicalLimit.getChildOperator(), requiredColumns);
+    rewritten = new LogicalLimit(rewritten, logicalLimit.getLimit(), logicalLimit.getOffset());
+  }
+
+  /**
+   * Adds the columns an expression refers to to a set of required columns.
+   *
+   * @return a new set, or null if all columns are required
+   */
+  private static Set<String> withColumnsOf(Set<String> required, Expression expression) {
+    if (required == null) {
+      return null;
+    }
+    Set<String> columns = new HashSet<>(required);
+    if (expression != null) {
+      expression.accept(
+          new ExpressionVisitorAdapter<Void>() {
+            @Override
+            public <S> Void visit(Column column, S context) {
+              columns.add(column.getFullyQualifiedName(true));
+              return null;
+            }
+          },
+          null);
+    }
+    return columns;
+  }
+}
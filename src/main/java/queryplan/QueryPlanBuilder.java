@@ -48,7 +48,10 @@ public class QueryPlanBuilder {
 
     logger.info("Building physical plan for query: {}", stmt);
     logicalPlan.accept(physicalPlanBuilder);
-    logger.debug("Created physical plan: {}", physicalPlanBuilder.getPhysicalPlan());
+    logger.debug(
+        "Created physical plan:{}{}",
+        System.lineSeparator(),
+        physicalPlanBuilder.getPhysicalPlan().explain());
     return physicalPlanBuilder.getPhysicalPlan();
   }
 }
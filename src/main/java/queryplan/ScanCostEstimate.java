@@ -0,0 +1,123 @@
+package queryplan;
+
+import static utils.DBConstants.TABLE_PAGE_SIZE;
+
+import catalog.DBCatalog;
+import catalog.TableStats;
+import config.IndexConfigManager;
+import config.IndexDefinition;
+import index.BPlusTree;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import physicaloperator.scan.IndexConditionExtractor;
+
+/**
+ * Estimated page I/Os of a selection read with a full scan and with an index scan, ignoring the
+ * buffer pool.
+ *
+ * <p>A full scan reads every page of the relation. An index scan reads one index node per level
+ * down to the first leaf, then the leaves and the data of the fraction r of the relation between
+ * the bounds, with r estimated from the column statistics. With a clustered index the matching
+ * tuples are on consecutive pages, so that is r * pages. With an unclustered index the record ids
+ * are sorted before the tuples are fetched, so each page with a matching tuple is read once. With
+ * the r * tuples matching tuples spread uniformly over the pages that is Cardenas' estimate of
+ * pages * (1 - (1 - 1 / pages)^(r * tuples)) pages.
+ */
+public class ScanCostEstimate {
+
+  private final double selectivity;
+  private final double fullScanCost;
+  private final double indexScanCost;
+
+  private ScanCostEstimate(double selectivity, double fullScanCost, double indexScanCost) {
+    this.selectivity = selectivity;
+    this.fullScanCost = fullScanCost;
+    this.indexScanCost = indexScanCost;
+  }
+
+  /**
+   * Estimates the costs of the selection of an index scan over the bounds of the condition
+   * extractor.
+   *
+   * @param index the index on the relation
+   * @param conditionExtractor the extractor that visited the selection condition
+   */
+  public static ScanCostEstimate estimate(
+      IndexDefinition index, IndexConditionExtractor conditionExtractor) {
+    String relation = index.getRelation();
+    TableStats tableStats = DBCatalog.getInstance().getTableStats(relation);
+    double selectivity = conditionExtractor.estimateSelectivity(tableStats);
+
+    String indexPath = IndexConfigManager.getInstance().getIndexFilePath(index);
+    try (FileChannel tableChannel =
+        new FileInputStream(DBCatalog.getInstance().getTablePath(relation)).getChannel()) {
+      double tablePages = Math.ceil((double) tableChannel.size() / TABLE_PAGE_SIZE);
+      BPlusTree tree =
+          BPlusTree.open(indexPath, IndexConfigManager.getInstance().getInnerNodes(index));
+
+      return estimate(
+          selectivity,
+          tablePages,
+          tableStats.getNumTuples(),
+          tree.getHeight(),
+          tree.getNumLeafNodes(),
+          index.isClustered());
+    } catch (IOException e) {
+      throw new RuntimeException("Error estimating scan costs of " + relation, e);
+    }
+  }
+
+  /**
+   * Estimates the costs of a selection from the sizes of the relation and the index.
+   *
+   * @param selectivity the estimated fraction of the relation between the bounds
+   * @param tablePages the number of pages of the relation
+   * @param numTuples the number of tuples of the relation
+   * @param height the number of levels of the index, counting the leaves
+   * @param numLeafNodes the number of leaves of the index
+   * @param clustered whether the relation is sorted on the key of the index
+   */
+  static ScanCostEstimate estimate(
+      double selectivity,
+      double tablePages,
+      int numTuples,
+      int height,
+      int numLeafNodes,
+      boolean clustered) {
+    double indexScanCost = height - 1 + Math.ceil(selectivity * numLeafNodes);
+    if (clustered) {
+      indexScanCost += Math.ceil(selectivity * tablePages);
+    } else if (tablePages > 0) {
+      double matchingTuples = selectivity * numTuples;
+      indexScanCost += Math.ceil(tablePages * (1 - Math.pow(1 - 1 / tablePages, matchingTuples)));
+    }
+    return new ScanCostEstimate(selectivity, tablePages, indexScanCost);
+  }
+
+  public double getSelectivity() {
+    return selectivity;
+  }
+
+  public double getFullScanCost() {
+    return fullScanCost;
+  }
+
+  public double getIndexScanCost() {
+    return indexScanCost;
+  }
+
+  /**
+   * @return whether the index scan is estimated to read fewer pages than the full scan
+   */
+  public boolean isIndexScanCheaper() {
+    return indexScanCost < fullScanCost;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "selectivity %.4f, index scan %.0f pages, full scan %.0f pages",
+        selectivity, indexScanCost, fullScanCost);
+  }
+}
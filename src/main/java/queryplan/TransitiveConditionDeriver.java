@@ -0,0 +1,172 @@
+package queryplan;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.*;
+import net.sf.jsqlparser.schema.Column;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Derives the comparisons with constants that a WHERE clause implies through its column equalities.
+ * A.x = B.y AND B.y = 5 implies A.x = 5, and A.x = B.y AND B.y < 5 implies A.x < 5, so the filter
+ * on B also filters A before the join, where an index on A.x can be used for it.
+ *
+ * <p>Columns that the conjuncts equate are put in the same class with a union-find, and every
+ * comparison of a column with a constant is repeated for the other columns of its class. As there
+ * are no NULLs this is exact for all comparison operators.
+ */
+public class TransitiveConditionDeriver extends ExpressionVisitorAdapter<Void> {
+  private static final Logger logger = LogManager.getLogger(TransitiveConditionDeriver.class);
+
+  // union-find over the columns, by fully qualified name
+  private final Map<String, String> parents = new HashMap<>();
+  private final Map<String, Column> columns = new LinkedHashMap<>();
+
+  // the comparisons with a constant, as column, operator and value
+  private final List<ConstantComparison> comparisons = new ArrayList<>();
+
+  private TransitiveConditionDeriver() {}
+
+  /**
+   * Adds the comparisons implied by a condition to it.
+   *
+   * @param condition the condition, a conjunction of comparisons
+   * @return the condition and the derived comparisons, or the condition itself if none are new
+   */
+  public static Expression expand(Expression condition) {
+    TransitiveConditionDeriver deriver = new TransitiveConditionDeriver();
+    condition.accept(deriver, null);
+
+    Set<ConstantComparison> known = new HashSet<>(deriver.comparisons);
+    Expression expanded = condition;
+    for (ConstantComparison comparison : deriver.comparisons) {
+      String root = deriver.find(comparison.column());
+      for (String column : deriver.columns.keySet()) {
+        if (column.equals(comparison.column()) || !deriver.find(column).equals(root)) {
+          continue;
+        }
+        ConstantComparison derived =
+            new ConstantComparison(column, comparison.operator(), comparison.value());
+        if (known.add(derived)) {
+          Expression derivedExpression = derived.toExpression(deriver.columns.get(column));
+          logger.debug("Derived {} from the equalities of {}", derivedExpression, condition);
+          expanded = new AndExpression(expanded, derivedExpression);
+        }
+      }
+    }
+    return expanded;
+  }
+
+  @Override
+  public <S> Void visit(AndExpression andExpression, S context) {
+    andExpression.getLeftExpression().accept(this, context);
+    andExpression.getRightExpression().accept(this, context);
+    return null;
+  }
+
+  @Override
+  public <S> Void visit(EqualsTo equalsTo, S context) {
+    if (equalsTo.getLeftExpression() instanceof Column left
+        && equalsTo.getRightExpression() instanceof Column right) {
+      union(add(left), add(right));
+    } else {
+      addComparison(equalsTo, "=", "=");
+    }
+    return null;
+  }
+
+  @Override
+  public <S> Void visit(NotEqualsTo notEqualsTo, S context) {
+    addComparison(notEqualsTo, "<>", "<>");
+    return null;
+  }
+
+  @Override
+  public <S> Void visit(GreaterThan greaterThan, S context) {
+    addComparison(greaterThan, ">", "<");
+    return null;
+  }
+
+  @Override
+  public <S> Void visit(GreaterThanEquals greaterThanEquals, S context) {
+    addComparison(greaterThanEquals, ">=", "<=");
+    return null;
+  }
+
+  @Override
+  public <S> Void visit(MinorThan minorThan, S context) {
+    addComparison(minorThan, "<", ">");
+    return null;
+  }
+
+  @Override
+  public <S> Void visit(MinorThanEquals minorThanEquals, S context) {
+    addComparison(minorThanEquals, "<=", ">=");
+    return null;
+  }
+
+  /**
+   * Records a comparison of a column with a constant, written with the column first.
+   *
+   * @param operator the operator with the column on the left
+   * @param flippedOperator the operator with the column on the right
+   */
+  private void addComparison(
+      ComparisonOperator comparison, String operator, String flippedOperator) {
+    Expression left = comparison.getLeftExpression();
+    Expression right = comparison.getRightExpression();
+    if (left instanceof Column column && right instanceof LongValue value) {
+      comparisons.add(new ConstantComparison(add(column), operator, value.getValue()));
+    } else if (right instanceof Column column && left instanceof LongValue value) {
+      comparisons.add(new ConstantComparison(add(column), flippedOperator, value.getValue()));
+    }
+  }
+
+  private String add(Column column) {
+    String name = column.getFullyQualifiedName(true);
+    columns.putIfAbsent(name, column);
+    parents.putIfAbsent(name, name);
+    return name;
+  }
+
+  private String find(String column) {
+    String parent = parents.get(column);
+    if (parent.equals(column)) {
+      return column;
+    }
+    String root = find(parent);
+    parents.put(column, root);
+    return root;
+  }
+
+  private void union(String first, String second) {
+    parents.put(find(first), find(second));
+  }
+
+  private record ConstantComparison(String column, String operator, long value) {
+
+    Expression toExpression(Column column) {
+      LongValue constant = new LongValue(value);
+      return switch (operator) {
+        case "=" -> new EqualsTo(column, constant);
+        case "<>" -> new NotEqualsTo(column, constant);
+        case ">" -> new GreaterThan().withLeftExpression(column).withRightExpression(constant);
+        case ">=" -> new GreaterThanEquals()
+            .withLeftExpression(column)
+            .withRightExpression(constant);
+        case "<" -> new MinorThan().withLeftExpression(column).withRightExpression(constant);
+        default -> new MinorThanEquals().withLeftExpression(column).withRightExpression(constant);
+      };
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package utils;
+
+import static utils.DBConstants.INT_SIZE;
+import static utils.DBConstants.TABLE_PAGE_SIZE;
+
+import io.cache.CacheFileManager;
+import io.cache.CacheFileManagerRegistry;
+import io.reader.BinaryTupleReader;
+import io.writer.BinaryTupleWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.Tuple;
+
+/**
+ * Sorts rows of ints on one column under a memory budget, keeping rows with equal keys in the order
+ * they were added.
+ *
+ * <p>Rows are copied into one flat int array and ordered through a long per row that packs the key
+ * above the row number, so sorting the longs sorts the rows stably without boxing. When the budget
+ * is used up the rows are sorted and spilled to a cache file as a run. The runs are merged with a
+ * {@link LoserTreeMerger}, which breaks ties by run and so keeps the merge stable. Nothing touches
+ * the disk if all rows fit in memory.
+ */
+public class ExternalRowSorter implements AutoCloseable {
+
+  private final int width;
+  private final int keyIndex;
+  private final int maxRowsInMemory;
+
+  private int[] rows = new int[0];
+  private long[] order = new long[0];
+  private int rowCount;
+
+  private CacheFileManager cacheFileManager;
+  private final List<String> runFiles = new ArrayList<>();
+  private final List<FileChannel> runChannels = new ArrayList<>();
+
+  /**
+   * @param width the number of ints of a row
+   * @param keyIndex the index of the column to sort on
+   * @param bufferPages pages of memory for the rows before they are spilled, at least one
+   */
+  public ExternalRowSorter(int width, int keyIndex, int bufferPages) {
+    this.width = width;
+    this.keyIndex = keyIndex;
+
+    // every row takes its ints and a long to sort it by
+    long rowsPerPage = Math.max(1, TABLE_PAGE_SIZE / ((width + 2) * INT_SIZE));
+    this.maxRowsInMemory =
+        (int) Math.min((long) bufferPages * rowsPerPage, (Integer.MAX_VALUE - 8) / width);
+  }
+
+  /**
+   * Adds a row. The values are copied, so the array may be reused for the next row.
+   *
+   * @param row the values of the row, at least width of them
+   */
+  public void add(int[] row) throws IOException {
+    ensureCapacity();
+    System.arraycopy(row, 0, rows, rowCount * width, width);
+    order[rowCount] = pack(row[keyIndex], rowCount);
+    rowCount++;
+  }
+
+  /** Adds the values of a tuple as a row. */
+  public void add(Tuple tuple) throws IOException {
+    ensureCapacity();
+    tuple.copyInto(rows, rowCount * width);
+    order[rowCount] = pack(tuple.getInt(keyIndex), rowCount);
+    rowCount++;
+  }
+
+  /**
+   * Sorts the rows added so far. No rows may be added afterwards.
+   *
+   * @return the rows in key order, as tuples
+   */
+  public LoserTreeMerger.Source sort() throws IOException {
+    Arrays.sort(order, 0, rowCount);
+    if (runFiles.isEmpty()) {
+      return new LoserTreeMerger.Source() {
+        private int next = 0;
+
+        @Override
+        public Tuple getNextTuple() {
+          return next < rowCount ? rowAt(next++) : null;
+        }
+      };
+    }
+
+    spillRun();
+    rows = null;
+    order = null;
+
+    List<LoserTreeMerger.Source> sources = new ArrayList<>();
+    for (String runFile : runFiles) {
+      FileChannel channel = cacheFileManager.getReadChannel(runFile);
+      runChannels.add(channel);
+      sources.add(new BinaryTupleReader(channel)::getNextTuple);
+    }
+    LoserTreeMerger merger = new LoserTreeMerger(sources, new int[] {keyIndex});
+    return merger::getNextTuple;
+  }
+
+  /** Returns the number of runs spilled to disk. */
+  public int getRunCount() {
+    return runFiles.size();
+  }
+
+  /** Closes and deletes the runs. */
+  @Override
+  public void close() throws IOException {
+    for (FileChannel channel : runChannels) {
+      channel.close();
+    }
+    runChannels.clear();
+    if (cacheFileManager != null) {
+      cacheFileManager.cleanup();
+    }
+  }
+
+  private void ensureCapacity() throws IOException {
+    if (rowCount < order.length) {
+      return;
+    }
+    if (rowCount >= maxRowsInMemory) {
+      Arrays.sort(order, 0, rowCount);
+      spillRun();
+      return;
+    }
+    int capacity = (int) Math.min(Math.max(1024, 2L * order.length), maxRowsInMemory);
+    rows = Arrays.copyOf(rows, capacity * width);
+    order = Arrays.copyOf(order, capacity);
+  }
+
+  /** Writes the sorted rows in memory to a new run file and empties the memory. */
+  private void spillRun() throws IOException {
+    if (cacheFileManager == null) {
+      cacheFileManager = CacheFileManagerRegistry.getInstance().createManager();
+    }
+    String runFile = "rows_" + runFiles.size();
+    try (FileChannel channel = cacheFileManager.getWriteChannel(runFile);
+        BinaryTupleWriter writer = new BinaryTupleWriter(channel, width)) {
+      for (int i = 0; i < rowCount; i++) {
+        writer.writeTuple(rowAt(i));
+      }
+    }
+    runFiles.add(runFile);
+    rowCount = 0;
+  }
+
+  /** Returns the i-th row in sorted order, valid once the order has been sorted. */
+  private Tuple rowAt(int i) {
+    int row = (int) order[i];
+    return new Tuple(Arrays.copyOfRange(rows, row * width, row * width + width));
+  }
+
+  private static long pack(int key, int row) {
+    return ((long) key << 32) | row;
+  }
+}
@@ -0,0 +1,120 @@
+package utils;
+
+import io.cache.CacheFileManager;
+import io.cache.CacheFileManagerRegistry;
+import io.writer.BinaryTupleWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.function.Supplier;
+import model.Tuple;
+
+/**
+ * Hash partitions tuples to cache files, for the hash operators whose tables do not fit in memory.
+ *
+ * <p>The partition of a tuple is picked from different bits of its hash at every level, so a
+ * partition that is still too large can be split by partitioning it again at the next level. The
+ * operators give up after {@link #MAX_PARTITION_LEVEL} levels, when a partition holds few distinct
+ * keys that no hash function separates.
+ */
+public class HashPartitioner {
+
+  /** Number of times a partition is split again before it is processed regardless of its size. */
+  public static final int MAX_PARTITION_LEVEL = 3;
+
+  private final String filePrefix;
+  private final int partitionCount;
+
+  private CacheFileManager cacheFileManager; // null until the first partition is written
+  private int fileCount;
+
+  /**
+   * @param filePrefix the prefix of the names of the partition files
+   * @param partitionCount the number of partitions at every level, at least two
+   */
+  public HashPartitioner(String filePrefix, int partitionCount) {
+    this.filePrefix = filePrefix;
+    this.partitionCount = partitionCount;
+  }
+
+  public int getPartitionCount() {
+    return partitionCount;
+  }
+
+  /**
+   * Creates one file per partition for tuples to be partitioned at a level.
+   *
+   * @param width the number of values of the tuples
+   */
+  public Writer openWriter(int width, int level) throws IOException {
+    if (cacheFileManager == null) {
+      cacheFileManager = CacheFileManagerRegistry.getInstance().createManager();
+    }
+    return new Writer(width, level);
+  }
+
+  /**
+   * Writes the tuples of the source to one file per partition.
+   *
+   * @param keyIndices the positions of the values the tuples are hashed on
+   * @return the partition file names, indexed by partition
+   */
+  public String[] partition(Supplier<Tuple> source, int[] keyIndices, int width, int level)
+      throws IOException {
+    Writer writer = openWriter(width, level);
+    Tuple tuple;
+    while ((tuple = source.get()) != null) {
+      writer.write(tuple, HashUtil.hash(tuple, keyIndices));
+    }
+    return writer.close();
+  }
+
+  public FileChannel openPartition(String fileName) throws IOException {
+    return cacheFileManager.getReadChannel(fileName);
+  }
+
+  public void deletePartition(String fileName) throws IOException {
+    cacheFileManager.deleteFile(fileName);
+  }
+
+  /** Picks the partition from different bits of the hash at every level. */
+  private int partitionOf(int hash, int level) {
+    return Math.floorMod(HashUtil.mix(hash + 0x9E3779B9 * (level + 1)), partitionCount);
+  }
+
+  /** The open files of the partitions of one level. */
+  public class Writer {
+    private final int level;
+    private final String[] fileNames = new String[partitionCount];
+    private final FileChannel[] channels = new FileChannel[partitionCount];
+    private final BinaryTupleWriter[] writers = new BinaryTupleWriter[partitionCount];
+
+    private Writer(int width, int level) throws IOException {
+      this.level = level;
+      for (int i = 0; i < partitionCount; i++) {
+        fileNames[i] = String.format("%s_%d_%d.tmp", filePrefix, level, fileCount++);
+        channels[i] = cacheFileManager.getWriteChannel(fileNames[i]);
+        writers[i] = new BinaryTupleWriter(channels[i], width);
+      }
+    }
+
+    /**
+     * @param hash the hash of the tuple, from {@link HashUtil#hash}
+     */
+    public void write(Tuple tuple, int hash) {
+      writers[partitionOf(hash, level)].writeTuple(tuple);
+    }
+
+    /**
+     * Flushes and closes the files.
+     *
+     * @return the partition file names, indexed by partition
+     */
+    public String[] close() throws IOException {
+      for (int i = 0; i < partitionCount; i++) {
+        writers[i].close();
+        channels[i].close();
+      }
+      return fileNames;
+    }
+  }
+}
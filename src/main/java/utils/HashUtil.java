@@ -0,0 +1,30 @@
+package utils;
+
+import model.Tuple;
+
+/** Hash functions shared by the operators that hash tuples on some of their columns. */
+public class HashUtil {
+
+  /**
+   * Hashes the values of a tuple at the given positions.
+   *
+   * @return the hash, with its bits mixed so that any of them can pick a bucket or partition
+   */
+  public static int hash(Tuple tuple, int[] indices) {
+    int hash = 1;
+    for (int index : indices) {
+      hash = 31 * hash + tuple.getInt(index);
+    }
+    return mix(hash);
+  }
+
+  /** Finalization step of MurmurHash3, spreads the key bits over the whole int. */
+  public static int mix(int hash) {
+    hash ^= hash >>> 16;
+    hash *= 0x85EBCA6B;
+    hash ^= hash >>> 13;
+    hash *= 0xC2B2AE35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+}
@@ -0,0 +1,157 @@
+package utils;
+
+import io.reader.BinaryTupleReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+import model.Tuple;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The input of a hash operator that keeps a table of what it has read and spills the tuples that no
+ * longer fit, to process them once the table is done with. The child is read first, then each
+ * partition of spilled tuples in turn, with an empty table.
+ *
+ * <p>A partition is read the same way, so the tuples of a partition that still do not fit are
+ * partitioned again at the next level, up to {@link HashPartitioner#MAX_PARTITION_LEVEL} times. The
+ * partitions of an input are read before anything else that is pending, and each is deleted once it
+ * has been read.
+ */
+public class PartitionedInput {
+  private static final Logger logger = LogManager.getLogger(PartitionedInput.class);
+
+  private final Supplier<Tuple> child;
+  private final int width;
+  private final HashPartitioner partitioner;
+
+  // the input being read: the child at level 0, a partition file after that
+  private BinaryTupleReader partitionReader;
+  private String partitionFile;
+  private int level;
+
+  // the partitions of the current input, null until a tuple is spilled
+  private HashPartitioner.Writer spillWriter;
+  private final Deque<Partition> pendingPartitions = new ArrayDeque<>();
+
+  /**
+   * @param child the tuples of the child operator
+   * @param width the number of values of the tuples
+   * @param filePrefix the prefix of the names of the partition files
+   * @param partitionCount the number of partitions an input is split into, at least two
+   */
+  public PartitionedInput(
+      Supplier<Tuple> child, int width, String filePrefix, int partitionCount) {
+    this.child = child;
+    this.width = width;
+    this.partitioner = new HashPartitioner(filePrefix, partitionCount);
+  }
+
+  /**
+   * @return the next tuple of the current input, or null at its end
+   */
+  public Tuple next() {
+    if (partitionReader == null) {
+      return level == 0 ? child.get() : null;
+    }
+    try {
+      return partitionReader.getNextTuple();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * @return 0 while the child is read, the number of times the current partition was split after
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * @return false once the current input is at the last level, whose tuples must all be kept
+   */
+  public boolean canSpill() {
+    return level < HashPartitioner.MAX_PARTITION_LEVEL;
+  }
+
+  /**
+   * Sets a tuple of the current input aside for later.
+   *
+   * @param hash the hash the table keeps the tuple under
+   */
+  public void spill(Tuple tuple, int hash) {
+    if (spillWriter == null) {
+      logger.debug("Partitioning the input at level {}", level);
+      try {
+        spillWriter = partitioner.openWriter(width, level);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    spillWriter.write(tuple, hash);
+  }
+
+  /**
+   * Finishes the current input and starts on the next partition.
+   *
+   * @return false if there are no partitions left
+   */
+  public boolean nextPartition() {
+    try {
+      if (spillWriter != null) {
+        String[] files = spillWriter.close();
+        spillWriter = null;
+        for (int i = files.length - 1; i >= 0; i--) {
+          pendingPartitions.addFirst(new Partition(files[i], level + 1));
+        }
+      }
+      closePartitionReader();
+
+      Partition partition = pendingPartitions.poll();
+      if (partition == null) {
+        return false;
+      }
+      partitionReader = new BinaryTupleReader(partitioner.openPartition(partition.file()));
+      partitionFile = partition.file();
+      level = partition.level();
+      return true;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /** Drops all partitions, so that the input starts again from the child once it is reset. */
+  public void reset() {
+    try {
+      if (spillWriter != null) {
+        for (String file : spillWriter.close()) {
+          partitioner.deletePartition(file);
+        }
+        spillWriter = null;
+      }
+      closePartitionReader();
+      for (Partition partition : pendingPartitions) {
+        partitioner.deletePartition(partition.file());
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    pendingPartitions.clear();
+    level = 0;
+  }
+
+  private void closePartitionReader() throws IOException {
+    if (partitionReader == null) {
+      return;
+    }
+    partitionReader.getFileChannel().close();
+    partitionReader = null;
+
+    // a partition is only read once, a reset starts again from the child
+    partitioner.deletePartition(partitionFile);
+  }
+
+  private record Partition(String file, int level) {}
+}
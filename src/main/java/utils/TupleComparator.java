@@ -1,6 +1,5 @@
 package utils;
 
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import model.Tuple;
@@ -8,25 +7,28 @@ import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.statement.select.OrderByElement;
 
 public class TupleComparator implements Comparator<Tuple> {
-  protected final List<Integer> orderByIndices;
+  protected final int[] orderByIndices;
 
-  public TupleComparator(List<Integer> orderByIndices) {
+  public TupleComparator(int[] orderByIndices) {
     this.orderByIndices = orderByIndices;
   }
 
+  public TupleComparator(List<Integer> orderByIndices) {
+    this(orderByIndices.stream().mapToInt(Integer::intValue).toArray());
+  }
+
   public TupleComparator(List<Column> schema, List<OrderByElement> orderByElements) {
     this.orderByIndices = buildOrderedIndices(schema, orderByElements);
   }
 
-  protected ArrayList<Integer> buildOrderedIndices(
-      List<Column> schema, List<OrderByElement> orderByElements) {
-    ArrayList<Integer> indexOrder = new ArrayList<>();
-    for (OrderByElement orderByElement : orderByElements) {
-      Column orderColumn = (Column) orderByElement.getExpression();
+  protected int[] buildOrderedIndices(List<Column> schema, List<OrderByElement> orderByElements) {
+    int[] indexOrder = new int[orderByElements.size()];
+    for (int k = 0; k < orderByElements.size(); k++) {
+      Column orderColumn = (Column) orderByElements.get(k).getExpression();
       boolean found = false;
       for (int i = 0; i < schema.size(); i++) {
         if (ColumnUtil.compareColumns(schema.get(i), orderColumn) == 0) {
-          indexOrder.add(i);
+          indexOrder[k] = i;
           found = true;
           break;
         }
@@ -38,10 +40,15 @@ public class TupleComparator implements Comparator<Tuple> {
     return indexOrder;
   }
 
-  protected int compareTupleElements(Tuple t1, Tuple t2, List<Integer> indices) {
-    for (Integer index : indices) {
-      int value1 = t1.getElementAtIndex(index);
-      int value2 = t2.getElementAtIndex(index);
+  /** Returns the indices of the order by columns, most significant first. */
+  public int[] getOrderByIndices() {
+    return orderByIndices;
+  }
+
+  protected int compareTupleElements(Tuple t1, Tuple t2, int[] indices) {
+    for (int index : indices) {
+      int value1 = t1.getInt(index);
+      int value2 = t2.getInt(index);
       if (value1 != value2) {
         return Integer.compare(value1, value2);
       }
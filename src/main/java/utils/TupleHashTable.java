@@ -0,0 +1,161 @@
+package utils;
+
+import static utils.DBConstants.INT_SIZE;
+import static utils.DBConstants.TABLE_PAGE_SIZE;
+
+import java.util.Arrays;
+import model.Tuple;
+
+/**
+ * Hash table of the distinct keys of tuples, for the operators that group or deduplicate their
+ * input by hashing.
+ *
+ * <p>The table is open addressing with linear probing. The keys of all entries are copied into one
+ * flat int array and every entry has a fixed number of longs of state in one long array, so an
+ * entry takes no objects. Entries are numbered in the order they were added.
+ */
+public class TupleHashTable {
+
+  private final int[] keyIndices;
+  private final int keyWidth;
+  private final int stateWidth;
+
+  // entry i has its key at keys[i * keyWidth] and its state at states[i * stateWidth]
+  private int[] keys = new int[0];
+  private long[] states = new long[0];
+  private int[] hashes = new int[0];
+  private int size;
+
+  // slots hold entry index + 1, or 0 if empty
+  private int[] slots = new int[16];
+  private int probedSlot;
+
+  /**
+   * @param keyIndices the positions in the tuples of the values of the key
+   * @param stateWidth the number of longs of state of every entry, 0 for none
+   */
+  public TupleHashTable(int[] keyIndices, int stateWidth) {
+    this.keyIndices = keyIndices;
+    this.keyWidth = keyIndices.length;
+    this.stateWidth = stateWidth;
+  }
+
+  /**
+   * @return the number of entries that fit in the given pages of memory, at least one
+   */
+  public int capacityFor(long pages) {
+    // every entry takes its key, its hash, about two slots and its state
+    long bytesPerEntry = (long) (keyWidth + 3) * INT_SIZE + (long) stateWidth * Long.BYTES;
+    return (int)
+        Math.max(
+            1,
+            Math.min(
+                pages * TABLE_PAGE_SIZE / bytesPerEntry,
+                (Integer.MAX_VALUE - 8) / Math.max(2, Math.max(keyWidth, stateWidth))));
+  }
+
+  /**
+   * @return the hash of the key of a tuple, to look it up and add it with
+   */
+  public int hash(Tuple tuple) {
+    return HashUtil.hash(tuple, keyIndices);
+  }
+
+  /**
+   * Looks up the entry with the key of a tuple.
+   *
+   * @return the index of the entry, or -1 if there is none, in which case {@link #add} may follow
+   */
+  public int find(Tuple tuple, int hash) {
+    int mask = slots.length - 1;
+    int slot = hash & mask;
+    while (slots[slot] != 0) {
+      int index = slots[slot] - 1;
+      if (hashes[index] == hash && matches(index, tuple)) {
+        return index;
+      }
+      slot = (slot + 1) & mask;
+    }
+    probedSlot = slot;
+    return -1;
+  }
+
+  private boolean matches(int index, Tuple tuple) {
+    int offset = index * keyWidth;
+    for (int i = 0; i < keyWidth; i++) {
+      if (keys[offset + i] != tuple.getInt(keyIndices[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Adds an entry for the key of a tuple that {@link #find} did not find just before. Its state is
+   * left as it was when the entry was last used, so the caller initializes it.
+   *
+   * @return the index of the entry
+   */
+  public int add(Tuple tuple, int hash) {
+    if (size == hashes.length) {
+      int capacity = Math.max(64, 2 * size);
+      keys = Arrays.copyOf(keys, capacity * keyWidth);
+      states = Arrays.copyOf(states, capacity * stateWidth);
+      hashes = Arrays.copyOf(hashes, capacity);
+    }
+    int index = size;
+    int offset = index * keyWidth;
+    for (int i = 0; i < keyWidth; i++) {
+      keys[offset + i] = tuple.getInt(keyIndices[i]);
+    }
+    hashes[index] = hash;
+    size++;
+
+    // keep the table at most half full
+    if (2 * size > slots.length) {
+      rehash(2 * slots.length);
+    } else {
+      slots[probedSlot] = size;
+    }
+    return index;
+  }
+
+  private void rehash(int slotCount) {
+    slots = new int[slotCount];
+    int mask = slotCount - 1;
+    for (int index = 0; index < size; index++) {
+      int slot = hashes[index] & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = index + 1;
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Copies the key of an entry into an array. */
+  public void copyKey(int index, int[] destination, int offset) {
+    System.arraycopy(keys, index * keyWidth, destination, offset, keyWidth);
+  }
+
+  /**
+   * @return the states of all entries, the state of entry i at {@link #stateOffset}(i); the array
+   *     is replaced when an entry is added
+   */
+  public long[] getStates() {
+    return states;
+  }
+
+  public int stateOffset(int index) {
+    return index * stateWidth;
+  }
+
+  /** Removes all entries, keeping the memory for the next ones. */
+  public void clear() {
+    size = 0;
+    Arrays.fill(slots, 0);
+  }
+}
@@ -1,6 +1,7 @@
 import static testutil.HelperMethods.convertToBinaryFiles;
 import static testutil.HelperMethods.readHumanReadable;
 
+import config.PhysicalPlanConfig;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -27,6 +28,13 @@ public class P1BasicQueryTest extends QueryTestBase {
 
     // Generate binary input files
     convertToBinaryFiles(baseDir + "/input/data_humanreadable", baseDir + "/input/data");
+
+    // The expected outputs are in TNLJ order, don't inherit another test's join method, and
+    // DISTINCT without ORDER BY comes out sorted
+    PhysicalPlanConfig physicalPlanConfig = PhysicalPlanConfig.getInstance();
+    physicalPlanConfig.setJoinMethod(PhysicalPlanConfig.JoinMethod.TNLJ, 0);
+    physicalPlanConfig.setSortMethod(PhysicalPlanConfig.SortMethod.IN_MEMORY, 0);
+    physicalPlanConfig.setDistinctMethod(PhysicalPlanConfig.DistinctMethod.SORT);
   }
 
   @ParameterizedTest(name = "Query #{arguments}")
@@ -67,6 +67,34 @@ public class P2BigQueryTest extends QueryTestBase {
     runTestByIndex(queryIndex);
   }
 
+  @ParameterizedTest(name = "Hash Join 5 & In-Memory Sort Query #{arguments}")
+  @MethodSource("getJoinTestCases")
+  void testHashJoin(int queryIndex) throws ExecutionControl.NotImplementedException, IOException {
+
+    physicalPlanConfig.setJoinMethod(PhysicalPlanConfig.JoinMethod.HASH, 5);
+    physicalPlanConfig.setSortMethod(PhysicalPlanConfig.SortMethod.IN_MEMORY, 0);
+    CacheFileManagerRegistry.getInstance().setCacheDirectory(baseDir + "/tempDir");
+
+    runTestByIndex(queryIndex);
+  }
+
+  @ParameterizedTest(name = "Cost-Based Join Order & External Sort Query #{arguments}")
+  @MethodSource("getJoinTestCases")
+  void testCostBasedJoinOrder(int queryIndex)
+      throws ExecutionControl.NotImplementedException, IOException {
+
+    physicalPlanConfig.setJoinMethod(PhysicalPlanConfig.JoinMethod.HASH, 5);
+    physicalPlanConfig.setSortMethod(PhysicalPlanConfig.SortMethod.EXTERNAL, 5);
+    physicalPlanConfig.setJoinOrderMethod(PhysicalPlanConfig.JoinOrderMethod.COST_BASED);
+    CacheFileManagerRegistry.getInstance().setCacheDirectory(baseDir + "/tempDir");
+
+    try {
+      runTestByIndex(queryIndex);
+    } finally {
+      physicalPlanConfig.setJoinOrderMethod(PhysicalPlanConfig.JoinOrderMethod.FROM_CLAUSE);
+    }
+  }
+
   private static IntStream getAllTestCases() {
     return IntStream.range(0, statementList.size());
   }
@@ -19,6 +19,7 @@ import model.Tuple;
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
 import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.BeforeAll;
@@ -74,10 +75,27 @@ public class P3BPlusTreeTest {
     runTestByIndex(queryIndex);
   }
 
+  @ParameterizedTest(name = "Mapped reader query #{arguments}")
+  @MethodSource("singleTableQueryIndices")
+  void testIndexScanWithMappedReader(int queryIndex)
+      throws ExecutionControl.NotImplementedException, IOException {
+    PhysicalPlanConfig.getInstance().setReaderMethod(PhysicalPlanConfig.ReaderMethod.MAPPED);
+    try {
+      runTestByIndex(queryIndex);
+    } finally {
+      PhysicalPlanConfig.getInstance().setReaderMethod(PhysicalPlanConfig.ReaderMethod.BUFFERED);
+    }
+  }
+
   private static IntStream queryIndices() {
     return IntStream.range(0, statementList.size());
   }
 
+  private static IntStream singleTableQueryIndices() {
+    return queryIndices()
+        .filter(index -> ((PlainSelect) statementList.get(index)).getJoins() == null);
+  }
+
   protected void runTestByIndex(int index)
       throws ExecutionControl.NotImplementedException, IOException {
     logger.info("Running test for query {}", index + 1);
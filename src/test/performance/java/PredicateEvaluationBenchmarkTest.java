@@ -0,0 +1,152 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static testutil.HelperMethods.readBinary;
+
+import catalog.DBCatalog;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import model.Tuple;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import physicaloperator.CompiledPredicate;
+import physicaloperator.PredicateCompiler;
+import physicaloperator.QueryConditionContext;
+import physicaloperator.QueryConditionEvaluator;
+
+/**
+ * Compares evaluating the WHERE conditions of the P2 queries with the AST visitor
+ * (QueryConditionEvaluator) against the compiled predicates, on the P2 data set. Join conditions
+ * are evaluated over the full cross product of the two tables, the way a nested loop join does.
+ */
+@Tag("performanceTest")
+public class PredicateEvaluationBenchmarkTest {
+  private static final Logger logger = LogManager.getLogger(PredicateEvaluationBenchmarkTest.class);
+
+  private static final int WARMUP_ROUNDS = 3;
+  private static final int MEASURED_ROUNDS = 5;
+
+  static String baseDir;
+
+  @BeforeAll
+  static void setupBenchmarkEnvironment() throws URISyntaxException {
+    ClassLoader classLoader = PredicateEvaluationBenchmarkTest.class.getClassLoader();
+    URI uri =
+        Objects.requireNonNull(classLoader.getResource("p2_predicate_evaluation_benchmark_samples"))
+            .toURI();
+    baseDir = new File(uri).getPath();
+
+    DBCatalog.getInstance().setDataDirectory(baseDir + "/input/db");
+  }
+
+  @ParameterizedTest(name = "{0} on {1} x {2}")
+  @MethodSource("conditions")
+  void comparePredicateEvaluation(String condition, String leftTable, String rightTable)
+      throws IOException, JSQLParserException {
+    Expression expression = CCJSqlParserUtil.parseCondExpression(condition);
+    DBCatalog catalog = DBCatalog.getInstance();
+
+    List<Tuple> leftTuples = readBinary(catalog.getTablePath(leftTable));
+    ArrayList<Column> leftSchema = catalog.getSchemaForTable(leftTable);
+    List<Tuple> rightTuples =
+        rightTable == null ? List.of() : readBinary(catalog.getTablePath(rightTable));
+    ArrayList<Column> rightSchema =
+        rightTable == null ? new ArrayList<>() : catalog.getSchemaForTable(rightTable);
+
+    int interpretedMatches = 0;
+    int compiledMatches = 0;
+    long interpretedNanos = 0;
+    long compiledNanos = 0;
+
+    for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+      long start = System.nanoTime();
+      interpretedMatches =
+          runInterpreted(expression, leftTuples, leftSchema, rightTuples, rightSchema);
+      long middle = System.nanoTime();
+      compiledMatches = runCompiled(expression, leftTuples, leftSchema, rightTuples, rightSchema);
+      long end = System.nanoTime();
+
+      if (round >= WARMUP_ROUNDS) {
+        interpretedNanos += middle - start;
+        compiledNanos += end - middle;
+      }
+    }
+
+    assertEquals(interpretedMatches, compiledMatches, "Both evaluators must agree");
+    logger.info(
+        "{}: evaluator {} ms, compiled {} ms per round ({} matches)",
+        condition,
+        interpretedNanos / MEASURED_ROUNDS / 1_000_000.0,
+        compiledNanos / MEASURED_ROUNDS / 1_000_000.0,
+        compiledMatches);
+  }
+
+  private static int runInterpreted(
+      Expression expression,
+      List<Tuple> leftTuples,
+      ArrayList<Column> leftSchema,
+      List<Tuple> rightTuples,
+      ArrayList<Column> rightSchema) {
+    ArrayList<Column> schema = new ArrayList<>(leftSchema);
+    schema.addAll(rightSchema);
+    QueryConditionContext context = new QueryConditionContext(schema);
+    QueryConditionEvaluator evaluator = new QueryConditionEvaluator();
+
+    int matches = 0;
+    for (Tuple left : leftTuples) {
+      if (rightTuples.isEmpty()) {
+        context.setContext(left);
+        matches += expression.accept(evaluator, context) ? 1 : 0;
+        continue;
+      }
+      for (Tuple right : rightTuples) {
+        context.setContext(left.append(right));
+        matches += expression.accept(evaluator, context) ? 1 : 0;
+      }
+    }
+    return matches;
+  }
+
+  private static int runCompiled(
+      Expression expression,
+      List<Tuple> leftTuples,
+      ArrayList<Column> leftSchema,
+      List<Tuple> rightTuples,
+      ArrayList<Column> rightSchema) {
+    CompiledPredicate predicate = PredicateCompiler.compile(expression, leftSchema, rightSchema);
+
+    int matches = 0;
+    for (Tuple left : leftTuples) {
+      if (rightTuples.isEmpty()) {
+        matches += predicate.test(left) ? 1 : 0;
+        continue;
+      }
+      for (Tuple right : rightTuples) {
+        matches += predicate.test(left, right) ? 1 : 0;
+      }
+    }
+    return matches;
+  }
+
+  private static Stream<Arguments> conditions() {
+    return Stream.of(
+        Arguments.of("Sailors.B >= Sailors.C", "Sailors", null),
+        Arguments.of("Sailors.B >= Sailors.C AND Sailors.B < Sailors.C", "Sailors", null),
+        Arguments.of("Sailors.A = Reserves.G", "Sailors", "Reserves"),
+        Arguments.of("Sailors.A = Reserves.G AND Sailors.B < 150", "Sailors", "Reserves"),
+        Arguments.of("Reserves.H = Boats.D", "Reserves", "Boats"));
+  }
+}
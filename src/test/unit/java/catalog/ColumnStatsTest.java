@@ -0,0 +1,94 @@
+package catalog;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ColumnStatsTest {
+
+  @ParameterizedTest(name = "{0} distinct values")
+  @ValueSource(ints = {1, 10, 1000, 100000})
+  void testDistinctValues(int distinctValues) {
+    ColumnStats stats = new ColumnStats();
+    Set<Integer> values = new HashSet<>();
+    Random random = new Random(distinctValues);
+    for (int i = 0; i < 200000; i++) {
+      // spread the values out so that max - min + 1 is no help
+      int value = random.nextInt(distinctValues) * 1000;
+      stats.updateStats(value);
+      values.add(value);
+    }
+
+    assertEquals(values.size(), stats.getDistinctValues(), values.size() * 0.1);
+  }
+
+  @Test
+  void testRangeOnlyStats() {
+    ColumnStats stats = new ColumnStats(0, 99);
+
+    assertEquals(100, stats.getDistinctValues());
+    assertNull(stats.getHistogram());
+    assertEquals(0.25, stats.estimateRangeSelectivity(null, 24), 1e-9);
+    assertEquals(0.01, stats.estimateEqualitySelectivity(50), 1e-9);
+    assertEquals(0, stats.estimateRangeSelectivity(100, null));
+  }
+
+  @Test
+  void testHistogramFollowsSkew() {
+    // half of the values are in [0, 9], the other half in [10, 9999]
+    ColumnStats stats = skewedStats();
+
+    assertEquals(0.5, stats.estimateRangeSelectivity(0, 9), 0.05);
+    assertEquals(0.5, stats.estimateRangeSelectivity(10, null), 0.05);
+    assertEquals(0.25, stats.estimateRangeSelectivity(5000, null), 0.05);
+    assertEquals(1, stats.estimateRangeSelectivity(null, null), 1e-6);
+  }
+
+  @Test
+  void testFrequentValue() {
+    ColumnStats stats = new ColumnStats();
+    for (int i = 0; i < 10000; i++) {
+      stats.updateStats(i % 4 == 0 ? 42 : i);
+    }
+
+    assertEquals(0.25, stats.estimateEqualitySelectivity(42), 0.05);
+    assertEquals(1.0 / stats.getDistinctValues(), stats.estimateEqualitySelectivity(43), 1e-9);
+    assertEquals(0, stats.estimateEqualitySelectivity(-1));
+  }
+
+  @Test
+  void testBinaryRoundTrip() throws IOException {
+    ColumnStats stats = skewedStats();
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    stats.write(new DataOutputStream(bytes));
+    ColumnStats read =
+        ColumnStats.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertEquals(stats.getMinValue(), read.getMinValue());
+    assertEquals(stats.getMaxValue(), read.getMaxValue());
+    assertEquals(stats.getDistinctValues(), read.getDistinctValues());
+    assertEquals(stats.getHistogram().getBucketCount(), read.getHistogram().getBucketCount());
+    assertEquals(
+        stats.estimateRangeSelectivity(100, 5000), read.estimateRangeSelectivity(100, 5000), 1e-6);
+  }
+
+  private static ColumnStats skewedStats() {
+    ColumnStats stats = new ColumnStats();
+    Random random = new Random(0);
+    for (int i = 0; i < 100000; i++) {
+      stats.updateStats(random.nextBoolean() ? random.nextInt(10) : 10 + random.nextInt(9990));
+    }
+    return stats;
+  }
+}
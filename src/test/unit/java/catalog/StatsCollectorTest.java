@@ -0,0 +1,143 @@
+package catalog;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.writer.BinaryTupleWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import model.Tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StatsCollectorTest {
+
+  @TempDir Path tempDir;
+  private StatsCollector statsCollector;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Small A B\nLarge C\n");
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+
+    statsCollector = StatsCollector.getInstance();
+    statsCollector.setStatsDirectory(tempDir.toString());
+  }
+
+  @AfterEach
+  void tearDown() {
+    statsCollector.setStatsDirectory(null);
+  }
+
+  @Test
+  void testCollectStats() throws IOException {
+    writeSmallTable(0);
+
+    TableStats stats = DBCatalog.getInstance().getTableStats("Small");
+    assertEquals(100, stats.getNumTuples());
+    assertEquals(0, stats.getColumnStats("A").getMinValue());
+    assertEquals(99, stats.getColumnStats("A").getMaxValue());
+    assertEquals(-99, stats.getColumnStats("B").getMinValue());
+    assertEquals(0, stats.getColumnStats("B").getMaxValue());
+  }
+
+  @Test
+  void testStatsAreLoadedFromBinaryFile() throws IOException {
+    Path table = writeSmallTable(0);
+    statsCollector.getTableStats("Small");
+    statsCollector.flush();
+    assertTrue(Files.exists(tempDir.resolve("stats.bin")));
+
+    // same size and modification time, the table is not scanned again
+    FileTime lastModified = Files.getLastModifiedTime(table);
+    writeSmallTable(1000);
+    Files.setLastModifiedTime(table, lastModified);
+
+    statsCollector.clear();
+    assertEquals(99, statsCollector.getTableStats("Small").getColumnStats("A").getMaxValue());
+
+    // a new modification time invalidates the stats
+    Files.setLastModifiedTime(table, FileTime.fromMillis(lastModified.toMillis() + 1000));
+    assertEquals(1099, statsCollector.getTableStats("Small").getColumnStats("A").getMaxValue());
+  }
+
+  @Test
+  void testStatsCollectedOnDemandAreWrittenOnce() throws IOException {
+    Path table = writeSmallTable(0);
+    writeLargeTable();
+    Path statsFile = tempDir.resolve("stats.bin");
+
+    statsCollector.getTableStats("Small");
+    statsCollector.getTableStats("Large");
+    assertFalse(Files.exists(statsFile));
+
+    // one write holds both tables, a flush without new stats leaves the file alone
+    statsCollector.flush();
+    Files.setLastModifiedTime(statsFile, FileTime.fromMillis(0));
+    statsCollector.flush();
+    assertEquals(0, Files.getLastModifiedTime(statsFile).toMillis());
+
+    FileTime lastModified = Files.getLastModifiedTime(table);
+    writeSmallTable(1000);
+    Files.setLastModifiedTime(table, lastModified);
+    statsCollector.clear();
+
+    // both tables come from the file, so nothing is collected and written again
+    assertEquals(99, statsCollector.getTableStats("Small").getColumnStats("A").getMaxValue());
+    assertNotNull(statsCollector.getTableStats("Large").getColumnStats("C"));
+    statsCollector.flush();
+    assertEquals(0, Files.getLastModifiedTime(statsFile).toMillis());
+  }
+
+  @Test
+  void testCollectAllTables() throws IOException {
+    writeSmallTable(0);
+    writeLargeTable();
+
+    statsCollector.collectStats();
+    statsCollector.writeStats();
+
+    String statsText = Files.readString(tempDir.resolve("stats.txt"));
+    assertTrue(statsText.contains("Small 100 A,0,99 B,-99,0"), statsText);
+  }
+
+  @Test
+  void testLargeTableIsSampled() throws IOException {
+    int tupleCount = writeLargeTable();
+
+    TableStats stats = statsCollector.getTableStats("Large");
+    assertEquals(tupleCount, stats.getNumTuples());
+
+    // the sample sees values from all over the table
+    ColumnStats columnStats = stats.getColumnStats("C");
+    assertEquals(0, columnStats.getMinValue());
+    assertEquals(tupleCount - 1, columnStats.getMaxValue());
+  }
+
+  private Path writeSmallTable(int offset) {
+    Path path = tempDir.resolve("data/Small");
+    BinaryTupleWriter writer = new BinaryTupleWriter(path.toString(), 2);
+    for (int i = 0; i < 100; i++) {
+      writer.writeTuple(new Tuple(new int[] {i + offset, -i}));
+    }
+    writer.close();
+    return path;
+  }
+
+  /** Writes a table of more than SAMPLING_THRESHOLD_PAGES pages of increasing values. */
+  private int writeLargeTable() {
+    int tuplesPerPage = (4096 - 8) / 4;
+    int tupleCount = (StatsCollector.SAMPLING_THRESHOLD_PAGES + 100) * tuplesPerPage + 7;
+
+    BinaryTupleWriter writer = new BinaryTupleWriter(tempDir.resolve("data/Large").toString(), 1);
+    for (int i = 0; i < tupleCount; i++) {
+      writer.writeTuple(new Tuple(new int[] {i}));
+    }
+    writer.close();
+    return tupleCount;
+  }
+}
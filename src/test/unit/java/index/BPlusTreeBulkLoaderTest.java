@@ -0,0 +1,104 @@
+package index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import utils.DBConstants;
+
+class BPlusTreeBulkLoaderTest {
+
+  @TempDir Path tempDir;
+
+  @ParameterizedTest(name = "{0} keys at order {1}")
+  @CsvSource({"1, 2", "4, 2", "5, 2", "9, 2", "10, 2", "11, 2", "1000, 2", "1000, 15", "3, 1"})
+  void testLeavesFollowTheSplitRule(int keyCount, int order) throws IOException {
+    Path indexPath = tempDir.resolve("index");
+    try (FileChannel channel = new FileOutputStream(indexPath.toFile()).getChannel()) {
+      BPlusTreeBulkLoader loader =
+          new BPlusTreeBulkLoader(channel, ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE), order);
+      for (int key = 0; key < keyCount; key++) {
+        // key i has i % 3 + 1 record ids
+        for (int r = 0; r <= key % 3; r++) {
+          loader.add(key, key, r);
+        }
+      }
+      loader.finish();
+    }
+
+    try (FileChannel channel = new FileInputStream(indexPath.toFile()).getChannel()) {
+      ByteBuffer buffer = ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE);
+      BPlusTree tree = BPlusTree.deserialize(channel, buffer);
+
+      List<Integer> leafSizes = new ArrayList<>();
+      int expectedKey = 0;
+      for (BPlusTreeLeafNode leaf = tree.getFirstLeafNode(channel, buffer);
+          leaf != null;
+          leaf = tree.getNextLeafNode(channel, buffer, leaf)) {
+        leafSizes.add(leaf.getNumOfKeys());
+        for (int i = 0; i < leaf.getNumOfKeys(); i++) {
+          RecordEntry entry = leaf.getEntryAtIndex(i);
+          assertEquals(expectedKey, entry.getKey());
+          assertEquals(expectedKey % 3 + 1, entry.getNumOfRecordIds());
+          assertEquals(new RecordId(expectedKey, 0), entry.getRecordIdAtIndex(0));
+          expectedKey++;
+        }
+      }
+      assertEquals(keyCount, expectedKey);
+      assertEquals(expectedLeafSizes(keyCount, order), leafSizes);
+
+      for (int key = 0; key < keyCount; key += 7) {
+        BPlusTreeLeafNode leaf = tree.findLeafNodeByKey(channel, buffer, key);
+        assertEquals(key, leaf.getKeyAtIndex(leaf.findEntryIndexByKey(key)));
+      }
+    }
+  }
+
+  @Test
+  void testNothingIsWrittenWithoutRecordIds() throws IOException {
+    Path indexPath = tempDir.resolve("index");
+    try (FileChannel channel = new FileOutputStream(indexPath.toFile()).getChannel()) {
+      new BPlusTreeBulkLoader(channel, ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE), 2)
+          .finish();
+    }
+    assertEquals(0, Files.size(indexPath));
+  }
+
+  @Test
+  void testKeysMustAscend() throws IOException {
+    try (FileChannel channel =
+        new FileOutputStream(tempDir.resolve("index").toFile()).getChannel()) {
+      BPlusTreeBulkLoader loader =
+          new BPlusTreeBulkLoader(channel, ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE), 2);
+      loader.add(5, 0, 0);
+      assertThrows(IllegalArgumentException.class, () -> loader.add(4, 0, 1));
+    }
+  }
+
+  /** Leaf sizes of the bulk loading rule, computed over the whole key count at once. */
+  private static List<Integer> expectedLeafSizes(int keyCount, int order) {
+    List<Integer> sizes = new ArrayList<>();
+    int remaining = keyCount;
+    while (remaining > 0) {
+      if (remaining > 2 * order && remaining < 3 * order) {
+        sizes.add(remaining / 2);
+        remaining -= remaining / 2;
+      }
+      int size = Math.min(2 * order, remaining);
+      sizes.add(size);
+      remaining -= size;
+    }
+    return sizes;
+  }
+}
@@ -0,0 +1,94 @@
+package index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import catalog.DBCatalog;
+import config.IndexConfigManager;
+import config.IndexDefinition;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import utils.DBConstants;
+
+class BPlusTreeInnerNodesTest {
+
+  @TempDir Path tempDir;
+  private final IndexConfigManager indexConfigManager = IndexConfigManager.getInstance();
+  private IndexDefinition index;
+  private String indexPath;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Boats D E F\n");
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+
+    index = new IndexDefinition("Boats", "D", false, 2);
+    indexConfigManager.setIndexDir(tempDir.toString());
+    indexPath = indexConfigManager.getIndexFilePath(index);
+    writeIndex(3000);
+  }
+
+  @AfterEach
+  void tearDown() {
+    indexConfigManager.setIndexDir(null);
+  }
+
+  @Test
+  void testLookupsMatchTheIndexFile() throws IOException {
+    BPlusTreeInnerNodes innerNodes = indexConfigManager.getInnerNodes(index);
+
+    try (FileChannel channel = new FileInputStream(indexPath).getChannel()) {
+      ByteBuffer buffer = ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE);
+      BPlusTree tree = BPlusTree.deserialize(channel, buffer);
+      BPlusTree cachedTree = BPlusTree.open(indexPath, innerNodes);
+
+      assertEquals(tree.getRootAddress(), innerNodes.getRootAddress());
+      assertEquals(tree.getNumLeafNodes(), cachedTree.getNumLeafNodes());
+      for (int key = -10; key < 3010; key += 7) {
+        assertEquals(
+            tree.findLeafNodeByKey(channel, buffer, key).getAddress(),
+            innerNodes.findLeafAddressByKey(key));
+        assertEquals(
+            tree.findLeafNodeByKey(channel, buffer, key).getAddress(),
+            cachedTree.findLeafNodeByKey(channel, buffer, key).getAddress());
+      }
+    }
+  }
+
+  @Test
+  void testSharedUntilInvalidated() throws IOException {
+    BPlusTreeInnerNodes innerNodes = indexConfigManager.getInnerNodes(index);
+    assertSame(innerNodes, indexConfigManager.getInnerNodes(index));
+
+    writeIndex(100);
+    indexConfigManager.invalidateInnerNodes(index);
+    BPlusTreeInnerNodes rebuilt = indexConfigManager.getInnerNodes(index);
+
+    assertNotSame(innerNodes, rebuilt);
+    assertTrue(rebuilt.getNumLeafNodes() < innerNodes.getNumLeafNodes());
+  }
+
+  private void writeIndex(int keyCount) throws IOException {
+    List<Integer> keys = new ArrayList<>();
+    List<RecordId> recordIds = new ArrayList<>();
+    for (int i = 0; i < keyCount; i++) {
+      keys.add(i);
+      recordIds.add(new RecordId(i / 100, i % 100));
+    }
+    try (FileChannel channel = new FileOutputStream(indexPath).getChannel()) {
+      BPlusTree.buildAndSerializeBPlusTree(
+          channel, ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE), keys, recordIds, 2);
+    }
+  }
+}
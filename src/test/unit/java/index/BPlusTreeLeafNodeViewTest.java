@@ -0,0 +1,100 @@
+package index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import utils.DBConstants;
+
+class BPlusTreeLeafNodeViewTest {
+
+  @TempDir Path tempDir;
+  private FileChannel channel;
+  private ByteBuffer buffer;
+  private BPlusTree tree;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    // 5000 tuples over the even keys below 2000, so keys repeat and odd keys are missing
+    List<Integer> keys = new ArrayList<>();
+    List<RecordId> recordIds = new ArrayList<>();
+    Random random = new Random(0);
+    for (int i = 0; i < 5000; i++) {
+      keys.add(random.nextInt(1000) * 2);
+      recordIds.add(new RecordId(i / 100, i % 100));
+    }
+
+    Path path = tempDir.resolve("index");
+    try (FileChannel output = new FileOutputStream(path.toFile()).getChannel()) {
+      BPlusTree.buildAndSerializeBPlusTree(
+          output, ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE), keys, recordIds, 5);
+    }
+    channel = new FileInputStream(path.toFile()).getChannel();
+    buffer = ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE);
+    tree = BPlusTree.deserialize(channel, buffer);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    channel.close();
+  }
+
+  @Test
+  void testViewMatchesDeserializedLeaves() throws IOException {
+    BPlusTreeLeafNodeView view = new BPlusTreeLeafNodeView();
+    ByteBuffer nodeBuffer = ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE);
+
+    tree.getFirstLeaf(channel, buffer, view);
+    int leaves = 0;
+    do {
+      BPlusTreeLeafNode leaf = tree.loadLeafNode(channel, nodeBuffer, view.getAddress());
+      assertEquals(leaf.getNumOfKeys(), view.getNumOfKeys());
+      for (int i = 0; i < leaf.getNumOfKeys(); i++) {
+        RecordEntry entry = leaf.getEntryAtIndex(i);
+        assertEquals(entry.getKey(), view.getKeyAtIndex(i));
+        assertEquals(entry.getNumOfRecordIds(), view.getNumOfRecordIds(i));
+        for (int j = 0; j < entry.getNumOfRecordIds(); j++) {
+          RecordId recordId = entry.getRecordIdAtIndex(j);
+          assertEquals(recordId.pageNumber(), view.getPageNumber(i, j));
+          assertEquals(recordId.byteOffset(), view.getTupleNumber(i, j));
+        }
+      }
+      leaves++;
+    } while (tree.nextLeaf(channel, buffer, view));
+
+    assertEquals(tree.getNumLeafNodes(), leaves);
+  }
+
+  @Test
+  void testFindLeafByKey() throws IOException {
+    BPlusTreeLeafNodeView view = new BPlusTreeLeafNodeView();
+
+    for (int key = -1; key <= 2000; key++) {
+      BPlusTreeLeafNode leaf = tree.findLeafNodeByKey(channel, buffer, key);
+      tree.findLeafByKey(channel, buffer, key, view);
+
+      assertEquals(leaf.getAddress(), view.getAddress());
+      int index = view.findEntryIndexByKey(key);
+      assertEquals(leaf.findEntryIndexByKey(key), index);
+
+      // the entry found is the first one not below the key
+      if (index < view.getNumOfKeys()) {
+        assertTrue(view.getKeyAtIndex(index) >= key);
+      }
+      if (index > 0) {
+        assertTrue(view.getKeyAtIndex(index - 1) < key);
+      }
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import catalog.DBCatalog;
+import config.IndexConfigManager;
+import config.IndexDefinition;
+import io.cache.CacheFileManagerRegistry;
+import io.reader.BinaryTupleReader;
+import io.writer.BinaryTupleWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import model.Tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import utils.DBConstants;
+
+class IndexBuilderConcurrencyTest {
+
+  @TempDir Path tempDir;
+  private final IndexConfigManager indexConfigManager = IndexConfigManager.getInstance();
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Boats D E F\nSailors A B C\nReserves G H\n");
+    Files.writeString(
+        tempDir.resolve("index_info.txt"), "Boats E 0 2\nSailors A 1 3\nReserves G 0 4\n");
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+    indexConfigManager.loadConfig(tempDir.resolve("index_info.txt").toString());
+    CacheFileManagerRegistry.getInstance().setCacheDirectory(tempDir.resolve("tmp").toString());
+
+    Random random = new Random(3);
+    writeTable("Boats", 3, 4000, random);
+    writeTable("Sailors", 3, 3000, random);
+    writeTable("Reserves", 2, 5000, random);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    Files.writeString(tempDir.resolve("index_info.txt"), "");
+    indexConfigManager.loadConfig(tempDir.resolve("index_info.txt").toString());
+    indexConfigManager.setIndexDir(null);
+  }
+
+  @Test
+  void testConcurrentBuildMatchesSerialBuild() throws IOException {
+    Path concurrent = buildIndexes("concurrent", new IndexBuilder(1024, 4));
+    Path serial = buildIndexes("serial", new IndexBuilder(1, 1));
+
+    for (IndexDefinition index : indexConfigManager.getIndexConfigs()) {
+      String fileName = index.getRelation() + "." + index.getAttribute();
+      byte[] expected = buildReferenceIndex(index);
+      assertArrayEquals(expected, Files.readAllBytes(concurrent.resolve(fileName)), fileName);
+      assertArrayEquals(expected, Files.readAllBytes(serial.resolve(fileName)), fileName);
+    }
+    assertIsSorted("Sailors", 0);
+  }
+
+  private Path buildIndexes(String directory, IndexBuilder indexBuilder) throws IOException {
+    Path indexDir = Files.createDirectories(tempDir.resolve(directory));
+    indexConfigManager.setIndexDir(indexDir.toString());
+    indexBuilder.buildIndexes();
+    return indexDir;
+  }
+
+  /** Builds the index from the relation as it is now with the list based builder. */
+  private byte[] buildReferenceIndex(IndexDefinition index) throws IOException {
+    List<Integer> keys = new ArrayList<>();
+    List<RecordId> recordIds = new ArrayList<>();
+    try (FileChannel channel =
+        new FileInputStream(DBCatalog.getInstance().getTablePath(index.getRelation()))
+            .getChannel()) {
+      BinaryTupleReader reader = new BinaryTupleReader(channel);
+      while (true) {
+        RecordId recordId =
+            new RecordId(reader.getCurrentPageNumber(), reader.getCurrentTupleNumber());
+        Tuple tuple = reader.getNextTuple();
+        if (tuple == null) {
+          break;
+        }
+        keys.add(tuple.getInt(index.getAttributeIndex()));
+        recordIds.add(recordId);
+      }
+    }
+
+    Path referencePath = tempDir.resolve("reference");
+    try (FileChannel channel = new FileOutputStream(referencePath.toFile()).getChannel()) {
+      BPlusTree.buildAndSerializeBPlusTree(
+          channel,
+          ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE),
+          keys,
+          recordIds,
+          index.getOrder());
+    }
+    return Files.readAllBytes(referencePath);
+  }
+
+  private void assertIsSorted(String relation, int attributeIndex) throws IOException {
+    try (FileChannel channel =
+        new FileInputStream(DBCatalog.getInstance().getTablePath(relation)).getChannel()) {
+      List<Tuple> tuples = new BinaryTupleReader(channel).getAllTuples();
+      for (int i = 1; i < tuples.size(); i++) {
+        assertTrue(
+            tuples.get(i - 1).getInt(attributeIndex) <= tuples.get(i).getInt(attributeIndex));
+      }
+    }
+  }
+
+  private static void writeTable(String relation, int width, int size, Random random) {
+    BinaryTupleWriter writer =
+        new BinaryTupleWriter(DBCatalog.getInstance().getTablePath(relation), width);
+    for (int i = 0; i < size; i++) {
+      int[] values = new int[width];
+      for (int j = 0; j < width; j++) {
+        values[j] = random.nextInt(500);
+      }
+      writer.writeTuple(new Tuple(values));
+    }
+    writer.close();
+  }
+}
@@ -0,0 +1,217 @@
+package io.buffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BufferPoolTest {
+
+  @TempDir Path tempDir;
+  private BufferPool bufferPool;
+  private String path;
+  private FileChannel channel;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    bufferPool = BufferPool.getInstance();
+    bufferPool.setCapacity(2);
+    bufferPool.clear();
+    bufferPool.resetStatistics();
+
+    path = tempDir.resolve("table").toString();
+    writePages(path, 4, 0);
+    channel = new FileInputStream(path).getChannel();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    channel.close();
+    bufferPool.clear();
+    bufferPool.setCapacity(BufferPool.DEFAULT_CAPACITY);
+  }
+
+  @Test
+  void testHitsAndMisses() throws IOException {
+    assertEquals(0, readPage(0));
+    assertEquals(1, readPage(1));
+    assertEquals(0, readPage(0));
+    assertEquals(1, readPage(1));
+
+    assertEquals(2, bufferPool.getMissCount());
+    assertEquals(2, bufferPool.getHitCount());
+  }
+
+  @Test
+  void testClockEvictsUnreferencedPage() throws IOException {
+    readPage(0);
+    readPage(1);
+
+    // the hand clears both reference bits and evicts page 0
+    readPage(2);
+    assertEquals(3, bufferPool.getMissCount());
+
+    // page 0 was evicted, page 1 was kept
+    readPage(1);
+    assertEquals(1, bufferPool.getHitCount());
+    readPage(0);
+    assertEquals(4, bufferPool.getMissCount());
+  }
+
+  @Test
+  void testPinnedPageIsNotEvicted() throws IOException {
+    BufferPool.Page page = bufferPool.pin(path, channel, 0);
+
+    readPage(1);
+    readPage(2);
+    readPage(3);
+
+    assertEquals(0, page.getData().getInt(0), "Pinned page must keep its contents");
+    bufferPool.unpin(page);
+
+    readPage(0);
+    assertEquals(1, bufferPool.getHitCount());
+  }
+
+  @Test
+  void testAllFramesPinned() throws IOException {
+    BufferPool.Page first = bufferPool.pin(path, channel, 0);
+    BufferPool.Page second = bufferPool.pin(path, channel, 1);
+
+    assertThrows(IllegalStateException.class, () -> bufferPool.pin(path, channel, 2));
+
+    bufferPool.unpin(first);
+    bufferPool.unpin(second);
+    assertThrows(IllegalStateException.class, () -> bufferPool.unpin(first));
+  }
+
+  @Test
+  void testPastEndOfFile() throws IOException {
+    assertNull(bufferPool.pin(path, channel, 4));
+    assertFalse(bufferPool.readPage(path, channel, 4, ByteBuffer.allocate(BufferPool.PAGE_SIZE)));
+  }
+
+  @Test
+  void testInvalidate() throws IOException {
+    assertEquals(0, readPage(0));
+
+    writePages(path, 4, 100);
+    bufferPool.invalidate(path);
+
+    assertEquals(100, readPage(0), "Invalidated page must be read again");
+    assertEquals(2, bufferPool.getMissCount());
+  }
+
+  @Test
+  void testPathSpellingsShareCachedPages() throws IOException {
+    String dotted = tempDir.resolve("sub").resolve("..").resolve(".").resolve("table").toString();
+    String relative = Path.of("").toAbsolutePath().relativize(Path.of(path)).toString();
+
+    assertEquals(0, readPage(path, 0));
+
+    // each spelling resolves to the same page every time, also once its normalized path is cached
+    for (int i = 0; i < 2; i++) {
+      assertEquals(0, readPage(dotted, 0));
+      assertEquals(0, readPage(relative, 0));
+    }
+    assertEquals(1, bufferPool.getMissCount());
+    assertEquals(4, bufferPool.getHitCount());
+
+    writePages(path, 4, 100);
+    bufferPool.invalidate(dotted);
+    assertEquals(100, readPage(relative, 0), "Invalidated page must be read again");
+    assertEquals(2, bufferPool.getMissCount());
+  }
+
+  @Test
+  void testDisabledPool() throws IOException {
+    bufferPool.setCapacity(0);
+
+    assertEquals(2, readPage(2));
+    assertEquals(2, readPage(2));
+    assertEquals(0, bufferPool.getHitCount());
+    assertEquals(0, bufferPool.getMissCount());
+  }
+
+  @Test
+  void testMissReadsOutsideTheLock() throws Exception {
+    CountDownLatch readStarted = new CountDownLatch(1);
+    CountDownLatch releaseRead = new CountDownLatch(1);
+    FileChannel slowChannel = mock(FileChannel.class);
+    when(slowChannel.read(any(ByteBuffer.class), anyLong()))
+        .thenAnswer(
+            invocation -> {
+              readStarted.countDown();
+              releaseRead.await();
+              return channel.read(invocation.getArgument(0), invocation.getArgument(1));
+            });
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Integer> slowRead = executor.submit(() -> readPage(slowChannel, 0));
+      readStarted.await();
+
+      // another page is read while the read of page 0 is stuck
+      assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertEquals(1, readPage(1)));
+
+      // a second reader of page 0 waits for the first read instead of reading it again
+      Future<Integer> waitingRead = executor.submit(() -> readPage(slowChannel, 0));
+      releaseRead.countDown();
+      assertEquals(0, slowRead.get());
+      assertEquals(0, waitingRead.get());
+      assertEquals(2, bufferPool.getMissCount());
+      assertEquals(1, bufferPool.getHitCount());
+    } finally {
+      releaseRead.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  private int readPage(int pageNumber) throws IOException {
+    return readPage(channel, pageNumber);
+  }
+
+  private int readPage(FileChannel pageChannel, int pageNumber) throws IOException {
+    return readPage(path, pageChannel, pageNumber);
+  }
+
+  private int readPage(String pagePath, int pageNumber) throws IOException {
+    return readPage(pagePath, channel, pageNumber);
+  }
+
+  private int readPage(String pagePath, FileChannel pageChannel, int pageNumber)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(BufferPool.PAGE_SIZE);
+    assertTrue(bufferPool.readPage(pagePath, pageChannel, pageNumber, buffer));
+    return buffer.getInt(0);
+  }
+
+  /** Writes pages whose first int is the page number plus an offset. */
+  private static void writePages(String path, int pageCount, int offset) throws IOException {
+    try (FileChannel output = new FileOutputStream(path).getChannel()) {
+      ByteBuffer buffer = ByteBuffer.allocate(BufferPool.PAGE_SIZE);
+      for (int i = 0; i < pageCount; i++) {
+        buffer.clear();
+        buffer.putInt(0, i + offset);
+        output.write(buffer);
+      }
+    }
+  }
+}
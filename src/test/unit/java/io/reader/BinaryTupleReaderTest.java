@@ -209,4 +209,23 @@ class BinaryTupleReaderTest {
 
     assertSame(channel, reader.getFileChannel(), "FileChannel should be the same instance");
   }
+
+  // Test that a file ending with a full page does not read past the end
+  @Test
+  void testFullLastPage() throws IOException {
+    int tupleSize = 3;
+    int tuplesPerPage = (4096 - 8) / (4 * tupleSize);
+
+    BinaryTupleWriter writer = new BinaryTupleWriter(tempFile.toString(), tupleSize);
+    for (int i = 0; i < 2 * tuplesPerPage; i++) {
+      writer.writeTuple(new Tuple(i + "," + (i + 1) + "," + (i + 2)));
+    }
+    writer.close();
+
+    channel = new FileInputStream(tempFile.toString()).getChannel();
+    reader = new BinaryTupleReader(channel);
+
+    assertEquals(2 * tuplesPerPage, reader.getAllTuples().size(), "Should read every tuple once");
+    assertNull(reader.getNextTuple(), "Should return null after the last full page");
+  }
 }
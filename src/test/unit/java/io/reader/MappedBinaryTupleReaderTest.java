@@ -0,0 +1,92 @@
+package io.reader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.writer.BinaryTupleWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import model.Tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedBinaryTupleReaderTest {
+
+  private static final int TUPLE_SIZE = 3;
+  private static final int TUPLES_PER_PAGE = (4096 - 8) / (4 * TUPLE_SIZE);
+
+  @TempDir Path tempDir;
+  private FileChannel channel;
+
+  @AfterEach
+  void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  @Test
+  void testEmptyFile() throws IOException {
+    writeTuples(0);
+    MappedBinaryTupleReader reader = openReader();
+
+    assertNull(reader.getNextTuple(), "Empty file should return null on first read");
+  }
+
+  @Test
+  void testMatchesBufferedReader() throws IOException {
+    for (int count : new int[] {5, TUPLES_PER_PAGE, 2 * TUPLES_PER_PAGE + 7}) {
+      List<Tuple> tuples = writeTuples(count);
+      MappedBinaryTupleReader reader = openReader();
+
+      assertEquals(tuples, reader.getAllTuples(), "Should read all " + count + " tuples");
+      assertNull(reader.getNextTuple(), "Should return null after the last tuple");
+      channel.close();
+    }
+  }
+
+  @Test
+  void testSeekAndReset() throws IOException {
+    List<Tuple> tuples = writeTuples(3 * TUPLES_PER_PAGE);
+    MappedBinaryTupleReader reader = openReader();
+
+    reader.seek(2, 5);
+    assertEquals(2, reader.getCurrentPageNumber());
+    assertEquals(5, reader.getCurrentTupleNumber());
+    assertEquals(tuples.get(2 * TUPLES_PER_PAGE + 5), reader.getNextTuple());
+
+    // seeking within the same page and back to an earlier page
+    reader.seek(2, 1);
+    assertEquals(tuples.get(2 * TUPLES_PER_PAGE + 1), reader.getNextTuple());
+    reader.seek(0, 3);
+    assertEquals(tuples.get(3), reader.getNextTuple());
+
+    reader.reset(TUPLES_PER_PAGE + 2);
+    assertEquals(tuples.get(TUPLES_PER_PAGE + 2), reader.getNextTuple());
+
+    reader.reset();
+    assertEquals(tuples, reader.getAllTuples(), "Should read every tuple after reset");
+  }
+
+  private List<Tuple> writeTuples(int count) {
+    String path = tempDir.resolve("relation").toString();
+    List<Tuple> tuples = new ArrayList<>();
+    BinaryTupleWriter writer = new BinaryTupleWriter(path, TUPLE_SIZE);
+    for (int i = 0; i < count; i++) {
+      Tuple tuple = new Tuple(new int[] {i, i * 2, -i});
+      writer.writeTuple(tuple);
+      tuples.add(tuple);
+    }
+    writer.close();
+    return tuples;
+  }
+
+  private MappedBinaryTupleReader openReader() throws IOException {
+    channel = new FileInputStream(tempDir.resolve("relation").toString()).getChannel();
+    return new MappedBinaryTupleReader(channel);
+  }
+}
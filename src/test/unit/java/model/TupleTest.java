@@ -0,0 +1,69 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TupleTest {
+
+  @Test
+  void testWidth() {
+    assertEquals(3, new Tuple(new int[] {1, 2, 3}).width());
+    assertEquals(2, new Tuple("4,5").width());
+    assertEquals(0, new Tuple(new int[0]).width());
+    assertEquals(5, new Tuple(new int[] {1, 2, 3}).append(new Tuple("4,5")).width());
+  }
+
+  @Test
+  void testGetIntAcrossTheAppendedSides() {
+    Tuple tuple = new Tuple(new int[] {1, 2, 3}).append(new Tuple(new int[] {4, 5}));
+
+    // the last attribute of the left side and the first of the right side
+    assertEquals(3, tuple.getInt(2));
+    assertEquals(4, tuple.getInt(3));
+    assertArrayEquals(new int[] {1, 2, 3, 4, 5}, tuple.toArray());
+    assertEquals(List.of(1, 2, 3, 4, 5), tuple.getAllElements());
+  }
+
+  @Test
+  void testAppendOfAppendedTuples() {
+    Tuple left = new Tuple(new int[] {1, 2}).append(new Tuple(new int[] {3}));
+    Tuple right = new Tuple(new int[] {4}).append(new Tuple(new int[] {5, 6}));
+
+    Tuple tuple = left.append(right);
+    assertEquals(6, tuple.width());
+    for (int i = 0; i < 6; i++) {
+      assertEquals(i + 1, tuple.getInt(i));
+    }
+
+    // a view appended on either side works the same
+    assertEquals(tuple, left.append(new Tuple(new int[] {4, 5, 6})));
+    assertEquals(tuple, new Tuple(new int[] {1, 2, 3}).append(right));
+  }
+
+  @Test
+  void testEqualsAndHashCodeAcrossLayouts() {
+    Tuple flat = new Tuple(new int[] {1, 2, 3});
+    Tuple view = new Tuple(new int[] {1}).append(new Tuple(new int[] {2, 3}));
+    Tuple otherSplit = new Tuple(new int[] {1, 2}).append(new Tuple(new int[] {3}));
+
+    assertEquals(flat, view);
+    assertEquals(view, flat);
+    assertEquals(view, otherSplit);
+    assertEquals(flat.hashCode(), view.hashCode());
+    assertEquals(flat.hashCode(), otherSplit.hashCode());
+    assertEquals(List.of(1, 2, 3).hashCode(), flat.hashCode());
+
+    assertNotEquals(flat, new Tuple(new int[] {1, 2}).append(new Tuple(new int[] {4})));
+    assertNotEquals(view, new Tuple(new int[] {1, 2}));
+    assertNotEquals(flat, null);
+  }
+
+  @Test
+  void testToString() {
+    assertEquals("1,2,3", new Tuple("1,2,3").toString());
+    assertEquals("1,-2,3", new Tuple(new int[] {1}).append(new Tuple("-2,3")).toString());
+    assertEquals("", new Tuple(new int[0]).toString());
+  }
+}
@@ -0,0 +1,110 @@
+package physicaloperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.cache.CacheFileManagerRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import model.Tuple;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class HashDuplicateEliminationOperatorTest {
+
+  private List<Column> schema;
+
+  @BeforeEach
+  void setUp() {
+    CacheFileManagerRegistry.getInstance().setCacheDirectory("tempDir");
+
+    Table sailors = new Table("Sailors");
+    schema =
+        Arrays.asList(new Column(sailors, "A"), new Column(sailors, "B"), new Column(sailors, "C"));
+  }
+
+  @Test
+  void testInMemoryKeepsFirstSeenOrder() {
+    List<Tuple> input =
+        Arrays.asList(
+            new Tuple("3,1,1"),
+            new Tuple("1,2,3"),
+            new Tuple("3,1,1"),
+            new Tuple("1,2,4"),
+            new Tuple("1,2,3"));
+
+    HashDuplicateEliminationOperator operator =
+        new HashDuplicateEliminationOperator(mockOperator(input), 10);
+
+    List<Tuple> expected =
+        Arrays.asList(new Tuple("3,1,1"), new Tuple("1,2,3"), new Tuple("1,2,4"));
+    assertEquals(expected, collect(operator));
+
+    operator.reset();
+    assertEquals(expected, collect(operator));
+  }
+
+  @ParameterizedTest(name = "Spilling with {0} buffer pages")
+  @ValueSource(ints = {2, 3, 10, 1000})
+  void testSpillingMatchesSet(int bufferPages) {
+    Random random = new Random(bufferPages);
+    List<Tuple> input = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      input.add(new Tuple(new int[] {random.nextInt(50), random.nextInt(50), random.nextInt(4)}));
+    }
+
+    HashDuplicateEliminationOperator operator =
+        new HashDuplicateEliminationOperator(mockOperator(input), bufferPages);
+
+    List<Tuple> output = collect(operator);
+    assertEquals(new HashSet<>(input), new HashSet<>(output));
+    assertEquals(new LinkedHashSet<>(input).size(), output.size());
+
+    // reset deduplicates the child again
+    operator.reset();
+    assertEquals(output.size(), collect(operator).size());
+  }
+
+  private PhysicalOperator mockOperator(List<Tuple> tuples) {
+    PhysicalOperator operator = mock(PhysicalOperator.class);
+    when(operator.getOutputSchema()).thenReturn(new ArrayList<>(schema));
+
+    int[] position = {0};
+    when(operator.getNextTuple())
+        .thenAnswer(invocation -> position[0] < tuples.size() ? tuples.get(position[0]++) : null);
+    doAnswer(
+            invocation -> {
+              position[0] = 0;
+              return null;
+            })
+        .when(operator)
+        .reset();
+    return operator;
+  }
+
+  private static List<Tuple> collect(PhysicalOperator operator) {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = operator.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  @AfterAll
+  static void cleanup() throws IOException {
+    CacheFileManagerRegistry.getInstance().cleanupAll();
+  }
+}
@@ -0,0 +1,85 @@
+package physicaloperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import model.Tuple;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import org.junit.jupiter.api.Test;
+
+class LimitOperatorTest {
+
+  private final List<Tuple> input =
+      List.of(new Tuple("1"), new Tuple("2"), new Tuple("3"), new Tuple("4"), new Tuple("5"));
+
+  @Test
+  void testStopsReadingAtTheLimit() {
+    PhysicalOperator child = mockOperator(input);
+    LimitOperator operator = new LimitOperator(child, 2, 1);
+
+    assertEquals(List.of(new Tuple("2"), new Tuple("3")), collect(operator));
+    verify(child, times(3)).getNextTuple();
+    verify(child).close();
+
+    operator.reset();
+    assertEquals(List.of(new Tuple("2"), new Tuple("3")), collect(operator));
+    verify(child, times(2)).close();
+  }
+
+  @Test
+  void testOffsetOnly() {
+    LimitOperator operator = new LimitOperator(mockOperator(input), Long.MAX_VALUE, 3);
+    assertEquals(List.of(new Tuple("4"), new Tuple("5")), collect(operator));
+  }
+
+  @Test
+  void testZeroLimitClosesTheChild() {
+    PhysicalOperator child = mockOperator(input);
+    LimitOperator operator = new LimitOperator(child, 0, 0);
+
+    assertEquals(List.of(), collect(operator));
+    verify(child, never()).getNextTuple();
+    verify(child).close();
+  }
+
+  @Test
+  void testOffsetBeyondInput() {
+    LimitOperator operator = new LimitOperator(mockOperator(input), 10, 7);
+    assertEquals(List.of(), collect(operator));
+  }
+
+  private static PhysicalOperator mockOperator(List<Tuple> tuples) {
+    PhysicalOperator operator = mock(PhysicalOperator.class);
+    when(operator.getOutputSchema())
+        .thenReturn(new ArrayList<>(List.of(new Column(new Table("test"), "col1"))));
+
+    int[] position = {0};
+    when(operator.getNextTuple())
+        .thenAnswer(invocation -> position[0] < tuples.size() ? tuples.get(position[0]++) : null);
+    doAnswer(
+            invocation -> {
+              position[0] = 0;
+              return null;
+            })
+        .when(operator)
+        .reset();
+    return operator;
+  }
+
+  private static List<Tuple> collect(PhysicalOperator operator) {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = operator.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+}
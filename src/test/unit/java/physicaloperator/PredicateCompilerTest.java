@@ -0,0 +1,116 @@
+package physicaloperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.Tuple;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PredicateCompilerTest {
+
+  private List<Column> sailors;
+  private List<Column> reserves;
+
+  @BeforeEach
+  void setUp() {
+    Table sailorsTable = new Table("Sailors");
+    sailors =
+        Arrays.asList(
+            new Column(sailorsTable, "A"),
+            new Column(sailorsTable, "B"),
+            new Column(sailorsTable, "C"));
+
+    Table reservesTable = new Table("Reserves");
+    reserves = Arrays.asList(new Column(reservesTable, "G"), new Column(reservesTable, "H"));
+  }
+
+  @Test
+  void testColumnConstantComparisons() throws Exception {
+    Tuple tuple = new Tuple("10,20,30");
+
+    assertTrue(compile("Sailors.A = 10").test(tuple));
+    assertFalse(compile("Sailors.A <> 10").test(tuple));
+    assertTrue(compile("Sailors.B > 19").test(tuple));
+    assertFalse(compile("Sailors.B >= 21").test(tuple));
+    assertTrue(compile("Sailors.C < 31").test(tuple));
+    assertFalse(compile("Sailors.C <= 29").test(tuple));
+  }
+
+  @Test
+  void testConstantOnTheLeftIsFlipped() throws Exception {
+    Tuple tuple = new Tuple("10,20,30");
+
+    assertTrue(compile("25 > Sailors.B").test(tuple));
+    assertFalse(compile("25 < Sailors.B").test(tuple));
+    assertTrue(compile("20 <= Sailors.B").test(tuple));
+  }
+
+  @Test
+  void testColumnColumnAndConjunction() throws Exception {
+    Tuple tuple = new Tuple("10,20,30");
+
+    assertTrue(compile("Sailors.B >= Sailors.A AND Sailors.C > Sailors.B").test(tuple));
+    assertFalse(compile("Sailors.B >= Sailors.A AND Sailors.B < Sailors.A").test(tuple));
+  }
+
+  @Test
+  void testConstantComparisonsAreFolded() throws Exception {
+    assertTrue(compile("1 < 2").test(null));
+    assertFalse(compile("1 = 2").test(null));
+    assertFalse(compile("Sailors.A = 10 AND 1 = 2").test(new Tuple("10,20,30")));
+  }
+
+  @Test
+  void testJoinPredicateReadsBothSides() throws Exception {
+    Expression expression = CCJSqlParserUtil.parseCondExpression("Sailors.A = Reserves.G");
+    CompiledPredicate predicate = PredicateCompiler.compile(expression, sailors, reserves);
+
+    Tuple sailor = new Tuple("1,200,50");
+    assertTrue(predicate.test(sailor, new Tuple("1,101")));
+    assertFalse(predicate.test(sailor, new Tuple("2,101")));
+  }
+
+  @Test
+  void testMatchesEvaluator() throws Exception {
+    String[] conditions = {
+      "Sailors.A = Reserves.G AND Sailors.B < 150",
+      "Sailors.C >= Reserves.H",
+      "Reserves.H <> 101 AND 3 > Sailors.A"
+    };
+    List<Tuple> sailorTuples = Arrays.asList(new Tuple("1,200,50"), new Tuple("2,100,102"));
+    List<Tuple> reserveTuples = Arrays.asList(new Tuple("1,101"), new Tuple("2,50"));
+
+    ArrayList<Column> combinedSchema = new ArrayList<>(sailors);
+    combinedSchema.addAll(reserves);
+    QueryConditionContext context = new QueryConditionContext(combinedSchema);
+    QueryConditionEvaluator evaluator = new QueryConditionEvaluator();
+
+    for (String condition : conditions) {
+      Expression expression = CCJSqlParserUtil.parseCondExpression(condition);
+      CompiledPredicate predicate = PredicateCompiler.compile(expression, sailors, reserves);
+
+      for (Tuple sailor : sailorTuples) {
+        for (Tuple reserve : reserveTuples) {
+          context.setContext(sailor.append(reserve));
+          assertEquals(
+              expression.accept(evaluator, context),
+              predicate.test(sailor, reserve),
+              condition + " on " + sailor + " and " + reserve);
+        }
+      }
+    }
+  }
+
+  private CompiledPredicate compile(String condition) throws Exception {
+    return PredicateCompiler.compile(CCJSqlParserUtil.parseCondExpression(condition), sailors);
+  }
+}
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import model.Tuple;
+import model.TupleBatch;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
 import net.sf.jsqlparser.schema.Column;
@@ -151,4 +152,32 @@ class SelectOperatorTest {
     resultTuple = selectOperator.getNextTuple();
     assertNull(resultTuple, "Expected no more tuples after reset");
   }
+
+  /** Tests that getNextBatch filters a whole child batch at once. */
+  @Test
+  void testSelectOperatorGetNextBatch() throws Exception {
+    // Create a child batch with one matching tuple in the middle
+    TupleBatch inputBatch = new TupleBatch();
+    inputBatch.add(new Tuple(new ArrayList<>(Arrays.asList(1, 25, 50000))));
+    inputBatch.add(new Tuple(new ArrayList<>(Arrays.asList(3, 35, 70000))));
+    inputBatch.add(new Tuple(new ArrayList<>(Arrays.asList(2, 30, 60000))));
+
+    // Mock the input operator to return the batch and then null
+    when(inputOperator.getNextBatch()).thenReturn(inputBatch).thenReturn(null);
+
+    // Parse the expression
+    expression = CCJSqlParserUtil.parseCondExpression("Employees.salary > 60000");
+
+    // Initialize the SelectOperator
+    selectOperator = new SelectOperator(inputOperator, expression);
+
+    // Only the matching tuple should be in the batch
+    TupleBatch resultBatch = selectOperator.getNextBatch();
+    assertNotNull(resultBatch, "Expected a batch but got null");
+    assertEquals(1, resultBatch.size(), "Expected one tuple in the batch");
+    assertEquals(3, resultBatch.get(0).getInt(0), "Expected id to be 3");
+
+    // No more batches
+    assertNull(selectOperator.getNextBatch(), "Expected no more batches");
+  }
 }
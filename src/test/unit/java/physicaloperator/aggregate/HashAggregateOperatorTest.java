@@ -0,0 +1,186 @@
+package physicaloperator.aggregate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.cache.CacheFileManagerRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import model.Tuple;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import physicaloperator.PhysicalOperator;
+
+class HashAggregateOperatorTest {
+
+  private List<Column> schema;
+  private List<Function> functions;
+  private List<Column> aggregateColumns;
+
+  @BeforeEach
+  void setUp() throws JSQLParserException {
+    CacheFileManagerRegistry.getInstance().setCacheDirectory("tempDir");
+
+    Table sailors = new Table("Sailors");
+    schema =
+        Arrays.asList(new Column(sailors, "A"), new Column(sailors, "B"), new Column(sailors, "C"));
+    functions = new ArrayList<>();
+    aggregateColumns = new ArrayList<>();
+    for (String function :
+        List.of(
+            "COUNT(*)", "SUM(Sailors.C)", "MIN(Sailors.C)", "MAX(Sailors.C)", "AVG(Sailors.C)")) {
+      functions.add((Function) CCJSqlParserUtil.parseExpression(function));
+      aggregateColumns.add(new Column(function));
+    }
+  }
+
+  @Test
+  void testGroupsInFirstSeenOrder() {
+    List<Tuple> input =
+        Arrays.asList(
+            new Tuple("2,0,5"),
+            new Tuple("1,0,3"),
+            new Tuple("2,0,-1"),
+            new Tuple("1,0,4"),
+            new Tuple("2,0,2"));
+
+    HashAggregateOperator operator =
+        new HashAggregateOperator(
+            mockOperator(input), List.of(schema.get(0)), functions, aggregateColumns, 10);
+
+    List<Tuple> expected = Arrays.asList(new Tuple("2,3,6,-1,5,2"), new Tuple("1,2,7,3,4,3"));
+    assertEquals(expected, collect(operator));
+    assertEquals(6, operator.getOutputSchema().size());
+
+    operator.reset();
+    assertEquals(expected, collect(operator));
+  }
+
+  @Test
+  void testNoGroupByColumnsOnEmptyInput() {
+    HashAggregateOperator operator =
+        new HashAggregateOperator(
+            mockOperator(List.of()), List.of(), functions, aggregateColumns, 10);
+
+    assertEquals(List.of(new Tuple("0,0,0,0,0")), collect(operator));
+  }
+
+  @ParameterizedTest(name = "Spilling with {0} buffer pages")
+  @ValueSource(ints = {2, 3, 10, 1000})
+  void testSpillingMatchesReference(int bufferPages) {
+    Random random = new Random(bufferPages);
+    List<Tuple> input = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      input.add(
+          new Tuple(new int[] {random.nextInt(200), random.nextInt(40), random.nextInt(1000)}));
+    }
+
+    HashAggregateOperator operator =
+        new HashAggregateOperator(
+            mockOperator(input),
+            List.of(schema.get(0), schema.get(1)),
+            functions,
+            aggregateColumns,
+            bufferPages);
+
+    List<Tuple> output = collect(operator);
+    assertEquals(new HashSet<>(reference(input)), new HashSet<>(output));
+    assertEquals(reference(input).size(), output.size());
+
+    // reset aggregates the child again
+    operator.reset();
+    assertEquals(output.size(), collect(operator).size());
+  }
+
+  @Test
+  void testRejectsUnsupportedFunctions() throws JSQLParserException {
+    Function function = (Function) CCJSqlParserUtil.parseExpression("MEDIAN(Sailors.C)");
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new HashAggregateOperator(
+                mockOperator(List.of()),
+                List.of(schema.get(0)),
+                List.of(function),
+                List.of(new Column("m")),
+                10));
+  }
+
+  /** Aggregates the input grouped on its first two columns. */
+  private static List<Tuple> reference(List<Tuple> input) {
+    Map<List<Integer>, List<Integer>> groups = new HashMap<>();
+    for (Tuple tuple : input) {
+      groups
+          .computeIfAbsent(List.of(tuple.getInt(0), tuple.getInt(1)), key -> new ArrayList<>())
+          .add(tuple.getInt(2));
+    }
+
+    List<Tuple> output = new ArrayList<>();
+    groups.forEach(
+        (key, values) -> {
+          long sum = values.stream().mapToLong(Integer::longValue).sum();
+          int min = values.stream().mapToInt(Integer::intValue).min().orElseThrow();
+          int max = values.stream().mapToInt(Integer::intValue).max().orElseThrow();
+          output.add(
+              new Tuple(
+                  new int[] {
+                    key.get(0),
+                    key.get(1),
+                    values.size(),
+                    (int) sum,
+                    min,
+                    max,
+                    (int) (sum / values.size())
+                  }));
+        });
+    return output;
+  }
+
+  private PhysicalOperator mockOperator(List<Tuple> tuples) {
+    PhysicalOperator operator = mock(PhysicalOperator.class);
+    when(operator.getOutputSchema()).thenReturn(new ArrayList<>(schema));
+
+    int[] position = {0};
+    when(operator.getNextTuple())
+        .thenAnswer(invocation -> position[0] < tuples.size() ? tuples.get(position[0]++) : null);
+    doAnswer(
+            invocation -> {
+              position[0] = 0;
+              return null;
+            })
+        .when(operator)
+        .reset();
+    return operator;
+  }
+
+  private static List<Tuple> collect(PhysicalOperator operator) {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = operator.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  @AfterAll
+  static void cleanup() throws IOException {
+    CacheFileManagerRegistry.getInstance().cleanupAll();
+  }
+}
@@ -0,0 +1,108 @@
+package physicaloperator.aggregate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.Tuple;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import physicaloperator.PhysicalOperator;
+
+class SortAggregateOperatorTest {
+
+  private List<Column> schema;
+  private List<Function> functions;
+  private List<Column> aggregateColumns;
+
+  @BeforeEach
+  void setUp() throws JSQLParserException {
+    Table sailors = new Table("Sailors");
+    schema =
+        Arrays.asList(new Column(sailors, "A"), new Column(sailors, "B"), new Column(sailors, "C"));
+    functions = new ArrayList<>();
+    aggregateColumns = new ArrayList<>();
+    for (String function : List.of("count(Sailors.B)", "SUM(Sailors.C)", "AVG(Sailors.C)")) {
+      functions.add((Function) CCJSqlParserUtil.parseExpression(function));
+      aggregateColumns.add(new Column(function));
+    }
+  }
+
+  @Test
+  void testAggregatesAdjacentGroups() {
+    List<Tuple> input =
+        Arrays.asList(
+            new Tuple("1,0,3"),
+            new Tuple("1,1,4"),
+            new Tuple("2,0,-7"),
+            new Tuple("2,1,2"),
+            new Tuple("3,5,5"));
+
+    SortAggregateOperator operator =
+        new SortAggregateOperator(
+            mockOperator(input), List.of(schema.get(0)), functions, aggregateColumns);
+
+    List<Tuple> expected =
+        Arrays.asList(new Tuple("1,2,7,3"), new Tuple("2,2,-5,-2"), new Tuple("3,1,5,5"));
+    assertEquals(expected, collect(operator));
+
+    operator.reset();
+    assertEquals(expected, collect(operator));
+  }
+
+  @Test
+  void testNoGroupByColumns() {
+    List<Tuple> input = Arrays.asList(new Tuple("1,0,3"), new Tuple("2,1,4"));
+
+    SortAggregateOperator operator =
+        new SortAggregateOperator(mockOperator(input), List.of(), functions, aggregateColumns);
+    assertEquals(List.of(new Tuple("2,7,3")), collect(operator));
+
+    SortAggregateOperator empty =
+        new SortAggregateOperator(mockOperator(List.of()), List.of(), functions, aggregateColumns);
+    assertEquals(List.of(new Tuple("0,0,0")), collect(empty));
+  }
+
+  @Test
+  void testNoGroupsOnEmptyInput() {
+    SortAggregateOperator operator =
+        new SortAggregateOperator(
+            mockOperator(List.of()), List.of(schema.get(0)), functions, aggregateColumns);
+    assertEquals(List.of(), collect(operator));
+  }
+
+  private PhysicalOperator mockOperator(List<Tuple> tuples) {
+    PhysicalOperator operator = mock(PhysicalOperator.class);
+    when(operator.getOutputSchema()).thenReturn(new ArrayList<>(schema));
+
+    int[] position = {0};
+    when(operator.getNextTuple())
+        .thenAnswer(invocation -> position[0] < tuples.size() ? tuples.get(position[0]++) : null);
+    doAnswer(
+            invocation -> {
+              position[0] = 0;
+              return null;
+            })
+        .when(operator)
+        .reset();
+    return operator;
+  }
+
+  private static List<Tuple> collect(PhysicalOperator operator) {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = operator.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+}
@@ -0,0 +1,186 @@
+package physicaloperator.join;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.cache.CacheFileManagerRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import model.Tuple;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import physicaloperator.PhysicalOperator;
+
+class HashJoinOperatorTest {
+
+  private List<Column> leftSchema;
+  private List<Column> rightSchema;
+
+  @BeforeEach
+  void setUp() {
+    CacheFileManagerRegistry.getInstance().setCacheDirectory("tempDir");
+
+    Table sailors = new Table("Sailors");
+    leftSchema =
+        Arrays.asList(new Column(sailors, "A"), new Column(sailors, "B"), new Column(sailors, "C"));
+
+    Table reserves = new Table("Reserves");
+    rightSchema = Arrays.asList(new Column(reserves, "G"), new Column(reserves, "H"));
+  }
+
+  @Test
+  void testInMemoryJoin() {
+    List<Tuple> left =
+        Arrays.asList(new Tuple("1,200,50"), new Tuple("2,200,200"), new Tuple("3,100,105"));
+    List<Tuple> right = Arrays.asList(new Tuple("1,101"), new Tuple("1,102"), new Tuple("3,102"));
+
+    HashJoinOperator operator = buildJoin(left, right, new int[] {0}, new int[] {0}, 10);
+
+    List<Tuple> expected =
+        Arrays.asList(
+            new Tuple("1,200,50,1,101"), new Tuple("1,200,50,1,102"), new Tuple("3,100,105,3,102"));
+    assertEquals(expected, collect(operator));
+
+    // reset probes the same hash table again
+    operator.reset();
+    assertEquals(expected, collect(operator));
+  }
+
+  @Test
+  void testMultipleKeyColumns() {
+    List<Tuple> left = Arrays.asList(new Tuple("1,2,3"), new Tuple("1,3,3"), new Tuple("2,2,2"));
+    List<Tuple> right = Arrays.asList(new Tuple("1,2"), new Tuple("2,2"), new Tuple("1,3"));
+
+    HashJoinOperator operator = buildJoin(left, right, new int[] {0, 1}, new int[] {0, 1}, 10);
+
+    List<Tuple> expected =
+        Arrays.asList(new Tuple("1,2,3,1,2"), new Tuple("1,3,3,1,3"), new Tuple("2,2,2,2,2"));
+    assertEquals(expected, collect(operator));
+  }
+
+  @ParameterizedTest(name = "Spilling join with {0} buffer pages")
+  @ValueSource(ints = {3, 4, 10})
+  void testSpillingJoinMatchesNestedLoop(int bufferPages) {
+    Random random = new Random(42);
+    List<Tuple> left = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      left.add(new Tuple(new int[] {random.nextInt(500), random.nextInt(100), i}));
+    }
+    List<Tuple> right = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      right.add(new Tuple(new int[] {random.nextInt(500), i}));
+    }
+
+    HashJoinOperator operator = buildJoin(left, right, new int[] {0}, new int[] {0}, bufferPages);
+
+    Map<Tuple, Integer> expected = countNestedLoopJoin(left, right);
+    assertEquals(expected, count(collect(operator)));
+
+    // reset replays the partitions
+    operator.reset();
+    assertEquals(expected, count(collect(operator)));
+  }
+
+  @Test
+  void testSkewedKeysDoNotRepartitionForever() {
+    // every tuple has the same key, so no partitioning can split the build side
+    List<Tuple> left = new ArrayList<>();
+    List<Tuple> right = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      left.add(new Tuple(new int[] {7, i, i}));
+      right.add(new Tuple(new int[] {i < 10 ? 7 : 8, i}));
+    }
+
+    HashJoinOperator operator = buildJoin(left, right, new int[] {0}, new int[] {0}, 3);
+
+    assertEquals(countNestedLoopJoin(left, right), count(collect(operator)));
+  }
+
+  private HashJoinOperator buildJoin(
+      List<Tuple> left, List<Tuple> right, int[] leftKeys, int[] rightKeys, int bufferPages) {
+    PhysicalOperator leftOperator = mockOperator(leftSchema, left);
+    PhysicalOperator rightOperator = mockOperator(rightSchema, right);
+
+    JoinTupleComparator keyComparator =
+        new JoinTupleComparator(
+            leftSchema,
+            orderBy(leftSchema, leftKeys),
+            rightSchema,
+            orderBy(rightSchema, rightKeys));
+    return new HashJoinOperator(leftOperator, rightOperator, keyComparator, bufferPages);
+  }
+
+  private static PhysicalOperator mockOperator(List<Column> schema, List<Tuple> tuples) {
+    PhysicalOperator operator = mock(PhysicalOperator.class);
+    when(operator.getOutputSchema()).thenReturn(new ArrayList<>(schema));
+
+    int[] position = {0};
+    when(operator.getNextTuple())
+        .thenAnswer(invocation -> position[0] < tuples.size() ? tuples.get(position[0]++) : null);
+    doAnswer(
+            invocation -> {
+              position[0] = 0;
+              return null;
+            })
+        .when(operator)
+        .reset();
+    return operator;
+  }
+
+  private static List<OrderByElement> orderBy(List<Column> schema, int[] indices) {
+    List<OrderByElement> elements = new ArrayList<>();
+    for (int index : indices) {
+      OrderByElement element = new OrderByElement();
+      element.setExpression(schema.get(index));
+      elements.add(element);
+    }
+    return elements;
+  }
+
+  private static List<Tuple> collect(PhysicalOperator operator) {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = operator.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  private static Map<Tuple, Integer> countNestedLoopJoin(List<Tuple> left, List<Tuple> right) {
+    List<Tuple> joined = new ArrayList<>();
+    for (Tuple leftTuple : left) {
+      for (Tuple rightTuple : right) {
+        if (leftTuple.getInt(0) == rightTuple.getInt(0)) {
+          joined.add(leftTuple.append(rightTuple));
+        }
+      }
+    }
+    return count(joined);
+  }
+
+  private static Map<Tuple, Integer> count(List<Tuple> tuples) {
+    Map<Tuple, Integer> counts = new HashMap<>();
+    for (Tuple tuple : tuples) {
+      counts.merge(tuple, 1, Integer::sum);
+    }
+    return counts;
+  }
+
+  @AfterAll
+  static void cleanup() throws IOException {
+    CacheFileManagerRegistry.getInstance().cleanupAll();
+  }
+}
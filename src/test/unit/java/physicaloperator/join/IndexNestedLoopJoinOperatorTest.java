@@ -0,0 +1,192 @@
+package physicaloperator.join;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import catalog.DBCatalog;
+import config.IndexConfigManager;
+import config.IndexDefinition;
+import index.BPlusTree;
+import index.RecordId;
+import io.reader.BinaryTupleReader;
+import io.writer.BinaryTupleWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+import model.Tuple;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Table;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import physicaloperator.PhysicalOperator;
+import physicaloperator.scan.ScanOperator;
+import utils.DBConstants;
+
+class IndexNestedLoopJoinOperatorTest {
+
+  @TempDir Path tempDir;
+  private List<Tuple> sailors;
+  private List<Tuple> reserves;
+  private IndexDefinition index;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.createDirectories(tempDir.resolve("indexes"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Sailors A B C\nReserves G H\n");
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+    IndexConfigManager.getInstance().setIndexDir(tempDir.resolve("indexes").toString());
+
+    // sailors keys repeat within a batch, reserves keys repeat within an entry and some are missing
+    Random random = new Random(42);
+    sailors = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      sailors.add(new Tuple(new int[] {random.nextInt(300), random.nextInt(100), i}));
+    }
+    reserves = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      reserves.add(new Tuple(new int[] {random.nextInt(200) * 2, i}));
+    }
+    writeTable("Sailors", sailors, 3);
+    writeTable("Reserves", reserves, 2);
+
+    index = new IndexDefinition("Reserves", "G", false, 4);
+    buildIndex(index, 0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    IndexConfigManager.getInstance().setIndexDir(null);
+  }
+
+  @Test
+  void testMatchesNestedLoopJoin() throws JSQLParserException {
+    PhysicalOperator operator = buildJoin("Sailors.A = Reserves.G");
+
+    Map<Tuple, Integer> expected = countNestedLoopJoin(t -> true);
+    assertEquals(expected, count(collect(operator)));
+
+    // reset probes the index again
+    operator.reset();
+    assertEquals(expected, count(collect(operator)));
+  }
+
+  @Test
+  void testKeysBeyondTheBufferAreStreamed() throws JSQLParserException {
+    Map<Tuple, Integer> expected = countNestedLoopJoin(t -> true);
+
+    // a page holds the matches of some keys of a batch, no pages hold none
+    for (int bufferPages : new int[] {1, 0}) {
+      PhysicalOperator operator = buildJoin("Sailors.A = Reserves.G", bufferPages);
+      assertEquals(expected, count(collect(operator)));
+
+      operator.reset();
+      assertEquals(expected, count(collect(operator)));
+    }
+  }
+
+  @Test
+  void testRemainingConditionIsTested() throws JSQLParserException {
+    PhysicalOperator operator =
+        buildJoin("Reserves.G = Sailors.A AND Reserves.H < 500 AND Sailors.B > Reserves.G");
+
+    Map<Tuple, Integer> expected =
+        countNestedLoopJoin(t -> t.getInt(4) < 500 && t.getInt(1) > t.getInt(3));
+    assertEquals(expected, count(collect(operator)));
+  }
+
+  private PhysicalOperator buildJoin(String condition) throws JSQLParserException {
+    return buildJoin(condition, 10);
+  }
+
+  private PhysicalOperator buildJoin(String condition, int bufferPages)
+      throws JSQLParserException {
+    Expression expression = CCJSqlParserUtil.parseCondExpression(condition);
+    return new IndexNestedLoopJoinOperator(
+        new ScanOperator(new Table("Sailors")),
+        new Table("Reserves"),
+        index,
+        0,
+        expression,
+        bufferPages);
+  }
+
+  private void writeTable(String name, List<Tuple> tuples, int width) {
+    BinaryTupleWriter writer =
+        new BinaryTupleWriter(DBCatalog.getInstance().getTablePath(name), width);
+    for (Tuple tuple : tuples) {
+      writer.writeTuple(tuple);
+    }
+    writer.close();
+  }
+
+  /** Builds the index the way the index builder does. */
+  private void buildIndex(IndexDefinition index, int attributeIndex) throws IOException {
+    List<Integer> keys = new ArrayList<>();
+    List<RecordId> recordIds = new ArrayList<>();
+    String tablePath = DBCatalog.getInstance().getTablePath(index.getRelation());
+    try (FileChannel channel = new FileInputStream(tablePath).getChannel()) {
+      BinaryTupleReader reader = new BinaryTupleReader(channel);
+      RecordId recordId = new RecordId(reader.getCurrentPageNumber(), 0);
+      Tuple tuple;
+      while ((tuple = reader.getNextTuple()) != null) {
+        keys.add(tuple.getInt(attributeIndex));
+        recordIds.add(recordId);
+        recordId = new RecordId(reader.getCurrentPageNumber(), reader.getCurrentTupleNumber());
+      }
+    }
+
+    String indexPath = IndexConfigManager.getInstance().getIndexFilePath(index);
+    try (FileChannel channel = new FileOutputStream(indexPath).getChannel()) {
+      BPlusTree.buildAndSerializeBPlusTree(
+          channel,
+          ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE),
+          keys,
+          recordIds,
+          index.getOrder());
+    }
+  }
+
+  private Map<Tuple, Integer> countNestedLoopJoin(Predicate<Tuple> filter) {
+    List<Tuple> joined = new ArrayList<>();
+    for (Tuple sailor : sailors) {
+      for (Tuple reserve : reserves) {
+        Tuple tuple = sailor.append(reserve);
+        if (sailor.getInt(0) == reserve.getInt(0) && filter.test(tuple)) {
+          joined.add(tuple);
+        }
+      }
+    }
+    return count(joined);
+  }
+
+  private static List<Tuple> collect(PhysicalOperator operator) {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = operator.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  private static Map<Tuple, Integer> count(List<Tuple> tuples) {
+    Map<Tuple, Integer> counts = new HashMap<>();
+    for (Tuple tuple : tuples) {
+      counts.merge(tuple, 1, Integer::sum);
+    }
+    return counts;
+  }
+}
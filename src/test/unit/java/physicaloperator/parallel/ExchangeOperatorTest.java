@@ -0,0 +1,177 @@
+package physicaloperator.parallel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import model.Tuple;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import org.junit.jupiter.api.Test;
+import physicaloperator.PhysicalOperator;
+
+class ExchangeOperatorTest {
+
+  @Test
+  void testGatherReturnsAllTuples() {
+    List<PhysicalOperator> producers = new ArrayList<>();
+    List<Tuple> expected = new ArrayList<>();
+    for (int p = 0; p < 3; p++) {
+      List<Tuple> tuples = tuples(p * 5000, 5000);
+      producers.add(new ListOperator(tuples));
+      expected.addAll(tuples);
+    }
+
+    ExchangeOperator gather = ExchangeOperator.gather(producers);
+    assertEquals(sorted(expected), sorted(collect(gather)));
+  }
+
+  @Test
+  void testRepartitionKeepsKeysTogether() throws Exception {
+    List<PhysicalOperator> producers = new ArrayList<>();
+    List<Tuple> expected = new ArrayList<>();
+    for (int p = 0; p < 2; p++) {
+      // every key appears in both producers
+      List<Tuple> tuples = new ArrayList<>();
+      for (int i = 0; i < 3000; i++) {
+        tuples.add(new Tuple(new int[] {i % 500, p * 3000 + i}));
+      }
+      producers.add(new ListOperator(tuples));
+      expected.addAll(tuples);
+    }
+
+    List<ExchangeOperator> partitions = ExchangeOperator.repartition(producers, new int[] {0}, 4);
+
+    // the partitions are read at the same time, as the operators over them would be
+    ExecutorService executor = Executors.newFixedThreadPool(partitions.size());
+    List<Future<List<Tuple>>> results = new ArrayList<>();
+    for (ExchangeOperator partition : partitions) {
+      results.add(executor.submit(() -> collect(partition)));
+    }
+    List<Tuple> all = new ArrayList<>();
+    Set<Integer> seenKeys = new HashSet<>();
+    for (Future<List<Tuple>> result : results) {
+      Set<Integer> keys = new HashSet<>();
+      for (Tuple tuple : result.get()) {
+        keys.add(tuple.getInt(0));
+      }
+      for (int key : keys) {
+        assertTrue(seenKeys.add(key), "key " + key + " is in two partitions");
+      }
+      all.addAll(result.get());
+    }
+    executor.shutdown();
+
+    assertEquals(500, seenKeys.size());
+    assertEquals(sorted(expected), sorted(all));
+  }
+
+  @Test
+  void testResetRestartsProducers() {
+    List<PhysicalOperator> producers =
+        List.of(new ListOperator(tuples(0, 4000)), new ListOperator(tuples(4000, 4000)));
+    ExchangeOperator gather = ExchangeOperator.gather(producers);
+    List<Tuple> expected = sorted(collect(gather));
+    assertEquals(8000, expected.size());
+
+    gather.reset();
+    assertEquals(expected, sorted(collect(gather)));
+
+    // a reset before the end waits for the producers before starting them again
+    for (int i = 0; i < 10; i++) {
+      gather.getNextTuple();
+    }
+    gather.reset();
+    assertEquals(expected, sorted(collect(gather)));
+  }
+
+  @Test
+  void testProducerFailureIsRethrown() {
+    PhysicalOperator failing =
+        new ListOperator(tuples(0, 10)) {
+          @Override
+          public Tuple getNextTuple() {
+            throw new IllegalStateException("broken input");
+          }
+        };
+    ExchangeOperator gather =
+        ExchangeOperator.gather(List.of(new ListOperator(tuples(0, 10)), failing));
+
+    RuntimeException exception = assertThrows(RuntimeException.class, () -> collect(gather));
+    assertEquals("broken input", exception.getCause().getMessage());
+  }
+
+  @Test
+  void testCloseStopsProducers() {
+    // producers that never end would block forever on the full queue
+    List<PhysicalOperator> producers = new ArrayList<>();
+    for (int p = 0; p < 2; p++) {
+      producers.add(
+          new ListOperator(List.of()) {
+            @Override
+            public Tuple getNextTuple() {
+              return new Tuple(new int[] {1, 2});
+            }
+          });
+    }
+    ExchangeOperator gather = ExchangeOperator.gather(producers);
+    gather.getNextTuple();
+
+    assertTimeoutPreemptively(Duration.ofSeconds(10), gather::close);
+  }
+
+  private static List<Tuple> tuples(int first, int count) {
+    List<Tuple> tuples = new ArrayList<>();
+    for (int i = first; i < first + count; i++) {
+      tuples.add(new Tuple(new int[] {i % 97, i}));
+    }
+    return tuples;
+  }
+
+  private static List<Tuple> sorted(List<Tuple> tuples) {
+    List<Tuple> sorted = new ArrayList<>(tuples);
+    sorted.sort((a, b) -> Integer.compare(a.getInt(1), b.getInt(1)));
+    return sorted;
+  }
+
+  private static List<Tuple> collect(PhysicalOperator operator) {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = operator.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  /** A producer over a list, as a mock is not meant to be called from several threads. */
+  private static class ListOperator extends PhysicalOperator {
+    private final List<Tuple> tuples;
+    private int position;
+
+    ListOperator(List<Tuple> tuples) {
+      super(
+          new ArrayList<>(
+              List.of(new Column(new Table("T"), "A"), new Column(new Table("T"), "B"))));
+      this.tuples = tuples;
+    }
+
+    @Override
+    public void reset() {
+      position = 0;
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+      return position < tuples.size() ? tuples.get(position++) : null;
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package physicaloperator.scan;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import catalog.DBCatalog;
+import config.IndexConfigManager;
+import config.IndexDefinition;
+import index.BPlusTree;
+import index.RecordId;
+import io.cache.CacheFileManagerRegistry;
+import io.reader.BinaryTupleReader;
+import io.writer.BinaryTupleWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import model.Tuple;
+import net.sf.jsqlparser.schema.Table;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import physicaloperator.PhysicalOperator;
+import utils.DBConstants;
+
+class RecordIdSortedIndexScanOperatorTest {
+
+  @TempDir Path tempDir;
+  private List<Tuple> boats;
+  private IndexDefinition index;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.createDirectories(tempDir.resolve("indexes"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Boats D E F\n");
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+    IndexConfigManager.getInstance().setIndexDir(tempDir.resolve("indexes").toString());
+    CacheFileManagerRegistry.getInstance().setCacheDirectory(tempDir.resolve("tmp").toString());
+
+    // the third column numbers the tuples in file order
+    Random random = new Random(7);
+    boats = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      boats.add(new Tuple(new int[] {random.nextInt(100), random.nextInt(1000), i}));
+    }
+    BinaryTupleWriter writer =
+        new BinaryTupleWriter(DBCatalog.getInstance().getTablePath("Boats"), 3);
+    for (Tuple tuple : boats) {
+      writer.writeTuple(tuple);
+    }
+    writer.close();
+
+    index = new IndexDefinition("Boats", "E", false, 3);
+    buildIndex();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    CacheFileManagerRegistry.getInstance().cleanupAll();
+    IndexConfigManager.getInstance().setIndexDir(null);
+  }
+
+  @ParameterizedTest(name = "{0} pages of record ids")
+  @ValueSource(ints = {1, 2, 100})
+  void testRangeInFileOrder(int recordIdBufferPages) {
+    // about 3000 record ids, so one or two pages spill runs
+    PhysicalOperator operator =
+        new RecordIdSortedIndexScanOperator(
+            new Table("Boats"), index, 200, 799, recordIdBufferPages);
+
+    List<Tuple> expected = new ArrayList<>();
+    for (Tuple tuple : boats) {
+      if (tuple.getInt(1) >= 200 && tuple.getInt(1) <= 799) {
+        expected.add(tuple);
+      }
+    }
+    assertEquals(expected, collect(operator));
+
+    // reset reads the same record ids again
+    operator.reset();
+    assertEquals(expected, collect(operator));
+  }
+
+  @ParameterizedTest(name = "{0} pages of record ids")
+  @ValueSource(ints = {1, 100})
+  void testOpenRanges(int recordIdBufferPages) {
+    assertEquals(
+        boats,
+        collect(
+            new RecordIdSortedIndexScanOperator(
+                new Table("Boats"), index, null, null, recordIdBufferPages)));
+    assertEquals(
+        List.of(),
+        collect(
+            new RecordIdSortedIndexScanOperator(
+                new Table("Boats"), index, 1000, null, recordIdBufferPages)));
+  }
+
+  /** Builds the index the way the index builder does. */
+  private void buildIndex() throws IOException {
+    List<Integer> keys = new ArrayList<>();
+    List<RecordId> recordIds = new ArrayList<>();
+    try (FileChannel channel =
+        new FileInputStream(DBCatalog.getInstance().getTablePath("Boats")).getChannel()) {
+      BinaryTupleReader reader = new BinaryTupleReader(channel);
+      RecordId recordId = new RecordId(reader.getCurrentPageNumber(), 0);
+      Tuple tuple;
+      while ((tuple = reader.getNextTuple()) != null) {
+        keys.add(tuple.getInt(1));
+        recordIds.add(recordId);
+        recordId = new RecordId(reader.getCurrentPageNumber(), reader.getCurrentTupleNumber());
+      }
+    }
+
+    String indexPath = IndexConfigManager.getInstance().getIndexFilePath(index);
+    try (FileChannel channel = new FileOutputStream(indexPath).getChannel()) {
+      BPlusTree.buildAndSerializeBPlusTree(
+          channel,
+          ByteBuffer.allocate(DBConstants.INDEX_PAGE_SIZE),
+          keys,
+          recordIds,
+          index.getOrder());
+    }
+  }
+
+  private static List<Tuple> collect(PhysicalOperator operator) {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = operator.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+}
@@ -1,5 +1,6 @@
 package physicaloperator.sort;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -16,6 +17,7 @@ import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.select.OrderByElement;
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -47,9 +49,82 @@ public class ExternalSortOperatorTest {
     when(childOperator.getOutputSchema()).thenReturn(new ArrayList<>(childSchema));
   }
 
+  @AfterEach
+  void resetConfig() {
+    PhysicalPlanConfig.getInstance().setSortThreads(1);
+    PhysicalPlanConfig.getInstance()
+        .setRunGenerationMethod(PhysicalPlanConfig.RunGenerationMethod.FIXED);
+  }
+
   @ParameterizedTest(name = "Operation with #{arguments} page buffer")
   @MethodSource("pageBufferConfigs")
   void testLargeDataset(int bufferPages) throws Exception {
+    sortLargeDataset(bufferPages);
+  }
+
+  @ParameterizedTest(name = "Parallel operation with #{arguments} page buffer")
+  @MethodSource("pageBufferConfigs")
+  void testLargeDatasetParallel(int bufferPages) throws Exception {
+    PhysicalPlanConfig.getInstance().setSortThreads(4);
+    sortLargeDataset(bufferPages);
+  }
+
+  @ParameterizedTest(name = "Replacement selection with #{arguments} page buffer")
+  @MethodSource("pageBufferConfigs")
+  void testLargeDatasetReplacementSelection(int bufferPages) throws Exception {
+    PhysicalPlanConfig.getInstance()
+        .setRunGenerationMethod(PhysicalPlanConfig.RunGenerationMethod.REPLACEMENT_SELECTION);
+    sortLargeDataset(bufferPages);
+  }
+
+  @ParameterizedTest(name = "Parallel replacement selection with #{arguments} page buffer")
+  @MethodSource("pageBufferConfigs")
+  void testLargeDatasetParallelReplacementSelection(int bufferPages) throws Exception {
+    PhysicalPlanConfig.getInstance().setSortThreads(4);
+    PhysicalPlanConfig.getInstance()
+        .setRunGenerationMethod(PhysicalPlanConfig.RunGenerationMethod.REPLACEMENT_SELECTION);
+    sortLargeDataset(bufferPages);
+  }
+
+  @ParameterizedTest(name = "Presorted input with #{arguments} page buffer")
+  @MethodSource("pageBufferConfigs")
+  void testReplacementSelectionPresortedInputIsSingleRun(int bufferPages) {
+    PhysicalPlanConfig config = PhysicalPlanConfig.getInstance();
+    config.setSortMethod(PhysicalPlanConfig.SortMethod.EXTERNAL, bufferPages);
+    config.setRunGenerationMethod(PhysicalPlanConfig.RunGenerationMethod.REPLACEMENT_SELECTION);
+
+    List<Tuple> tuples = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      tuples.add(new Tuple(new int[] {i / 100, i % 100, i}));
+    }
+    OngoingStubbing<Tuple> stubbing = when(childOperator.getNextTuple());
+    for (Tuple tuple : tuples) {
+      stubbing = stubbing.thenReturn(tuple);
+    }
+    stubbing.thenReturn(null);
+
+    ExternalSortOperator op = new ExternalSortOperator(childOperator, orderBy(), bufferPages);
+
+    assertEquals(1, op.getInitialRunCount());
+    List<Tuple> resultTuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = op.getNextTuple()) != null) {
+      resultTuples.add(tuple);
+    }
+    assertEquals(tuples, resultTuples);
+  }
+
+  private List<OrderByElement> orderBy() {
+    List<OrderByElement> orderByElements = new ArrayList<>();
+    for (Column column : childSchema) {
+      OrderByElement obe = new OrderByElement();
+      obe.setExpression(column);
+      orderByElements.add(obe);
+    }
+    return orderByElements;
+  }
+
+  private void sortLargeDataset(int bufferPages) {
     // set physcial config
     PhysicalPlanConfig config = PhysicalPlanConfig.getInstance();
     config.setSortMethod(PhysicalPlanConfig.SortMethod.EXTERNAL, bufferPages);
@@ -0,0 +1,96 @@
+package physicaloperator.sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import model.Tuple;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import physicaloperator.PhysicalOperator;
+
+class TopNOperatorTest {
+
+  private List<Column> schema;
+  private List<OrderByElement> orderByElements;
+
+  @BeforeEach
+  void setUp() {
+    Table table = new Table("test");
+    schema = Arrays.asList(new Column(table, "col1"), new Column(table, "col2"));
+
+    OrderByElement orderByElement = new OrderByElement();
+    orderByElement.setExpression(schema.get(0));
+    orderByElements = List.of(orderByElement);
+  }
+
+  @ParameterizedTest(name = "Top {0}")
+  @ValueSource(ints = {1, 7, 100, 999, 1000, 5000})
+  void testMatchesSortedPrefix(int count) {
+    // few distinct sort keys, so ties have to keep the input order
+    Random random = new Random(count);
+    List<Tuple> input = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      input.add(new Tuple(new int[] {random.nextInt(20), i}));
+    }
+
+    List<Tuple> sorted = collect(new InMemorySortOperator(mockOperator(input), orderByElements));
+    List<Tuple> expected = sorted.subList(0, Math.min(count, sorted.size()));
+
+    TopNOperator operator = new TopNOperator(mockOperator(input), orderByElements, count);
+    List<Tuple> output = collect(operator);
+    assertEquals(expected, output);
+    for (int i = 0; i < output.size(); i++) {
+      assertSame(expected.get(i), output.get(i));
+    }
+
+    operator.reset();
+    assertEquals(expected, collect(operator));
+  }
+
+  @Test
+  void testTopZeroReadsNothing() {
+    PhysicalOperator child = mockOperator(List.of(new Tuple("1,2")));
+    assertEquals(List.of(), collect(new TopNOperator(child, orderByElements, 0)));
+    verify(child, never()).getNextTuple();
+  }
+
+  private PhysicalOperator mockOperator(List<Tuple> tuples) {
+    PhysicalOperator operator = mock(PhysicalOperator.class);
+    when(operator.getOutputSchema()).thenReturn(new ArrayList<>(schema));
+
+    int[] position = {0};
+    when(operator.getNextTuple())
+        .thenAnswer(invocation -> position[0] < tuples.size() ? tuples.get(position[0]++) : null);
+    doAnswer(
+            invocation -> {
+              position[0] = 0;
+              return null;
+            })
+        .when(operator)
+        .reset();
+    return operator;
+  }
+
+  private static List<Tuple> collect(PhysicalOperator operator) {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = operator.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+}
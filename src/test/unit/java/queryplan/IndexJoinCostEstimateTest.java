@@ -0,0 +1,36 @@
+package queryplan;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class IndexJoinCostEstimateTest {
+
+  // 10000 tuples on 123 pages, under an index of height 3
+
+  @Test
+  void testUnclusteredReadsAPagePerMatch() {
+    IndexJoinCostEstimate estimate =
+        IndexJoinCostEstimate.estimate(100, 123, 10000, 1000, 3, false);
+
+    // 3 index pages and 10 matches per probe
+    assertEquals(10, estimate.getMatchesPerKey(), 1e-9);
+    assertEquals(100 * (3 + 10), estimate.getCost(), 1e-9);
+  }
+
+  @Test
+  void testClusteredReadsConsecutivePages() {
+    IndexJoinCostEstimate estimate = IndexJoinCostEstimate.estimate(100, 123, 10000, 10, 3, true);
+
+    // the 1000 matches of a key are on a tenth of the pages
+    assertEquals(100 * (3 + 13), estimate.getCost(), 1e-9);
+  }
+
+  @Test
+  void testClusteredReadsAtLeastOnePage() {
+    IndexJoinCostEstimate estimate =
+        IndexJoinCostEstimate.estimate(100, 123, 10000, 10000, 3, true);
+
+    assertEquals(100 * (3 + 1), estimate.getCost(), 1e-9);
+  }
+}
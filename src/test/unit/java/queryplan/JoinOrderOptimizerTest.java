@@ -0,0 +1,159 @@
+package queryplan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import catalog.TableStats;
+import config.PhysicalPlanConfig;
+import config.PhysicalPlanConfig.JoinMethod;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import logicaloperator.LogicalJoin;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.Join;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JoinOrderOptimizerTest {
+
+  private final Map<String, TableStats> stats = new HashMap<>();
+  private final PhysicalPlanConfig config = PhysicalPlanConfig.getInstance();
+
+  @BeforeEach
+  void setUp() throws IOException {
+    for (String line :
+        new String[] {
+          "Big 10000 X,0,9999 Z,0,9 W,0,9",
+          "Large 10000 X,0,9999",
+          "Mid 100 X,0,9999 Y,0,99",
+          "Small 10 Y,0,99",
+          "Twin 100 X,0,99"
+        }) {
+      TableStats tableStats = TableStats.deserialize(line);
+      stats.put(tableStats.getTableName(), tableStats);
+    }
+    config.setJoinMethod(JoinMethod.BNLJ, 5);
+    config.setSortMethod(PhysicalPlanConfig.SortMethod.IN_MEMORY, 0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    config.setJoinMethod(JoinMethod.TNLJ, 0);
+  }
+
+  @Test
+  void testSmallIntermediateResultsFirst() throws JSQLParserException {
+    JoinOrderOptimizer optimizer =
+        optimize("SELECT * FROM Big, Mid, Small WHERE Big.X = Mid.X AND Mid.Y = Small.Y");
+
+    // Mid join Small has 10 tuples, Big join Mid 100, and Big with Small is a cross product
+    assertEquals(List.of("Small", "Mid", "Big"), names(optimizer.getJoinOrder()));
+    assertEquals(10, optimizer.getEstimatedCardinality(), 1e-9);
+  }
+
+  @Test
+  void testFiltersChangeTheOrder() throws JSQLParserException {
+    // the filter leaves about 5 tuples of Big, which makes Big the smallest input
+    JoinOrderOptimizer optimizer =
+        optimize(
+            "SELECT * FROM Mid, Small, Big WHERE Big.X = Mid.X AND Mid.Y = Small.Y"
+                + " AND Big.X >= 10 AND 15 > Big.X");
+
+    assertEquals(List.of("Big", "Mid", "Small"), names(optimizer.getJoinOrder()));
+  }
+
+  @Test
+  void testEqualPlansKeepFromOrder() throws JSQLParserException {
+    JoinOrderOptimizer optimizer = optimize("SELECT * FROM Twin T1, Twin T2 WHERE T1.X = T2.X");
+
+    assertEquals(List.of("T1", "T2"), names(optimizer.getJoinOrder()));
+    assertEquals(100, optimizer.getEstimatedCardinality(), 1e-9);
+  }
+
+  @Test
+  void testJoinMethods() throws JSQLParserException {
+    String equiJoin = "SELECT * FROM Big, Large WHERE Big.X = Large.X";
+    String rangeJoin = "SELECT * FROM Big, Large WHERE Big.X < Large.X";
+
+    // Big is 30 pages and Large 10, partitioning them is cheaper than 10 blocks of Big or sorting
+    // to disk
+    config.setJoinMethod(JoinMethod.HASH, 3);
+    config.setSortMethod(PhysicalPlanConfig.SortMethod.EXTERNAL, 3);
+    assertEquals(JoinMethod.HASH, optimize(equiJoin).getJoinMethod(1));
+    assertEquals(JoinMethod.BNLJ, optimize(rangeJoin).getJoinMethod(1));
+
+    // without a join buffer only the tuple nested loop join and the sort merge join are left
+    config.setJoinMethod(JoinMethod.TNLJ, 0);
+    config.setSortMethod(PhysicalPlanConfig.SortMethod.IN_MEMORY, 0);
+    assertEquals(JoinMethod.SMJ, optimize(equiJoin).getJoinMethod(1));
+    assertEquals(JoinMethod.TNLJ, optimize(rangeJoin).getJoinMethod(1));
+  }
+
+  @Test
+  void testCostEstimateOfChosenMethod() throws JSQLParserException {
+    config.setJoinMethod(JoinMethod.HASH, 3);
+    config.setSortMethod(PhysicalPlanConfig.SortMethod.EXTERNAL, 3);
+    LogicalJoin.CostEstimate estimate =
+        optimize("SELECT * FROM Big, Large WHERE Big.X = Large.X").getCostEstimate(1);
+
+    // Large is read once, then both inputs are partitioned to disk and read back
+    assertEquals(10000, estimate.outerTuples(), 1e-9);
+    assertEquals(10 + 2 * (30 + 10), estimate.cost(), 1e-9);
+  }
+
+  @Test
+  void testFromOrderEstimatesConfiguredMethod() throws JSQLParserException {
+    config.setJoinMethod(JoinMethod.TNLJ, 0);
+    JoinOrderOptimizer optimizer =
+        estimateFromOrder(
+            "SELECT * FROM Big, Mid, Small WHERE Big.X = Mid.X AND Mid.Y = Small.Y");
+
+    // the order and the method stay, every Big tuple scans the one page of Mid
+    assertEquals(List.of("Big", "Mid", "Small"), names(optimizer.getJoinOrder()));
+    assertNull(optimizer.getJoinMethod(1));
+    assertEquals(10000, optimizer.getCostEstimate(1).cost(), 1e-9);
+    assertEquals(100, optimizer.getCostEstimate(2).outerTuples(), 1e-9);
+    assertEquals(100, optimizer.getCostEstimate(2).cost(), 1e-9);
+
+    // a hash join of a range condition is built as a block nested loop join, 10 blocks of Big
+    config.setJoinMethod(JoinMethod.HASH, 3);
+    LogicalJoin.CostEstimate estimate =
+        estimateFromOrder("SELECT * FROM Big, Large WHERE Big.X < Large.X").getCostEstimate(1);
+    assertEquals(10 * 10, estimate.cost(), 1e-9);
+  }
+
+  private JoinOrderOptimizer optimize(String query) throws JSQLParserException {
+    PlainSelect select = (PlainSelect) CCJSqlParserUtil.parse(query);
+    return new JoinOrderOptimizer(tables(select), select.getWhere(), stats::get, config);
+  }
+
+  private JoinOrderOptimizer estimateFromOrder(String query) throws JSQLParserException {
+    PlainSelect select = (PlainSelect) CCJSqlParserUtil.parse(query);
+    return JoinOrderOptimizer.estimateFromOrder(
+        tables(select), select.getWhere(), stats::get, config);
+  }
+
+  private static List<Table> tables(PlainSelect select) {
+    List<Table> tables = new ArrayList<>();
+    tables.add((Table) select.getFromItem());
+    for (Join join : select.getJoins()) {
+      tables.add((Table) join.getRightItem());
+    }
+    return tables;
+  }
+
+  private static List<String> names(List<Table> tables) {
+    List<String> names = new ArrayList<>();
+    for (Table table : tables) {
+      names.add(table.getAlias() != null ? table.getAlias().getName() : table.getName());
+    }
+    return names;
+  }
+}
@@ -0,0 +1,162 @@
+package queryplan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import catalog.DBCatalog;
+import config.IndexConfigManager;
+import config.PhysicalPlanConfig;
+import index.IndexBuilder;
+import io.cache.CacheFileManagerRegistry;
+import io.writer.BinaryTupleWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import model.Tuple;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import physicaloperator.PhysicalOperator;
+import physicaloperator.join.IndexNestedLoopJoinOperator;
+
+class PhysicalPlanBuilderTest {
+
+  @TempDir Path tempDir;
+  private List<Tuple> sailors;
+  private List<Tuple> reserves;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Sailors A B C\nReserves G H\n");
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+
+    // both tables span several pages, so that their scans are split between the fragments
+    Random random = new Random(42);
+    sailors = new ArrayList<>();
+    for (int i = 0; i < 1500; i++) {
+      sailors.add(new Tuple(new int[] {random.nextInt(8000), random.nextInt(100), i}));
+    }
+    reserves = new ArrayList<>();
+    for (int i = 0; i < 8000; i++) {
+      reserves.add(new Tuple(new int[] {random.nextInt(8000), i}));
+    }
+    writeTable("Sailors", sailors, 3);
+    writeTable("Reserves", reserves, 2);
+
+    PhysicalPlanConfig config = PhysicalPlanConfig.getInstance();
+    config.setSortMethod(PhysicalPlanConfig.SortMethod.IN_MEMORY, 0);
+    config.setScanMethod(PhysicalPlanConfig.ScanMethod.FULL_SCAN);
+    config.setJoinOrderMethod(PhysicalPlanConfig.JoinOrderMethod.FROM_CLAUSE);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    PhysicalPlanConfig config = PhysicalPlanConfig.getInstance();
+    config.setParallelism(1);
+    config.setScanMethod(PhysicalPlanConfig.ScanMethod.FULL_SCAN);
+    Files.writeString(tempDir.resolve("index_info.txt"), "");
+    IndexConfigManager.getInstance().loadConfig(tempDir.resolve("index_info.txt").toString());
+    IndexConfigManager.getInstance().setIndexDir(null);
+  }
+
+  @Test
+  void testNestedLoopJoinInnerInputIsNotGathered() throws JSQLParserException {
+    PhysicalPlanConfig config = PhysicalPlanConfig.getInstance();
+    config.setJoinMethod(PhysicalPlanConfig.JoinMethod.TNLJ, 0);
+    config.setParallelism(4);
+
+    PhysicalOperator plan =
+        buildPlan("SELECT * FROM Sailors, Reserves WHERE Sailors.A = Reserves.G");
+
+    // the outer input is scanned in parallel, the inner one is rescanned in the join's thread
+    String[] lines = plan.explain().split(System.lineSeparator());
+    assertTrue(lines[0].startsWith("TupleNestedLoopJoin"), lines[0]);
+    assertTrue(lines[1].startsWith("-Gather[4 producers]"), lines[1]);
+    assertEquals("-Scan[Reserves]", lines[lines.length - 1]);
+
+    Map<Tuple, Integer> expected = countEquiJoin();
+    assertEquals(expected, count(collect(plan)));
+
+    plan.reset();
+    assertEquals(expected, count(collect(plan)));
+    plan.close();
+  }
+
+  @Test
+  void testIndexJoinIsChosenInFromOrder() throws IOException, JSQLParserException {
+    Files.writeString(tempDir.resolve("index_info.txt"), "Reserves G 0 4\n");
+    IndexConfigManager indexConfigManager = IndexConfigManager.getInstance();
+    indexConfigManager.loadConfig(tempDir.resolve("index_info.txt").toString());
+    indexConfigManager.setIndexDir(Files.createDirectories(tempDir.resolve("indexes")).toString());
+    CacheFileManagerRegistry.getInstance().setCacheDirectory(tempDir.resolve("tmp").toString());
+    new IndexBuilder().buildIndexes();
+
+    PhysicalPlanConfig config = PhysicalPlanConfig.getInstance();
+    config.setJoinMethod(PhysicalPlanConfig.JoinMethod.TNLJ, 0);
+    config.setScanMethod(PhysicalPlanConfig.ScanMethod.INDEX_SCAN);
+
+    // the optimizer is off, the stats still tell that probing the index for about one match per
+    // Sailors tuple beats scanning the 16 pages of Reserves for each of them
+    PhysicalOperator plan =
+        buildPlan("SELECT * FROM Sailors, Reserves WHERE Sailors.A = Reserves.G");
+    assertInstanceOf(IndexNestedLoopJoinOperator.class, plan);
+    assertEquals(countEquiJoin(), count(collect(plan)));
+    plan.close();
+  }
+
+  private static PhysicalOperator buildPlan(String query) throws JSQLParserException {
+    PhysicalPlanBuilder builder = new PhysicalPlanBuilder();
+    new LogicalPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query)).accept(builder);
+    return builder.getPhysicalPlan();
+  }
+
+  private void writeTable(String name, List<Tuple> tuples, int width) {
+    BinaryTupleWriter writer =
+        new BinaryTupleWriter(DBCatalog.getInstance().getTablePath(name), width);
+    for (Tuple tuple : tuples) {
+      writer.writeTuple(tuple);
+    }
+    writer.close();
+  }
+
+  private Map<Tuple, Integer> countEquiJoin() {
+    Map<Integer, List<Tuple>> reservesByKey = new HashMap<>();
+    for (Tuple reserve : reserves) {
+      reservesByKey.computeIfAbsent(reserve.getInt(0), key -> new ArrayList<>()).add(reserve);
+    }
+    List<Tuple> joined = new ArrayList<>();
+    for (Tuple sailor : sailors) {
+      for (Tuple reserve : reservesByKey.getOrDefault(sailor.getInt(0), List.of())) {
+        joined.add(sailor.append(reserve));
+      }
+    }
+    return count(joined);
+  }
+
+  private static List<Tuple> collect(PhysicalOperator operator) {
+    List<Tuple> tuples = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = operator.getNextTuple()) != null) {
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  private static Map<Tuple, Integer> count(List<Tuple> tuples) {
+    Map<Tuple, Integer> counts = new HashMap<>();
+    for (Tuple tuple : tuples) {
+      counts.merge(tuple, 1, Integer::sum);
+    }
+    return counts;
+  }
+}
@@ -0,0 +1,104 @@
+package queryplan;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import catalog.DBCatalog;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import logicaloperator.LogicalAggregate;
+import logicaloperator.LogicalJoin;
+import logicaloperator.LogicalOperator;
+import logicaloperator.LogicalProject;
+import logicaloperator.LogicalScan;
+import logicaloperator.LogicalSelect;
+import logicaloperator.LogicalSort;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProjectionPushdownTest {
+
+  @TempDir Path tempDir;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Files.createDirectories(tempDir.resolve("data"));
+    Files.writeString(tempDir.resolve("schema.txt"), "Sailors A B C\nBoats D E F\nReserves G H\n");
+    DBCatalog.getInstance().setDataDirectory(tempDir.toString());
+  }
+
+  @Test
+  void testJoinInputsKeepUsedColumns() throws JSQLParserException {
+    LogicalOperator plan =
+        buildPlan(
+            "SELECT S.C, B.F FROM Sailors S, Reserves R, Boats B"
+                + " WHERE S.A = R.G AND R.H = B.D AND S.B < 3");
+
+    LogicalJoin topJoin = (LogicalJoin) ((LogicalProject) plan).getChildOperator();
+    LogicalJoin bottomJoin = (LogicalJoin) projected(topJoin.getLeftChild(), "S.C", "R.H");
+    assertEquals(List.of("B.D", "B.F"), columns(topJoin.getRightChild()));
+
+    // the filter column of Sailors is dropped above its selection
+    LogicalProject sailors = (LogicalProject) bottomJoin.getLeftChild();
+    assertEquals(List.of("S.A", "S.C"), columns(sailors));
+    assertInstanceOf(LogicalSelect.class, sailors.getChildOperator());
+    assertEquals(List.of("R.G", "R.H"), columns(bottomJoin.getRightChild()));
+    assertInstanceOf(LogicalScan.class, bottomJoin.getRightChild());
+  }
+
+  @Test
+  void testSortAndAggregateColumnsAreKept() throws JSQLParserException {
+    LogicalOperator plan =
+        buildPlan(
+            "SELECT R.H, SUM(S.C) FROM Sailors S, Reserves R WHERE S.A = R.G GROUP BY R.H"
+                + " ORDER BY R.H");
+
+    LogicalProject project = (LogicalProject) ((LogicalSort) plan).getChildOperator();
+    LogicalAggregate aggregate = (LogicalAggregate) project.getChildOperator();
+    LogicalJoin join = (LogicalJoin) projected(aggregate.getChildOperator(), "S.C", "R.H");
+    assertEquals(List.of("S.A", "S.C"), columns(join.getLeftChild()));
+    assertInstanceOf(LogicalScan.class, join.getRightChild());
+  }
+
+  @Test
+  void testSelectAllKeepsEveryColumn() throws JSQLParserException {
+    LogicalOperator plan = buildPlan("SELECT * FROM Sailors S, Reserves R WHERE S.A = R.G");
+
+    LogicalJoin join = (LogicalJoin) plan;
+    assertInstanceOf(LogicalScan.class, join.getLeftChild());
+    assertInstanceOf(LogicalScan.class, join.getRightChild());
+  }
+
+  private static LogicalOperator buildPlan(String query) throws JSQLParserException {
+    return new LogicalPlanBuilder().buildPlan(CCJSqlParserUtil.parse(query));
+  }
+
+  /** Checks that an operator is a projection to the given columns and returns its child. */
+  private static LogicalOperator projected(LogicalOperator operator, String... columns) {
+    LogicalProject project = assertInstanceOf(LogicalProject.class, operator);
+    assertEquals(List.of(columns), columns(project));
+    return project.getChildOperator();
+  }
+
+  /** Returns the column names of a projection, or of all columns of a scan. */
+  private static List<String> columns(LogicalOperator operator) {
+    List<String> names = new ArrayList<>();
+    if (operator instanceof LogicalProject project) {
+      for (Column column : project.getOutputSchema()) {
+        names.add(column.getFullyQualifiedName(true));
+      }
+    } else {
+      LogicalScan scan = (LogicalScan) operator;
+      for (Column column : DBCatalog.getInstance().getSchemaForTable(scan.getTable().getName())) {
+        names.add(new Column(scan.getTable(), column.getColumnName()).getFullyQualifiedName(true));
+      }
+    }
+    return names;
+  }
+}
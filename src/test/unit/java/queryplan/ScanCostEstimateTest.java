@@ -0,0 +1,54 @@
+package queryplan;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ScanCostEstimateTest {
+
+  // 10000 tuples of 3 columns on 123 pages, under an index of height 3 with 40 leaves
+
+  @Test
+  void testNarrowRangeUsesIndex() {
+    ScanCostEstimate estimate = ScanCostEstimate.estimate(0.001, 123, 10000, 3, 40, false);
+
+    // 2 inner nodes, 1 leaf and nearly one page per matching tuple
+    assertEquals(13, estimate.getIndexScanCost(), 1e-9);
+    assertEquals(123, estimate.getFullScanCost(), 1e-9);
+    assertTrue(estimate.isIndexScanCheaper());
+  }
+
+  @Test
+  void testWideUnclusteredRangeUsesFullScan() {
+    ScanCostEstimate estimate = ScanCostEstimate.estimate(0.2, 123, 10000, 3, 40, false);
+
+    // 2000 matching tuples are on every page, each read once after the record ids are sorted
+    assertEquals(2 + 8 + 123, estimate.getIndexScanCost(), 1e-9);
+    assertFalse(estimate.isIndexScanCheaper());
+  }
+
+  @Test
+  void testUnclusteredRangeReadsEachPageOnce() {
+    ScanCostEstimate estimate = ScanCostEstimate.estimate(0.02, 123, 10000, 3, 40, false);
+
+    // 200 matching tuples fall on about 99 distinct pages, not 200
+    assertEquals(2 + 1 + 99, estimate.getIndexScanCost(), 1e-9);
+    assertTrue(estimate.isIndexScanCheaper());
+  }
+
+  @Test
+  void testWideClusteredRangeUsesIndex() {
+    ScanCostEstimate estimate = ScanCostEstimate.estimate(0.2, 123, 10000, 3, 40, true);
+
+    // the matching tuples are on a fifth of the pages
+    assertEquals(2 + 8 + 25, estimate.getIndexScanCost(), 1e-9);
+    assertTrue(estimate.isIndexScanCheaper());
+  }
+
+  @Test
+  void testWholeRelationUsesFullScan() {
+    ScanCostEstimate estimate = ScanCostEstimate.estimate(1, 123, 10000, 3, 40, true);
+
+    assertFalse(estimate.isIndexScanCheaper());
+  }
+}
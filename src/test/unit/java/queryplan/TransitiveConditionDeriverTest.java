@@ -0,0 +1,38 @@
+package queryplan;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import org.junit.jupiter.api.Test;
+
+class TransitiveConditionDeriverTest {
+
+  @Test
+  void testConstantsFollowEqualities() throws JSQLParserException {
+    Expression condition =
+        CCJSqlParserUtil.parseCondExpression("A.x = B.y AND B.y = C.z AND B.y = 5 AND 7 > C.z");
+
+    assertEquals(
+        "A.x = B.y AND B.y = C.z AND B.y = 5 AND 7 > C.z AND A.x = 5 AND C.z = 5 AND A.x < 7"
+            + " AND B.y < 7",
+        TransitiveConditionDeriver.expand(condition).toString());
+  }
+
+  @Test
+  void testExistingComparisonsAreNotRepeated() throws JSQLParserException {
+    Expression condition =
+        CCJSqlParserUtil.parseCondExpression("A.x = B.y AND B.y >= 3 AND A.x >= 3");
+
+    assertSame(condition, TransitiveConditionDeriver.expand(condition));
+  }
+
+  @Test
+  void testUnrelatedColumnsAreLeftAlone() throws JSQLParserException {
+    Expression condition =
+        CCJSqlParserUtil.parseCondExpression("A.x = B.y AND C.z = 5 AND A.x < B.w");
+
+    assertSame(condition, TransitiveConditionDeriver.expand(condition));
+  }
+}
@@ -0,0 +1,61 @@
+package utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.cache.CacheFileManagerRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import model.Tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ExternalRowSorterTest {
+
+  @TempDir Path tempDir;
+
+  @BeforeEach
+  void setUp() {
+    CacheFileManagerRegistry.getInstance().setCacheDirectory(tempDir.toString());
+  }
+
+  @ParameterizedTest(name = "Sorting with {0} buffer pages")
+  @ValueSource(ints = {1, 3, 1000})
+  void testSortIsStable(int bufferPages) throws IOException {
+    // the second column numbers the rows, so a stable sort keeps it ascending within a key
+    Random random = new Random(bufferPages);
+    List<Tuple> rows = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      rows.add(new Tuple(new int[] {random.nextInt(41) - 20, i, random.nextInt()}));
+    }
+
+    List<Tuple> sorted = new ArrayList<>();
+    try (ExternalRowSorter sorter = new ExternalRowSorter(3, 0, bufferPages)) {
+      int[] row = new int[3];
+      for (Tuple tuple : rows) {
+        // add both ways, reusing the array
+        if (tuple.getInt(1) % 2 == 0) {
+          sorter.add(tuple);
+        } else {
+          tuple.copyInto(row, 0);
+          sorter.add(row);
+        }
+      }
+
+      LoserTreeMerger.Source source = sorter.sort();
+      for (Tuple tuple = source.getNextTuple(); tuple != null; tuple = source.getNextTuple()) {
+        sorted.add(tuple);
+      }
+      assertEquals(bufferPages < 1000, sorter.getRunCount() > 1);
+    }
+
+    rows.sort(Comparator.comparingInt(tuple -> tuple.getInt(0)));
+    assertEquals(rows, sorted);
+    assertEquals(0, tempDir.toFile().list().length);
+  }
+}
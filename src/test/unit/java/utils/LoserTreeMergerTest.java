@@ -0,0 +1,86 @@
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import model.Tuple;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LoserTreeMergerTest {
+
+  @ParameterizedTest(name = "Merging {0} streams")
+  @ValueSource(ints = {1, 2, 3, 7, 16})
+  void testMergeMatchesSort(int streamCount) throws IOException {
+    Random random = new Random(streamCount);
+    for (int[] keys : new int[][] {{0}, {1, 0}, {2, 0, 1}}) {
+      TupleComparator comparator = new TupleComparator(keys);
+
+      List<List<Tuple>> streams = new ArrayList<>();
+      List<Tuple> expected = new ArrayList<>();
+      for (int i = 0; i < streamCount; i++) {
+        List<Tuple> stream = new ArrayList<>();
+        int size = random.nextInt(200);
+        for (int j = 0; j < size; j++) {
+          // negative values check the sign handling of the key prefix
+          stream.add(
+              new Tuple(
+                  new int[] {random.nextInt(21) - 10, random.nextInt(21) - 10, random.nextInt(5)}));
+        }
+        stream.sort(comparator);
+        streams.add(stream);
+        expected.addAll(stream);
+      }
+      expected.sort(comparator);
+
+      List<Tuple> merged = merge(streams, keys);
+      assertEquals(expected.size(), merged.size());
+      for (int i = 0; i < merged.size(); i++) {
+        assertEquals(0, comparator.compare(expected.get(i), merged.get(i)), "Position " + i);
+      }
+    }
+  }
+
+  @Test
+  void testTiesAreStable() throws IOException {
+    Tuple first = new Tuple("1,1");
+    Tuple second = new Tuple("1,2");
+    Tuple third = new Tuple("1,3");
+
+    List<Tuple> merged =
+        merge(List.of(List.of(first), List.of(second), List.of(third)), new int[] {0});
+
+    assertEquals(List.of(first, second, third), merged);
+  }
+
+  @Test
+  void testEmptyStreams() throws IOException {
+    assertEquals(List.of(), merge(List.of(), new int[] {0}));
+    assertEquals(
+        List.of(new Tuple("1,2")),
+        merge(List.of(List.of(), List.of(new Tuple("1,2")), List.of()), new int[] {0}));
+  }
+
+  private static List<Tuple> merge(List<List<Tuple>> streams, int[] keys) throws IOException {
+    List<LoserTreeMerger.Source> sources = new ArrayList<>();
+    for (List<Tuple> stream : streams) {
+      Iterator<Tuple> iterator = stream.iterator();
+      sources.add(() -> iterator.hasNext() ? iterator.next() : null);
+    }
+
+    LoserTreeMerger merger = new LoserTreeMerger(sources, keys);
+    List<Tuple> merged = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = merger.getNextTuple()) != null) {
+      merged.add(tuple);
+    }
+    assertNull(merger.getNextTuple());
+    return merged;
+  }
+}